@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.checker.DeadlineChecker;
+import btrplace.model.constraint.checker.SatConstraintChecker;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A constraint to force the actions that manipulate the given VMs and nodes
+ * to be terminated at a given moment at the latest.
+ * <p/>
+ * Combined with {@link Offline}, it allows to evacuate and turn off a node
+ * before a maintenance window starts.
+ * <p/>
+ * The restriction provided by the constraint is only continuous.
+ *
+ * @author Fabien Hermenier
+ */
+public class Deadline extends SatConstraint {
+
+    private int deadline;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param vms      the involved VMs
+     * @param nodes    the involved nodes
+     * @param deadline the moment the actions must be terminated at the latest
+     */
+    public Deadline(Collection<VM> vms, Collection<Node> nodes, int deadline) {
+        super(vms, nodes, true);
+        if (deadline < 0) {
+            throw new IllegalArgumentException("The deadline must be >= 0");
+        }
+        this.deadline = deadline;
+    }
+
+    /**
+     * Get the moment the actions must be terminated at the latest.
+     *
+     * @return a positive moment
+     */
+    public int getDeadline() {
+        return deadline;
+    }
+
+    @Override
+    public boolean setContinuous(boolean b) {
+        if (b) {
+            super.setContinuous(b);
+        }
+        return b;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Deadline that = (Deadline) o;
+        return getInvolvedVMs().equals(that.getInvolvedVMs())
+                && getInvolvedNodes().equals(that.getInvolvedNodes())
+                && deadline == that.deadline;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getInvolvedVMs(), getInvolvedNodes(), deadline);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("deadline(")
+                .append("vms=").append(getInvolvedVMs())
+                .append(", nodes=").append(getInvolvedNodes())
+                .append(", deadline=").append(deadline)
+                .append(", continuous")
+                .append(')').toString();
+    }
+
+    @Override
+    public SatConstraintChecker getChecker() {
+        return new DeadlineChecker(this);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.checker.ForbiddenIntervalChecker;
+import btrplace.model.constraint.checker.SatConstraintChecker;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A constraint to prevent the actions that manipulate the given VMs and nodes
+ * to be executed during a given interval. An action must then be terminated
+ * at the beginning of the interval or start at its end.
+ * <p/>
+ * The restriction provided by the constraint is only continuous.
+ *
+ * @author Fabien Hermenier
+ */
+public class ForbiddenInterval extends SatConstraint {
+
+    private int from;
+
+    private int to;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param vms   the involved VMs
+     * @param nodes the involved nodes
+     * @param from  the beginning of the interval
+     * @param to    the end of the interval, excluded
+     */
+    public ForbiddenInterval(Collection<VM> vms, Collection<Node> nodes, int from, int to) {
+        super(vms, nodes, true);
+        if (from < 0 || to <= from) {
+            throw new IllegalArgumentException("The interval must be non-empty and start at a positive moment");
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Get the beginning of the interval.
+     *
+     * @return a positive moment
+     */
+    public int getFrom() {
+        return from;
+    }
+
+    /**
+     * Get the end of the interval.
+     *
+     * @return a moment after the beginning of the interval
+     */
+    public int getTo() {
+        return to;
+    }
+
+    @Override
+    public boolean setContinuous(boolean b) {
+        if (b) {
+            super.setContinuous(b);
+        }
+        return b;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ForbiddenInterval that = (ForbiddenInterval) o;
+        return getInvolvedVMs().equals(that.getInvolvedVMs())
+                && getInvolvedNodes().equals(that.getInvolvedNodes())
+                && from == that.from
+                && to == that.to;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getInvolvedVMs(), getInvolvedNodes(), from, to);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("forbiddenInterval(")
+                .append("vms=").append(getInvolvedVMs())
+                .append(", nodes=").append(getInvolvedNodes())
+                .append(", interval=[").append(from).append(", ").append(to).append("[")
+                .append(", continuous")
+                .append(')').toString();
+    }
+
+    @Override
+    public SatConstraintChecker getChecker() {
+        return new ForbiddenIntervalChecker(this);
+    }
+}
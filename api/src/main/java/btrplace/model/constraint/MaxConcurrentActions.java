@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.checker.MaxConcurrentActionsChecker;
+import btrplace.model.constraint.checker.SatConstraintChecker;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+
+/**
+ * Restrict the number of actions that can be executed simultaneously
+ * on each of the given nodes.
+ * <p/>
+ * The incoming actions of a node are the actions that make a VM arrive on it: the migrations
+ * that target the node, and the boot and the resume of VMs on the node. The outgoing actions of a node
+ * are the actions that make a VM leave it: the migrations that leave the node, and the shutdown
+ * and the suspend of VMs on the node. The two kinds of actions are restricted separately.
+ * <p/>
+ * The restriction provided by the constraint is only continuous.
+ *
+ * @author Fabien Hermenier
+ */
+public class MaxConcurrentActions extends SatConstraint {
+
+    private int incoming;
+
+    private int outgoing;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param nodes    the involved nodes
+     * @param incoming the maximum number of incoming actions executed simultaneously on each node
+     * @param outgoing the maximum number of outgoing actions executed simultaneously on each node
+     */
+    public MaxConcurrentActions(Collection<Node> nodes, int incoming, int outgoing) {
+        super(Collections.<VM>emptySet(), nodes, true);
+        if (incoming < 0 || outgoing < 0) {
+            throw new IllegalArgumentException("The maximum number of actions must be >= 0");
+        }
+        this.incoming = incoming;
+        this.outgoing = outgoing;
+    }
+
+    /**
+     * Get the maximum number of incoming actions executed simultaneously on a node.
+     *
+     * @return a positive integer
+     */
+    public int getMaxIncoming() {
+        return incoming;
+    }
+
+    /**
+     * Get the maximum number of outgoing actions executed simultaneously on a node.
+     *
+     * @return a positive integer
+     */
+    public int getMaxOutgoing() {
+        return outgoing;
+    }
+
+    @Override
+    public boolean setContinuous(boolean b) {
+        if (b) {
+            super.setContinuous(b);
+        }
+        return b;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        MaxConcurrentActions that = (MaxConcurrentActions) o;
+        return getInvolvedNodes().equals(that.getInvolvedNodes())
+                && incoming == that.incoming
+                && outgoing == that.outgoing;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getInvolvedNodes(), incoming, outgoing);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("maxConcurrentActions(")
+                .append("nodes=").append(getInvolvedNodes())
+                .append(", incoming=").append(incoming)
+                .append(", outgoing=").append(outgoing)
+                .append(", continuous")
+                .append(')').toString();
+    }
+
+    @Override
+    public SatConstraintChecker getChecker() {
+        return new MaxConcurrentActionsChecker(this);
+    }
+}
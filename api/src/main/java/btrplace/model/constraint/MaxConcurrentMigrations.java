@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.checker.MaxConcurrentMigrationsChecker;
+import btrplace.model.constraint.checker.SatConstraintChecker;
+
+import java.util.Collections;
+
+/**
+ * Restrict the number of migrations that can be executed simultaneously
+ * in the whole infrastructure.
+ * <p/>
+ * The restriction provided by the constraint is only continuous.
+ *
+ * @author Fabien Hermenier
+ */
+public class MaxConcurrentMigrations extends SatConstraint {
+
+    private int max;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param max the maximum number of migrations executed simultaneously
+     */
+    public MaxConcurrentMigrations(int max) {
+        super(Collections.<VM>emptySet(), Collections.<Node>emptySet(), true);
+        if (max < 0) {
+            throw new IllegalArgumentException("The maximum number of migrations must be >= 0");
+        }
+        this.max = max;
+    }
+
+    /**
+     * Get the maximum number of migrations executed simultaneously.
+     *
+     * @return a positive integer
+     */
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public boolean setContinuous(boolean b) {
+        if (b) {
+            super.setContinuous(b);
+        }
+        return b;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return max == ((MaxConcurrentMigrations) o).max;
+    }
+
+    @Override
+    public int hashCode() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("maxConcurrentMigrations(")
+                .append("max=").append(max)
+                .append(", continuous")
+                .append(')').toString();
+    }
+
+    @Override
+    public SatConstraintChecker getChecker() {
+        return new MaxConcurrentMigrationsChecker(this);
+    }
+}
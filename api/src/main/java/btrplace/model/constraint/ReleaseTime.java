@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.checker.ReleaseTimeChecker;
+import btrplace.model.constraint.checker.SatConstraintChecker;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A constraint to force the actions that manipulate the given VMs and nodes
+ * to start at a given moment at the earliest.
+ * <p/>
+ * The restriction provided by the constraint is only continuous.
+ *
+ * @author Fabien Hermenier
+ */
+public class ReleaseTime extends SatConstraint {
+
+    private int release;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param vms     the involved VMs
+     * @param nodes   the involved nodes
+     * @param release the moment the actions can start at the earliest
+     */
+    public ReleaseTime(Collection<VM> vms, Collection<Node> nodes, int release) {
+        super(vms, nodes, true);
+        if (release < 0) {
+            throw new IllegalArgumentException("The release time must be >= 0");
+        }
+        this.release = release;
+    }
+
+    /**
+     * Get the moment the actions can start at the earliest.
+     *
+     * @return a positive moment
+     */
+    public int getReleaseTime() {
+        return release;
+    }
+
+    @Override
+    public boolean setContinuous(boolean b) {
+        if (b) {
+            super.setContinuous(b);
+        }
+        return b;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ReleaseTime that = (ReleaseTime) o;
+        return getInvolvedVMs().equals(that.getInvolvedVMs())
+                && getInvolvedNodes().equals(that.getInvolvedNodes())
+                && release == that.release;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getInvolvedVMs(), getInvolvedNodes(), release);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("releaseTime(")
+                .append("vms=").append(getInvolvedVMs())
+                .append(", nodes=").append(getInvolvedNodes())
+                .append(", release=").append(release)
+                .append(", continuous")
+                .append(')').toString();
+    }
+
+    @Override
+    public SatConstraintChecker getChecker() {
+        return new ReleaseTimeChecker(this);
+    }
+}
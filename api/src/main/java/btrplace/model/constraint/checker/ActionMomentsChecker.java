@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.plan.event.*;
+
+/**
+ * A checker to validate the moments of the actions
+ * that involve the VMs or the nodes of a constraint.
+ * <p/>
+ * Each action that manipulates an involved VM or node is validated
+ * using {@link #isValid(btrplace.plan.event.Action)} when it starts.
+ *
+ * @author Fabien Hermenier
+ */
+public abstract class ActionMomentsChecker<C extends SatConstraint> extends AllowAllConstraintChecker<C> {
+
+    /**
+     * Make a new checker.
+     *
+     * @param s the associated constraint
+     */
+    public ActionMomentsChecker(C s) {
+        super(s);
+    }
+
+    /**
+     * Check if the moments of an action are valid.
+     *
+     * @param a the action to check
+     * @return {@code true} iff the action is valid
+     */
+    protected abstract boolean isValid(Action a);
+
+    private boolean check(Action a, VM vm) {
+        return !getVMs().contains(vm) || isValid(a);
+    }
+
+    private boolean check(Action a, Node n) {
+        return !getNodes().contains(n) || isValid(a);
+    }
+
+    @Override
+    public boolean startRunningVMPlacement(RunningVMPlacement a) {
+        return check((Action) a, a.getVM());
+    }
+
+    @Override
+    public boolean start(ShutdownVM a) {
+        return check(a, a.getVM());
+    }
+
+    @Override
+    public boolean start(SuspendVM a) {
+        return check(a, a.getVM());
+    }
+
+    @Override
+    public boolean start(KillVM a) {
+        return check(a, a.getVM());
+    }
+
+    @Override
+    public boolean start(ForgeVM a) {
+        return check(a, a.getVM());
+    }
+
+    @Override
+    public boolean start(Allocate a) {
+        return check(a, a.getVM());
+    }
+
+    @Override
+    public boolean start(BootNode a) {
+        return check(a, a.getNode());
+    }
+
+    @Override
+    public boolean start(ShutdownNode a) {
+        return check(a, a.getNode());
+    }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+}
@@ -33,7 +33,7 @@ import java.util.*;
  *
  * @author Fabien Hermenier
  */
-public abstract class AllowAllConstraintChecker<C extends SatConstraint> implements SatConstraintChecker<C> {
+public abstract class AllowAllConstraintChecker<C extends SatConstraint> implements SatConstraintChecker<C>, ScopedChecker {
 
     /**
      * VMs involved in the constraint.
@@ -270,4 +270,34 @@ public abstract class AllowAllConstraintChecker<C extends SatConstraint> impleme
     public Set<Node> getNodes() {
         return nodes;
     }
+
+    /**
+     * By default, a checker may be affected by any action.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean isScoped() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@link #getVMs()}
+     */
+    @Override
+    public Set<VM> getScopeVMs() {
+        return getVMs();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@link #getNodes()}
+     */
+    @Override
+    public Set<Node> getScopeNodes() {
+        return getNodes();
+    }
 }
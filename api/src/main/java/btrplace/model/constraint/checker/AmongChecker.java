@@ -25,6 +25,8 @@ import btrplace.model.constraint.Among;
 import btrplace.plan.event.RunningVMPlacement;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * Checker for the {@link Among} constraint
@@ -105,4 +107,14 @@ public class AmongChecker extends AllowAllConstraintChecker<Among> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+
+    @Override
+    public Set<Node> getScopeNodes() {
+        return Collections.emptySet();
+    }
 }
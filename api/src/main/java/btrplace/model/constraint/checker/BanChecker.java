@@ -19,10 +19,12 @@ package btrplace.model.constraint.checker;
 
 import btrplace.model.Mapping;
 import btrplace.model.Model;
+import btrplace.model.Node;
 import btrplace.model.VM;
 import btrplace.model.constraint.Ban;
 import btrplace.plan.event.RunningVMPlacement;
 
+import java.util.Collections;
 import java.util.Set;
 
 /**
@@ -61,4 +63,14 @@ public class BanChecker extends AllowAllConstraintChecker<Ban> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+
+    @Override
+    public Set<Node> getScopeNodes() {
+        return Collections.emptySet();
+    }
 }
@@ -145,4 +145,9 @@ public class CumulatedResourceCapacityChecker extends AllowAllConstraintChecker<
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
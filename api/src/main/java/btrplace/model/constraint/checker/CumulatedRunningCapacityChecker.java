@@ -129,4 +129,9 @@ public class CumulatedRunningCapacityChecker extends AllowAllConstraintChecker<C
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
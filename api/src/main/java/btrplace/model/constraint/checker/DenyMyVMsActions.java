@@ -17,9 +17,13 @@
 
 package btrplace.model.constraint.checker;
 
+import btrplace.model.Node;
 import btrplace.model.constraint.SatConstraint;
 import btrplace.plan.event.*;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * Basic checker that allow everything except all the actions on my VMs.
  *
@@ -75,4 +79,14 @@ public abstract class DenyMyVMsActions<C extends SatConstraint> extends AllowAll
     public boolean startRunningVMPlacement(RunningVMPlacement a) {
         return !getVMs().contains(a.getVM());
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+
+    @Override
+    public Set<Node> getScopeNodes() {
+        return Collections.emptySet();
+    }
 }
@@ -24,6 +24,9 @@ import btrplace.model.VM;
 import btrplace.model.constraint.Gather;
 import btrplace.plan.event.RunningVMPlacement;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * Checker for the {@link btrplace.model.constraint.Gather} constraint
  *
@@ -88,4 +91,14 @@ public class GatherChecker extends AllowAllConstraintChecker<Gather> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+
+    @Override
+    public Set<Node> getScopeNodes() {
+        return Collections.emptySet();
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.constraint.MaxConcurrentActions;
+import btrplace.plan.event.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checker for the {@link btrplace.model.constraint.MaxConcurrentActions} constraint
+ *
+ * @author Fabien Hermenier
+ * @see btrplace.model.constraint.MaxConcurrentActions
+ */
+public class MaxConcurrentActionsChecker extends AllowAllConstraintChecker<MaxConcurrentActions> {
+
+    private Map<Node, Integer> incoming;
+
+    private Map<Node, Integer> outgoing;
+
+    /**
+     * Make a new checker.
+     *
+     * @param s the associated constraint
+     */
+    public MaxConcurrentActionsChecker(MaxConcurrentActions s) {
+        super(s);
+    }
+
+    private boolean arrive(Node n) {
+        return inc(incoming, n, getConstraint().getMaxIncoming());
+    }
+
+    private boolean leave(Node n) {
+        return inc(outgoing, n, getConstraint().getMaxOutgoing());
+    }
+
+    private boolean inc(Map<Node, Integer> counts, Node n, int max) {
+        if (getNodes().contains(n)) {
+            Integer c = counts.get(n);
+            int v = c == null ? 1 : c + 1;
+            if (v > max) {
+                return false;
+            }
+            counts.put(n, v);
+        }
+        return true;
+    }
+
+    private void dec(Map<Node, Integer> counts, Node n) {
+        Integer c = counts.get(n);
+        if (c != null) {
+            counts.put(n, c - 1);
+        }
+    }
+
+    @Override
+    public boolean startsWith(Model mo) {
+        incoming = new HashMap<>();
+        outgoing = new HashMap<>();
+        return true;
+    }
+
+    @Override
+    public boolean start(MigrateVM a) {
+        return leave(a.getSourceNode()) && arrive(a.getDestinationNode());
+    }
+
+    @Override
+    public void end(MigrateVM a) {
+        dec(outgoing, a.getSourceNode());
+        dec(incoming, a.getDestinationNode());
+    }
+
+    @Override
+    public boolean start(BootVM a) {
+        return arrive(a.getDestinationNode());
+    }
+
+    @Override
+    public void end(BootVM a) {
+        dec(incoming, a.getDestinationNode());
+    }
+
+    @Override
+    public boolean start(ResumeVM a) {
+        return arrive(a.getDestinationNode());
+    }
+
+    @Override
+    public void end(ResumeVM a) {
+        dec(incoming, a.getDestinationNode());
+    }
+
+    @Override
+    public boolean start(ShutdownVM a) {
+        return leave(a.getNode());
+    }
+
+    @Override
+    public void end(ShutdownVM a) {
+        dec(outgoing, a.getNode());
+    }
+
+    @Override
+    public boolean start(SuspendVM a) {
+        return leave(a.getSourceNode());
+    }
+
+    @Override
+    public void end(SuspendVM a) {
+        dec(outgoing, a.getSourceNode());
+    }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+}
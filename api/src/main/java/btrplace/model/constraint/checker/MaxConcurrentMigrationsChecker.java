@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.Model;
+import btrplace.model.constraint.MaxConcurrentMigrations;
+import btrplace.plan.event.MigrateVM;
+
+/**
+ * Checker for the {@link btrplace.model.constraint.MaxConcurrentMigrations} constraint
+ *
+ * @author Fabien Hermenier
+ * @see btrplace.model.constraint.MaxConcurrentMigrations
+ */
+public class MaxConcurrentMigrationsChecker extends AllowAllConstraintChecker<MaxConcurrentMigrations> {
+
+    private int running;
+
+    /**
+     * Make a new checker.
+     *
+     * @param s the associated constraint
+     */
+    public MaxConcurrentMigrationsChecker(MaxConcurrentMigrations s) {
+        super(s);
+    }
+
+    @Override
+    public boolean startsWith(Model mo) {
+        running = 0;
+        return true;
+    }
+
+    @Override
+    public boolean start(MigrateVM a) {
+        running++;
+        return running <= getConstraint().getMax();
+    }
+
+    @Override
+    public void end(MigrateVM a) {
+        running--;
+    }
+}
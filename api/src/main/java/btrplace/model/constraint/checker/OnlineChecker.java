@@ -55,4 +55,9 @@ public class OnlineChecker extends AllowAllConstraintChecker<Online> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
@@ -69,4 +69,9 @@ public class OverbookChecker extends AllowAllConstraintChecker<Overbook> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
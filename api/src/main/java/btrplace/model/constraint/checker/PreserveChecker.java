@@ -18,12 +18,16 @@
 package btrplace.model.constraint.checker;
 
 import btrplace.model.Model;
+import btrplace.model.Node;
 import btrplace.model.VM;
 import btrplace.model.constraint.Preserve;
 import btrplace.model.view.ShareableResource;
 import btrplace.plan.event.Allocate;
 import btrplace.plan.event.AllocateEvent;
 
+import java.util.Collections;
+import java.util.Set;
+
 
 /**
  * Checker for the {@link btrplace.model.constraint.Preserve} constraint
@@ -85,4 +89,14 @@ public class PreserveChecker extends AllowAllConstraintChecker<Preserve> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+
+    @Override
+    public Set<Node> getScopeNodes() {
+        return Collections.emptySet();
+    }
 }
@@ -66,4 +66,8 @@ public class QuarantineChecker extends AllowAllConstraintChecker<Quarantine> {
         return getVMs().addAll(map.getRunningVMs(getNodes()));
     }
 
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
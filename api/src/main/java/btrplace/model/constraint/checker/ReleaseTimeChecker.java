@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.constraint.ReleaseTime;
+import btrplace.plan.event.Action;
+
+/**
+ * Checker for the {@link btrplace.model.constraint.ReleaseTime} constraint.
+ * The actions must be started after the release time.
+ *
+ * @author Fabien Hermenier
+ * @see btrplace.model.constraint.ReleaseTime
+ */
+public class ReleaseTimeChecker extends ActionMomentsChecker<ReleaseTime> {
+
+    /**
+     * Make a new checker.
+     *
+     * @param s the associated constraint
+     */
+    public ReleaseTimeChecker(ReleaseTime s) {
+        super(s);
+    }
+
+    @Override
+    protected boolean isValid(Action a) {
+        return a.getStart() >= getConstraint().getReleaseTime();
+    }
+}
@@ -17,9 +17,13 @@
 
 package btrplace.model.constraint.checker;
 
+import btrplace.model.Node;
 import btrplace.model.constraint.Root;
 import btrplace.plan.event.MigrateVM;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * Checker for the {@link btrplace.model.constraint.Root} constraint
  *
@@ -41,4 +45,14 @@ public class RootChecker extends AllowAllConstraintChecker<Root> {
     public boolean start(MigrateVM a) {
         return !getVMs().contains(a.getVM());
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+
+    @Override
+    public Set<Node> getScopeNodes() {
+        return Collections.emptySet();
+    }
 }
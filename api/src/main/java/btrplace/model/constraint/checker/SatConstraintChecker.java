@@ -34,6 +34,9 @@ import btrplace.plan.event.*;
  * Actions notifications are propagated with regards to their starting
  * and ending moment. If an action ends at the same moment another action
  * starts, the notification for the ending action is sended first.
+ * <p/>
+ * A checker that is only affected by the actions and the events involving some
+ * particular VMs or nodes can declare this scope by implementing {@link ScopedChecker}.
  *
  * @author Fabien Hermenier
  * @see btrplace.plan.ReconfigurationPlanChecker
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.plan.event.SubstitutedVMEvent;
+
+import java.util.Set;
+
+/**
+ * A {@link SatConstraintChecker} that may only be affected by the actions
+ * and the events involving some particular VMs or nodes.
+ * <p/>
+ * When the checker is scoped, {@link btrplace.plan.ReconfigurationPlanChecker}
+ * only notifies it about these actions and events, plus all the {@link SubstitutedVMEvent}.
+ *
+ * @author Fabien Hermenier
+ */
+public interface ScopedChecker {
+
+    /**
+     * Indicate if the checker is only affected by the actions and the events
+     * involving a VM or a node in its scope.
+     *
+     * @return {@code true} iff the checker can ignore the other actions and events
+     */
+    boolean isScoped();
+
+    /**
+     * Get the VMs in the scope of the checker.
+     * The set is read once the checker has been notified about the origin model and
+     * after each {@link SubstitutedVMEvent}.
+     *
+     * @return a set of VMs that may be empty
+     */
+    Set<VM> getScopeVMs();
+
+    /**
+     * Get the nodes in the scope of the checker.
+     * The set is read once the checker has been notified about the origin model.
+     *
+     * @return a set of nodes that may be empty
+     */
+    Set<Node> getScopeNodes();
+}
@@ -54,4 +54,9 @@ public class SingleResourceCapacityChecker extends AllowAllConstraintChecker<Sin
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
@@ -140,4 +140,9 @@ public class SingleRunningCapacityChecker extends AllowAllConstraintChecker<Sing
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
@@ -99,4 +99,14 @@ public class SplitAmongChecker extends AllowAllConstraintChecker<SplitAmong> {
     public boolean endsWith(Model i) {
         return checkMapping(i.getMapping());
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+
+    @Override
+    public Set<Node> getScopeNodes() {
+        return Collections.emptySet();
+    }
 }
@@ -95,4 +95,14 @@ public class SplitChecker extends AllowAllConstraintChecker<Split> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+
+    @Override
+    public Set<Node> getScopeNodes() {
+        return Collections.emptySet();
+    }
 }
@@ -24,6 +24,7 @@ import btrplace.model.VM;
 import btrplace.model.constraint.Spread;
 import btrplace.plan.event.*;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -111,4 +112,14 @@ public class SpreadChecker extends AllowAllConstraintChecker<Spread> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
+
+    @Override
+    public Set<Node> getScopeNodes() {
+        return Collections.emptySet();
+    }
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.view;
+
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+
+import java.util.*;
+
+/**
+ * A view to describe the network used to migrate the VMs.
+ * <p/>
+ * Each node is connected to the network through a full-duplex NIC
+ * having a given bandwidth. Nodes may also be connected to a switch (typically
+ * the top-of-rack switch) that is connected to the rest of the network through a
+ * full-duplex uplink having a given bandwidth. Nodes that are not connected to
+ * a switch are supposed to be connected directly to a non-blocking core.
+ * <p/>
+ * A migration uses the outgoing link of its source node NIC and the incoming link
+ * of its destination node NIC. When the source and the destination nodes are not
+ * connected to the same switch, it also uses the uplink of the switches.
+ * The bandwidth allotted to a migration is the bandwidth of the source node NIC,
+ * possibly bounded by {@link #setMaxMigrationBandwidth(int)}.
+ * <p/>
+ * The unit of the bandwidths is left to the user. It must be consistent with the
+ * memory of the VMs to estimate the migration durations (e.g. MB/s and MB).
+ *
+ * @author Fabien Hermenier
+ */
+public class Network implements ModelView, Cloneable {
+
+    /**
+     * The view identifier.
+     */
+    public static final String VIEW_ID = "Network";
+
+    private int defBandwidth;
+
+    private Map<Node, Integer> bandwidths;
+
+    private Map<String, Integer> switches;
+
+    private Map<Node, String> connections;
+
+    private int maxMigrationBandwidth;
+
+    /**
+     * Make a new network.
+     *
+     * @param defBandwidth the default bandwidth of the node NICs
+     */
+    public Network(int defBandwidth) {
+        this.defBandwidth = defBandwidth;
+        bandwidths = new HashMap<>();
+        switches = new HashMap<>();
+        connections = new HashMap<>();
+    }
+
+    /**
+     * Get the network view attached to a model.
+     *
+     * @param mo the model
+     * @return the view if attached, {@code null} otherwise
+     */
+    public static Network get(Model mo) {
+        return (Network) mo.getView(VIEW_ID);
+    }
+
+    /**
+     * Get the default bandwidth of the node NICs.
+     *
+     * @return a positive number
+     */
+    public int getDefaultBandwidth() {
+        return defBandwidth;
+    }
+
+    /**
+     * Set the bandwidth of a node NIC.
+     *
+     * @param n  the node
+     * @param bw the bandwidth
+     * @return the current view
+     */
+    public Network setBandwidth(Node n, int bw) {
+        bandwidths.put(n, bw);
+        return this;
+    }
+
+    /**
+     * Get the bandwidth of a node NIC.
+     *
+     * @param n the node
+     * @return its bandwidth if it was defined, otherwise the default value
+     */
+    public int getBandwidth(Node n) {
+        Integer bw = bandwidths.get(n);
+        return bw == null ? defBandwidth : bw;
+    }
+
+    /**
+     * Get the nodes having a NIC bandwidth defined.
+     *
+     * @return a set of nodes
+     */
+    public Set<Node> getDefinedNodes() {
+        return bandwidths.keySet();
+    }
+
+    /**
+     * Declare a switch, or update the bandwidth of its uplink.
+     *
+     * @param id the switch identifier
+     * @param bw the bandwidth of its uplink
+     * @return {@code false} if a switch with the same identifier was already declared
+     */
+    public boolean addSwitch(String id, int bw) {
+        return switches.put(id, bw) == null;
+    }
+
+    /**
+     * Get the declared switches.
+     *
+     * @return a set of switch identifiers
+     */
+    public Set<String> getSwitches() {
+        return switches.keySet();
+    }
+
+    /**
+     * Get the bandwidth of the uplink of a switch.
+     *
+     * @param id the switch identifier
+     * @return the bandwidth if the switch is declared, {@code -1} otherwise
+     */
+    public int getSwitchBandwidth(String id) {
+        Integer bw = switches.get(id);
+        return bw == null ? -1 : bw;
+    }
+
+    /**
+     * Connect a node to a switch.
+     *
+     * @param n  the node
+     * @param id the switch identifier
+     * @return {@code false} if the switch is not declared
+     */
+    public boolean connect(Node n, String id) {
+        if (!switches.containsKey(id)) {
+            return false;
+        }
+        connections.put(n, id);
+        return true;
+    }
+
+    /**
+     * Get the switch a node is connected to.
+     *
+     * @param n the node
+     * @return the switch identifier, {@code null} if the node is connected to the core
+     */
+    public String getSwitch(Node n) {
+        return connections.get(n);
+    }
+
+    /**
+     * Get the nodes connected to a switch.
+     *
+     * @param id the switch identifier
+     * @return a set of nodes, may be empty
+     */
+    public Set<Node> getConnectedNodes(String id) {
+        Set<Node> ns = new HashSet<>();
+        for (Map.Entry<Node, String> e : connections.entrySet()) {
+            if (e.getValue().equals(id)) {
+                ns.add(e.getKey());
+            }
+        }
+        return ns;
+    }
+
+    /**
+     * Set the maximum bandwidth allotted to a single migration.
+     *
+     * @param bw the bandwidth. {@code 0} to allot the whole bandwidth of the source node NIC
+     */
+    public void setMaxMigrationBandwidth(int bw) {
+        maxMigrationBandwidth = bw;
+    }
+
+    /**
+     * Get the maximum bandwidth allotted to a single migration.
+     *
+     * @return a positive number. {@code 0} if there is no limit
+     */
+    public int getMaxMigrationBandwidth() {
+        return maxMigrationBandwidth;
+    }
+
+    /**
+     * Get the bandwidth allotted to a migration.
+     *
+     * @param src the source node of the migration
+     * @return the bandwidth of the source node NIC, bounded by the maximum bandwidth allotted to a migration
+     */
+    public int getMigrationBandwidth(Node src) {
+        int bw = getBandwidth(src);
+        return maxMigrationBandwidth > 0 ? Math.min(bw, maxMigrationBandwidth) : bw;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return VIEW_ID;
+    }
+
+    @Override
+    public boolean substituteVM(VM curId, VM nextId) {
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Network that = (Network) o;
+        return defBandwidth == that.defBandwidth
+                && maxMigrationBandwidth == that.maxMigrationBandwidth
+                && bandwidths.equals(that.bandwidths)
+                && switches.equals(that.switches)
+                && connections.equals(that.connections);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(defBandwidth, maxMigrationBandwidth, bandwidths, switches, connections);
+    }
+
+    @Override
+    public Network clone() {
+        Network n = new Network(defBandwidth);
+        n.bandwidths.putAll(bandwidths);
+        n.switches.putAll(switches);
+        n.connections.putAll(connections);
+        n.maxMigrationBandwidth = maxMigrationBandwidth;
+        return n;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("network:");
+        b.append("<default ").append(defBandwidth).append('>');
+        for (Map.Entry<Node, Integer> e : bandwidths.entrySet()) {
+            b.append(",<node ").append(e.getKey()).append(',').append(e.getValue()).append('>');
+        }
+        for (Map.Entry<String, Integer> e : switches.entrySet()) {
+            b.append(",<switch ").append(e.getKey()).append(',').append(e.getValue())
+                    .append(',').append(getConnectedNodes(e.getKey())).append('>');
+        }
+        return b.toString();
+    }
+}
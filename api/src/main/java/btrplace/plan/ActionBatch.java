@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.Node;
+import btrplace.plan.event.Action;
+
+import java.util.*;
+
+/**
+ * A group of actions of a same type, starting at the same moment
+ * and involving the same nodes. A batch can then be executed using a single
+ * request to the infrastructure.
+ *
+ * @author Fabien Hermenier
+ * @see PlanCompactor#batch(ReconfigurationPlan)
+ */
+public class ActionBatch implements Iterable<Action> {
+
+    private Class<? extends Action> type;
+
+    private int start;
+
+    private int end;
+
+    private Collection<Node> nodes;
+
+    private List<Action> actions;
+
+    /**
+     * Make a new empty batch.
+     *
+     * @param type  the type of the actions
+     * @param start the moment the actions start
+     * @param nodes the nodes involved by the actions
+     */
+    ActionBatch(Class<? extends Action> type, int start, Collection<Node> nodes) {
+        this.type = type;
+        this.start = start;
+        this.end = start;
+        this.nodes = nodes;
+        actions = new ArrayList<>();
+    }
+
+    void add(Action a) {
+        actions.add(a);
+        end = Math.max(end, a.getEnd());
+    }
+
+    /**
+     * Get the type of the actions in the batch.
+     *
+     * @return the action class
+     */
+    public Class<? extends Action> getActionType() {
+        return type;
+    }
+
+    /**
+     * Get the moment the actions start.
+     *
+     * @return a positive moment
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Get the moment the last action of the batch ends.
+     *
+     * @return a moment after the start moment
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Get the nodes involved by each of the actions.
+     * For an action that relocates a VM, the source then the destination node.
+     *
+     * @return the nodes. May be empty
+     */
+    public Collection<Node> getNodes() {
+        return Collections.unmodifiableCollection(nodes);
+    }
+
+    /**
+     * Get the actions in the batch.
+     *
+     * @return a non-empty list
+     */
+    public List<Action> getActions() {
+        return Collections.unmodifiableList(actions);
+    }
+
+    /**
+     * Get the number of actions in the batch.
+     *
+     * @return a positive number
+     */
+    public int getSize() {
+        return actions.size();
+    }
+
+    @Override
+    public Iterator<Action> iterator() {
+        return getActions().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return start + ":" + end + " " + type.getSimpleName() + nodes + " " + actions;
+    }
+}
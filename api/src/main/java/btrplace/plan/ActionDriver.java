@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.plan.event.Action;
+
+/**
+ * A driver to execute the actions of a reconfiguration plan
+ * on the real infrastructure.
+ * <p/>
+ * The execution is asynchronous: {@link #execute(btrplace.plan.event.Action, btrplace.plan.ActionDriver.Callback)}
+ * must return quickly while the termination of the action is signaled using the given callback,
+ * possibly from another thread.
+ *
+ * @author Fabien Hermenier
+ * @see ConcurrentPlanExecutor
+ */
+public interface ActionDriver {
+
+    /**
+     * Start the execution of an action.
+     *
+     * @param a  the action to execute
+     * @param cb the callback to use to signal the termination of the action
+     */
+    void execute(Action a, Callback cb);
+
+    /**
+     * A callback to signal the termination of an action.
+     * Only the first call is considered.
+     */
+    public static interface Callback {
+
+        /**
+         * Signal the action has been successfully executed.
+         */
+        void done();
+
+        /**
+         * Signal the action has failed.
+         *
+         * @param cause the cause of the failure. May be {@code null}
+         */
+        void failed(Exception cause);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.plan.event.Action;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A view of a reconfiguration plan that exposes its actions grouped into batches.
+ * <p/>
+ * All the other operations are delegated to the viewed plan, so the view
+ * can be used wherever a plan is expected, including a {@link ReconfigurationPlanChecker}.
+ * The batches are computed on demand and updated when an action is added through the view.
+ *
+ * @author Fabien Hermenier
+ * @see PlanCompactor
+ */
+public class BatchedReconfigurationPlan implements ReconfigurationPlan {
+
+    private ReconfigurationPlan plan;
+
+    private PlanCompactor compactor;
+
+    private List<ActionBatch> batches;
+
+    /**
+     * Make a new view.
+     *
+     * @param p the viewed plan
+     * @param c the compactor used to make the batches
+     */
+    public BatchedReconfigurationPlan(ReconfigurationPlan p, PlanCompactor c) {
+        this.plan = p;
+        this.compactor = c;
+    }
+
+    /**
+     * Make a new view with batches of unlimited size.
+     *
+     * @param p the viewed plan
+     */
+    public BatchedReconfigurationPlan(ReconfigurationPlan p) {
+        this(p, new PlanCompactor());
+    }
+
+    /**
+     * Get the batches of actions.
+     *
+     * @return the batches, sorted by their start moment
+     */
+    public List<ActionBatch> getBatches() {
+        if (batches == null) {
+            batches = compactor.batch(plan);
+        }
+        return batches;
+    }
+
+    /**
+     * Get the viewed plan.
+     *
+     * @return the plan
+     */
+    public ReconfigurationPlan getPlan() {
+        return plan;
+    }
+
+    @Override
+    public Model getOrigin() {
+        return plan.getOrigin();
+    }
+
+    @Override
+    public boolean add(Action a) {
+        boolean ret = plan.add(a);
+        if (ret) {
+            batches = null;
+        }
+        return ret;
+    }
+
+    @Override
+    public int getSize() {
+        return plan.getSize();
+    }
+
+    @Override
+    public int getDuration() {
+        return plan.getDuration();
+    }
+
+    @Override
+    public Set<Action> getActions() {
+        return plan.getActions();
+    }
+
+    @Override
+    public Model getResult() {
+        return plan.getResult();
+    }
+
+    @Override
+    public boolean isApplyable() {
+        return plan.isApplyable();
+    }
+
+    @Override
+    public Mapping getResultingMapping() {
+        return plan.getResultingMapping();
+    }
+
+    @Override
+    public Set<Action> getDirectDependencies(Action a) {
+        return plan.getDirectDependencies(a);
+    }
+
+    @Override
+    public DependencyGraph getDependencyGraph() {
+        return plan.getDependencyGraph();
+    }
+
+    @Override
+    public ReconfigurationPlanApplier getReconfigurationApplier() {
+        return plan.getReconfigurationApplier();
+    }
+
+    @Override
+    public void setReconfigurationApplier(ReconfigurationPlanApplier ra) {
+        plan.setReconfigurationApplier(ra);
+    }
+
+    @Override
+    public Iterator<Action> iterator() {
+        return plan.iterator();
+    }
+
+    @Override
+    public String toString() {
+        return plan.toString();
+    }
+}
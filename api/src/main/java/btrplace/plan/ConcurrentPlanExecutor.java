@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.plan.event.*;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A plan applier that executes the actions on the real infrastructure
+ * using an {@link ActionDriver}.
+ * <p/>
+ * An action is dispatched to the driver as soon as its dependencies are committed.
+ * The number of actions being executed simultaneously can be bounded globally and
+ * for each node. When a limit is reached, the unblocked actions are retained and dispatched
+ * as soon as a running action terminates, the earliest ones first.
+ * <p/>
+ * The terminations signaled by the driver are processed by the thread
+ * that called {@link #apply(ReconfigurationPlan)}. The listeners are then notified
+ * from this thread, one action at a time.
+ * If an action fails, no other action is dispatched. The executor then waits for
+ * the termination of the running actions and the application fails.
+ * The failed actions and their cause are then available through {@link #getFailures()}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ConcurrentPlanExecutor extends DefaultPlanApplier {
+
+    private ActionDriver driver;
+
+    private int maxActions = Integer.MAX_VALUE;
+
+    private int maxActionsPerNode = Integer.MAX_VALUE;
+
+    private Map<Action, Exception> failures = Collections.emptyMap();
+
+    /**
+     * Make a new executor.
+     * There is no concurrency limit by default.
+     *
+     * @param d the driver to use to execute the actions
+     */
+    public ConcurrentPlanExecutor(ActionDriver d) {
+        super();
+        this.driver = d;
+    }
+
+    /**
+     * Get the driver used to execute the actions.
+     *
+     * @return the driver
+     */
+    public ActionDriver getActionDriver() {
+        return driver;
+    }
+
+    /**
+     * Set the maximum number of actions that can be executed simultaneously.
+     *
+     * @param nb a positive number
+     */
+    public void setMaxConcurrentActions(int nb) {
+        if (nb <= 0) {
+            throw new IllegalArgumentException("The limit must be strictly positive");
+        }
+        maxActions = nb;
+    }
+
+    /**
+     * Get the maximum number of actions that can be executed simultaneously.
+     *
+     * @return a positive number
+     */
+    public int getMaxConcurrentActions() {
+        return maxActions;
+    }
+
+    /**
+     * Set the maximum number of actions that can be executed simultaneously on a same node.
+     * A migration is considered to be executed both on its source and its destination node.
+     *
+     * @param nb a positive number
+     */
+    public void setMaxConcurrentActionsPerNode(int nb) {
+        if (nb <= 0) {
+            throw new IllegalArgumentException("The limit must be strictly positive");
+        }
+        maxActionsPerNode = nb;
+    }
+
+    /**
+     * Get the maximum number of actions that can be executed simultaneously on a same node.
+     *
+     * @return a positive number
+     */
+    public int getMaxConcurrentActionsPerNode() {
+        return maxActionsPerNode;
+    }
+
+    /**
+     * Get the actions that failed during the last execution.
+     *
+     * @return a map associating each failed action to the cause signaled by the driver.
+     *         The cause is {@code null} when the action was not applyable.
+     *         The driver may also signal a {@code null} cause. The map is empty if no action failed
+     */
+    public Map<Action, Exception> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Execute a plan.
+     * The method returns once all the actions have terminated.
+     *
+     * @param p the plan to apply
+     * @return the resulting model if the execution succeeded. {@code null} if an action failed, was not applyable
+     *         or if the thread has been interrupted
+     */
+    @Override
+    public Model apply(ReconfigurationPlan p) {
+        ReconfigurationPlanMonitor rpm = new DefaultReconfigurationPlanMonitor(p);
+        BlockingQueue<Termination> terminations = new LinkedBlockingQueue<>();
+        PriorityQueue<Action> ready = new PriorityQueue<>(p.getSize() + 1, new TimedBasedActionComparator());
+        Map<Node, int[]> perNode = new HashMap<>();
+        Map<Action, Exception> failed = new LinkedHashMap<>();
+        failures = Collections.unmodifiableMap(failed);
+        for (Action a : p) {
+            if (!rpm.isBlocked(a)) {
+                ready.add(a);
+            }
+        }
+
+        int nbRunning = 0;
+        while (rpm.getNbCommitted() != p.getSize()) {
+            if (failed.isEmpty()) {
+                nbRunning += dispatch(ready, perNode, nbRunning, terminations);
+            }
+            if (nbRunning == 0) {
+                //Nothing can terminate
+                return null;
+            }
+            Termination t;
+            try {
+                t = terminations.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            nbRunning--;
+            release(perNode, t.action);
+            if (!t.success) {
+                failed.put(t.action, t.cause);
+                continue;
+            }
+            Set<Action> unblocked = rpm.commit(t.action);
+            if (unblocked == null) {
+                failed.put(t.action, null);
+                continue;
+            }
+            fireAction(t.action);
+            ready.addAll(unblocked);
+        }
+        return failed.isEmpty() ? rpm.getCurrentModel() : null;
+    }
+
+    /**
+     * Dispatch the ready actions that respect the concurrency limits.
+     *
+     * @param ready        the ready actions
+     * @param perNode      the number of running actions per node
+     * @param nbRunning    the number of running actions
+     * @param terminations the queue to fill with the terminations
+     * @return the number of dispatched actions
+     */
+    private int dispatch(PriorityQueue<Action> ready, Map<Node, int[]> perNode, int nbRunning, BlockingQueue<Termination> terminations) {
+        List<Action> delayed = new ArrayList<>();
+        int nb = 0;
+        while (nbRunning + nb < maxActions && !ready.isEmpty()) {
+            Action a = ready.poll();
+            if (!acquire(perNode, a)) {
+                delayed.add(a);
+                continue;
+            }
+            nb++;
+            ActionDriver.Callback cb = new TerminationCallback(a, terminations);
+            try {
+                driver.execute(a, cb);
+            } catch (RuntimeException ex) {
+                cb.failed(ex);
+            }
+        }
+        ready.addAll(delayed);
+        return nb;
+    }
+
+    private boolean acquire(Map<Node, int[]> perNode, Action a) {
+        if (maxActionsPerNode == Integer.MAX_VALUE) {
+            return true;
+        }
+        Collection<Node> ns = PlanUtils.getNodes(a);
+        for (Node n : ns) {
+            int[] cnt = perNode.get(n);
+            if (cnt != null && cnt[0] >= maxActionsPerNode) {
+                return false;
+            }
+        }
+        for (Node n : ns) {
+            int[] cnt = perNode.get(n);
+            if (cnt == null) {
+                cnt = new int[1];
+                perNode.put(n, cnt);
+            }
+            cnt[0]++;
+        }
+        return true;
+    }
+
+    private void release(Map<Node, int[]> perNode, Action a) {
+        if (maxActionsPerNode == Integer.MAX_VALUE) {
+            return;
+        }
+        for (Node n : PlanUtils.getNodes(a)) {
+            perNode.get(n)[0]--;
+        }
+    }
+
+    /**
+     * The termination of an action.
+     */
+    private static class Termination {
+
+        private Action action;
+
+        private boolean success;
+
+        private Exception cause;
+
+        Termination(Action a, boolean s, Exception c) {
+            this.action = a;
+            this.success = s;
+            this.cause = c;
+        }
+    }
+
+    /**
+     * A callback that put the termination of an action into a queue.
+     */
+    private static class TerminationCallback implements ActionDriver.Callback {
+
+        private Action action;
+
+        private BlockingQueue<Termination> terminations;
+
+        private AtomicBoolean signaled = new AtomicBoolean(false);
+
+        TerminationCallback(Action a, BlockingQueue<Termination> q) {
+            this.action = a;
+            this.terminations = q;
+        }
+
+        @Override
+        public void done() {
+            if (signaled.compareAndSet(false, true)) {
+                terminations.add(new Termination(action, true, null));
+            }
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            if (signaled.compareAndSet(false, true)) {
+                terminations.add(new Termination(action, false, cause));
+            }
+        }
+    }
+
+    @Override
+    public String toString(ReconfigurationPlan p) {
+        StringBuilder b = new StringBuilder();
+        for (Action a : p) {
+            b.append(p.getDirectDependencies(a)).append(" -> ").append(a).append("\n");
+        }
+        return b.toString();
+    }
+}
@@ -17,6 +17,7 @@
 
 package btrplace.plan;
 
+import btrplace.model.Mapping;
 import btrplace.model.Model;
 import btrplace.plan.event.Action;
 
@@ -24,7 +25,15 @@ import java.util.*;
 
 /**
  * Default implementation for {@link ReconfigurationPlan}.
- * By default, the instance relies on a {@link TimeBasedPlanApplier} to check for the plan applicability.
+ * By default, the instance relies on a {@link TimeBasedPlanApplier} to compute the resulting model.
+ * <p/>
+ * The applicability of the plan and the resulting mapping are computed without cloning the origin model
+ * when the applier is a {@link TimeBasedPlanApplier}. The listeners of the applier are then not notified.
+ * <p/>
+ * The resulting model is cached, so the listeners of the applier are only notified
+ * when it is computed. It is computed again once an action is added or the applier is changed.
+ * The modifications of the origin model and the events added to an action that is already
+ * in the plan are not detected.
  *
  * @author Fabien Hermenier
  */
@@ -36,10 +45,27 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
 
     private DependenciesExtractor depsExtractor;
 
+    /**
+     * The dependency graph. Built on demand and discarded when an action is added.
+     */
+    private DependencyGraph graph;
+
     private static Comparator<Action> startFirstComparator = new TimedBasedActionComparator(true, true);
 
     private ReconfigurationPlanApplier applier = new TimeBasedPlanApplier();
 
+    /**
+     * The number of modifications of the plan.
+     */
+    private int modCount = 0;
+
+    /**
+     * The resulting model, computed for the modification {@link #resultModCount}.
+     */
+    private Model result;
+
+    private int resultModCount = -1;
+
     /**
      * Make a new plan that starts from a given model.
      *
@@ -61,6 +87,8 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
         boolean ret = this.actions.add(a);
         if (ret) {
             a.visit(depsExtractor);
+            graph = null;
+            modCount++;
         }
         return ret;
     }
@@ -91,9 +119,28 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
         return actions.iterator();
     }
 
+    /**
+     * {@inheritDoc}
+     * The same instance is returned until the plan is modified, so it must not be altered.
+     */
     @Override
     public Model getResult() {
-        return applier.apply(this);
+        if (resultModCount != modCount) {
+            result = applier.apply(this);
+            resultModCount = modCount;
+        }
+        return result;
+    }
+
+    /**
+     * Simulate the plan if the applier semantics allows it.
+     * The simulation is not cached as the origin model and the actions
+     * may be modified once inserted.
+     *
+     * @return the simulation, {@code null} if the applier is not a {@link TimeBasedPlanApplier}
+     */
+    private PlanSimulator simulate() {
+        return applier instanceof TimeBasedPlanApplier ? new PlanSimulator(this) : null;
     }
 
     @Override
@@ -101,9 +148,25 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
         return applier.toString(this);
     }
 
+    /**
+     * {@inheritDoc}
+     * When the applier is a {@link TimeBasedPlanApplier}, the plan is simulated
+     * and the listeners of the applier are not notified.
+     */
     @Override
     public boolean isApplyable() {
-        return applier.apply(this) != null;
+        PlanSimulator sim = simulate();
+        return sim != null ? sim.isApplyable() : getResult() != null;
+    }
+
+    @Override
+    public Mapping getResultingMapping() {
+        PlanSimulator sim = simulate();
+        if (sim != null) {
+            return sim.getResultingMapping();
+        }
+        Model mo = getResult();
+        return mo == null ? null : mo.getMapping().clone();
     }
 
     @Override
@@ -126,7 +189,17 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
 
     @Override
     public Set<Action> getDirectDependencies(Action a) {
-        return depsExtractor.getDependencies(a);
+        return getDependencyGraph().getPredecessors(a);
+    }
+
+    @Override
+    public DependencyGraph getDependencyGraph() {
+        DependencyGraph g = graph;
+        if (g == null) {
+            g = new DependencyGraph(actions, depsExtractor);
+            graph = g;
+        }
+        return g;
     }
 
     @Override
@@ -137,5 +210,6 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
     @Override
     public void setReconfigurationApplier(ReconfigurationPlanApplier ra) {
         this.applier = ra;
+        modCount++;
     }
 }
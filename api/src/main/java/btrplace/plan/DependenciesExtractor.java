@@ -155,6 +155,27 @@ public class DependenciesExtractor implements ActionVisitor {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Get the node an action demands resources from.
+     *
+     * @param a the action
+     * @return the node, {@code null} if the action does not demand resources
+     */
+    Node getDemandingNode(Action a) {
+        return demandingNodes.get(a);
+    }
+
+    /**
+     * Get the actions that free resources on a node.
+     *
+     * @param n the node
+     * @return a set of actions that may be empty
+     */
+    Set<Action> getFreeingActions(Node n) {
+        Set<Action> actions = freeings.get(n);
+        return actions == null ? Collections.<Action>emptySet() : actions;
+    }
+
     /**
      * Get the dependencies for an action.
      *
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.Node;
+import btrplace.plan.event.Action;
+
+import java.util.*;
+
+/**
+ * An immutable graph of the dependencies between the actions of a plan.
+ * <p/>
+ * The actions are indexed in the order of the plan. The predecessors and the successors
+ * of each action are stored using compressed adjacency arrays, so browsing the
+ * dependencies of an action does not allocate anything.
+ * An action depends on the actions that free resources on the node it
+ * demands resources from and that terminate before its beginning.
+ *
+ * @author Fabien Hermenier
+ * @see ReconfigurationPlan#getDependencyGraph()
+ */
+public class DependencyGraph {
+
+    private Action[] actions;
+
+    private Map<Action, Integer> index;
+
+    private int[] predOffsets;
+
+    private int[] preds;
+
+    private int[] succOffsets;
+
+    private int[] succs;
+
+    private int[] topoOrder;
+
+    private int criticalPathLength;
+
+    /**
+     * Make the graph.
+     *
+     * @param acts the actions to index
+     * @param ex   the extractor that analyzed the actions
+     */
+    DependencyGraph(Collection<Action> acts, DependenciesExtractor ex) {
+        actions = acts.toArray(new Action[acts.size()]);
+        index = new HashMap<>(actions.length * 2);
+        for (int i = 0; i < actions.length; i++) {
+            index.put(actions[i], i);
+        }
+        makePredecessors(ex);
+        makeSuccessors();
+        makeTopologicalOrder();
+    }
+
+    /**
+     * Compute the predecessors of every action.
+     * For each node, the freeing actions are sorted by their end so the predecessors
+     * of a demanding action are retrieved using a binary search.
+     */
+    private void makePredecessors(DependenciesExtractor ex) {
+        Map<Node, int[]> sortedFreeings = new HashMap<>();
+        Map<Node, int[]> sortedEnds = new HashMap<>();
+        List<int[]> lists = new ArrayList<>(actions.length);
+        predOffsets = new int[actions.length + 1];
+        int nbEdges = 0;
+        for (int i = 0; i < actions.length; i++) {
+            Action a = actions[i];
+            Node n = ex.getDemandingNode(a);
+            int[] ps = null;
+            if (n != null) {
+                int[] fs = sortedFreeings.get(n);
+                if (fs == null) {
+                    fs = sortByEnd(ex.getFreeingActions(n));
+                    int[] ends = new int[fs.length];
+                    for (int j = 0; j < fs.length; j++) {
+                        ends[j] = actions[fs[j]].getEnd();
+                    }
+                    sortedFreeings.put(n, fs);
+                    sortedEnds.put(n, ends);
+                }
+                int nb = upperBound(sortedEnds.get(n), a.getStart());
+                ps = new int[nb];
+                int k = 0;
+                for (int j = 0; j < nb; j++) {
+                    if (fs[j] != i) {
+                        ps[k++] = fs[j];
+                    }
+                }
+                if (k != nb) {
+                    ps = Arrays.copyOf(ps, k);
+                }
+                nbEdges += k;
+            }
+            lists.add(ps);
+        }
+        preds = new int[nbEdges];
+        int o = 0;
+        for (int i = 0; i < actions.length; i++) {
+            predOffsets[i] = o;
+            int[] ps = lists.get(i);
+            if (ps != null) {
+                System.arraycopy(ps, 0, preds, o, ps.length);
+                o += ps.length;
+            }
+        }
+        predOffsets[actions.length] = o;
+    }
+
+    /**
+     * Get the index of the given actions, sorted by increasing end.
+     */
+    private int[] sortByEnd(Set<Action> fs) {
+        List<Action> l = new ArrayList<>(fs.size());
+        for (Action a : fs) {
+            if (index.containsKey(a)) {
+                l.add(a);
+            }
+        }
+        Collections.sort(l, new TimedBasedActionComparator(false, false));
+        int[] res = new int[l.size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = index.get(l.get(i));
+        }
+        return res;
+    }
+
+    /**
+     * Get the number of values lower or equals to a given value in a sorted array.
+     */
+    private static int upperBound(int[] sorted, int v) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= v) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void makeSuccessors() {
+        succOffsets = new int[actions.length + 1];
+        for (int p : preds) {
+            succOffsets[p + 1]++;
+        }
+        for (int i = 0; i < actions.length; i++) {
+            succOffsets[i + 1] += succOffsets[i];
+        }
+        succs = new int[preds.length];
+        int[] pos = Arrays.copyOf(succOffsets, actions.length);
+        for (int i = 0; i < actions.length; i++) {
+            for (int k = predOffsets[i]; k < predOffsets[i + 1]; k++) {
+                succs[pos[preds[k]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Compute a topological order and the critical path length
+     * using Kahn's algorithm.
+     */
+    private void makeTopologicalOrder() {
+        int[] nbPending = new int[actions.length];
+        int[] finish = new int[actions.length];
+        int[] order = new int[actions.length];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < actions.length; i++) {
+            nbPending[i] = predOffsets[i + 1] - predOffsets[i];
+            if (nbPending[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        criticalPathLength = 0;
+        while (head < tail) {
+            int i = order[head++];
+            int earliest = 0;
+            for (int k = predOffsets[i]; k < predOffsets[i + 1]; k++) {
+                earliest = Math.max(earliest, finish[preds[k]]);
+            }
+            finish[i] = earliest + actions[i].getEnd() - actions[i].getStart();
+            criticalPathLength = Math.max(criticalPathLength, finish[i]);
+            for (int k = succOffsets[i]; k < succOffsets[i + 1]; k++) {
+                if (--nbPending[succs[k]] == 0) {
+                    order[tail++] = succs[k];
+                }
+            }
+        }
+        topoOrder = tail == order.length ? order : Arrays.copyOf(order, tail);
+    }
+
+    /**
+     * Get the number of actions.
+     *
+     * @return a positive number
+     */
+    public int size() {
+        return actions.length;
+    }
+
+    /**
+     * Get the number of dependencies.
+     *
+     * @return a positive number
+     */
+    public int getNbDependencies() {
+        return preds.length;
+    }
+
+    /**
+     * Get the action having a given index.
+     *
+     * @param i the action index
+     * @return the action
+     */
+    public Action getAction(int i) {
+        return actions[i];
+    }
+
+    /**
+     * Get the index of an action.
+     *
+     * @param a the action
+     * @return its index, {@code -1} if the action is not in the graph
+     */
+    public int indexOf(Action a) {
+        Integer i = index.get(a);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Get the number of actions a given action depends on.
+     *
+     * @param i the action index
+     * @return a positive number
+     */
+    public int getNbPredecessors(int i) {
+        return predOffsets[i + 1] - predOffsets[i];
+    }
+
+    /**
+     * Get one of the actions a given action depends on.
+     *
+     * @param i the action index
+     * @param k the position of the predecessor, between 0 and {@link #getNbPredecessors(int)} excluded
+     * @return the index of the predecessor
+     */
+    public int getPredecessor(int i, int k) {
+        return preds[predOffsets[i] + k];
+    }
+
+    /**
+     * Get the number of actions that depend on a given action.
+     *
+     * @param i the action index
+     * @return a positive number
+     */
+    public int getNbSuccessors(int i) {
+        return succOffsets[i + 1] - succOffsets[i];
+    }
+
+    /**
+     * Get one of the actions that depend on a given action.
+     *
+     * @param i the action index
+     * @param k the position of the successor, between 0 and {@link #getNbSuccessors(int)} excluded
+     * @return the index of the successor
+     */
+    public int getSuccessor(int i, int k) {
+        return succs[succOffsets[i] + k];
+    }
+
+    /**
+     * Get the actions a given action depends on.
+     *
+     * @param a the action
+     * @return an unmodifiable set that may be empty
+     */
+    public Set<Action> getPredecessors(Action a) {
+        int i = indexOf(a);
+        if (i < 0) {
+            return Collections.emptySet();
+        }
+        return new ActionSet(preds, predOffsets[i], predOffsets[i + 1]);
+    }
+
+    /**
+     * Get the actions that depend on a given action.
+     *
+     * @param a the action
+     * @return an unmodifiable set that may be empty
+     */
+    public Set<Action> getSuccessors(Action a) {
+        int i = indexOf(a);
+        if (i < 0) {
+            return Collections.emptySet();
+        }
+        return new ActionSet(succs, succOffsets[i], succOffsets[i + 1]);
+    }
+
+    /**
+     * Indicate if the dependencies are acyclic.
+     * This should be the case for a plan where the actions have a positive duration.
+     *
+     * @return {@code true} iff the graph is acyclic
+     */
+    public boolean isAcyclic() {
+        return topoOrder.length == actions.length;
+    }
+
+    /**
+     * Get the actions in a topological order: an action always
+     * appears after the actions it depends on.
+     * The actions involved in a cycle are ignored.
+     *
+     * @return an array of action indexes
+     */
+    public int[] getTopologicalOrder() {
+        return topoOrder.clone();
+    }
+
+    /**
+     * Get the length of the longest chain of dependent actions,
+     * in terms of the cumulated duration of the actions.
+     * The actions involved in a cycle are ignored.
+     *
+     * @return a positive duration
+     */
+    public int getCriticalPathLength() {
+        return criticalPathLength;
+    }
+
+    /**
+     * An unmodifiable set of actions backed by a slice of an adjacency array.
+     */
+    private class ActionSet extends AbstractSet<Action> {
+
+        private int[] values;
+
+        private int from;
+
+        private int to;
+
+        ActionSet(int[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<Action> iterator() {
+            return new Iterator<Action>() {
+                private int cur = from;
+
+                @Override
+                public boolean hasNext() {
+                    return cur < to;
+                }
+
+                @Override
+                public Action next() {
+                    if (cur >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return actions[values[cur++]];
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.Model;
+import btrplace.plan.event.Action;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ReconfigurationPlanMonitor} that supports numerous concurrent commits.
+ * <p/>
+ * The actions are indexed using the plan {@link DependencyGraph}. The dependencies are then tracked using,
+ * for each action, an atomic counter of the actions it is still waiting for. A commit
+ * is then lock-free with regards to the dependencies.
+ * <p/>
+ * The committed actions are applied on the current model in batches: a committing thread
+ * pushes its action in a queue and the queue is emptied by the first thread that obtains the
+ * model. An action is pushed before the actions that depend on it are unblocked so it
+ * is always applied after its dependencies.
+ * In contrast with {@link DefaultReconfigurationPlanMonitor}, a commit only fails when
+ * the action is unknown, already committed or still blocked. An action that cannot be
+ * applied on the model is reported by {@link #getRejectedActions()}.
+ *
+ * @author Fabien Hermenier
+ */
+public class LockFreeReconfigurationPlanMonitor implements ReconfigurationPlanMonitor {
+
+    private ReconfigurationPlan plan;
+
+    private Model curModel;
+
+    private DependencyGraph graph;
+
+    /**
+     * For each action, the number of actions it is waiting for.
+     */
+    private AtomicIntegerArray pending;
+
+    /**
+     * For each action, 1 if it has been committed.
+     */
+    private AtomicIntegerArray committed;
+
+    private AtomicInteger nbCommitted;
+
+    private Queue<Action> toApply;
+
+    private ReentrantLock modelLock;
+
+    private List<Action> rejected;
+
+    /**
+     * Make a new monitor.
+     *
+     * @param p the plan to execute
+     */
+    public LockFreeReconfigurationPlanMonitor(ReconfigurationPlan p) {
+        this.plan = p;
+        curModel = p.getOrigin().clone();
+        graph = p.getDependencyGraph();
+        int[] nbPending = new int[graph.size()];
+        for (int i = 0; i < nbPending.length; i++) {
+            nbPending[i] = graph.getNbPredecessors(i);
+        }
+        pending = new AtomicIntegerArray(nbPending);
+        committed = new AtomicIntegerArray(graph.size());
+        nbCommitted = new AtomicInteger(0);
+        toApply = new ConcurrentLinkedQueue<>();
+        modelLock = new ReentrantLock();
+        rejected = new ArrayList<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The pending actions are applied before returning the model.
+     */
+    @Override
+    public Model getCurrentModel() {
+        modelLock.lock();
+        try {
+            applyPendings();
+            return curModel;
+        } finally {
+            modelLock.unlock();
+        }
+    }
+
+    /**
+     * Apply the pending actions on the model.
+     * The lock over the model must be held.
+     */
+    private void applyPendings() {
+        Action a;
+        while ((a = toApply.poll()) != null) {
+            if (!a.apply(curModel)) {
+                rejected.add(a);
+            }
+        }
+    }
+
+    @Override
+    public Set<Action> commit(Action a) {
+        int idx = graph.indexOf(a);
+        if (idx < 0 || pending.get(idx) > 0 || !committed.compareAndSet(idx, 0, 1)) {
+            return null;
+        }
+        nbCommitted.incrementAndGet();
+        toApply.add(a);
+        //Apply the pending actions unless another thread is already doing it
+        if (modelLock.tryLock()) {
+            try {
+                applyPendings();
+            } finally {
+                modelLock.unlock();
+            }
+        }
+
+        int nbSuccs = graph.getNbSuccessors(idx);
+        if (nbSuccs == 0) {
+            return Collections.emptySet();
+        }
+        Set<Action> s = new HashSet<>();
+        for (int k = 0; k < nbSuccs; k++) {
+            int x = graph.getSuccessor(idx, k);
+            if (pending.decrementAndGet(x) == 0) {
+                s.add(graph.getAction(x));
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Get the actions that were committed but that cannot be applied on the model.
+     *
+     * @return a list of actions that may be empty
+     */
+    public List<Action> getRejectedActions() {
+        modelLock.lock();
+        try {
+            applyPendings();
+            return new ArrayList<>(rejected);
+        } finally {
+            modelLock.unlock();
+        }
+    }
+
+    @Override
+    public int getNbCommitted() {
+        return nbCommitted.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the action is not in the plan
+     */
+    @Override
+    public boolean isBlocked(Action a) {
+        int idx = graph.indexOf(a);
+        if (idx < 0) {
+            throw new IllegalArgumentException("Unknown action '" + a + "'");
+        }
+        return pending.get(idx) > 0;
+    }
+
+    @Override
+    public ReconfigurationPlan getReconfigurationPlan() {
+        return plan;
+    }
+}
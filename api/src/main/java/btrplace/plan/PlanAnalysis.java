@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.Mapping;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+
+import java.util.*;
+
+/**
+ * Timing analysis of a reconfiguration plan.
+ * <p/>
+ * The analysis relies on the {@link DependencyGraph} of the plan to compute the
+ * slack of each action, i.e. the delay it can suffer without increasing the
+ * plan duration, and a critical path. It also provides, for each node,
+ * the number of actions running simultaneously and the usage of the shareable resources
+ * over time.
+ * <p/>
+ * Each analysis is performed once, on demand, in {@code O(n.log(n))} with {@code n}
+ * the number of actions. The plan must not be modified meanwhile.
+ *
+ * @author Fabien Hermenier
+ */
+public class PlanAnalysis {
+
+    private ReconfigurationPlan plan;
+
+    private DependencyGraph graph;
+
+    private int duration;
+
+    private int[] slacks;
+
+    private List<Action> criticalPath;
+
+    private Map<Node, Profile> concurrency;
+
+    private Map<String, Map<Node, Profile>> usages;
+
+    /**
+     * Make a new analysis.
+     *
+     * @param p the plan to analyse
+     */
+    public PlanAnalysis(ReconfigurationPlan p) {
+        this.plan = p;
+        this.graph = p.getDependencyGraph();
+        this.duration = p.getDuration();
+        usages = new HashMap<>();
+    }
+
+    /**
+     * Get the analysed plan.
+     *
+     * @return the plan
+     */
+    public ReconfigurationPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Compute the latest moment each action can start without delaying the end of the plan.
+     */
+    private void computeSlacks() {
+        int n = graph.size();
+        int[] latestStarts = new int[n];
+        slacks = new int[n];
+        int[] order = graph.getTopologicalOrder();
+        for (int i = 0; i < n; i++) {
+            Action a = graph.getAction(i);
+            latestStarts[i] = duration - (a.getEnd() - a.getStart());
+        }
+        for (int x = order.length - 1; x >= 0; x--) {
+            int i = order[x];
+            Action a = graph.getAction(i);
+            int latestEnd = duration;
+            for (int k = 0; k < graph.getNbSuccessors(i); k++) {
+                latestEnd = Math.min(latestEnd, latestStarts[graph.getSuccessor(i, k)]);
+            }
+            latestStarts[i] = latestEnd - (a.getEnd() - a.getStart());
+        }
+        for (int i = 0; i < n; i++) {
+            slacks[i] = latestStarts[i] - graph.getAction(i).getStart();
+        }
+    }
+
+    /**
+     * Get the slack of an action: the delay the action can
+     * suffer without delaying the end of the plan, considering the dependencies.
+     *
+     * @param a the action
+     * @return a positive duration
+     * @throws IllegalArgumentException if the action is not in the plan
+     */
+    public int getSlack(Action a) {
+        int i = graph.indexOf(a);
+        if (i < 0) {
+            throw new IllegalArgumentException("Unknown action '" + a + "'");
+        }
+        if (slacks == null) {
+            computeSlacks();
+        }
+        return slacks[i];
+    }
+
+    /**
+     * Get a critical path: a chain of dependent actions without any slack
+     * that ends with the plan.
+     *
+     * @return the actions, ordered by their start moment. Empty if the plan is empty
+     */
+    public List<Action> getCriticalPath() {
+        if (criticalPath != null) {
+            return criticalPath;
+        }
+        if (slacks == null) {
+            computeSlacks();
+        }
+        LinkedList<Action> path = new LinkedList<>();
+        int cur = -1;
+        for (int i = 0; i < graph.size(); i++) {
+            if (slacks[i] == 0 && graph.getAction(i).getEnd() == duration) {
+                cur = i;
+                break;
+            }
+        }
+        while (cur >= 0) {
+            path.addFirst(graph.getAction(cur));
+            int next = -1;
+            for (int k = 0; k < graph.getNbPredecessors(cur); k++) {
+                int p = graph.getPredecessor(cur, k);
+                if (slacks[p] == 0 && (next < 0 || graph.getAction(p).getEnd() > graph.getAction(next).getEnd())) {
+                    next = p;
+                }
+            }
+            cur = next;
+        }
+        criticalPath = Collections.unmodifiableList(path);
+        return criticalPath;
+    }
+
+    /**
+     * Get the number of actions involving a node over time.
+     * A migration involves both its source and its destination node.
+     *
+     * @param n the node
+     * @return the profile
+     */
+    public Profile getConcurrencyProfile(Node n) {
+        if (concurrency == null) {
+            Map<Node, List<int[]>> deltas = new HashMap<>();
+            for (Action a : plan) {
+                for (Node x : PlanUtils.getNodes(a)) {
+                    addDelta(deltas, x, a.getStart(), 1);
+                    addDelta(deltas, x, a.getEnd(), -1);
+                }
+            }
+            concurrency = makeProfiles(deltas, Collections.<Node, Integer>emptyMap());
+        }
+        Profile p = concurrency.get(n);
+        return p == null ? new Profile(new int[]{0}, new int[]{0}) : p;
+    }
+
+    /**
+     * Get the usage of a shareable resource on a node over time.
+     * The resource demanded by a VM arriving on a node is considered as used
+     * from the beginning of the action while the resource freed by a VM leaving
+     * a node is considered as released at the end of the action.
+     *
+     * @param rcId the resource identifier
+     * @param n    the node
+     * @return the profile. {@code null} if the resource is not defined in the plan origin
+     */
+    public Profile getUsageProfile(String rcId, Node n) {
+        Map<Node, Profile> profiles = usages.get(rcId);
+        if (profiles == null) {
+            ShareableResource rc = (ShareableResource) plan.getOrigin().getView(ShareableResource.VIEW_ID_BASE + rcId);
+            if (rc == null) {
+                return null;
+            }
+            profiles = computeUsages(rc);
+            usages.put(rcId, profiles);
+        }
+        Profile p = profiles.get(n);
+        return p == null ? new Profile(new int[]{0}, new int[]{0}) : p;
+    }
+
+    /**
+     * Get the maximum usage of a shareable resource on a node.
+     *
+     * @param rcId the resource identifier
+     * @param n    the node
+     * @return the peak usage. {@code -1} if the resource is not defined in the plan origin
+     */
+    public int getPeakUsage(String rcId, Node n) {
+        Profile p = getUsageProfile(rcId, n);
+        return p == null ? -1 : p.getMax();
+    }
+
+    private Map<Node, Profile> computeUsages(ShareableResource rc) {
+        Mapping map = plan.getOrigin().getMapping();
+        Map<Node, Integer> initials = new HashMap<>();
+        for (Node n : map.getOnlineNodes()) {
+            int u = 0;
+            for (VM vm : map.getRunningVMs(n)) {
+                u += rc.getConsumption(vm);
+            }
+            initials.put(n, u);
+        }
+        UsageCollector c = new UsageCollector(rc, map.getRunningVMs());
+        for (Action a : plan) {
+            a.visit(c);
+        }
+        return makeProfiles(c.deltas, initials);
+    }
+
+    private static void addDelta(Map<Node, List<int[]>> deltas, Node n, int t, int d) {
+        List<int[]> l = deltas.get(n);
+        if (l == null) {
+            l = new ArrayList<>();
+            deltas.put(n, l);
+        }
+        l.add(new int[]{t, d});
+    }
+
+    /**
+     * Sort the variations by time, the decreases first, and
+     * make the profiles.
+     */
+    private static Map<Node, Profile> makeProfiles(Map<Node, List<int[]>> deltas, Map<Node, Integer> initials) {
+        Comparator<int[]> cmp = new Comparator<int[]>() {
+            @Override
+            public int compare(int[] o1, int[] o2) {
+                return o1[0] == o2[0] ? o1[1] - o2[1] : o1[0] - o2[0];
+            }
+        };
+        Map<Node, Profile> res = new HashMap<>();
+        for (Map.Entry<Node, Integer> e : initials.entrySet()) {
+            res.put(e.getKey(), new Profile(new int[]{0}, new int[]{e.getValue()}));
+        }
+        for (Map.Entry<Node, List<int[]>> e : deltas.entrySet()) {
+            List<int[]> l = e.getValue();
+            Collections.sort(l, cmp);
+            Integer init = initials.get(e.getKey());
+            int cur = init == null ? 0 : init;
+            int[] times = new int[l.size() + 1];
+            int[] values = new int[l.size() + 1];
+            int nb = 1;
+            values[0] = cur;
+            for (int i = 0; i < l.size(); i++) {
+                int[] d = l.get(i);
+                cur += d[1];
+                if (i < l.size() - 1 && l.get(i + 1)[0] == d[0]) {
+                    //Only the value once all the variations at this moment are applied matters
+                    continue;
+                }
+                if (times[nb - 1] == d[0]) {
+                    values[nb - 1] = cur;
+                } else if (values[nb - 1] != cur) {
+                    times[nb] = d[0];
+                    values[nb] = cur;
+                    nb++;
+                }
+            }
+            res.put(e.getKey(), new Profile(Arrays.copyOf(times, nb), Arrays.copyOf(values, nb)));
+        }
+        return res;
+    }
+
+    /**
+     * A step function that indicates a value over time.
+     */
+    public static class Profile {
+
+        private int[] times;
+
+        private int[] values;
+
+        private int max;
+
+        /**
+         * Make a new profile.
+         *
+         * @param times  the moments the value changes, increasing. The first moment is 0
+         * @param values the value from each moment to the next one
+         */
+        public Profile(int[] times, int[] values) {
+            this.times = times;
+            this.values = values;
+            max = Integer.MIN_VALUE;
+            for (int v : values) {
+                max = Math.max(max, v);
+            }
+        }
+
+        /**
+         * Get the number of steps.
+         *
+         * @return a positive number
+         */
+        public int getNbSteps() {
+            return times.length;
+        }
+
+        /**
+         * Get the moment a step begins.
+         *
+         * @param i the step index
+         * @return a moment
+         */
+        public int getMoment(int i) {
+            return times[i];
+        }
+
+        /**
+         * Get the value during a step.
+         *
+         * @param i the step index
+         * @return the value
+         */
+        public int getValue(int i) {
+            return values[i];
+        }
+
+        /**
+         * Get the value at a given moment.
+         *
+         * @param t the moment
+         * @return the value
+         */
+        public int getValueAt(int t) {
+            int i = Arrays.binarySearch(times, t);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return values[Math.max(0, i)];
+        }
+
+        /**
+         * Get the maximum value.
+         *
+         * @return the maximum
+         */
+        public int getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder b = new StringBuilder();
+            for (int i = 0; i < times.length; i++) {
+                if (i > 0) {
+                    b.append(", ");
+                }
+                b.append(times[i]).append(':').append(values[i]);
+            }
+            return b.toString();
+        }
+    }
+
+    /**
+     * Collect the variations of the resource usage for every action.
+     */
+    private static class UsageCollector implements ActionVisitor {
+
+        private ShareableResource rc;
+
+        private Map<VM, Integer> consumptions;
+
+        private Set<VM> running;
+
+        private Map<Node, List<int[]>> deltas;
+
+        UsageCollector(ShareableResource rc, Set<VM> running) {
+            this.rc = rc;
+            this.running = new HashSet<>(running);
+            consumptions = new HashMap<>();
+            deltas = new HashMap<>();
+        }
+
+        private int getConsumption(VM vm) {
+            Integer c = consumptions.get(vm);
+            return c == null ? rc.getConsumption(vm) : c;
+        }
+
+        private void applyEvents(Action a, Action.Hook k) {
+            for (Event e : a.getEvents(k)) {
+                e.visit(this);
+            }
+        }
+
+        private void arrive(Action a, VM vm, Node n) {
+            applyEvents(a, Action.Hook.pre);
+            addDelta(deltas, n, a.getStart(), getConsumption(vm));
+            running.add(vm);
+            applyEvents(a, Action.Hook.post);
+        }
+
+        private void leave(Action a, VM vm, Node n) {
+            applyEvents(a, Action.Hook.pre);
+            if (running.remove(vm)) {
+                addDelta(deltas, n, a.getEnd(), -getConsumption(vm));
+            }
+            applyEvents(a, Action.Hook.post);
+        }
+
+        @Override
+        public Object visit(Allocate a) {
+            if (a.getResourceId().equals(rc.getResourceIdentifier())) {
+                int d = a.getAmount() - getConsumption(a.getVM());
+                addDelta(deltas, a.getHost(), d > 0 ? a.getStart() : a.getEnd(), d);
+                consumptions.put(a.getVM(), a.getAmount());
+            }
+            return null;
+        }
+
+        @Override
+        public Object visit(AllocateEvent a) {
+            if (a.getResourceId().equals(rc.getResourceIdentifier())) {
+                consumptions.put(a.getVM(), a.getAmount());
+            }
+            return null;
+        }
+
+        @Override
+        public Object visit(SubstitutedVMEvent a) {
+            return null;
+        }
+
+        @Override
+        public Object visit(BootNode a) {
+            return null;
+        }
+
+        @Override
+        public Object visit(BootVM a) {
+            arrive(a, a.getVM(), a.getDestinationNode());
+            return null;
+        }
+
+        @Override
+        public Object visit(ForgeVM a) {
+            return null;
+        }
+
+        @Override
+        public Object visit(KillVM a) {
+            if (a.getNode() != null) {
+                leave(a, a.getVM(), a.getNode());
+            }
+            return null;
+        }
+
+        @Override
+        public Object visit(MigrateVM a) {
+            int c = getConsumption(a.getVM());
+            applyEvents(a, Action.Hook.pre);
+            addDelta(deltas, a.getDestinationNode(), a.getStart(), getConsumption(a.getVM()));
+            addDelta(deltas, a.getSourceNode(), a.getEnd(), -c);
+            applyEvents(a, Action.Hook.post);
+            return null;
+        }
+
+        @Override
+        public Object visit(ResumeVM a) {
+            arrive(a, a.getVM(), a.getDestinationNode());
+            return null;
+        }
+
+        @Override
+        public Object visit(ShutdownNode a) {
+            return null;
+        }
+
+        @Override
+        public Object visit(ShutdownVM a) {
+            leave(a, a.getVM(), a.getNode());
+            return null;
+        }
+
+        @Override
+        public Object visit(SuspendVM a) {
+            leave(a, a.getVM(), a.getSourceNode());
+            return null;
+        }
+    }
+}
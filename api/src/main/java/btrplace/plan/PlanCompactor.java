@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.ModelView;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+
+import java.util.*;
+
+/**
+ * Post-process a reconfiguration plan to ease its execution.
+ * <p/>
+ * {@link #compact(ReconfigurationPlan)} removes the resource allocations that
+ * have no effect: the {@link Allocate} actions and the {@link AllocateEvent}
+ * that set the amount already allocated to the VM, or that are superseded by another
+ * event in the same hook. The resulting plan leads to the same mapping and the same resource
+ * consumptions. It is still made of regular actions so it can be checked using
+ * a {@link ReconfigurationPlanChecker}.
+ * Consecutive {@link Allocate} actions on a same VM and resource are not merged, as the merged action
+ * would change the amount allocated between the two actions and possibly violate a continuous constraint.
+ * <p/>
+ * {@link #batch(ReconfigurationPlan)} groups the actions of a same type that start
+ * at the same moment and involve the same nodes.
+ *
+ * @author Fabien Hermenier
+ */
+public class PlanCompactor {
+
+    private static final TimedBasedActionComparator CMP = new TimedBasedActionComparator();
+
+    private int maxBatchSize = Integer.MAX_VALUE;
+
+    /**
+     * Set the maximum number of actions in a batch.
+     *
+     * @param s a strictly positive number
+     */
+    public void setMaxBatchSize(int s) {
+        if (s <= 0) {
+            throw new IllegalArgumentException("The batch size must be strictly positive");
+        }
+        maxBatchSize = s;
+    }
+
+    /**
+     * Get the maximum number of actions in a batch.
+     *
+     * @return a strictly positive number. {@link Integer#MAX_VALUE} by default
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Make a compacted version of a plan.
+     * The given plan is not modified. The unchanged actions are shared between the two plans.
+     *
+     * @param p the plan to compact
+     * @return a new plan starting from the same model
+     */
+    public ReconfigurationPlan compact(ReconfigurationPlan p) {
+        Allocations allocs = new Allocations(p);
+        ReconfigurationPlan res = new DefaultReconfigurationPlan(p.getOrigin());
+        Action[] actions = p.getActions().toArray(new Action[p.getSize()]);
+        Arrays.sort(actions, CMP);
+        for (Action a : actions) {
+            List<Event> pre = allocs.filter(a.getEvents(Action.Hook.pre));
+            boolean noop = a instanceof Allocate && allocs.isNoop((Allocate) a);
+            List<Event> post = allocs.filter(a.getEvents(Action.Hook.post));
+            if (noop && pre.isEmpty() && post.isEmpty()) {
+                continue;
+            }
+            if (pre.size() == a.getEvents(Action.Hook.pre).size()
+                    && post.size() == a.getEvents(Action.Hook.post).size()) {
+                res.add(a);
+            } else {
+                Action c = (Action) a.visit(COPIER);
+                for (Event e : pre) {
+                    c.addEvent(Action.Hook.pre, e);
+                }
+                for (Event e : post) {
+                    c.addEvent(Action.Hook.post, e);
+                }
+                res.add(c);
+            }
+        }
+        res.setReconfigurationApplier(p.getReconfigurationApplier());
+        return res;
+    }
+
+    /**
+     * Group the actions of a plan into batches.
+     * The actions inside a batch have the same type, the same start moment and involve the same nodes.
+     *
+     * @param p the plan
+     * @return the batches, sorted by their start moment
+     */
+    public List<ActionBatch> batch(ReconfigurationPlan p) {
+        Action[] actions = p.getActions().toArray(new Action[p.getSize()]);
+        Arrays.sort(actions, CMP);
+        List<ActionBatch> batches = new ArrayList<>();
+        Map<BatchKey, ActionBatch> open = new HashMap<>();
+        int cur = -1;
+        for (Action a : actions) {
+            if (a.getStart() != cur) {
+                //No more actions can join the previous batches
+                open.clear();
+                cur = a.getStart();
+            }
+            Collection<Node> ns = PlanUtils.getNodes(a);
+            BatchKey k = new BatchKey(a.getClass(), new ArrayList<>(ns));
+            ActionBatch b = open.get(k);
+            if (b == null || b.getSize() == maxBatchSize) {
+                b = new ActionBatch(a.getClass(), cur, k.nodes);
+                open.put(k, b);
+                batches.add(b);
+            }
+            b.add(a);
+        }
+        return batches;
+    }
+
+    /**
+     * The criteria to group actions inside a batch, the start moment aside.
+     */
+    private static class BatchKey {
+
+        private Class<? extends Action> type;
+
+        private List<Node> nodes;
+
+        BatchKey(Class<? extends Action> type, List<Node> nodes) {
+            this.type = type;
+            this.nodes = nodes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BatchKey that = (BatchKey) o;
+            return type.equals(that.type) && nodes.equals(that.nodes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, nodes);
+        }
+    }
+
+    /**
+     * Track the amount of resources allocated to the VMs
+     * while the actions are browsed in their execution order.
+     */
+    private static class Allocations {
+
+        private Map<String, ShareableResource> rcs;
+
+        private Map<String, Map<VM, Integer>> amounts;
+
+        Allocations(ReconfigurationPlan p) {
+            rcs = new HashMap<>();
+            amounts = new HashMap<>();
+            for (ModelView v : p.getOrigin().getViews()) {
+                if (v instanceof ShareableResource) {
+                    ShareableResource rc = (ShareableResource) v;
+                    rcs.put(rc.getResourceIdentifier(), rc);
+                    amounts.put(rc.getResourceIdentifier(), new HashMap<VM, Integer>());
+                }
+            }
+        }
+
+        /**
+         * Check if an allocation changes the current amount, and update it.
+         *
+         * @return {@code true} iff the allocation can be ignored
+         */
+        private boolean isNoop(VM vm, String rcId, int amount) {
+            ShareableResource rc = rcs.get(rcId);
+            if (rc == null) {
+                //The allocation will fail, it must be kept
+                return false;
+            }
+            Map<VM, Integer> cur = amounts.get(rcId);
+            Integer v = cur.get(vm);
+            if ((v == null ? rc.getConsumption(vm) : v) == amount) {
+                return true;
+            }
+            cur.put(vm, amount);
+            return false;
+        }
+
+        boolean isNoop(Allocate a) {
+            return isNoop(a.getVM(), a.getResourceId(), a.getAmount());
+        }
+
+        /**
+         * Remove the allocations without effect from the events of a hook.
+         *
+         * @param events the events, in their execution order
+         * @return the events to keep
+         */
+        List<Event> filter(List<Event> events) {
+            List<Event> kept = new ArrayList<>(events.size());
+            for (int i = 0; i < events.size(); i++) {
+                Event e = events.get(i);
+                if (e instanceof AllocateEvent) {
+                    AllocateEvent ae = (AllocateEvent) e;
+                    if ((rcs.containsKey(ae.getResourceId()) && isSuperseded(ae, events, i))
+                            || isNoop(ae.getVM(), ae.getResourceId(), ae.getAmount())) {
+                        continue;
+                    }
+                } else if (e instanceof SubstitutedVMEvent) {
+                    substitute((SubstitutedVMEvent) e);
+                }
+                kept.add(e);
+            }
+            return kept;
+        }
+
+        private static boolean isSuperseded(AllocateEvent e, List<Event> events, int i) {
+            for (int j = i + 1; j < events.size(); j++) {
+                if (events.get(j) instanceof AllocateEvent) {
+                    AllocateEvent o = (AllocateEvent) events.get(j);
+                    if (o.getVM().equals(e.getVM()) && o.getResourceId().equals(e.getResourceId())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void substitute(SubstitutedVMEvent e) {
+            for (Map.Entry<String, Map<VM, Integer>> cur : amounts.entrySet()) {
+                Integer v = cur.getValue().get(e.getVM());
+                cur.getValue().put(e.getNewVM(), v == null ? rcs.get(cur.getKey()).getConsumption(e.getVM()) : v);
+            }
+        }
+    }
+
+    /**
+     * Copy an action, without its events.
+     */
+    private static final ActionVisitor COPIER = new ActionVisitor() {
+        @Override
+        public Object visit(Allocate a) {
+            return new Allocate(a.getVM(), a.getHost(), a.getResourceId(), a.getAmount(), a.getStart(), a.getEnd());
+        }
+
+        @Override
+        public Object visit(AllocateEvent a) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object visit(SubstitutedVMEvent a) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object visit(BootNode a) {
+            return new BootNode(a.getNode(), a.getStart(), a.getEnd());
+        }
+
+        @Override
+        public Object visit(BootVM a) {
+            return new BootVM(a.getVM(), a.getDestinationNode(), a.getStart(), a.getEnd());
+        }
+
+        @Override
+        public Object visit(ForgeVM a) {
+            return new ForgeVM(a.getVM(), a.getStart(), a.getEnd());
+        }
+
+        @Override
+        public Object visit(KillVM a) {
+            return new KillVM(a.getVM(), a.getNode(), a.getStart(), a.getEnd());
+        }
+
+        @Override
+        public Object visit(MigrateVM a) {
+            return new MigrateVM(a.getVM(), a.getSourceNode(), a.getDestinationNode(), a.getStart(), a.getEnd());
+        }
+
+        @Override
+        public Object visit(ResumeVM a) {
+            return new ResumeVM(a.getVM(), a.getSourceNode(), a.getDestinationNode(), a.getStart(), a.getEnd());
+        }
+
+        @Override
+        public Object visit(ShutdownNode a) {
+            return new ShutdownNode(a.getNode(), a.getStart(), a.getEnd());
+        }
+
+        @Override
+        public Object visit(ShutdownVM a) {
+            return new ShutdownVM(a.getVM(), a.getNode(), a.getStart(), a.getEnd());
+        }
+
+        @Override
+        public Object visit(SuspendVM a) {
+            return new SuspendVM(a.getVM(), a.getSourceNode(), a.getDestinationNode(), a.getStart(), a.getEnd());
+        }
+    };
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simulate the application of a plan to check its applicability
+ * without cloning its origin model.
+ * <p/>
+ * The actions are applied in the order of {@link TimeBasedPlanApplier}, with the same
+ * semantics, on a delta overlay that only stores the state of the VMs and the nodes
+ * that are altered by the plan. The views and the attributes are never copied.
+ *
+ * @author Fabien Hermenier
+ */
+class PlanSimulator implements ActionVisitor {
+
+    private static final TimedBasedActionComparator CMP = new TimedBasedActionComparator();
+
+    private static final int READY = 0;
+
+    private static final int RUNNING = 1;
+
+    private static final int SLEEPING = 2;
+
+    private static final int ONLINE = 3;
+
+    private static final int OFFLINE = 4;
+
+    private static final int NONE = -1;
+
+    private Model src;
+
+    private Mapping map;
+
+    private Map<VM, Integer> vmStates;
+
+    private Map<VM, Node> locations;
+
+    private Map<Node, Integer> nodeStates;
+
+    /**
+     * The number of VMs, running or sleeping, on the altered nodes.
+     */
+    private Map<Node, Integer> hosted;
+
+    private boolean applyable;
+
+    /**
+     * Simulate a plan.
+     *
+     * @param p the plan to simulate
+     */
+    PlanSimulator(ReconfigurationPlan p) {
+        src = p.getOrigin();
+        map = src.getMapping();
+        vmStates = new HashMap<>();
+        locations = new HashMap<>();
+        nodeStates = new HashMap<>();
+        hosted = new HashMap<>();
+        Action[] actions = p.getActions().toArray(new Action[p.getSize()]);
+        Arrays.sort(actions, CMP);
+        applyable = true;
+        for (Action a : actions) {
+            if (!apply(a)) {
+                applyable = false;
+                break;
+            }
+        }
+    }
+
+    private boolean apply(Action a) {
+        for (Event e : a.getEvents(Action.Hook.pre)) {
+            if (!(Boolean) e.visit(this)) {
+                return false;
+            }
+        }
+        if (!(Boolean) a.visit(this)) {
+            return false;
+        }
+        for (Event e : a.getEvents(Action.Hook.post)) {
+            if (!(Boolean) e.visit(this)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicate if the plan can be applied.
+     *
+     * @return {@code true} iff all the actions and events could be applied
+     */
+    boolean isApplyable() {
+        return applyable;
+    }
+
+    /**
+     * Make the mapping that results from the application of the plan.
+     * Only the origin mapping is copied.
+     *
+     * @return a new mapping, {@code null} if the plan is not applyable
+     */
+    Mapping getResultingMapping() {
+        if (!applyable) {
+            return null;
+        }
+        Mapping res = map.clone();
+        for (Map.Entry<Node, Integer> e : nodeStates.entrySet()) {
+            if (e.getValue() == ONLINE && !res.getOnlineNodes().contains(e.getKey())) {
+                res.addOnlineNode(e.getKey());
+            }
+        }
+        for (Map.Entry<VM, Integer> e : vmStates.entrySet()) {
+            VM vm = e.getKey();
+            switch (e.getValue()) {
+                case READY:
+                    res.addReadyVM(vm);
+                    break;
+                case RUNNING:
+                    res.addRunningVM(vm, locations.get(vm));
+                    break;
+                case SLEEPING:
+                    res.addSleepingVM(vm, locations.get(vm));
+                    break;
+                default:
+                    res.remove(vm);
+            }
+        }
+        for (Map.Entry<Node, Integer> e : nodeStates.entrySet()) {
+            if (e.getValue() == OFFLINE) {
+                res.addOfflineNode(e.getKey());
+            }
+        }
+        return res;
+    }
+
+    private int getState(VM vm) {
+        Integer st = vmStates.get(vm);
+        if (st != null) {
+            return st;
+        }
+        if (map.getRunningVMs().contains(vm)) {
+            return RUNNING;
+        } else if (map.getSleepingVMs().contains(vm)) {
+            return SLEEPING;
+        } else if (map.getReadyVMs().contains(vm)) {
+            return READY;
+        }
+        return NONE;
+    }
+
+    private Node getLocation(VM vm) {
+        Node n = locations.get(vm);
+        return n != null || vmStates.containsKey(vm) ? n : map.getVMLocation(vm);
+    }
+
+    private int getState(Node n) {
+        Integer st = nodeStates.get(n);
+        if (st != null) {
+            return st;
+        }
+        if (map.getOnlineNodes().contains(n)) {
+            return ONLINE;
+        } else if (map.getOfflineNodes().contains(n)) {
+            return OFFLINE;
+        }
+        return NONE;
+    }
+
+    private int getHosted(Node n) {
+        Integer nb = hosted.get(n);
+        if (nb != null) {
+            return nb;
+        }
+        return map.getRunningVMs(n).size() + map.getSleepingVMs(n).size();
+    }
+
+    /**
+     * Change the state of a VM and maintain the number of VMs on the nodes.
+     */
+    private void setState(VM vm, int st, Node to) {
+        int old = getState(vm);
+        if (old == RUNNING || old == SLEEPING) {
+            Node from = getLocation(vm);
+            hosted.put(from, getHosted(from) - 1);
+        }
+        if (st == RUNNING || st == SLEEPING) {
+            hosted.put(to, getHosted(to) + 1);
+            locations.put(vm, to);
+        } else {
+            locations.remove(vm);
+        }
+        vmStates.put(vm, st);
+    }
+
+    private boolean isOnline(Node n) {
+        return getState(n) == ONLINE;
+    }
+
+    @Override
+    public Object visit(Allocate a) {
+        return src.getView(ShareableResource.VIEW_ID_BASE + a.getResourceId()) != null;
+    }
+
+    @Override
+    public Object visit(AllocateEvent a) {
+        return src.getView(ShareableResource.VIEW_ID_BASE + a.getResourceId()) != null;
+    }
+
+    @Override
+    public Object visit(SubstitutedVMEvent a) {
+        return true;
+    }
+
+    @Override
+    public Object visit(BootNode a) {
+        if (getState(a.getNode()) == OFFLINE) {
+            nodeStates.put(a.getNode(), ONLINE);
+            hosted.put(a.getNode(), 0);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object visit(ShutdownNode a) {
+        int st = getState(a.getNode());
+        if (st == OFFLINE || (st == ONLINE && getHosted(a.getNode()) > 0)) {
+            return false;
+        }
+        nodeStates.put(a.getNode(), OFFLINE);
+        return true;
+    }
+
+    @Override
+    public Object visit(BootVM a) {
+        if (getState(a.getVM()) == READY && isOnline(a.getDestinationNode())) {
+            setState(a.getVM(), RUNNING, a.getDestinationNode());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object visit(ForgeVM a) {
+        if (getState(a.getVM()) == NONE) {
+            setState(a.getVM(), READY, null);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object visit(KillVM a) {
+        if (getState(a.getVM()) == NONE) {
+            return false;
+        }
+        setState(a.getVM(), NONE, null);
+        return true;
+    }
+
+    @Override
+    public Object visit(MigrateVM a) {
+        Node from = a.getSourceNode();
+        Node to = a.getDestinationNode();
+        if (isOnline(from) && isOnline(to) && getState(a.getVM()) == RUNNING
+                && from.equals(getLocation(a.getVM())) && !from.equals(to)) {
+            setState(a.getVM(), RUNNING, to);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object visit(ResumeVM a) {
+        if (isOnline(a.getSourceNode()) && isOnline(a.getDestinationNode())
+                && getState(a.getVM()) == SLEEPING && getLocation(a.getVM()) == a.getSourceNode()) {
+            setState(a.getVM(), RUNNING, a.getDestinationNode());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object visit(ShutdownVM a) {
+        if (isOnline(a.getNode()) && getState(a.getVM()) == RUNNING && getLocation(a.getVM()) == a.getNode()) {
+            setState(a.getVM(), READY, null);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object visit(SuspendVM a) {
+        if (isOnline(a.getSourceNode()) && isOnline(a.getDestinationNode())
+                && getState(a.getVM()) == RUNNING && getLocation(a.getVM()) == a.getSourceNode()) {
+            setState(a.getVM(), SLEEPING, a.getDestinationNode());
+            return true;
+        }
+        return false;
+    }
+}
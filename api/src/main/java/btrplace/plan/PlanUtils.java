@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.plan;
+
+import btrplace.model.Node;
+import btrplace.plan.event.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Common tools to manipulate the actions of a {@link ReconfigurationPlan}.
+ *
+ * @author Fabien Hermenier
+ */
+public final class PlanUtils {
+
+    /**
+     * Utility class. No instantiation.
+     */
+    private PlanUtils() {
+    }
+
+    /**
+     * Get the nodes involved in an action.
+     *
+     * @param a the action
+     * @return the nodes, may be empty
+     */
+    @SuppressWarnings("unchecked")
+    public static Collection<Node> getNodes(Action a) {
+        return (Collection<Node>) a.visit(NODES_EXTRACTOR);
+    }
+
+    private static final ActionVisitor NODES_EXTRACTOR = new ActionVisitor() {
+        @Override
+        public Object visit(Allocate a) {
+            return Collections.singleton(a.getHost());
+        }
+
+        @Override
+        public Object visit(AllocateEvent a) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Object visit(SubstitutedVMEvent a) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Object visit(BootNode a) {
+            return Collections.singleton(a.getNode());
+        }
+
+        @Override
+        public Object visit(BootVM a) {
+            return Collections.singleton(a.getDestinationNode());
+        }
+
+        @Override
+        public Object visit(ForgeVM a) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Object visit(KillVM a) {
+            return a.getNode() == null ? Collections.<Node>emptySet() : Collections.singleton(a.getNode());
+        }
+
+        @Override
+        public Object visit(MigrateVM a) {
+            return pair(a.getSourceNode(), a.getDestinationNode());
+        }
+
+        @Override
+        public Object visit(ResumeVM a) {
+            return pair(a.getSourceNode(), a.getDestinationNode());
+        }
+
+        @Override
+        public Object visit(ShutdownNode a) {
+            return Collections.singleton(a.getNode());
+        }
+
+        @Override
+        public Object visit(ShutdownVM a) {
+            return Collections.singleton(a.getNode());
+        }
+
+        @Override
+        public Object visit(SuspendVM a) {
+            return pair(a.getSourceNode(), a.getDestinationNode());
+        }
+
+        private Collection<Node> pair(Node src, Node dst) {
+            if (src.equals(dst)) {
+                return Collections.singleton(src);
+            }
+            return Arrays.asList(src, dst);
+        }
+    };
+}
@@ -17,6 +17,7 @@
 
 package btrplace.plan;
 
+import btrplace.model.Mapping;
 import btrplace.model.Model;
 import btrplace.plan.event.Action;
 
@@ -87,6 +88,15 @@ public interface ReconfigurationPlan extends Iterable<Action> {
      */
     boolean isApplyable();
 
+    /**
+     * Get the mapping that results from the execution of all the actions.
+     * Contrary to {@link #getResult()}, the views and the attributes
+     * of the origin model are not considered.
+     *
+     * @return the resulting mapping or {@code null} if the plan cannot be applied
+     */
+    Mapping getResultingMapping();
+
     /**
      * Get the actions that have to be executed before
      * a given action. Transitive dependencies are ignored.
@@ -96,6 +106,13 @@ public interface ReconfigurationPlan extends Iterable<Action> {
      */
     Set<Action> getDirectDependencies(Action a);
 
+    /**
+     * Get the graph of the dependencies between the actions.
+     *
+     * @return the graph. It is immutable and reflects the actions of the plan at the moment of the call
+     */
+    DependencyGraph getDependencyGraph();
+
     /**
      * Get the applier that is used to simulate the actions application
      * on the starting model.
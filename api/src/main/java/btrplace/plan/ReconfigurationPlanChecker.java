@@ -18,13 +18,16 @@
 package btrplace.plan;
 
 import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
 import btrplace.model.constraint.SatConstraint;
 import btrplace.model.constraint.checker.SatConstraintChecker;
+import btrplace.model.constraint.checker.ScopedChecker;
 import btrplace.plan.event.*;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.PriorityQueue;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Checker to verify if a reconfiguration plan satisfies a set of
@@ -35,23 +38,58 @@ import java.util.PriorityQueue;
  * Finally, it sends the resulting model to each of the checkers.
  * <p/>
  * Actions start and end moment are notified in the increasing order of their associated moment with
- * a priority given to the end moments.
+ * a priority given to the end moments. This timeline is computed once per plan and shared
+ * by all the checkers.
+ * <p/>
+ * The scoped checkers (see {@link ScopedChecker#isScoped()}) are indexed by the VMs and
+ * the nodes in their scope. An action or an event is then only notified to the scoped checkers
+ * that may be affected, plus the checkers that are not scoped.
+ * <p/>
+ * The checkers are independent. They can then be distributed among several threads
+ * using {@link #setParallelism(int)}. The reported violation stays the same as in a sequential
+ * check: the earliest one, then the one of the first added checker.
+ * The threads are taken from the executor given with {@link #setExecutorService(ExecutorService)}.
+ * Otherwise, a pool of daemon threads is created at the first parallel check and reused
+ * by the following ones.
+ * <p/>
+ * The checkers of a given type of constraint can also be run only for a fraction of the checks
+ * using {@link #setSamplingRate(Class, double)}, or disabled.
+ * <p/>
+ * Visiting an action or an event notifies all the checkers, in their insertion order,
+ * about the beginning of the action or about the event.
  *
  * @author Fabien Hermenier
  */
 public class ReconfigurationPlanChecker implements ActionVisitor {
 
-    private boolean startingEvent = true;
-
     private static final TimedBasedActionComparator STARTS_CMP = new TimedBasedActionComparator(true, true);
+
     private static final TimedBasedActionComparator ENDS_CMP = new TimedBasedActionComparator(false, true);
+
     private List<SatConstraintChecker> checkers;
 
+    private Map<Class<? extends SatConstraint>, Double> samplingRates;
+
+    private int parallelism = 1;
+
+    private ExecutorService executor;
+
+    /**
+     * The pool created by the checker when no executor was given.
+     */
+    private ExecutorService pool;
+
+    private Random rnd;
+
+    private boolean startingEvent = true;
+
     /**
      * Make a new instance.
      */
     public ReconfigurationPlanChecker() {
         checkers = new ArrayList<>();
+        samplingRates = new HashMap<>();
+        rnd = new Random();
     }
 
     /**
@@ -74,34 +112,133 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
         return checkers.remove(c);
     }
 
-    @Override
-    public SatConstraint visit(Allocate a) {
-        for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
+    /**
+     * Set the maximum number of threads that check the plan simultaneously.
+     *
+     * @param n a positive number. {@code 1} to check the plan on the calling thread only
+     */
+    public void setParallelism(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("The parallelism must be strictly positive");
+        }
+        if (n != parallelism && pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        parallelism = n;
+    }
+
+    /**
+     * Set the executor that runs the checkers when the plan is checked by several threads.
+     * The executor is not shut down by the checker.
+     *
+     * @param e the executor to use. {@code null} to let the checker manage its own threads
+     */
+    public void setExecutorService(ExecutorService e) {
+        executor = e;
+    }
+
+    /**
+     * Get the executor that runs the checkers when the plan is checked by several threads.
+     *
+     * @return the executor given by {@link #setExecutorService(ExecutorService)}, {@code null} if there is none
+     */
+    public ExecutorService getExecutorService() {
+        return executor;
+    }
+
+    /**
+     * Get the executor to use for a parallel check.
+     *
+     * @return the given executor or the pool owned by the checker
+     */
+    private synchronized ExecutorService getExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "plan-checker");
+                    t.setDaemon(true);
+                    return t;
                 }
-            } else {
-                c.end(a);
-            }
+            });
         }
-        return null;
+        return pool;
     }
 
-    @Override
-    public Object visit(AllocateEvent a) {
+    /**
+     * Get the maximum number of threads that check the plan simultaneously.
+     *
+     * @return a positive number. {@code 1} by default
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the probability for the checkers of a given type of constraint to be run
+     * during a check.
+     *
+     * @param c    the constraint class
+     * @param rate the probability. {@code 1} to always check the constraints, {@code 0} to disable the checking
+     */
+    public void setSamplingRate(Class<? extends SatConstraint> c, double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("The sampling rate must be between 0 and 1");
+        }
+        samplingRates.put(c, rate);
+    }
+
+    /**
+     * Get the probability for the checkers of a given type of constraint to be run
+     * during a check.
+     *
+     * @param c the constraint class
+     * @return a probability. {@code 1} by default
+     */
+    public double getSamplingRate(Class<? extends SatConstraint> c) {
+        Double r = samplingRates.get(c);
+        return r == null ? 1 : r;
+    }
+
+    /**
+     * Set the seed of the random generator used to sample the checkers.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        rnd.setSeed(seed);
+    }
+
+    /**
+     * Notify all the checkers about an action.
+     *
+     * @param a the action
+     * @return the constraint of the first checker that detected a violation, {@code null} otherwise
+     */
+    private SatConstraint notifyCheckers(Action a) {
         for (SatConstraintChecker c : checkers) {
-            if (!c.consume(a)) {
+            Notifier n = new Notifier(c);
+            n.startingEvent = startingEvent;
+            if (!(Boolean) a.visit(n)) {
                 return c.getConstraint();
             }
         }
         return null;
     }
 
-    @Override
-    public SatConstraint visit(SubstitutedVMEvent a) {
+    /**
+     * Notify all the checkers about an event.
+     *
+     * @param e the event
+     * @return the constraint of the first checker that detected a violation, {@code null} otherwise
+     */
+    private SatConstraint notifyCheckers(Event e) {
         for (SatConstraintChecker c : checkers) {
-            if (!c.consume(a)) {
+            if (!(Boolean) e.visit(new Notifier(c))) {
                 return c.getConstraint();
             }
         }
@@ -109,132 +246,83 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
     }
 
     @Override
-    public SatConstraint visit(BootNode a) {
-        for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+    public SatConstraint visit(Allocate a) {
+        return notifyCheckers(a);
+    }
 
+    @Override
+    public Object visit(AllocateEvent a) {
+        return notifyCheckers(a);
     }
 
     @Override
-    public SatConstraint visit(BootVM a) {
-        for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+    public SatConstraint visit(SubstitutedVMEvent a) {
+        return notifyCheckers(a);
+    }
 
+    @Override
+    public SatConstraint visit(BootNode a) {
+        return notifyCheckers(a);
     }
 
     @Override
-    public SatConstraint visit(ForgeVM a) {
-        for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+    public SatConstraint visit(BootVM a) {
+        return notifyCheckers(a);
+    }
 
+    @Override
+    public SatConstraint visit(ForgeVM a) {
+        return notifyCheckers(a);
     }
 
     @Override
     public SatConstraint visit(KillVM a) {
-        for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return notifyCheckers(a);
     }
 
     @Override
     public SatConstraint visit(MigrateVM a) {
-        for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return notifyCheckers(a);
     }
 
     @Override
     public Object visit(ResumeVM a) {
-        for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return notifyCheckers(a);
     }
 
     @Override
     public Object visit(ShutdownNode a) {
-        for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return notifyCheckers(a);
     }
 
     @Override
     public Object visit(ShutdownVM a) {
-        for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return notifyCheckers(a);
     }
 
     @Override
     public Object visit(SuspendVM a) {
+        return notifyCheckers(a);
+    }
+
+    /**
+     * Select the checkers to run for the next check.
+     *
+     * @return a list of checkers in their insertion order
+     */
+    private List<SatConstraintChecker> selectCheckers() {
+        if (samplingRates.isEmpty()) {
+            return checkers;
+        }
+        List<SatConstraintChecker> selected = new ArrayList<>(checkers.size());
         for (SatConstraintChecker c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
+            SatConstraint cstr = c.getConstraint();
+            double r = cstr == null ? 1 : getSamplingRate(cstr.getClass());
+            if (r >= 1 || (r > 0 && rnd.nextDouble() < r)) {
+                selected.add(c);
             }
         }
-        return null;
+        return selected;
     }
 
     /**
@@ -245,68 +333,67 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
      *          if a violation is detected
      */
     public void check(ReconfigurationPlan p) throws ReconfigurationPlanCheckerException {
-        if (checkers.isEmpty()) {
+        List<SatConstraintChecker> selected = selectCheckers();
+        if (selected.isEmpty()) {
             return;
         }
 
-        SatConstraint c = checkModel(p.getOrigin(), true);
-        if (c != null) {
-            throw new ReconfigurationPlanCheckerException(c, p.getOrigin(), true);
+        Timeline tl = new Timeline(p.getActions());
+        ResultingModel res = new ResultingModel(p);
+        AtomicInteger bound = new AtomicInteger(Integer.MAX_VALUE);
+        int nbGroups = Math.min(parallelism, selected.size());
+        List<Replay> replays = new ArrayList<>(nbGroups);
+        for (int g = 0; g < nbGroups; g++) {
+            replays.add(new Replay(tl, p.getOrigin(), res, bound));
+        }
+        for (int i = 0; i < selected.size(); i++) {
+            replays.get(i % nbGroups).add(i, selected.get(i));
         }
 
-        if (!p.getActions().isEmpty()) {
-            PriorityQueue<Action> starts = new PriorityQueue<>(p.getActions().size(), STARTS_CMP);
-            PriorityQueue<Action> ends = new PriorityQueue<>(p.getActions().size(), ENDS_CMP);
-            starts.addAll(p.getActions());
-            ends.addAll(p.getActions());
+        Violation v;
+        if (nbGroups == 1) {
+            v = replays.get(0).call();
+        } else {
+            v = replayInParallel(getExecutor(), replays);
+        }
+        if (v != null) {
+            if (v.step < 0) {
+                throw new ReconfigurationPlanCheckerException(v.cstr, p.getOrigin(), true);
+            } else if (v.step >= tl.size()) {
+                throw new ReconfigurationPlanCheckerException(v.cstr, res.get(), false);
+            }
+            throw new ReconfigurationPlanCheckerException(v.cstr, tl.actions[v.step]);
+        }
+    }
 
-            //Starts the actions
-            int curMoment = starts.peek().getStart();
-            while (!starts.isEmpty() || !ends.isEmpty()) {
-                Action a = ends.peek();
-                while (a != null && a.getEnd() == curMoment) {
-                    ends.remove();
-                    startingEvent = false;
-                    c = (SatConstraint) a.visit(this);
-                    if (c != null) {
-                        throw new ReconfigurationPlanCheckerException(c, a);
-                    }
-                    for (Event e : a.getEvents(Action.Hook.post)) {
-                        c = (SatConstraint) e.visit(this);
-                        if (c != null) {
-                            throw new ReconfigurationPlanCheckerException(c, a);
-                        }
-                    }
-                    a = ends.peek();
-                }
-                a = starts.peek();
-
-                while (a != null && a.getStart() == curMoment) {
-                    starts.remove();
-                    startingEvent = true;
-                    for (Event e : a.getEvents(Action.Hook.pre)) {
-                        c = (SatConstraint) e.visit(this);
-                        if (c != null) {
-                            throw new ReconfigurationPlanCheckerException(c, a);
-                        }
-                    }
-                    c = (SatConstraint) a.visit(this);
-                    if (c != null) {
-                        throw new ReconfigurationPlanCheckerException(c, a);
-                    }
-                    a = starts.peek();
+    /**
+     * Run the replays simultaneously.
+     *
+     * @param exec    the executor to use
+     * @param replays the replays to run
+     * @return the earliest violation, {@code null} if there is no violation
+     */
+    private static Violation replayInParallel(ExecutorService exec, List<Replay> replays) {
+        try {
+            Violation best = null;
+            for (Future<Violation> f : exec.invokeAll(replays)) {
+                Violation v = f.get();
+                if (v != null && (best == null || v.before(best))) {
+                    best = v;
                 }
-                int nextEnd = ends.isEmpty() ? Integer.MAX_VALUE : ends.peek().getEnd();
-                int nextStart = starts.isEmpty() ? Integer.MAX_VALUE : starts.peek().getStart();
-                curMoment = Math.min(nextEnd, nextStart);
             }
+            return best;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking the plan", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
         }
-        Model mo = p.getResult();
-        c = checkModel(mo, false);
-        if (c != null) {
-            throw new ReconfigurationPlanCheckerException(c, mo, false);
-        }
-
     }
 
     /**
@@ -327,4 +414,474 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
         }
         return null;
     }
+
+    /**
+     * The ordered notifications to send to the checkers.
+     * Each step is either the beginning or the end of an action, or an event.
+     */
+    private static class Timeline {
+
+        /**
+         * The action associated to each step.
+         */
+        private Action[] actions;
+
+        /**
+         * The event to notify at each step, {@code null} to notify the action.
+         */
+        private Event[] events;
+
+        private boolean[] starts;
+
+        /**
+         * The VM involved in the event of each step, if any.
+         */
+        private VM[] eventVMs;
+
+        /**
+         * The nodes involved by the action of each step.
+         */
+        private Node[][] nodes;
+
+        private int size;
+
+        Timeline(Set<Action> as) {
+            int capacity = 0;
+            for (Action a : as) {
+                capacity += 2 + a.getEvents(Action.Hook.pre).size() + a.getEvents(Action.Hook.post).size();
+            }
+            actions = new Action[capacity];
+            events = new Event[capacity];
+            starts = new boolean[capacity];
+            eventVMs = new VM[capacity];
+            nodes = new Node[capacity][];
+            if (as.isEmpty()) {
+                return;
+            }
+            Action[] byStarts = as.toArray(new Action[as.size()]);
+            Action[] byEnds = Arrays.copyOf(byStarts, byStarts.length);
+            Arrays.sort(byStarts, STARTS_CMP);
+            Arrays.sort(byEnds, ENDS_CMP);
+
+            int s = 0;
+            int e = 0;
+            int curMoment = byStarts[0].getStart();
+            while (s < byStarts.length || e < byEnds.length) {
+                while (e < byEnds.length && byEnds[e].getEnd() == curMoment) {
+                    Action a = byEnds[e++];
+                    append(a, null, false);
+                    for (Event ev : a.getEvents(Action.Hook.post)) {
+                        append(a, ev, false);
+                    }
+                }
+                while (s < byStarts.length && byStarts[s].getStart() == curMoment) {
+                    Action a = byStarts[s++];
+                    for (Event ev : a.getEvents(Action.Hook.pre)) {
+                        append(a, ev, true);
+                    }
+                    append(a, null, true);
+                }
+                int nextEnd = e < byEnds.length ? byEnds[e].getEnd() : Integer.MAX_VALUE;
+                int nextStart = s < byStarts.length ? byStarts[s].getStart() : Integer.MAX_VALUE;
+                curMoment = Math.min(nextEnd, nextStart);
+            }
+        }
+
+        private void append(Action a, Event e, boolean start) {
+            actions[size] = a;
+            events[size] = e;
+            starts[size] = start;
+            if (e instanceof VMEvent) {
+                eventVMs[size] = ((VMEvent) e).getVM();
+            }
+            if (size > 0 && actions[size - 1] == a) {
+                nodes[size] = nodes[size - 1];
+            } else {
+                Collection<Node> ns = PlanUtils.getNodes(a);
+                nodes[size] = ns.toArray(new Node[ns.size()]);
+            }
+            size++;
+        }
+
+        /**
+         * Get the VM involved in the action of a step.
+         *
+         * @param step the step index
+         * @return the VM if any, {@code null} otherwise
+         */
+        VM getActionVM(int step) {
+            return actions[step] instanceof VMEvent ? ((VMEvent) actions[step]).getVM() : null;
+        }
+
+        /**
+         * Indicate if a step must be notified to all the checkers.
+         * This is the case for the substitutions of VMs as they alter the scope of the checkers.
+         *
+         * @param step the step index
+         * @return {@code true} iff the step must be broadcasted
+         */
+        boolean isBroadcast(int step) {
+            return events[step] instanceof SubstitutedVMEvent;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The model resulting from a plan, computed once
+     * the first time it is required.
+     * The applier is called directly as the origin model may have been
+     * modified since the plan cached its result.
+     */
+    private static class ResultingModel {
+
+        private ReconfigurationPlan plan;
+
+        private Model res;
+
+        private boolean computed;
+
+        ResultingModel(ReconfigurationPlan p) {
+            plan = p;
+        }
+
+        synchronized Model get() {
+            if (!computed) {
+                res = plan.getReconfigurationApplier().apply(plan);
+                computed = true;
+            }
+            return res;
+        }
+    }
+
+    /**
+     * A violation detected at a given step by a given checker.
+     */
+    private static class Violation {
+
+        private int step;
+
+        private int checker;
+
+        private SatConstraint cstr;
+
+        Violation(int step, int checker, SatConstraint cstr) {
+            this.step = step;
+            this.checker = checker;
+            this.cstr = cstr;
+        }
+
+        boolean before(Violation v) {
+            return step < v.step || (step == v.step && checker < v.checker);
+        }
+    }
+
+    /**
+     * Replay the timeline for a group of checkers.
+     * The replay stops at the first violation, or once it is
+     * known that another group detected an earlier violation.
+     */
+    private static class Replay implements Callable<Violation> {
+
+        private Timeline tl;
+
+        private Model src;
+
+        private ResultingModel dst;
+
+        private AtomicInteger bound;
+
+        private List<Integer> indexes;
+
+        private List<Notifier> notifiers;
+
+        /**
+         * The checkers to notify for every step.
+         */
+        private List<Integer> unscoped;
+
+        private Map<VM, List<Integer>> byVMs;
+
+        private Map<Node, List<Integer>> byNodes;
+
+        /**
+         * The checkers to notify for the current step, and the last step each checker was selected for.
+         */
+        private int[] selected;
+
+        private int[] marks;
+
+        Replay(Timeline tl, Model src, ResultingModel dst, AtomicInteger bound) {
+            this.tl = tl;
+            this.src = src;
+            this.dst = dst;
+            this.bound = bound;
+            indexes = new ArrayList<>();
+            notifiers = new ArrayList<>();
+            unscoped = new ArrayList<>();
+            byVMs = new HashMap<>();
+            byNodes = new HashMap<>();
+        }
+
+        void add(int idx, SatConstraintChecker c) {
+            indexes.add(idx);
+            notifiers.add(new Notifier(c));
+        }
+
+        @Override
+        public Violation call() {
+            for (int i = 0; i < notifiers.size(); i++) {
+                SatConstraintChecker c = notifiers.get(i).chk;
+                if (!c.startsWith(src) && c.getConstraint() != null) {
+                    return violation(-1, i);
+                }
+            }
+            makeIndex();
+            for (int s = 0; s < tl.size(); s++) {
+                if (s > bound.get()) {
+                    return null;
+                }
+                boolean broadcast = tl.isBroadcast(s);
+                int nb = broadcast ? notifiers.size() : select(s);
+                for (int x = 0; x < nb; x++) {
+                    int i = broadcast ? x : selected[x];
+                    Notifier n = notifiers.get(i);
+                    if (!n.notify(tl, s) && n.chk.getConstraint() != null) {
+                        return violation(s, i);
+                    }
+                }
+                if (broadcast) {
+                    indexSubstitution(tl.eventVMs[s], ((SubstitutedVMEvent) tl.events[s]).getNewVM());
+                }
+            }
+            Model res = dst.get();
+            for (int i = 0; i < notifiers.size(); i++) {
+                SatConstraintChecker c = notifiers.get(i).chk;
+                if (!c.endsWith(res) && c.getConstraint() != null) {
+                    return violation(tl.size(), i);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Index the checkers with regards to their scope.
+         */
+        private void makeIndex() {
+            selected = new int[notifiers.size()];
+            marks = new int[notifiers.size()];
+            Arrays.fill(marks, -1);
+            for (int i = 0; i < notifiers.size(); i++) {
+                SatConstraintChecker c = notifiers.get(i).chk;
+                if (!(c instanceof ScopedChecker) || !((ScopedChecker) c).isScoped()) {
+                    unscoped.add(i);
+                    continue;
+                }
+                ScopedChecker sc = (ScopedChecker) c;
+                for (VM vm : sc.getScopeVMs()) {
+                    put(byVMs, vm, i);
+                }
+                for (Node n : sc.getScopeNodes()) {
+                    put(byNodes, n, i);
+                }
+            }
+        }
+
+        /**
+         * Index the new VM of a substitution for the checkers that now have it in their scope.
+         */
+        private void indexSubstitution(VM old, VM vm) {
+            List<Integer> l = byVMs.get(old);
+            if (l == null) {
+                return;
+            }
+            for (Integer i : new ArrayList<>(l)) {
+                if (((ScopedChecker) notifiers.get(i).chk).getScopeVMs().contains(vm)) {
+                    List<Integer> cur = byVMs.get(vm);
+                    if (cur == null || !cur.contains(i)) {
+                        put(byVMs, vm, i);
+                    }
+                }
+            }
+        }
+
+        private static <E> void put(Map<E, List<Integer>> idx, E e, int i) {
+            List<Integer> l = idx.get(e);
+            if (l == null) {
+                l = new ArrayList<>();
+                idx.put(e, l);
+            }
+            l.add(i);
+        }
+
+        /**
+         * Select the checkers that may be affected by a step.
+         *
+         * @param s the step index
+         * @return the number of selected checkers, stored in increasing order in {@code selected}
+         */
+        private int select(int s) {
+            int nb = 0;
+            for (Integer i : unscoped) {
+                selected[nb++] = i;
+                marks[i] = s;
+            }
+            nb = select(s, byVMs.get(tl.eventVMs[s]), nb);
+            nb = select(s, byVMs.get(tl.getActionVM(s)), nb);
+            for (Node n : tl.nodes[s]) {
+                nb = select(s, byNodes.get(n), nb);
+            }
+            Arrays.sort(selected, 0, nb);
+            return nb;
+        }
+
+        private int select(int s, List<Integer> candidates, int nb) {
+            if (candidates != null) {
+                for (Integer i : candidates) {
+                    if (marks[i] != s) {
+                        marks[i] = s;
+                        selected[nb++] = i;
+                    }
+                }
+            }
+            return nb;
+        }
+
+        private Violation violation(int step, int i) {
+            int b = bound.get();
+            while (step < b && !bound.compareAndSet(b, step)) {
+                b = bound.get();
+            }
+            return new Violation(step, indexes.get(i), notifiers.get(i).chk.getConstraint());
+        }
+    }
+
+    /**
+     * Notify a single checker about an action or an event.
+     */
+    private static class Notifier implements ActionVisitor {
+
+        private SatConstraintChecker chk;
+
+        private boolean startingEvent;
+
+        Notifier(SatConstraintChecker c) {
+            this.chk = c;
+        }
+
+        /**
+         * Notify a step of the timeline.
+         *
+         * @param tl   the timeline
+         * @param step the step index
+         * @return {@code false} iff the checker detected a violation
+         */
+        boolean notify(Timeline tl, int step) {
+            startingEvent = tl.starts[step];
+            Event e = tl.events[step];
+            return (Boolean) (e == null ? tl.actions[step].visit(this) : e.visit(this));
+        }
+
+        @Override
+        public Object visit(Allocate a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+
+        @Override
+        public Object visit(AllocateEvent a) {
+            return chk.consume(a);
+        }
+
+        @Override
+        public Object visit(SubstitutedVMEvent a) {
+            return chk.consume(a);
+        }
+
+        @Override
+        public Object visit(BootNode a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+
+        @Override
+        public Object visit(BootVM a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+
+        @Override
+        public Object visit(ForgeVM a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+
+        @Override
+        public Object visit(KillVM a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+
+        @Override
+        public Object visit(MigrateVM a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+
+        @Override
+        public Object visit(ResumeVM a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+
+        @Override
+        public Object visit(ShutdownNode a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+
+        @Override
+        public Object visit(ShutdownVM a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+
+        @Override
+        public Object visit(SuspendVM a) {
+            if (startingEvent) {
+                return chk.start(a);
+            }
+            chk.end(a);
+            return true;
+        }
+    }
 }
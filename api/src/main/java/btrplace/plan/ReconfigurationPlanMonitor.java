@@ -45,6 +45,10 @@ public interface ReconfigurationPlanMonitor {
      * Commit an action that was applyable.
      * If it is theoretically possible to execute the action on the current model,
      * the model is updated accordingly.
+     * <p/>
+     * An implementation may defer the update of the model. In that case, the commit of an
+     * action that cannot be applied on the model succeeds and the action is reported
+     * by other means. See {@link LockFreeReconfigurationPlanMonitor#getRejectedActions()}.
      *
      * @param a the action to commit
      * @return a set of unblocked actions that may be empty if the operation succeed.
@@ -0,0 +1,704 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.greedy;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.model.view.ModelView;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.DefaultReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlanChecker;
+import btrplace.plan.ReconfigurationPlanCheckerException;
+import btrplace.plan.event.*;
+import btrplace.solver.ReconfigurationAlgorithm;
+import btrplace.solver.SolverException;
+
+import java.util.*;
+
+/**
+ * A fast reconfiguration algorithm that does not rely on a constraint solver.
+ * <p/>
+ * The next state of the elements is first deduced from the state constraints:
+ * {@link Running}, {@link Ready}, {@link Sleeping}, {@link Killed}, {@link Online}
+ * and {@link Offline}. The VMs to place are then the VMs to boot or to resume, the VMs
+ * hosted on nodes that go offline, the VMs hosted on overloaded nodes and the VMs involved
+ * in the violated constraints. They are placed using a first-fit decreasing heuristic:
+ * the biggest VMs first, on their current node if possible, otherwise on the first online
+ * node having enough free resources where the VM does not violate a constraint. The
+ * constraints are evaluated on the resulting model using their checker.
+ * <p/>
+ * The actions are then scheduled using a list scheduling: a VM arrives on a node as soon as
+ * the node is online and has enough free resources, and a node is shut down once all its VMs
+ * have left. The plan is finally validated against all the constraints using a
+ * {@link ReconfigurationPlanChecker}.
+ * <p/>
+ * The algorithm is incomplete and does not optimize the plan: {@code null} is returned
+ * when it fails to compute a viable plan, even if a solution exists. The duration of the actions
+ * is read from the optional attributes used by the default duration evaluators
+ * ({@code migrate}, {@code boot}, ...). Otherwise, an action lasts one second.
+ *
+ * @author Fabien Hermenier
+ */
+public class GreedyReconfigurationAlgorithm implements ReconfigurationAlgorithm {
+
+    private static final Map<Class<? extends Action>, String> DURATION_KEYS;
+
+    static {
+        DURATION_KEYS = new HashMap<>();
+        DURATION_KEYS.put(MigrateVM.class, "migrate");
+        DURATION_KEYS.put(BootVM.class, "boot");
+        DURATION_KEYS.put(ShutdownVM.class, "shutdown");
+        DURATION_KEYS.put(SuspendVM.class, "suspend");
+        DURATION_KEYS.put(ResumeVM.class, "resume");
+        DURATION_KEYS.put(ForgeVM.class, "forge");
+        DURATION_KEYS.put(KillVM.class, "kill");
+        DURATION_KEYS.put(Allocate.class, "allocate");
+        DURATION_KEYS.put(BootNode.class, "boot");
+        DURATION_KEYS.put(ShutdownNode.class, "shutdown");
+    }
+
+    @Override
+    public ReconfigurationPlan solve(Model i, Collection<SatConstraint> cstrs) throws SolverException {
+        return new Resolution(i, cstrs).run();
+    }
+
+    /**
+     * Get the duration of an action.
+     *
+     * @param mo the model
+     * @param a  the action type
+     * @param e  the manipulated element
+     * @return the value of the attribute associated to the action if it is a positive integer, {@code 1} otherwise
+     */
+    private static int duration(Model mo, Class<? extends Action> a, Element e) {
+        Object o = mo.getAttributes().get(e, DURATION_KEYS.get(a));
+        if (o instanceof Integer && (Integer) o > 0) {
+            return (Integer) o;
+        }
+        return 1;
+    }
+
+    /**
+     * The state of a single resolution.
+     */
+    private static class Resolution {
+
+        private Model src;
+
+        private Mapping srcMap;
+
+        private Model dst;
+
+        private Mapping dstMap;
+
+        private Collection<SatConstraint> cstrs;
+
+        private Set<VM> toRun, toReady, toSleep, toKill, roots;
+
+        private Set<Node> toOn, toOff;
+
+        private List<Preserve> preserves;
+
+        private List<SatConstraint> placementCstrs;
+
+        private Map<VM, List<SatConstraint>> cstrsByVM;
+
+        private Map<Node, List<SatConstraint>> cstrsByNode;
+
+        private List<SatConstraint> globalCstrs;
+
+        private ShareableResource[] srcRcs;
+
+        private ShareableResource[] rcs;
+
+        private Map<String, Map<Node, Double>> ratios;
+
+        private List<Node> nodes;
+
+        private Map<Node, int[]> capacities;
+
+        private Map<Node, int[]> loads;
+
+        private Set<VM> pending;
+
+        public Resolution(Model mo, Collection<SatConstraint> cstrs) {
+            this.src = mo;
+            this.srcMap = mo.getMapping();
+            this.cstrs = cstrs;
+            toRun = new HashSet<>();
+            toReady = new HashSet<>();
+            toSleep = new HashSet<>();
+            toKill = new HashSet<>();
+            roots = new HashSet<>();
+            toOn = new HashSet<>();
+            toOff = new HashSet<>();
+            preserves = new ArrayList<>();
+            placementCstrs = new ArrayList<>();
+            cstrsByVM = new HashMap<>();
+            cstrsByNode = new HashMap<>();
+            globalCstrs = new ArrayList<>();
+            ratios = new HashMap<>();
+            pending = new LinkedHashSet<>();
+        }
+
+        public ReconfigurationPlan run() throws SolverException {
+            extractStates();
+            if (overlap(toRun, toReady, toSleep, toKill) || !Collections.disjoint(toOn, toOff)) {
+                return null;
+            }
+            dst = src.clone();
+            dstMap = dst.getMapping();
+            makeResources();
+            if (!applyStates() || !fixOverloads()) {
+                return null;
+            }
+            fixViolations();
+            if (!place()) {
+                return null;
+            }
+            for (Node n : toOff) {
+                if (dstMap.getOnlineNodes().contains(n) && !dstMap.addOfflineNode(n)) {
+                    return null;
+                }
+            }
+            ReconfigurationPlan p = schedule();
+            return p != null && isViable(p) ? p : null;
+        }
+
+        /**
+         * Extract the next state of the elements and index the other constraints.
+         */
+        private void extractStates() throws SolverException {
+            for (SatConstraint c : cstrs) {
+                for (Node n : c.getInvolvedNodes()) {
+                    if (!srcMap.contains(n)) {
+                        throw new SolverException(src, "Unknown node '" + n + "'");
+                    }
+                }
+                //VMs going to the ready state may be forged
+                if (!(c instanceof Ready) && !srcMap.getAllVMs().containsAll(c.getInvolvedVMs())) {
+                    Set<VM> unknown = new HashSet<>(c.getInvolvedVMs());
+                    unknown.removeAll(srcMap.getAllVMs());
+                    throw new SolverException(src, "Unknown VMs: " + unknown);
+                }
+                if (c instanceof Running) {
+                    toRun.addAll(c.getInvolvedVMs());
+                } else if (c instanceof Ready) {
+                    toReady.addAll(c.getInvolvedVMs());
+                } else if (c instanceof Sleeping) {
+                    toSleep.addAll(c.getInvolvedVMs());
+                } else if (c instanceof Killed) {
+                    toKill.addAll(c.getInvolvedVMs());
+                } else if (c instanceof Online) {
+                    toOn.addAll(c.getInvolvedNodes());
+                } else if (c instanceof Offline) {
+                    toOff.addAll(c.getInvolvedNodes());
+                } else {
+                    if (c instanceof Root) {
+                        roots.addAll(c.getInvolvedVMs());
+                    } else if (c instanceof Preserve) {
+                        preserves.add((Preserve) c);
+                    } else if (c instanceof Overbook) {
+                        declareRatio((Overbook) c);
+                    }
+                    index(c);
+                }
+            }
+        }
+
+        private void declareRatio(Overbook o) {
+            Map<Node, Double> m = ratios.get(o.getResource());
+            if (m == null) {
+                m = new HashMap<>();
+                ratios.put(o.getResource(), m);
+            }
+            for (Node n : o.getInvolvedNodes()) {
+                Double r = m.get(n);
+                m.put(n, r == null ? o.getRatio() : Math.min(r, o.getRatio()));
+            }
+        }
+
+        private void index(SatConstraint c) {
+            placementCstrs.add(c);
+            if (c.getInvolvedVMs().isEmpty() && c.getInvolvedNodes().isEmpty()) {
+                globalCstrs.add(c);
+            }
+            for (VM v : c.getInvolvedVMs()) {
+                List<SatConstraint> l = cstrsByVM.get(v);
+                if (l == null) {
+                    l = new ArrayList<>();
+                    cstrsByVM.put(v, l);
+                }
+                l.add(c);
+            }
+            for (Node n : c.getInvolvedNodes()) {
+                List<SatConstraint> l = cstrsByNode.get(n);
+                if (l == null) {
+                    l = new ArrayList<>();
+                    cstrsByNode.put(n, l);
+                }
+                l.add(c);
+            }
+        }
+
+        @SafeVarargs
+        private static boolean overlap(Set<VM>... sets) {
+            for (int i = 0; i < sets.length; i++) {
+                for (int j = i + 1; j < sets.length; j++) {
+                    if (!Collections.disjoint(sets[i], sets[j])) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Get the resources in both models and raise the allocations to satisfy the {@link Preserve} constraints.
+         */
+        private void makeResources() {
+            List<ShareableResource> l = new ArrayList<>();
+            for (ModelView v : src.getViews()) {
+                if (v instanceof ShareableResource) {
+                    l.add((ShareableResource) v);
+                }
+            }
+            srcRcs = l.toArray(new ShareableResource[l.size()]);
+            rcs = new ShareableResource[srcRcs.length];
+            for (int i = 0; i < srcRcs.length; i++) {
+                rcs[i] = (ShareableResource) dst.getView(srcRcs[i].getIdentifier());
+            }
+            for (Preserve p : preserves) {
+                ShareableResource rc = (ShareableResource) dst.getView(ShareableResource.VIEW_ID_BASE + p.getResource());
+                if (rc == null) {
+                    continue;
+                }
+                for (VM v : p.getInvolvedVMs()) {
+                    if (rc.getConsumption(v) < p.getAmount()) {
+                        rc.setConsumption(v, p.getAmount());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Apply the state changes in the destination model.
+         * The VMs to run and the VMs hosted on nodes going offline are left in the ready state
+         * until they are placed.
+         *
+         * @return {@code false} if a state change is not possible
+         */
+        private boolean applyStates() {
+            for (VM v : toKill) {
+                if (dstMap.contains(v)) {
+                    dstMap.remove(v);
+                }
+            }
+            for (VM v : toReady) {
+                if (srcMap.getSleepingVMs().contains(v)) {
+                    return false;
+                }
+                dstMap.addReadyVM(v);
+            }
+            for (VM v : toSleep) {
+                if (srcMap.getReadyVMs().contains(v)) {
+                    return false;
+                } else if (srcMap.getRunningVMs().contains(v)) {
+                    dstMap.addSleepingVM(v, srcMap.getVMLocation(v));
+                }
+            }
+            for (VM v : toRun) {
+                if (!srcMap.getRunningVMs().contains(v)) {
+                    dstMap.addReadyVM(v);
+                    pending.add(v);
+                }
+            }
+            for (Node n : toOn) {
+                dstMap.addOnlineNode(n);
+            }
+
+            nodes = new ArrayList<>();
+            capacities = new HashMap<>();
+            loads = new HashMap<>();
+            for (Node n : dstMap.getOnlineNodes()) {
+                if (!toOff.contains(n)) {
+                    nodes.add(n);
+                    capacities.put(n, capacity(n));
+                    loads.put(n, load(rcs, dstMap.getRunningVMs(n)));
+                }
+            }
+            Collections.sort(nodes, new Comparator<Node>() {
+                @Override
+                public int compare(Node n1, Node n2) {
+                    return n1.id() - n2.id();
+                }
+            });
+
+            for (Node n : toOff) {
+                for (VM v : new ArrayList<>(dstMap.getRunningVMs(n))) {
+                    if (roots.contains(v)) {
+                        return false;
+                    }
+                    unplace(v);
+                }
+            }
+            return true;
+        }
+
+        private int[] capacity(Node n) {
+            int[] capa = new int[rcs.length];
+            for (int i = 0; i < rcs.length; i++) {
+                Map<Node, Double> m = ratios.get(rcs[i].getResourceIdentifier());
+                Double r = m == null ? null : m.get(n);
+                capa[i] = (int) Math.floor(rcs[i].getCapacity(n) * (r == null ? 1 : r));
+            }
+            return capa;
+        }
+
+        private int[] load(ShareableResource[] r, Collection<VM> vms) {
+            int[] l = new int[r.length];
+            for (VM v : vms) {
+                for (int i = 0; i < r.length; i++) {
+                    l[i] += r[i].getConsumption(v);
+                }
+            }
+            return l;
+        }
+
+        private int[] demand(ShareableResource[] r, VM v) {
+            return load(r, Collections.singleton(v));
+        }
+
+        private void unplace(VM v) {
+            int[] l = loads.get(dstMap.getVMLocation(v));
+            dstMap.addReadyVM(v);
+            if (l != null) {
+                int[] d = demand(rcs, v);
+                for (int i = 0; i < l.length; i++) {
+                    l[i] -= d[i];
+                }
+            }
+            pending.add(v);
+        }
+
+        private boolean fits(Node n, int[] d) {
+            int[] l = loads.get(n);
+            int[] capa = capacities.get(n);
+            for (int i = 0; i < l.length; i++) {
+                if (l[i] + d[i] > capa[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Unplace the biggest VMs of the overloaded nodes.
+         *
+         * @return {@code false} if a node cannot be unloaded
+         */
+        private boolean fixOverloads() {
+            int[] none = new int[rcs.length];
+            for (Node n : nodes) {
+                while (!fits(n, none)) {
+                    List<VM> candidates = new ArrayList<>(dstMap.getRunningVMs(n));
+                    candidates.removeAll(roots);
+                    if (candidates.isEmpty()) {
+                        return false;
+                    }
+                    unplace(Collections.max(candidates, new SizeComparator()));
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Unplace VMs involved in the violated constraints, or hosted on the involved nodes,
+         * until the constraints are satisfied.
+         */
+        private void fixViolations() {
+            for (SatConstraint c : placementCstrs) {
+                if (c.isSatisfied(dst)) {
+                    continue;
+                }
+                List<VM> involved = new ArrayList<>();
+                for (VM v : c.getInvolvedVMs()) {
+                    if (dstMap.getRunningVMs().contains(v) && !roots.contains(v)) {
+                        involved.add(v);
+                    }
+                }
+                List<VM> hosted = new ArrayList<>();
+                for (VM v : dstMap.getRunningVMs(c.getInvolvedNodes())) {
+                    if (!involved.contains(v) && !roots.contains(v)) {
+                        hosted.add(v);
+                    }
+                }
+                Collections.sort(involved, Collections.reverseOrder(new SizeComparator()));
+                Collections.sort(hosted, Collections.reverseOrder(new SizeComparator()));
+                involved.addAll(hosted);
+                for (VM v : involved) {
+                    if (c.isSatisfied(dst)) {
+                        break;
+                    }
+                    unplace(v);
+                }
+            }
+        }
+
+        /**
+         * Place the pending VMs, the biggest first.
+         *
+         * @return {@code true} iff all the VMs have been placed
+         */
+        private boolean place() {
+            List<VM> l = new ArrayList<>(pending);
+            Collections.sort(l, Collections.reverseOrder(new SizeComparator()));
+            for (VM v : l) {
+                int[] d = demand(rcs, v);
+                List<Node> candidates = new ArrayList<>(nodes.size() + 1);
+                Node cur = srcMap.getVMLocation(v);
+                if (cur != null && capacities.containsKey(cur)) {
+                    candidates.add(cur);
+                }
+                candidates.addAll(nodes);
+                boolean placed = false;
+                for (Node n : candidates) {
+                    if (fits(n, d)) {
+                        dstMap.addRunningVM(v, n);
+                        if (isSatisfied(v, n)) {
+                            add(loads.get(n), d, 1);
+                            placed = true;
+                            break;
+                        }
+                        dstMap.addReadyVM(v);
+                    }
+                }
+                if (!placed) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void add(int[] l, int[] d, int sign) {
+            for (int i = 0; i < l.length; i++) {
+                l[i] += sign * d[i];
+            }
+        }
+
+        /**
+         * Check the constraints that may be impacted by a placement.
+         *
+         * @param v the placed VM
+         * @param n the host
+         * @return {@code true} iff the constraints are satisfied
+         */
+        private boolean isSatisfied(VM v, Node n) {
+            Set<SatConstraint> toCheck = new HashSet<>(globalCstrs);
+            if (cstrsByVM.containsKey(v)) {
+                toCheck.addAll(cstrsByVM.get(v));
+            }
+            if (cstrsByNode.containsKey(n)) {
+                toCheck.addAll(cstrsByNode.get(n));
+            }
+            for (SatConstraint c : toCheck) {
+                if (!c.isSatisfied(dst)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Make the actions that transform the source model into the destination model, then schedule them.
+         *
+         * @return the plan, {@code null} if the scheduling failed
+         */
+        private ReconfigurationPlan schedule() {
+            ListScheduler sched = new ListScheduler(rcs.length);
+            for (Node n : nodes) {
+                sched.addNode(n, capacities.get(n), load(srcRcs, srcMap.getRunningVMs(n)));
+            }
+            for (Node n : toOn) {
+                if (!srcMap.getOnlineNodes().contains(n)) {
+                    sched.add(new ListScheduler.Task(BootNode.class, n, duration(src, BootNode.class, n)));
+                }
+            }
+            for (Node n : toOff) {
+                if (srcMap.getOnlineNodes().contains(n)) {
+                    sched.add(new ListScheduler.Task(ShutdownNode.class, n, duration(src, ShutdownNode.class, n)));
+                }
+            }
+
+            //The placed VMs first, by decreasing size, then the others
+            Set<VM> vms = new LinkedHashSet<>(pending);
+            vms.addAll(srcMap.getAllVMs());
+            vms.addAll(dstMap.getAllVMs());
+            int[] none = new int[rcs.length];
+            for (VM v : vms) {
+                Node from = srcMap.getVMLocation(v);
+                Node to = dstMap.getVMLocation(v);
+                boolean wasRunning = srcMap.getRunningVMs().contains(v);
+                int[] release = wasRunning ? demand(srcRcs, v) : none;
+                Class<? extends Action> type = null;
+                if (!dstMap.contains(v)) {
+                    type = KillVM.class;
+                    to = null;
+                } else if (!srcMap.contains(v)) {
+                    type = ForgeVM.class;
+                } else if (dstMap.getRunningVMs().contains(v)) {
+                    if (srcMap.getReadyVMs().contains(v)) {
+                        type = BootVM.class;
+                        from = null;
+                    } else if (srcMap.getSleepingVMs().contains(v)) {
+                        type = ResumeVM.class;
+                    } else if (!from.equals(to)) {
+                        type = MigrateVM.class;
+                    } else if (!Arrays.equals(demand(rcs, v), release)) {
+                        //Only the additional resources are required
+                        int[] delta = demand(rcs, v);
+                        for (int i = 0; i < delta.length; i++) {
+                            delta[i] = Math.max(0, delta[i] - release[i]);
+                        }
+                        sched.add(new ListScheduler.Task(Allocate.class, v, null, null, to, delta, duration(src, Allocate.class, v)));
+                    }
+                } else if (wasRunning && dstMap.getSleepingVMs().contains(v)) {
+                    type = SuspendVM.class;
+                    to = null;
+                } else if (wasRunning) {
+                    type = ShutdownVM.class;
+                    to = null;
+                }
+                if (type != null) {
+                    sched.add(new ListScheduler.Task(type, v, from, release, to, to == null ? null : demand(rcs, v), duration(src, type, v)));
+                }
+            }
+            if (!sched.schedule()) {
+                return null;
+            }
+            ReconfigurationPlan p = new DefaultReconfigurationPlan(src);
+            for (ListScheduler.Task t : sched.getTasks()) {
+                for (Action a : makeActions(t)) {
+                    p.add(a);
+                }
+            }
+            return p;
+        }
+
+        private List<Action> makeActions(ListScheduler.Task t) {
+            int st = t.getStart();
+            int ed = t.getEnd();
+            VM v = t.getVM();
+            Class<? extends Action> type = t.getType();
+            Action a;
+            if (type == BootNode.class) {
+                a = new BootNode(t.getNode(), st, ed);
+            } else if (type == ShutdownNode.class) {
+                a = new ShutdownNode(t.getNode(), st, ed);
+            } else if (type == KillVM.class) {
+                a = new KillVM(v, t.getSource(), st, ed);
+            } else if (type == ForgeVM.class) {
+                a = new ForgeVM(v, st, ed);
+            } else if (type == BootVM.class) {
+                a = new BootVM(v, t.getDestination(), st, ed);
+            } else if (type == ResumeVM.class) {
+                a = new ResumeVM(v, t.getSource(), t.getDestination(), st, ed);
+            } else if (type == MigrateVM.class) {
+                a = new MigrateVM(v, t.getSource(), t.getDestination(), st, ed);
+            } else if (type == SuspendVM.class) {
+                a = new SuspendVM(v, t.getSource(), t.getSource(), st, ed);
+            } else if (type == ShutdownVM.class) {
+                a = new ShutdownVM(v, t.getSource(), st, ed);
+            } else {
+                //Allocate: one action per resource
+                List<Action> l = new ArrayList<>();
+                for (int i = 0; i < rcs.length; i++) {
+                    if (rcs[i].getConsumption(v) != srcRcs[i].getConsumption(v)) {
+                        l.add(new Allocate(v, t.getDestination(), rcs[i].getResourceIdentifier(), rcs[i].getConsumption(v), st, ed));
+                    }
+                }
+                return l;
+            }
+            if (type == BootVM.class || type == ResumeVM.class || type == MigrateVM.class) {
+                for (int i = 0; i < rcs.length; i++) {
+                    if (rcs[i].getConsumption(v) != srcRcs[i].getConsumption(v)) {
+                        a.addEvent(Action.Hook.post, new AllocateEvent(v, rcs[i].getResourceIdentifier(), rcs[i].getConsumption(v)));
+                    }
+                }
+            }
+            return Collections.singletonList(a);
+        }
+
+        /**
+         * Check the plan is applicable and satisfies all the constraints.
+         *
+         * @param p the plan to check
+         * @return {@code true} iff the plan is viable
+         */
+        private boolean isViable(ReconfigurationPlan p) {
+            if (p.getResult() == null) {
+                return false;
+            }
+            ReconfigurationPlanChecker chk = new ReconfigurationPlanChecker();
+            for (SatConstraint c : cstrs) {
+                chk.addChecker(c.getChecker());
+            }
+            try {
+                chk.check(p);
+            } catch (ReconfigurationPlanCheckerException ex) {
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Compare the VMs by their demand, normalized with regards to
+         * the biggest capacity of each resource. Ties are broken using the VM identifiers.
+         */
+        private class SizeComparator implements Comparator<VM> {
+
+            private double[] maxCapa;
+
+            public SizeComparator() {
+                maxCapa = new double[rcs.length];
+                for (int[] capa : capacities.values()) {
+                    for (int i = 0; i < capa.length; i++) {
+                        maxCapa[i] = Math.max(maxCapa[i], capa[i]);
+                    }
+                }
+            }
+
+            private double size(VM v) {
+                double s = 0;
+                for (int i = 0; i < rcs.length; i++) {
+                    if (maxCapa[i] > 0) {
+                        s += rcs[i].getConsumption(v) / maxCapa[i];
+                    }
+                }
+                return s;
+            }
+
+            @Override
+            public int compare(VM v1, VM v2) {
+                int c = Double.compare(size(v1), size(v2));
+                return c != 0 ? c : v2.id() - v1.id();
+            }
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.greedy;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.plan.event.Action;
+import btrplace.plan.event.BootNode;
+
+import java.util.*;
+
+/**
+ * A list scheduler to compute the start moment of the actions of a plan.
+ * <p/>
+ * The tasks that only release resources start immediately. The tasks that consume
+ * resources on a node are then scheduled iteratively at the earliest moment the node
+ * is online and has enough free resources to host the demand until the end of the reconfiguration,
+ * considering the tasks already scheduled. Finally, the nodes are shut down once all the
+ * tasks that leave them are terminated.
+ * <p/>
+ * The scheduler does not try to break cyclic dependencies between the tasks
+ * (e.g. two VMs that swap their host). In that case, the scheduling fails.
+ *
+ * @author Fabien Hermenier
+ */
+class ListScheduler {
+
+    /**
+     * A task to schedule.
+     * The task consumes resources on its destination node from its start moment and
+     * releases resources on its source node at its end moment.
+     */
+    static class Task {
+
+        private Class<? extends Action> type;
+
+        private VM vm;
+
+        private Node node;
+
+        private Node from;
+
+        private Node to;
+
+        private int[] release;
+
+        private int[] demand;
+
+        private int duration;
+
+        private int start = -1;
+
+        /**
+         * Make a task related to a node.
+         *
+         * @param t the action type, either {@link BootNode} or {@link btrplace.plan.event.ShutdownNode}
+         * @param n the manipulated node
+         * @param d the task duration
+         */
+        Task(Class<? extends Action> t, Node n, int d) {
+            this.type = t;
+            this.node = n;
+            this.duration = d;
+        }
+
+        /**
+         * Make a task related to a VM.
+         *
+         * @param t       the action type
+         * @param v       the manipulated VM
+         * @param from    the node the VM leaves. {@code null} if none
+         * @param release the resources released on {@code from}
+         * @param to      the node the VM goes to. {@code null} if none
+         * @param demand  the resources consumed on {@code to}
+         * @param d       the task duration
+         */
+        Task(Class<? extends Action> t, VM v, Node from, int[] release, Node to, int[] demand, int d) {
+            this.type = t;
+            this.vm = v;
+            this.from = from;
+            this.release = release;
+            this.to = to;
+            this.demand = demand;
+            this.duration = d;
+        }
+
+        Class<? extends Action> getType() {
+            return type;
+        }
+
+        VM getVM() {
+            return vm;
+        }
+
+        Node getNode() {
+            return node;
+        }
+
+        Node getSource() {
+            return from;
+        }
+
+        Node getDestination() {
+            return to;
+        }
+
+        int getStart() {
+            return start;
+        }
+
+        int getEnd() {
+            return start + duration;
+        }
+
+        boolean isNodeTask() {
+            return node != null;
+        }
+    }
+
+    private int nbResources;
+
+    private Map<Node, int[]> capacities;
+
+    private Map<Node, int[]> loads;
+
+    private List<Task> tasks;
+
+    /**
+     * The moments the load changes on each node, with regards to the scheduled tasks.
+     */
+    private Map<Node, TreeMap<Integer, int[]>> deltas;
+
+    /**
+     * The moment the last scheduled task leaving each node terminates.
+     */
+    private Map<Node, Integer> departures;
+
+    /**
+     * Make a new scheduler.
+     *
+     * @param nbResources the number of resources to consider
+     */
+    ListScheduler(int nbResources) {
+        this.nbResources = nbResources;
+        capacities = new HashMap<>();
+        loads = new HashMap<>();
+        tasks = new ArrayList<>();
+        deltas = new HashMap<>();
+        departures = new HashMap<>();
+    }
+
+    /**
+     * Declare a node that may host VMs.
+     *
+     * @param n    the node
+     * @param capa the node capacity for each resource
+     * @param load the resources used on the node at the beginning of the reconfiguration
+     */
+    void addNode(Node n, int[] capa, int[] load) {
+        capacities.put(n, capa);
+        loads.put(n, load);
+    }
+
+    /**
+     * Add a task to schedule.
+     * The consuming tasks are scheduled by priority in their insertion order.
+     *
+     * @param t the task
+     */
+    void add(Task t) {
+        tasks.add(t);
+    }
+
+    /**
+     * Get the tasks.
+     *
+     * @return the tasks, in their insertion order
+     */
+    List<Task> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Compute the start moment of every task.
+     *
+     * @return {@code true} iff all the tasks have been scheduled
+     */
+    boolean schedule() {
+        deltas.clear();
+        departures.clear();
+        Map<Node, Integer> availability = new HashMap<>();
+        List<Task> consumers = new LinkedList<>();
+        List<Task> shutdowns = new ArrayList<>();
+        for (Task t : tasks) {
+            if (t.isNodeTask()) {
+                if (t.getType() == BootNode.class) {
+                    setStart(t, 0);
+                    availability.put(t.node, t.getEnd());
+                } else {
+                    shutdowns.add(t);
+                }
+            } else if (t.to == null) {
+                setStart(t, 0);
+            } else {
+                consumers.add(t);
+            }
+        }
+
+        boolean progress = true;
+        while (!consumers.isEmpty() && progress) {
+            progress = false;
+            for (Iterator<Task> ite = consumers.iterator(); ite.hasNext(); ) {
+                Task t = ite.next();
+                Integer from = availability.get(t.to);
+                int st = earliest(t.to, t.demand, from == null ? 0 : from);
+                if (st >= 0) {
+                    setStart(t, st);
+                    ite.remove();
+                    progress = true;
+                }
+            }
+        }
+        if (!consumers.isEmpty()) {
+            return false;
+        }
+
+        for (Task s : shutdowns) {
+            Integer st = departures.get(s.node);
+            s.start = st == null ? 0 : st;
+        }
+        return true;
+    }
+
+    /**
+     * Set the start moment of a task and index the load changes it induces.
+     *
+     * @param t  the task
+     * @param st the start moment
+     */
+    private void setStart(Task t, int st) {
+        t.start = st;
+        if (t.to != null && t.demand != null) {
+            accumulate(t.to, t.start, t.demand, 1);
+        }
+        if (t.from != null) {
+            if (t.release != null) {
+                accumulate(t.from, t.getEnd(), t.release, -1);
+            }
+            Integer d = departures.get(t.from);
+            if (d == null || d < t.getEnd()) {
+                departures.put(t.from, t.getEnd());
+            }
+        }
+    }
+
+    /**
+     * Compute the earliest moment a demand can be satisfied on a node until the end
+     * of the reconfiguration, with regards to the scheduled tasks.
+     *
+     * @param n      the node
+     * @param demand the demand
+     * @param from   the earliest possible moment
+     * @return the moment, {@code -1} if the demand cannot be satisfied
+     */
+    private int earliest(Node n, int[] demand, int from) {
+        int[] capa = capacities.get(n);
+        if (capa == null) {
+            return -1;
+        }
+        //The moments the load changes on the node
+        SortedMap<Integer, int[]> changes = deltas.get(n);
+        if (changes == null) {
+            changes = new TreeMap<>();
+        }
+
+        //The load from each moment, then the maximum load from each moment to the end
+        int nb = changes.size();
+        int[] times = new int[nb];
+        int[][] levels = new int[nb][];
+        int[] cur = loads.get(n).clone();
+        int k = 0;
+        for (Map.Entry<Integer, int[]> e : changes.entrySet()) {
+            for (int r = 0; r < nbResources; r++) {
+                cur[r] += e.getValue()[r];
+            }
+            times[k] = e.getKey();
+            levels[k++] = cur.clone();
+        }
+        int[][] peaks = new int[nb + 1][nbResources];
+        for (int i = nb - 1; i >= 0; i--) {
+            for (int r = 0; r < nbResources; r++) {
+                peaks[i][r] = i == nb - 1 ? levels[i][r] : Math.max(levels[i][r], peaks[i + 1][r]);
+            }
+        }
+
+        //Candidate moments: 'from', then the next moments the load changes
+        int i = 0;
+        int[] level = loads.get(n);
+        while (i < nb && times[i] <= from) {
+            level = levels[i++];
+        }
+        int t = from;
+        while (true) {
+            if (fits(level, i < nb ? peaks[i] : null, demand, capa)) {
+                return t;
+            }
+            if (i == nb) {
+                return -1;
+            }
+            t = times[i];
+            level = levels[i++];
+        }
+    }
+
+    private boolean fits(int[] level, int[] peak, int[] demand, int[] capa) {
+        for (int r = 0; r < nbResources; r++) {
+            int max = peak == null ? level[r] : Math.max(level[r], peak[r]);
+            if (max + demand[r] > capa[r]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void accumulate(Node n, int t, int[] values, int sign) {
+        TreeMap<Integer, int[]> changes = deltas.get(n);
+        if (changes == null) {
+            changes = new TreeMap<>();
+            deltas.put(n, changes);
+        }
+        int[] d = changes.get(t);
+        if (d == null) {
+            d = new int[nbResources];
+            changes.put(t, d);
+        }
+        for (int r = 0; r < nbResources; r++) {
+            d[r] += sign * values[r];
+        }
+    }
+}
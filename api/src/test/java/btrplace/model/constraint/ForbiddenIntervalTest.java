@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint;
+
+import btrplace.model.*;
+import btrplace.plan.DefaultReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.MigrateVM;
+import btrplace.plan.event.ShutdownVM;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link ForbiddenInterval}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ForbiddenIntervalTest {
+
+    @Test
+    public void testInstantiation() {
+        Model mo = new DefaultModel();
+        Set<VM> vms = new HashSet<>(Util.newVMs(mo, 2));
+        ForbiddenInterval c = new ForbiddenInterval(vms, Collections.<Node>emptySet(), 3, 8);
+        Assert.assertNotNull(c.getChecker());
+        Assert.assertEquals(c.getInvolvedVMs(), vms);
+        Assert.assertTrue(c.getInvolvedNodes().isEmpty());
+        Assert.assertEquals(c.getFrom(), 3);
+        Assert.assertEquals(c.getTo(), 8);
+        Assert.assertTrue(c.isContinuous());
+        Assert.assertFalse(c.setContinuous(false));
+        Assert.assertFalse(c.toString().contains("null"));
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testEmptyInterval() {
+        new ForbiddenInterval(Collections.<VM>emptySet(), Collections.<Node>emptySet(), 5, 5);
+    }
+
+    @Test(dependsOnMethods = {"testInstantiation"})
+    public void testEquals() {
+        Model mo = new DefaultModel();
+        Set<VM> vms = new HashSet<>(Util.newVMs(mo, 2));
+        ForbiddenInterval c = new ForbiddenInterval(vms, Collections.<Node>emptySet(), 3, 8);
+        Assert.assertTrue(c.equals(new ForbiddenInterval(new HashSet<>(vms), Collections.<Node>emptySet(), 3, 8)));
+        Assert.assertEquals(c.hashCode(), new ForbiddenInterval(new HashSet<>(vms), Collections.<Node>emptySet(), 3, 8).hashCode());
+        Assert.assertFalse(c.equals(new ForbiddenInterval(vms, Collections.<Node>emptySet(), 2, 8)));
+        Assert.assertFalse(c.equals(new ForbiddenInterval(vms, Collections.<Node>emptySet(), 3, 9)));
+    }
+
+    @Test
+    public void testContinuousIsSatisfied() {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 2);
+        List<VM> vms = Util.newVMs(mo, 2);
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addRunningVM(vms.get(1), ns.get(0));
+
+        ForbiddenInterval c = new ForbiddenInterval(Collections.singleton(vms.get(0)), Collections.<Node>emptySet(), 3, 8);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 1, 3));
+        p.add(new ShutdownVM(vms.get(1), ns.get(0), 4, 5));
+        Assert.assertTrue(c.isSatisfied(p));
+
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 8, 10));
+        Assert.assertTrue(c.isSatisfied(p));
+
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 2, 4));
+        Assert.assertFalse(c.isSatisfied(p));
+
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new ShutdownVM(vms.get(0), ns.get(0), 7, 9));
+        Assert.assertFalse(c.isSatisfied(p));
+    }
+}
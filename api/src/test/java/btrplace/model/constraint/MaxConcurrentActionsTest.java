@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint;
+
+import btrplace.model.*;
+import btrplace.plan.DefaultReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link MaxConcurrentActions}.
+ *
+ * @author Fabien Hermenier
+ */
+public class MaxConcurrentActionsTest {
+
+    @Test
+    public void testInstantiation() {
+        Model mo = new DefaultModel();
+        Set<Node> s = new HashSet<>(Util.newNodes(mo, 2));
+        MaxConcurrentActions c = new MaxConcurrentActions(s, 2, 3);
+        Assert.assertNotNull(c.getChecker());
+        Assert.assertEquals(c.getInvolvedNodes(), s);
+        Assert.assertTrue(c.getInvolvedVMs().isEmpty());
+        Assert.assertEquals(c.getMaxIncoming(), 2);
+        Assert.assertEquals(c.getMaxOutgoing(), 3);
+        Assert.assertTrue(c.isContinuous());
+        Assert.assertFalse(c.setContinuous(false));
+        Assert.assertTrue(c.isContinuous());
+        Assert.assertFalse(c.toString().contains("null"));
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadLimit() {
+        new MaxConcurrentActions(Collections.<Node>emptySet(), 1, -1);
+    }
+
+    @Test(dependsOnMethods = {"testInstantiation"})
+    public void testEquals() {
+        Model mo = new DefaultModel();
+        Set<Node> s = new HashSet<>(Util.newNodes(mo, 2));
+        MaxConcurrentActions c = new MaxConcurrentActions(s, 2, 3);
+        Assert.assertTrue(c.equals(c));
+        Assert.assertTrue(c.equals(new MaxConcurrentActions(new HashSet<>(s), 2, 3)));
+        Assert.assertEquals(c.hashCode(), new MaxConcurrentActions(new HashSet<>(s), 2, 3).hashCode());
+        Assert.assertFalse(c.equals(new MaxConcurrentActions(s, 3, 3)));
+        Assert.assertFalse(c.equals(new MaxConcurrentActions(s, 2, 2)));
+        Assert.assertFalse(c.equals(new MaxConcurrentActions(Collections.<Node>emptySet(), 2, 3)));
+    }
+
+    @Test
+    public void testContinuousIsSatisfied() {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 3);
+        List<VM> vms = Util.newVMs(mo, 4);
+        Mapping map = mo.getMapping();
+        for (Node n : ns) {
+            map.addOnlineNode(n);
+        }
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addRunningVM(vms.get(1), ns.get(0));
+        map.addRunningVM(vms.get(2), ns.get(1));
+        map.addReadyVM(vms.get(3));
+
+        MaxConcurrentActions c = new MaxConcurrentActions(Collections.singleton(ns.get(0)), 1, 1);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 2));
+        p.add(new MigrateVM(vms.get(1), ns.get(0), ns.get(2), 2, 4));
+        p.add(new MigrateVM(vms.get(2), ns.get(1), ns.get(0), 0, 2));
+        p.add(new BootVM(vms.get(3), ns.get(0), 2, 3));
+        Assert.assertTrue(c.isSatisfied(p));
+
+        //Two outgoing migrations at the same time
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 2));
+        p.add(new MigrateVM(vms.get(1), ns.get(0), ns.get(2), 1, 3));
+        Assert.assertFalse(c.isSatisfied(p));
+
+        //An incoming migration and a boot at the same time
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(2), ns.get(1), ns.get(0), 0, 2));
+        p.add(new BootVM(vms.get(3), ns.get(0), 1, 2));
+        Assert.assertFalse(c.isSatisfied(p));
+
+        //Not a restricted node
+        c = new MaxConcurrentActions(Collections.singleton(ns.get(2)), 1, 1);
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 2));
+        p.add(new MigrateVM(vms.get(1), ns.get(0), ns.get(1), 1, 3));
+        Assert.assertTrue(c.isSatisfied(p));
+    }
+}
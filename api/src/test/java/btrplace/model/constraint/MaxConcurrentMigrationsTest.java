@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint;
+
+import btrplace.model.*;
+import btrplace.plan.DefaultReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.BootVM;
+import btrplace.plan.event.MigrateVM;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link MaxConcurrentMigrations}.
+ *
+ * @author Fabien Hermenier
+ */
+public class MaxConcurrentMigrationsTest {
+
+    @Test
+    public void testInstantiation() {
+        MaxConcurrentMigrations c = new MaxConcurrentMigrations(3);
+        Assert.assertNotNull(c.getChecker());
+        Assert.assertTrue(c.getInvolvedNodes().isEmpty());
+        Assert.assertTrue(c.getInvolvedVMs().isEmpty());
+        Assert.assertEquals(c.getMax(), 3);
+        Assert.assertTrue(c.isContinuous());
+        Assert.assertFalse(c.setContinuous(false));
+        Assert.assertTrue(c.isContinuous());
+        Assert.assertFalse(c.toString().contains("null"));
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadMax() {
+        new MaxConcurrentMigrations(-1);
+    }
+
+    @Test(dependsOnMethods = {"testInstantiation"})
+    public void testEquals() {
+        MaxConcurrentMigrations c = new MaxConcurrentMigrations(3);
+        Assert.assertTrue(c.equals(c));
+        Assert.assertTrue(c.equals(new MaxConcurrentMigrations(3)));
+        Assert.assertEquals(c.hashCode(), new MaxConcurrentMigrations(3).hashCode());
+        Assert.assertFalse(c.equals(new MaxConcurrentMigrations(2)));
+    }
+
+    @Test
+    public void testContinuousIsSatisfied() {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 4);
+        List<VM> vms = Util.newVMs(mo, 4);
+        Mapping map = mo.getMapping();
+        for (Node n : ns) {
+            map.addOnlineNode(n);
+        }
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addRunningVM(vms.get(1), ns.get(1));
+        map.addRunningVM(vms.get(2), ns.get(2));
+        map.addReadyVM(vms.get(3));
+
+        MaxConcurrentMigrations c = new MaxConcurrentMigrations(2);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(3), 0, 2));
+        p.add(new MigrateVM(vms.get(1), ns.get(1), ns.get(3), 1, 3));
+        p.add(new MigrateVM(vms.get(2), ns.get(2), ns.get(3), 2, 4));
+        p.add(new BootVM(vms.get(3), ns.get(3), 1, 2));
+        Assert.assertTrue(c.isSatisfied(p));
+
+        p.add(new MigrateVM(vms.get(3), ns.get(3), ns.get(2), 2, 3));
+        Assert.assertFalse(c.isSatisfied(p));
+        Assert.assertTrue(new MaxConcurrentMigrations(3).isSatisfied(p));
+    }
+}
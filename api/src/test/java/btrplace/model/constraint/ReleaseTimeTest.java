@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint;
+
+import btrplace.model.*;
+import btrplace.plan.DefaultReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.BootNode;
+import btrplace.plan.event.BootVM;
+import btrplace.plan.event.MigrateVM;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link ReleaseTime}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ReleaseTimeTest {
+
+    @Test
+    public void testInstantiation() {
+        Model mo = new DefaultModel();
+        Set<VM> vms = new HashSet<>(Util.newVMs(mo, 2));
+        Set<Node> ns = new HashSet<>(Util.newNodes(mo, 2));
+        ReleaseTime c = new ReleaseTime(vms, ns, 10);
+        Assert.assertNotNull(c.getChecker());
+        Assert.assertEquals(c.getInvolvedVMs(), vms);
+        Assert.assertEquals(c.getInvolvedNodes(), ns);
+        Assert.assertEquals(c.getReleaseTime(), 10);
+        Assert.assertTrue(c.isContinuous());
+        Assert.assertFalse(c.setContinuous(false));
+        Assert.assertFalse(c.toString().contains("null"));
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadRelease() {
+        new ReleaseTime(Collections.<VM>emptySet(), Collections.<Node>emptySet(), -1);
+    }
+
+    @Test(dependsOnMethods = {"testInstantiation"})
+    public void testEquals() {
+        Model mo = new DefaultModel();
+        Set<VM> vms = new HashSet<>(Util.newVMs(mo, 2));
+        Set<Node> ns = new HashSet<>(Util.newNodes(mo, 2));
+        ReleaseTime c = new ReleaseTime(vms, ns, 10);
+        Assert.assertTrue(c.equals(new ReleaseTime(new HashSet<>(vms), new HashSet<>(ns), 10)));
+        Assert.assertEquals(c.hashCode(), new ReleaseTime(new HashSet<>(vms), new HashSet<>(ns), 10).hashCode());
+        Assert.assertFalse(c.equals(new ReleaseTime(vms, ns, 5)));
+        Assert.assertFalse(c.equals(new ReleaseTime(vms, Collections.<Node>emptySet(), 10)));
+    }
+
+    @Test
+    public void testContinuousIsSatisfied() {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 3);
+        List<VM> vms = Util.newVMs(mo, 2);
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addOfflineNode(ns.get(2));
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addReadyVM(vms.get(1));
+
+        ReleaseTime c = new ReleaseTime(Collections.singleton(vms.get(0)), Collections.singleton(ns.get(2)), 3);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 3, 5));
+        p.add(new BootNode(ns.get(2), 4, 6));
+        p.add(new BootVM(vms.get(1), ns.get(1), 0, 1));
+        Assert.assertTrue(c.isSatisfied(p));
+
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 2, 4));
+        Assert.assertFalse(c.isSatisfied(p));
+
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new BootNode(ns.get(2), 0, 2));
+        Assert.assertFalse(c.isSatisfied(p));
+    }
+}
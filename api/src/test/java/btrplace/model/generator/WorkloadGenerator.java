@@ -0,0 +1,598 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.generator;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.model.view.ShareableResource;
+
+import java.util.*;
+
+/**
+ * A generator of synthetic data center instances.
+ * <p/>
+ * The generated model is made of heterogeneous nodes grouped into racks, and VMs
+ * grouped into applications of {@link #MIN_APP_SIZE} to {@link #MAX_APP_SIZE} VMs
+ * that share the same flavor. The node capacities and the VM demands are declared
+ * using the {@link ShareableResource}s {@code cpu} and {@code mem}. The number of
+ * nodes is computed so that the running VMs use the expected ratio of the
+ * resources of the nodes.
+ * <p/>
+ * Each application may be subject to one of the following constraints, with regards
+ * to a ratio set using {@link #setConstraintRatio(Class, double)}: {@link Spread},
+ * {@link Gather}, {@link Among} (one rack among three), {@link Fence} (two racks)
+ * or {@link Ban} (one rack). In the same way, each rack may be subject to an
+ * {@link Overbook} constraint on {@code cpu}, a {@link SingleResourceCapacity} on
+ * {@code mem} and a {@link SingleRunningCapacity}. The VMs are placed in a way
+ * that satisfies these constraints. A VM that cannot be placed is left in the
+ * ready state.
+ * <p/>
+ * A reconfiguration is then required by failures and maintenance operations:
+ * a ratio of nodes is failed, so they are offline and their VMs are ready and
+ * must be running again. Another ratio of nodes must be set offline.
+ * <p/>
+ * The generation only depends on the parameters and the seed, so a generator
+ * always produces the same instance.
+ *
+ * @author Fabien Hermenier
+ */
+public class WorkloadGenerator {
+
+    /**
+     * The minimum number of VMs in an application.
+     */
+    public static final int MIN_APP_SIZE = 2;
+
+    /**
+     * The maximum number of VMs in an application.
+     */
+    public static final int MAX_APP_SIZE = 6;
+
+    /**
+     * The node profiles. cpu, memory, weight.
+     */
+    private static final int[][] NODE_PROFILES = {
+            {16, 64, 3},
+            {32, 128, 5},
+            {64, 256, 2}
+    };
+
+    /**
+     * The VM flavors. cpu, memory, weight.
+     */
+    private static final int[][] VM_FLAVORS = {
+            {1, 2, 4},
+            {1, 4, 3},
+            {2, 4, 4},
+            {2, 8, 4},
+            {2, 16, 1},
+            {4, 8, 2},
+            {4, 16, 2},
+            {8, 32, 1}
+    };
+
+    /**
+     * The number of random attempts to place a VM before browsing all the candidates.
+     */
+    private static final int NB_TRIES = 32;
+
+    private static final List<Class<? extends SatConstraint>> APP_CONSTRAINTS
+            = Arrays.<Class<? extends SatConstraint>>asList(Spread.class, Gather.class, Among.class, Fence.class, Ban.class);
+
+    private static final List<Class<? extends SatConstraint>> RACK_CONSTRAINTS
+            = Arrays.<Class<? extends SatConstraint>>asList(Overbook.class, SingleResourceCapacity.class, SingleRunningCapacity.class);
+
+    private long seed;
+
+    private int nbVMs = 1000;
+
+    private double utilization = 0.7;
+
+    private int rackSize = 20;
+
+    private double failureRatio = 0;
+
+    private double maintenanceRatio = 0;
+
+    private Map<Class<? extends SatConstraint>, Double> ratios;
+
+    /**
+     * Make a new generator.
+     * By default, it generates 1000 VMs that use 70% of the resources, in racks of 20 nodes.
+     * 30% of the applications are spread, 10% are in one rack among three, 10% are fenced
+     * and 5% are gathered or banned. 50% of the racks have an overbooking constraint,
+     * 10% of the racks have a capacity constraint of each kind.
+     *
+     * @param seed the seed of the random generator
+     */
+    public WorkloadGenerator(long seed) {
+        this.seed = seed;
+        ratios = new HashMap<>();
+        ratios.put(Spread.class, 0.3);
+        ratios.put(Gather.class, 0.05);
+        ratios.put(Among.class, 0.1);
+        ratios.put(Fence.class, 0.1);
+        ratios.put(Ban.class, 0.05);
+        ratios.put(Overbook.class, 0.5);
+        ratios.put(SingleResourceCapacity.class, 0.1);
+        ratios.put(SingleRunningCapacity.class, 0.1);
+    }
+
+    /**
+     * Get the seed of the random generator.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the number of VMs to generate.
+     *
+     * @param n a number strictly positive
+     */
+    public void setNbVMs(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("The number of VMs must be strictly positive. Got " + n);
+        }
+        nbVMs = n;
+    }
+
+    /**
+     * Get the number of VMs to generate.
+     *
+     * @return a number strictly positive
+     */
+    public int getNbVMs() {
+        return nbVMs;
+    }
+
+    /**
+     * Set the ratio of the resources of the nodes that is used by the VMs.
+     *
+     * @param u a ratio in ]0, 1]
+     */
+    public void setUtilization(double u) {
+        if (u <= 0 || u > 1) {
+            throw new IllegalArgumentException("The utilization must be in ]0, 1]. Got " + u);
+        }
+        utilization = u;
+    }
+
+    /**
+     * Get the ratio of the resources of the nodes that is used by the VMs.
+     *
+     * @return a ratio in ]0, 1]
+     */
+    public double getUtilization() {
+        return utilization;
+    }
+
+    /**
+     * Set the number of nodes per rack.
+     *
+     * @param s a number strictly positive
+     */
+    public void setRackSize(int s) {
+        if (s <= 0) {
+            throw new IllegalArgumentException("The rack size must be strictly positive. Got " + s);
+        }
+        rackSize = s;
+    }
+
+    /**
+     * Get the number of nodes per rack.
+     *
+     * @return a number strictly positive
+     */
+    public int getRackSize() {
+        return rackSize;
+    }
+
+    /**
+     * Set the ratio of nodes that are failed.
+     *
+     * @param r a ratio in [0, 1]
+     */
+    public void setFailureRatio(double r) {
+        checkRatio(r);
+        failureRatio = r;
+    }
+
+    /**
+     * Get the ratio of nodes that are failed.
+     *
+     * @return a ratio in [0, 1]
+     */
+    public double getFailureRatio() {
+        return failureRatio;
+    }
+
+    /**
+     * Set the ratio of nodes that must be set offline for maintenance.
+     *
+     * @param r a ratio in [0, 1]
+     */
+    public void setMaintenanceRatio(double r) {
+        checkRatio(r);
+        maintenanceRatio = r;
+    }
+
+    /**
+     * Get the ratio of nodes that must be set offline for maintenance.
+     *
+     * @return a ratio in [0, 1]
+     */
+    public double getMaintenanceRatio() {
+        return maintenanceRatio;
+    }
+
+    /**
+     * Set the ratio of applications or racks that are subject to a given kind of constraint.
+     * An application is subject to one constraint at most so the cumulated ratios of
+     * {@link Spread}, {@link Gather}, {@link Among}, {@link Fence} and {@link Ban} cannot exceed 1.
+     *
+     * @param c the constraint kind
+     * @param r a ratio in [0, 1]
+     */
+    public void setConstraintRatio(Class<? extends SatConstraint> c, double r) {
+        checkRatio(r);
+        if (!ratios.containsKey(c)) {
+            throw new IllegalArgumentException("Unsupported constraint '" + c.getSimpleName() + "'");
+        }
+        if (APP_CONSTRAINTS.contains(c)) {
+            double sum = r;
+            for (Class<? extends SatConstraint> k : APP_CONSTRAINTS) {
+                if (k != c) {
+                    sum += ratios.get(k);
+                }
+            }
+            if (sum > 1) {
+                throw new IllegalArgumentException("The cumulated ratio of the application constraints cannot exceed 1");
+            }
+        }
+        ratios.put(c, r);
+    }
+
+    /**
+     * Get the ratio of applications or racks that are subject to a given kind of constraint.
+     *
+     * @param c the constraint kind
+     * @return a ratio in [0, 1]. {@code 0} if the constraint is not supported
+     */
+    public double getConstraintRatio(Class<? extends SatConstraint> c) {
+        Double r = ratios.get(c);
+        return r == null ? 0 : r;
+    }
+
+    private static void checkRatio(double r) {
+        if (r < 0 || r > 1) {
+            throw new IllegalArgumentException("The ratio must be in [0, 1]. Got " + r);
+        }
+    }
+
+    /**
+     * Generate an instance.
+     *
+     * @return a new instance
+     */
+    public Instance generate() {
+        return new Generation(new Random(seed)).run();
+    }
+
+    /**
+     * The state of a single generation.
+     */
+    private class Generation {
+
+        private Random rnd;
+
+        private Model mo;
+
+        private ShareableResource cpu;
+
+        private ShareableResource mem;
+
+        private List<Node> nodes;
+
+        private int[] freeCpu;
+
+        private int[] freeMem;
+
+        private List<List<VM>> hosted;
+
+        private List<SatConstraint> cstrs;
+
+        public Generation(Random rnd) {
+            this.rnd = rnd;
+            mo = new DefaultModel();
+            cpu = new ShareableResource("cpu", 0, 0);
+            mem = new ShareableResource("mem", 0, 0);
+            mo.attach(cpu);
+            mo.attach(mem);
+            nodes = new ArrayList<>();
+            hosted = new ArrayList<>();
+            cstrs = new ArrayList<>();
+        }
+
+        public Instance run() {
+            List<List<VM>> apps = makeApplications();
+            makeNodes();
+            for (List<VM> app : apps) {
+                place(app);
+            }
+            for (int i = 0; i < nodes.size(); i += rackSize) {
+                constrainRack(i, Math.min(nodes.size(), i + rackSize));
+            }
+            makeScenarios();
+            return new Instance(mo, cstrs);
+        }
+
+        private int[] pick(int[][] choices) {
+            int total = 0;
+            for (int[] c : choices) {
+                total += c[2];
+            }
+            int x = rnd.nextInt(total);
+            for (int[] c : choices) {
+                x -= c[2];
+                if (x < 0) {
+                    return c;
+                }
+            }
+            return choices[choices.length - 1];
+        }
+
+        private List<List<VM>> makeApplications() {
+            List<List<VM>> apps = new ArrayList<>();
+            int nb = 0;
+            while (nb < nbVMs) {
+                int size = Math.min(nbVMs - nb, MIN_APP_SIZE + rnd.nextInt(MAX_APP_SIZE - MIN_APP_SIZE + 1));
+                int[] flavor = pick(VM_FLAVORS);
+                List<VM> app = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    VM vm = mo.newVM();
+                    mo.getMapping().addReadyVM(vm);
+                    cpu.setConsumption(vm, flavor[0]);
+                    mem.setConsumption(vm, flavor[1]);
+                    app.add(vm);
+                }
+                nb += size;
+                apps.add(app);
+            }
+            return apps;
+        }
+
+        private void makeNodes() {
+            long cpuDemand = cpu.sumConsumptions(mo.getMapping().getAllVMs(), true);
+            long memDemand = mem.sumConsumptions(mo.getMapping().getAllVMs(), true);
+            long cpuCapa = 0;
+            long memCapa = 0;
+            List<int[]> profiles = new ArrayList<>();
+            while (cpuCapa * utilization < cpuDemand || memCapa * utilization < memDemand) {
+                int[] p = pick(NODE_PROFILES);
+                profiles.add(p);
+                cpuCapa += p[0];
+                memCapa += p[1];
+            }
+            freeCpu = new int[profiles.size()];
+            freeMem = new int[profiles.size()];
+            for (int i = 0; i < profiles.size(); i++) {
+                Node n = mo.newNode();
+                mo.getMapping().addOnlineNode(n);
+                cpu.setCapacity(n, profiles.get(i)[0]);
+                mem.setCapacity(n, profiles.get(i)[1]);
+                freeCpu[i] = profiles.get(i)[0];
+                freeMem[i] = profiles.get(i)[1];
+                nodes.add(n);
+                hosted.add(new ArrayList<VM>());
+            }
+        }
+
+        private int getNbRacks() {
+            return (nodes.size() + rackSize - 1) / rackSize;
+        }
+
+        private List<Integer> getRack(int r) {
+            List<Integer> l = new ArrayList<>();
+            for (int i = r * rackSize; i < Math.min(nodes.size(), (r + 1) * rackSize); i++) {
+                l.add(i);
+            }
+            return l;
+        }
+
+        private List<Node> toNodes(Collection<Integer> idx) {
+            List<Node> l = new ArrayList<>(idx.size());
+            for (int i : idx) {
+                l.add(nodes.get(i));
+            }
+            return l;
+        }
+
+        /**
+         * Pick distinct racks.
+         *
+         * @param nb the number of racks to pick
+         * @return the rack indexes. There may be less racks than expected
+         */
+        private List<Integer> pickRacks(int nb) {
+            List<Integer> racks = new ArrayList<>();
+            for (int i = 0; i < getNbRacks(); i++) {
+                racks.add(i);
+            }
+            Collections.shuffle(racks, rnd);
+            return racks.subList(0, Math.min(nb, racks.size()));
+        }
+
+        private Class<? extends SatConstraint> pickConstraint(int size) {
+            if (size < 2) {
+                return null;
+            }
+            double x = rnd.nextDouble();
+            for (Class<? extends SatConstraint> c : APP_CONSTRAINTS) {
+                x -= ratios.get(c);
+                if (x < 0) {
+                    return c;
+                }
+            }
+            return null;
+        }
+
+        private void place(List<VM> app) {
+            Class<? extends SatConstraint> c = pickConstraint(app.size());
+            List<Integer> candidates = null;
+            List<Integer> banned = Collections.emptyList();
+            Set<Integer> excluded = new HashSet<>();
+            List<Integer> parts = null;
+            if (c == Gather.class) {
+                int n = pickNode(null, excluded, app.size() * cpu.getConsumption(app.get(0)), app.size() * mem.getConsumption(app.get(0)));
+                if (n < 0) {
+                    c = null;
+                } else {
+                    candidates = Collections.singletonList(n);
+                }
+            } else if (c == Fence.class) {
+                candidates = new ArrayList<>();
+                for (int r : pickRacks(2)) {
+                    candidates.addAll(getRack(r));
+                }
+            } else if (c == Ban.class) {
+                banned = getRack(pickRacks(1).get(0));
+                excluded.addAll(banned);
+            } else if (c == Among.class) {
+                parts = pickRacks(3);
+                candidates = new ArrayList<>();
+                for (int r : parts) {
+                    candidates.addAll(getRack(r));
+                }
+            }
+
+            List<Integer> allowed = candidates;
+            for (VM vm : app) {
+                int n = pickNode(allowed, excluded, cpu.getConsumption(vm), mem.getConsumption(vm));
+                if (n >= 0) {
+                    freeCpu[n] -= cpu.getConsumption(vm);
+                    freeMem[n] -= mem.getConsumption(vm);
+                    hosted.get(n).add(vm);
+                    mo.getMapping().addRunningVM(vm, nodes.get(n));
+                    if (c == Spread.class) {
+                        excluded.add(n);
+                    } else if (c == Among.class) {
+                        //The other VMs go in the same rack
+                        allowed = getRack(n / rackSize);
+                    }
+                }
+            }
+
+            if (c == Spread.class) {
+                cstrs.add(new Spread(new HashSet<>(app)));
+            } else if (c == Gather.class) {
+                cstrs.add(new Gather(app));
+            } else if (c == Fence.class) {
+                cstrs.add(new Fence(app, toNodes(candidates)));
+            } else if (c == Ban.class) {
+                cstrs.add(new Ban(app, toNodes(banned)));
+            } else if (c == Among.class) {
+                Collection<Collection<Node>> ps = new ArrayList<>();
+                for (int r : parts) {
+                    ps.add(toNodes(getRack(r)));
+                }
+                cstrs.add(new Among(app, ps));
+            }
+        }
+
+        /**
+         * Pick a node that can host a given demand.
+         *
+         * @param candidates the possible nodes. {@code null} for all the nodes
+         * @param excluded   the nodes to ignore
+         * @param c          the cpu demand
+         * @param m          the memory demand
+         * @return the node index, {@code -1} if no node can host the demand
+         */
+        private int pickNode(List<Integer> candidates, Set<Integer> excluded, int c, int m) {
+            int size = candidates == null ? nodes.size() : candidates.size();
+            for (int i = 0; i < NB_TRIES; i++) {
+                int x = rnd.nextInt(size);
+                int n = candidates == null ? x : candidates.get(x);
+                if (!excluded.contains(n) && freeCpu[n] >= c && freeMem[n] >= m) {
+                    return n;
+                }
+            }
+            int offset = rnd.nextInt(size);
+            for (int i = 0; i < size; i++) {
+                int x = (offset + i) % size;
+                int n = candidates == null ? x : candidates.get(x);
+                if (!excluded.contains(n) && freeCpu[n] >= c && freeMem[n] >= m) {
+                    return n;
+                }
+            }
+            return -1;
+        }
+
+        private void constrainRack(int from, int to) {
+            List<Node> rack = new ArrayList<>(nodes.subList(from, to));
+            if (rnd.nextDouble() < ratios.get(Overbook.class)) {
+                cstrs.add(new Overbook(rack, "cpu", 1 + rnd.nextInt(3) * 0.5));
+            }
+            if (rnd.nextDouble() < ratios.get(SingleResourceCapacity.class)) {
+                int amount = Integer.MAX_VALUE;
+                int used = 0;
+                for (int i = from; i < to; i++) {
+                    amount = Math.min(amount, mem.getCapacity(nodes.get(i)) * 9 / 10);
+                    used = Math.max(used, mem.getCapacity(nodes.get(i)) - freeMem[i]);
+                }
+                cstrs.add(new SingleResourceCapacity(rack, "mem", Math.max(amount, used)));
+            }
+            if (rnd.nextDouble() < ratios.get(SingleRunningCapacity.class)) {
+                int max = 0;
+                for (int i = from; i < to; i++) {
+                    max = Math.max(max, hosted.get(i).size());
+                }
+                cstrs.add(new SingleRunningCapacity(rack, max + rnd.nextInt(3)));
+            }
+        }
+
+        private void makeScenarios() {
+            List<Integer> idx = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                idx.add(i);
+            }
+            Collections.shuffle(idx, rnd);
+            int nbFailures = (int) (failureRatio * nodes.size());
+            int nbMaintenances = Math.min(nodes.size() - nbFailures, (int) (maintenanceRatio * nodes.size()));
+
+            List<VM> toRestart = new ArrayList<>();
+            for (int i : idx.subList(0, nbFailures)) {
+                for (VM vm : hosted.get(i)) {
+                    mo.getMapping().addReadyVM(vm);
+                    toRestart.add(vm);
+                }
+                hosted.get(i).clear();
+                mo.getMapping().addOfflineNode(nodes.get(i));
+            }
+            if (!toRestart.isEmpty()) {
+                cstrs.add(new Running(toRestart));
+            }
+            if (nbMaintenances > 0) {
+                cstrs.add(new Offline(toNodes(idx.subList(nbFailures, nbFailures + nbMaintenances))));
+            }
+        }
+    }
+}
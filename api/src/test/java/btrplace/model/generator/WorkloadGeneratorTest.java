@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.generator;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.model.view.ShareableResource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link WorkloadGenerator}.
+ *
+ * @author Fabien Hermenier
+ */
+public class WorkloadGeneratorTest {
+
+    @Test
+    public void testDeterminism() {
+        WorkloadGenerator g = new WorkloadGenerator(17);
+        g.setNbVMs(300);
+        g.setFailureRatio(0.1);
+        g.setMaintenanceRatio(0.1);
+        Instance i1 = g.generate();
+        Instance i2 = g.generate();
+        Assert.assertEquals(i1, i2);
+
+        WorkloadGenerator g2 = new WorkloadGenerator(17);
+        g2.setNbVMs(300);
+        g2.setFailureRatio(0.1);
+        g2.setMaintenanceRatio(0.1);
+        Assert.assertEquals(g2.generate(), i1);
+
+        WorkloadGenerator g3 = new WorkloadGenerator(18);
+        g3.setNbVMs(300);
+        g3.setFailureRatio(0.1);
+        g3.setMaintenanceRatio(0.1);
+        Assert.assertNotEquals(g3.generate(), i1);
+    }
+
+    @Test
+    public void testGeneration() {
+        WorkloadGenerator g = new WorkloadGenerator(1);
+        g.setNbVMs(1000);
+        g.setUtilization(0.6);
+        g.setRackSize(10);
+        g.setConstraintRatio(SingleResourceCapacity.class, 0.5);
+        g.setConstraintRatio(SingleRunningCapacity.class, 0.5);
+        Assert.assertEquals(g.getNbVMs(), 1000);
+        Assert.assertEquals(g.getUtilization(), 0.6);
+        Assert.assertEquals(g.getRackSize(), 10);
+        Instance i = g.generate();
+        Model mo = i.getModel();
+        Mapping map = mo.getMapping();
+        Assert.assertEquals(map.getAllVMs().size(), 1000);
+        Assert.assertTrue(map.getOfflineNodes().isEmpty());
+
+        ShareableResource cpu = (ShareableResource) mo.getView(ShareableResource.VIEW_ID_BASE + "cpu");
+        ShareableResource mem = (ShareableResource) mo.getView(ShareableResource.VIEW_ID_BASE + "mem");
+        Assert.assertNotNull(cpu);
+        Assert.assertNotNull(mem);
+        long used = 0;
+        long capa = 0;
+        for (Node n : map.getAllNodes()) {
+            Assert.assertTrue(cpu.sumConsumptions(map.getRunningVMs(n), true) <= cpu.getCapacity(n));
+            Assert.assertTrue(mem.sumConsumptions(map.getRunningVMs(n), true) <= mem.getCapacity(n));
+            used += cpu.sumConsumptions(map.getRunningVMs(n), true);
+            capa += cpu.getCapacity(n);
+        }
+        Assert.assertTrue(used <= capa * 0.6 + 64, used + " " + capa);
+
+        Map<Class<?>, Integer> kinds = new HashMap<>();
+        for (SatConstraint c : i.getConstraints()) {
+            Assert.assertTrue(c.isSatisfied(mo), c.toString());
+            Integer nb = kinds.get(c.getClass());
+            kinds.put(c.getClass(), nb == null ? 1 : nb + 1);
+        }
+        for (Class<?> c : new Class[]{Spread.class, Gather.class, Among.class, Fence.class, Ban.class,
+                Overbook.class, SingleResourceCapacity.class, SingleRunningCapacity.class}) {
+            Assert.assertTrue(kinds.containsKey(c), "No " + c.getSimpleName() + " constraint");
+        }
+        Assert.assertFalse(kinds.containsKey(Running.class));
+        Assert.assertFalse(kinds.containsKey(Offline.class));
+    }
+
+    @Test
+    public void testScenarios() {
+        WorkloadGenerator g = new WorkloadGenerator(5);
+        g.setNbVMs(1000);
+        g.setFailureRatio(0.1);
+        g.setMaintenanceRatio(0.05);
+        Assert.assertEquals(g.getFailureRatio(), 0.1);
+        Assert.assertEquals(g.getMaintenanceRatio(), 0.05);
+        Instance i = g.generate();
+        Mapping map = i.getModel().getMapping();
+        int nbNodes = map.getAllNodes().size();
+        Assert.assertEquals(map.getOfflineNodes().size(), (int) (nbNodes * 0.1));
+
+        Running running = null;
+        Offline offline = null;
+        for (SatConstraint c : i.getConstraints()) {
+            if (c instanceof Running) {
+                running = (Running) c;
+            } else if (c instanceof Offline) {
+                offline = (Offline) c;
+            }
+        }
+        Assert.assertNotNull(running);
+        Assert.assertNotNull(offline);
+        Assert.assertTrue(map.getReadyVMs().containsAll(running.getInvolvedVMs()));
+        Assert.assertFalse(running.isSatisfied(i.getModel()));
+        Assert.assertEquals(offline.getInvolvedNodes().size(), (int) (nbNodes * 0.05));
+        Assert.assertTrue(map.getOnlineNodes().containsAll(offline.getInvolvedNodes()));
+    }
+
+    @Test
+    public void testConstraintRatios() {
+        WorkloadGenerator g = new WorkloadGenerator(3);
+        for (Class<? extends SatConstraint> c : new Class[]{Spread.class, Gather.class, Among.class, Fence.class, Ban.class,
+                Overbook.class, SingleResourceCapacity.class, SingleRunningCapacity.class}) {
+            g.setConstraintRatio(c, 0);
+            Assert.assertEquals(g.getConstraintRatio(c), 0.0);
+        }
+        Assert.assertTrue(g.generate().getConstraints().isEmpty());
+        Assert.assertEquals(g.getConstraintRatio(Lonely.class), 0.0);
+
+        g.setConstraintRatio(Spread.class, 1);
+        g.setNbVMs(100);
+        for (SatConstraint c : g.generate().getConstraints()) {
+            Assert.assertTrue(c instanceof Spread);
+        }
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testExceedingRatios() {
+        WorkloadGenerator g = new WorkloadGenerator(3);
+        g.setConstraintRatio(Spread.class, 0.9);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testUnsupportedConstraint() {
+        new WorkloadGenerator(3).setConstraintRatio(Lonely.class, 0.5);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadUtilization() {
+        new WorkloadGenerator(3).setUtilization(0);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadNbVMs() {
+        new WorkloadGenerator(3).setNbVMs(0);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadRatio() {
+        new WorkloadGenerator(3).setFailureRatio(1.5);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.view;
+
+import btrplace.model.DefaultModel;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Unit tests for {@link Network}.
+ *
+ * @author Fabien Hermenier
+ */
+public class NetworkTest {
+
+    @Test
+    public void testInstantiation() {
+        Network net = new Network(1000);
+        Assert.assertEquals(net.getIdentifier(), Network.VIEW_ID);
+        Assert.assertEquals(net.getDefaultBandwidth(), 1000);
+        Assert.assertEquals(net.getMaxMigrationBandwidth(), 0);
+        Assert.assertTrue(net.getSwitches().isEmpty());
+        Assert.assertTrue(net.getDefinedNodes().isEmpty());
+    }
+
+    @Test(dependsOnMethods = {"testInstantiation"})
+    public void testBandwidths() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Network net = new Network(1000);
+        Assert.assertEquals(net.setBandwidth(n1, 10000), net);
+        Assert.assertEquals(net.getBandwidth(n1), 10000);
+        Assert.assertEquals(net.getBandwidth(n2), 1000);
+        Assert.assertEquals(net.getDefinedNodes(), Collections.singleton(n1));
+
+        Assert.assertEquals(net.getMigrationBandwidth(n1), 10000);
+        net.setMaxMigrationBandwidth(500);
+        Assert.assertEquals(net.getMaxMigrationBandwidth(), 500);
+        Assert.assertEquals(net.getMigrationBandwidth(n1), 500);
+        net.setMaxMigrationBandwidth(2000);
+        Assert.assertEquals(net.getMigrationBandwidth(n2), 1000);
+    }
+
+    @Test(dependsOnMethods = {"testInstantiation"})
+    public void testSwitches() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        Network net = new Network(1000);
+        Assert.assertFalse(net.connect(n1, "rack1"));
+        Assert.assertTrue(net.addSwitch("rack1", 4000));
+        Assert.assertFalse(net.addSwitch("rack1", 5000));
+        Assert.assertEquals(net.getSwitchBandwidth("rack1"), 5000);
+        Assert.assertEquals(net.getSwitchBandwidth("rack2"), -1);
+        Assert.assertTrue(net.connect(n1, "rack1"));
+        Assert.assertTrue(net.connect(n2, "rack1"));
+        Assert.assertEquals(net.getSwitch(n1), "rack1");
+        Assert.assertNull(net.getSwitch(n3));
+        Assert.assertEquals(net.getConnectedNodes("rack1"), new HashSet<>(Arrays.asList(n1, n2)));
+        Assert.assertTrue(net.getConnectedNodes("rack2").isEmpty());
+    }
+
+    @Test(dependsOnMethods = {"testBandwidths", "testSwitches"})
+    public void testEqualsAndClone() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Network net = new Network(1000);
+        net.setBandwidth(n1, 500);
+        net.addSwitch("rack1", 4000);
+        net.connect(n1, "rack1");
+        net.setMaxMigrationBandwidth(200);
+        Network c = net.clone();
+        Assert.assertEquals(c, net);
+        Assert.assertEquals(c.hashCode(), net.hashCode());
+        c.setBandwidth(n1, 600);
+        Assert.assertNotEquals(c, net);
+        Assert.assertFalse(net.toString().isEmpty());
+
+        mo.attach(net);
+        Assert.assertEquals(Network.get(mo), net);
+        Assert.assertNull(Network.get(new DefaultModel()));
+    }
+}
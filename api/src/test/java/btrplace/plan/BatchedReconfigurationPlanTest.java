@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.*;
+import btrplace.model.constraint.Ban;
+import btrplace.plan.event.BootVM;
+import btrplace.plan.event.MigrateVM;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link BatchedReconfigurationPlan}.
+ *
+ * @author Fabien Hermenier
+ */
+public class BatchedReconfigurationPlanTest {
+
+    @Test
+    public void testView() throws ReconfigurationPlanCheckerException {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 2);
+        List<VM> vms = Util.newVMs(mo, 3);
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addRunningVM(vms.get(1), ns.get(0));
+        map.addReadyVM(vms.get(2));
+
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 3));
+        p.add(new MigrateVM(vms.get(1), ns.get(0), ns.get(1), 0, 2));
+        BatchedReconfigurationPlan bp = new BatchedReconfigurationPlan(p);
+        Assert.assertSame(bp.getPlan(), p);
+        Assert.assertSame(bp.getOrigin(), mo);
+        Assert.assertEquals(bp.getSize(), 2);
+        Assert.assertEquals(bp.getDuration(), 3);
+        Assert.assertEquals(bp.getBatches().size(), 1);
+        Assert.assertEquals(bp.getBatches().get(0).getSize(), 2);
+
+        //The batches are updated
+        Assert.assertTrue(bp.add(new BootVM(vms.get(2), ns.get(1), 0, 1)));
+        Assert.assertEquals(p.getSize(), 3);
+        Assert.assertEquals(bp.getBatches().size(), 2);
+
+        Assert.assertTrue(bp.isApplyable());
+        Assert.assertEquals(bp.getResult(), p.getResult());
+        Assert.assertEquals(bp.getResultingMapping(), p.getResultingMapping());
+        Assert.assertEquals(bp.getDependencyGraph().size(), 3);
+        Assert.assertSame(bp.getReconfigurationApplier(), p.getReconfigurationApplier());
+
+        //The checker still works on the view
+        ReconfigurationPlanChecker chk = new ReconfigurationPlanChecker();
+        chk.addChecker(new Ban(Collections.singleton(vms.get(2)), Collections.singleton(ns.get(1))).getChecker());
+        try {
+            chk.check(bp);
+            Assert.fail("The Ban constraint should be violated");
+        } catch (ReconfigurationPlanCheckerException ex) {
+            Assert.assertTrue(ex.getAction() instanceof BootVM);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.*;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link ConcurrentPlanExecutor}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ConcurrentPlanExecutorTest {
+
+    /**
+     * A fake driver that executes the actions in background
+     * and records the concurrency level.
+     */
+    private static class FakeDriver implements ActionDriver {
+
+        private ExecutorService pool = Executors.newCachedThreadPool();
+
+        private Set<Action> failures = new HashSet<>();
+
+        private List<Action> executed = Collections.synchronizedList(new ArrayList<Action>());
+
+        private int nbRunning = 0;
+
+        private int maxRunning = 0;
+
+        private Map<Node, Integer> perNode = new HashMap<>();
+
+        private int maxPerNode = 0;
+
+        @Override
+        public void execute(final Action a, final Callback cb) {
+            executed.add(a);
+            start(a);
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    stop(a);
+                    if (failures.contains(a)) {
+                        cb.failed(new Exception("Failure of " + a));
+                    } else {
+                        cb.done();
+                        //Only the first call matters
+                        cb.failed(null);
+                    }
+                }
+            });
+        }
+
+        private synchronized void start(Action a) {
+            nbRunning++;
+            maxRunning = Math.max(maxRunning, nbRunning);
+            for (Node n : PlanUtils.getNodes(a)) {
+                Integer x = perNode.get(n);
+                int nb = x == null ? 1 : x + 1;
+                perNode.put(n, nb);
+                maxPerNode = Math.max(maxPerNode, nb);
+            }
+        }
+
+        private synchronized void stop(Action a) {
+            nbRunning--;
+            for (Node n : PlanUtils.getNodes(a)) {
+                perNode.put(n, perNode.get(n) - 1);
+            }
+        }
+
+        void shutdown() throws InterruptedException {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testApply() throws InterruptedException {
+        Model mo = new DefaultModel();
+        List<VM> vms = Util.newVMs(mo, 10);
+        List<Node> ns = Util.newNodes(mo, 10);
+
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addOnlineNode(ns.get(2));
+        map.addOfflineNode(ns.get(3));
+
+        map.addRunningVM(vms.get(0), ns.get(2));
+        map.addRunningVM(vms.get(1), ns.get(0));
+        map.addRunningVM(vms.get(2), ns.get(1));
+        map.addRunningVM(vms.get(3), ns.get(1));
+        BootNode bN4 = new BootNode(ns.get(3), 3, 5);
+        MigrateVM mVM1 = new MigrateVM(vms.get(0), ns.get(2), ns.get(3), 6, 7);
+        Allocate aVM3 = new Allocate(vms.get(2), ns.get(1), "cpu", 7, 8, 9);
+        MigrateVM mVM2 = new MigrateVM(vms.get(1), ns.get(0), ns.get(1), 1, 3);
+        MigrateVM mVM4 = new MigrateVM(vms.get(3), ns.get(1), ns.get(2), 1, 7);
+        ShutdownNode sN1 = new ShutdownNode(ns.get(0), 5, 7);
+
+        ShareableResource rc = new ShareableResource("cpu");
+        rc.setConsumption(vms.get(2), 3);
+        mo.attach(rc);
+
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        plan.add(bN4);
+        plan.add(mVM1);
+        plan.add(aVM3);
+        plan.add(mVM2);
+        plan.add(mVM4);
+        plan.add(sN1);
+
+        FakeDriver d = new FakeDriver();
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d);
+        Assert.assertEquals(exec.getActionDriver(), d);
+        EventCommittedListener ev = Mockito.mock(EventCommittedListener.class);
+        exec.addEventCommittedListener(ev);
+        Model res = exec.apply(plan);
+        d.shutdown();
+        Assert.assertNotNull(res);
+        Mapping resMapping = res.getMapping();
+        Assert.assertTrue(resMapping.getOfflineNodes().contains(ns.get(0)));
+        Assert.assertTrue(resMapping.getOnlineNodes().contains(ns.get(3)));
+        rc = (ShareableResource) res.getView(ShareableResource.VIEW_ID_BASE + "cpu");
+        Assert.assertEquals(rc.getConsumption(vms.get(2)), 7);
+        Assert.assertEquals(resMapping.getVMLocation(vms.get(0)), ns.get(3));
+        Assert.assertEquals(resMapping.getVMLocation(vms.get(1)), ns.get(1));
+        Assert.assertEquals(resMapping.getVMLocation(vms.get(3)), ns.get(2));
+
+        verify(ev, times(1)).committed(bN4);
+        verify(ev, times(1)).committed(mVM1);
+        verify(ev, times(1)).committed(aVM3);
+        verify(ev, times(1)).committed(mVM2);
+        verify(ev, times(1)).committed(mVM4);
+        verify(ev, times(1)).committed(sN1);
+
+        //The migration to n3 must wait for its boot
+        Assert.assertTrue(d.executed.indexOf(mVM1) > d.executed.indexOf(bN4));
+    }
+
+    /**
+     * Make a plan where all the VMs are migrated from the first node.
+     */
+    private static ReconfigurationPlan makeEvacuation(int nbVMs, int nbNodes) {
+        Model mo = new DefaultModel();
+        List<VM> vms = Util.newVMs(mo, nbVMs);
+        List<Node> ns = Util.newNodes(mo, nbNodes);
+        Mapping map = mo.getMapping();
+        for (Node n : ns) {
+            map.addOnlineNode(n);
+        }
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        for (int i = 0; i < vms.size(); i++) {
+            map.addRunningVM(vms.get(i), ns.get(0));
+            plan.add(new MigrateVM(vms.get(i), ns.get(0), ns.get(1 + i % (nbNodes - 1)), 0, 3));
+        }
+        return plan;
+    }
+
+    @Test
+    public void testConcurrencyLimits() throws InterruptedException {
+        ReconfigurationPlan plan = makeEvacuation(20, 5);
+        FakeDriver d = new FakeDriver();
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d);
+        exec.setMaxConcurrentActions(3);
+        exec.setMaxConcurrentActionsPerNode(2);
+        Assert.assertEquals(exec.getMaxConcurrentActions(), 3);
+        Assert.assertEquals(exec.getMaxConcurrentActionsPerNode(), 2);
+        Model res = exec.apply(plan);
+        d.shutdown();
+        Assert.assertNotNull(res);
+        Assert.assertEquals(res.getMapping().getRunningVMs().size(), 20);
+        Assert.assertEquals(d.executed.size(), 20);
+        //The source node is involved in every migration
+        Assert.assertEquals(d.maxPerNode, 2);
+        Assert.assertTrue(d.maxRunning <= 2);
+    }
+
+    @Test
+    public void testGlobalLimit() throws InterruptedException {
+        ReconfigurationPlan plan = makeEvacuation(20, 5);
+        FakeDriver d = new FakeDriver();
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d);
+        exec.setMaxConcurrentActions(3);
+        Assert.assertNotNull(exec.apply(plan));
+        d.shutdown();
+        Assert.assertEquals(d.maxRunning, 3);
+    }
+
+    @Test
+    public void testFailure() throws InterruptedException {
+        Model mo = new DefaultModel();
+        List<VM> vms = Util.newVMs(mo, 2);
+        List<Node> ns = Util.newNodes(mo, 2);
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOfflineNode(ns.get(1));
+        map.addRunningVM(vms.get(0), ns.get(0));
+        BootNode bn = new BootNode(ns.get(1), 0, 3);
+        MigrateVM m = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 3, 5);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        plan.add(bn);
+        plan.add(m);
+
+        FakeDriver d = new FakeDriver();
+        d.failures.add(bn);
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d);
+        EventCommittedListener ev = Mockito.mock(EventCommittedListener.class);
+        exec.addEventCommittedListener(ev);
+        Assert.assertNull(exec.apply(plan));
+        d.shutdown();
+        //The migration was never dispatched
+        Assert.assertEquals(d.executed, Collections.singletonList(bn));
+        verify(ev, times(0)).committed(bn);
+        Assert.assertEquals(exec.getFailures().size(), 1);
+        Assert.assertEquals(exec.getFailures().get(bn).getMessage(), "Failure of " + bn);
+    }
+
+    @Test
+    public void testSynchronousDriver() {
+        ReconfigurationPlan plan = makeEvacuation(5000, 3);
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(new ActionDriver() {
+            @Override
+            public void execute(Action a, Callback cb) {
+                cb.done();
+            }
+        });
+        exec.setMaxConcurrentActionsPerNode(1);
+        Model res = exec.apply(plan);
+        Assert.assertNotNull(res);
+        Assert.assertTrue(exec.getFailures().isEmpty());
+        Assert.assertEquals(res.getMapping().getRunningVMs().size(), 5000);
+    }
+
+    @Test
+    public void testFailingDriver() {
+        ReconfigurationPlan plan = makeEvacuation(3, 2);
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(new ActionDriver() {
+            @Override
+            public void execute(Action a, Callback cb) {
+                throw new UnsupportedOperationException();
+            }
+        });
+        Assert.assertNull(exec.apply(plan));
+        Assert.assertFalse(exec.getFailures().isEmpty());
+        for (Exception ex : exec.getFailures().values()) {
+            Assert.assertTrue(ex instanceof UnsupportedOperationException);
+        }
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadGlobalLimit() {
+        new ConcurrentPlanExecutor(null).setMaxConcurrentActions(0);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadPerNodeLimit() {
+        new ConcurrentPlanExecutor(null).setMaxConcurrentActionsPerNode(-1);
+    }
+}
@@ -19,13 +19,13 @@ package btrplace.plan;
 
 import btrplace.model.*;
 import btrplace.plan.event.Action;
+import btrplace.plan.event.BootNode;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.List;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 
 /**
@@ -54,6 +54,19 @@ public class DefaultReconfigurationPlanTest {
         Model mo = new DefaultModel();
         when(ap.apply(p)).thenReturn(mo);
         Assert.assertTrue(p.getResult() == mo);
+        //The result is cached
+        Assert.assertTrue(p.getResult() == mo);
+        verify(ap, times(1)).apply(p);
+        //Until the plan is modified
+        Node n = m.newNode();
+        m.getMapping().addOfflineNode(n);
+        p.add(new BootNode(n, 0, 3));
+        Assert.assertTrue(p.getResult() == mo);
+        verify(ap, times(2)).apply(p);
+        //Or the applier is changed
+        p.setReconfigurationApplier(ap);
+        Assert.assertTrue(p.getResult() == mo);
+        verify(ap, times(3)).apply(p);
     }
 
     @Test(dependsOnMethods = {"testApplierGetAndSet"})
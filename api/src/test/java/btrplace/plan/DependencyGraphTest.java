@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.*;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link DependencyGraph}.
+ *
+ * @author Fabien Hermenier
+ */
+public class DependencyGraphTest {
+
+    static List<VM> vms = Util.newVMs(10);
+    static List<Node> ns = Util.newNodes(10);
+
+    static BootNode bN4 = new BootNode(ns.get(3), 3, 5);
+    static MigrateVM mVM1 = new MigrateVM(vms.get(0), ns.get(2), ns.get(3), 6, 7);
+    static Allocate aVM3 = new Allocate(vms.get(2), ns.get(1), "cpu", 7, 8, 9);
+    static MigrateVM mVM2 = new MigrateVM(vms.get(1), ns.get(0), ns.get(1), 1, 3);
+    static MigrateVM mVM4 = new MigrateVM(vms.get(3), ns.get(1), ns.get(2), 1, 7);
+    static ShutdownNode sN1 = new ShutdownNode(ns.get(0), 5, 7);
+
+    private static ReconfigurationPlan makePlan() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addOnlineNode(ns.get(2));
+        map.addOfflineNode(ns.get(3));
+        map.addRunningVM(vms.get(0), ns.get(2));
+        map.addRunningVM(vms.get(1), ns.get(0));
+        map.addRunningVM(vms.get(2), ns.get(1));
+        map.addRunningVM(vms.get(3), ns.get(1));
+        ShareableResource rc = new ShareableResource("cpu");
+        rc.setConsumption(vms.get(2), 3);
+        mo.attach(rc);
+
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        plan.add(bN4);
+        plan.add(mVM1);
+        plan.add(aVM3);
+        plan.add(mVM2);
+        plan.add(mVM4);
+        plan.add(sN1);
+        return plan;
+    }
+
+    @Test
+    public void testDependencies() {
+        ReconfigurationPlan plan = makePlan();
+        DependencyGraph g = plan.getDependencyGraph();
+        Assert.assertEquals(g.size(), 6);
+
+        //Same dependencies than the extractor
+        DependenciesExtractor ex = new DependenciesExtractor(plan.getOrigin());
+        for (Action a : plan) {
+            a.visit(ex);
+        }
+        int nbDeps = 0;
+        for (Action a : plan) {
+            Set<Action> deps = g.getPredecessors(a);
+            Assert.assertEquals(deps, ex.getDependencies(a), a.toString());
+            Assert.assertEquals(plan.getDirectDependencies(a), deps);
+            nbDeps += deps.size();
+            for (Action d : deps) {
+                Assert.assertTrue(g.getSuccessors(d).contains(a));
+            }
+        }
+        Assert.assertEquals(g.getNbDependencies(), nbDeps);
+        Assert.assertEquals(g.getPredecessors(mVM1), Collections.<Action>singleton(bN4));
+        Assert.assertEquals(g.getPredecessors(sN1), Collections.<Action>singleton(mVM2));
+        Assert.assertEquals(g.getSuccessors(mVM4), Collections.<Action>singleton(aVM3));
+    }
+
+    @Test
+    public void testIndexes() {
+        ReconfigurationPlan plan = makePlan();
+        DependencyGraph g = plan.getDependencyGraph();
+        int i = 0;
+        for (Action a : plan) {
+            Assert.assertEquals(g.indexOf(a), i);
+            Assert.assertEquals(g.getAction(i), a);
+            Assert.assertEquals(g.getNbPredecessors(i), g.getPredecessors(a).size());
+            for (int k = 0; k < g.getNbPredecessors(i); k++) {
+                Assert.assertTrue(g.getPredecessors(a).contains(g.getAction(g.getPredecessor(i, k))));
+            }
+            Assert.assertEquals(g.getNbSuccessors(i), g.getSuccessors(a).size());
+            for (int k = 0; k < g.getNbSuccessors(i); k++) {
+                Assert.assertTrue(g.getSuccessors(a).contains(g.getAction(g.getSuccessor(i, k))));
+            }
+            i++;
+        }
+        BootNode unknown = new BootNode(ns.get(5), 0, 1);
+        Assert.assertEquals(g.indexOf(unknown), -1);
+        Assert.assertTrue(g.getPredecessors(unknown).isEmpty());
+        Assert.assertTrue(g.getSuccessors(unknown).isEmpty());
+    }
+
+    @Test
+    public void testTopologicalOrderAndCriticalPath() {
+        ReconfigurationPlan plan = makePlan();
+        DependencyGraph g = plan.getDependencyGraph();
+        Assert.assertTrue(g.isAcyclic());
+        int[] order = g.getTopologicalOrder();
+        Assert.assertEquals(order.length, g.size());
+        int[] pos = new int[g.size()];
+        for (int i = 0; i < order.length; i++) {
+            pos[order[i]] = i;
+        }
+        for (int i = 0; i < g.size(); i++) {
+            for (int k = 0; k < g.getNbPredecessors(i); k++) {
+                Assert.assertTrue(pos[g.getPredecessor(i, k)] < pos[i]);
+            }
+        }
+        //mVM4 (6) -> aVM3 (1)
+        Assert.assertEquals(g.getCriticalPathLength(), 7);
+    }
+
+    @Test
+    public void testInvalidation() {
+        ReconfigurationPlan plan = makePlan();
+        DependencyGraph g = plan.getDependencyGraph();
+        Assert.assertSame(plan.getDependencyGraph(), g);
+        Assert.assertFalse(plan.add(bN4));
+        Assert.assertSame(plan.getDependencyGraph(), g);
+
+        ShutdownNode sN4 = new ShutdownNode(ns.get(3), 10, 12);
+        Assert.assertTrue(plan.add(sN4));
+        DependencyGraph g2 = plan.getDependencyGraph();
+        Assert.assertNotSame(g2, g);
+        Assert.assertEquals(g2.size(), 7);
+        Assert.assertEquals(g.size(), 6);
+        Assert.assertEquals(g2.getPredecessors(sN4), Collections.<Action>singleton(bN4));
+        Assert.assertEquals(g2.getSuccessors(bN4).size(), 2);
+    }
+
+    @Test(expectedExceptions = {UnsupportedOperationException.class})
+    public void testImmutable() {
+        makePlan().getDependencyGraph().getPredecessors(mVM1).clear();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.*;
+import btrplace.plan.event.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Unit tests for {@link LockFreeReconfigurationPlanMonitor}.
+ *
+ * @author Fabien Hermenier
+ */
+public class LockFreeReconfigurationPlanMonitorTest {
+
+    static List<VM> vms = Util.newVMs(10);
+    static List<Node> ns = Util.newNodes(10);
+
+    static BootNode a1 = new BootNode(ns.get(2), 0, 3); //no deps
+    static BootVM a2 = new BootVM(vms.get(2), ns.get(0), 0, 3); //no deps
+    static MigrateVM a3 = new MigrateVM(vms.get(0), ns.get(0), ns.get(2), 4, 5); //deps: a1
+    static MigrateVM a4 = new MigrateVM(vms.get(1), ns.get(1), ns.get(0), 4, 7); //no deps
+
+    private static ReconfigurationPlan makePlan() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addOfflineNode(ns.get(2));
+        map.addReadyVM(vms.get(2));
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addRunningVM(vms.get(1), ns.get(1));
+
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        plan.add(a1);
+        plan.add(a3);
+        plan.add(a2);
+        plan.add(a4);
+        return plan;
+    }
+
+    @Test
+    public void testInit() {
+        ReconfigurationPlan plan = makePlan();
+        ReconfigurationPlanMonitor exec = new LockFreeReconfigurationPlanMonitor(plan);
+        Assert.assertEquals(exec.getReconfigurationPlan(), plan);
+        Assert.assertEquals(exec.getCurrentModel(), plan.getOrigin());
+        Assert.assertFalse(exec.isBlocked(a1));
+        Assert.assertFalse(exec.isBlocked(a2));
+        Assert.assertTrue(exec.isBlocked(a3));
+        Assert.assertFalse(exec.isBlocked(a4));
+        Assert.assertEquals(exec.getNbCommitted(), 0);
+    }
+
+    @Test(dependsOnMethods = {"testInit"})
+    public void testGoodCommits() {
+        ReconfigurationPlan plan = makePlan();
+        LockFreeReconfigurationPlanMonitor exec = new LockFreeReconfigurationPlanMonitor(plan);
+
+        Assert.assertTrue(exec.commit(a4).isEmpty());
+        Assert.assertEquals(exec.getNbCommitted(), 1);
+        Set<Action> released = exec.commit(a1);
+        Assert.assertEquals(released, Collections.<Action>singleton(a3));
+        Assert.assertFalse(exec.isBlocked(a3));
+        Assert.assertTrue(exec.commit(a3).isEmpty());
+        Assert.assertTrue(exec.commit(a2).isEmpty());
+        Assert.assertEquals(exec.getNbCommitted(), 4);
+        Assert.assertTrue(exec.getRejectedActions().isEmpty());
+        Mapping res = exec.getCurrentModel().getMapping();
+        Assert.assertEquals(res.getVMLocation(vms.get(0)), ns.get(2));
+        Assert.assertEquals(res.getVMLocation(vms.get(1)), ns.get(0));
+        Assert.assertEquals(res.getVMLocation(vms.get(2)), ns.get(0));
+    }
+
+    @Test(dependsOnMethods = {"testInit"})
+    public void testCommitBlocked() {
+        ReconfigurationPlanMonitor exec = new LockFreeReconfigurationPlanMonitor(makePlan());
+        Assert.assertNull(exec.commit(a3));
+        Assert.assertEquals(exec.getNbCommitted(), 0);
+    }
+
+    @Test(dependsOnMethods = {"testInit"})
+    public void testDoubleCommit() {
+        ReconfigurationPlanMonitor exec = new LockFreeReconfigurationPlanMonitor(makePlan());
+        Assert.assertNotNull(exec.commit(a1));
+        Assert.assertNull(exec.commit(a1));
+        Assert.assertEquals(exec.getNbCommitted(), 1);
+    }
+
+    @Test
+    public void testUnknownAction() {
+        ReconfigurationPlanMonitor exec = new LockFreeReconfigurationPlanMonitor(makePlan());
+        Assert.assertNull(exec.commit(new BootNode(ns.get(5), 0, 3)));
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testUnknownActionBlocked() {
+        ReconfigurationPlanMonitor exec = new LockFreeReconfigurationPlanMonitor(makePlan());
+        exec.isBlocked(new BootNode(ns.get(5), 0, 3));
+    }
+
+    @Test
+    public void testRejectedAction() {
+        Model mo = new DefaultModel();
+        mo.getMapping().addOnlineNode(ns.get(0));
+        //Booting an online node is not possible
+        BootNode b = new BootNode(ns.get(0), 0, 3);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        plan.add(b);
+        LockFreeReconfigurationPlanMonitor exec = new LockFreeReconfigurationPlanMonitor(plan);
+        Assert.assertNotNull(exec.commit(b));
+        Assert.assertEquals(exec.getRejectedActions(), Collections.<Action>singletonList(b));
+    }
+
+    @Test
+    public void testConcurrentCommits() throws InterruptedException, ExecutionException {
+        //Boot the nodes, then migrate a VM on each of them
+        final int nb = 500;
+        Model mo = new DefaultModel();
+        List<VM> vs = Util.newVMs(mo, nb);
+        List<Node> nodes = Util.newNodes(mo, nb + 1);
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(nodes.get(0));
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        final List<Action> boots = new ArrayList<>();
+        for (int i = 0; i < nb; i++) {
+            map.addOfflineNode(nodes.get(i + 1));
+            map.addRunningVM(vs.get(i), nodes.get(0));
+            BootNode b = new BootNode(nodes.get(i + 1), 0, 2);
+            boots.add(b);
+            plan.add(b);
+            plan.add(new MigrateVM(vs.get(i), nodes.get(0), nodes.get(i + 1), 2, 4));
+        }
+        final LockFreeReconfigurationPlanMonitor exec = new LockFreeReconfigurationPlanMonitor(plan);
+        final BlockingQueue<Action> feasibles = new LinkedBlockingQueue<>(boots);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> res = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            res.add(pool.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws InterruptedException {
+                    while (exec.getNbCommitted() < 2 * nb) {
+                        Action a = feasibles.poll(10, TimeUnit.MILLISECONDS);
+                        if (a != null) {
+                            Set<Action> s = exec.commit(a);
+                            if (s == null) {
+                                return false;
+                            }
+                            feasibles.addAll(s);
+                        }
+                    }
+                    return true;
+                }
+            }));
+        }
+        for (Future<Boolean> f : res) {
+            Assert.assertTrue(f.get());
+        }
+        pool.shutdown();
+        Assert.assertEquals(exec.getNbCommitted(), 2 * nb);
+        Assert.assertTrue(exec.getRejectedActions().isEmpty());
+        Mapping m = exec.getCurrentModel().getMapping();
+        for (int i = 0; i < nb; i++) {
+            Assert.assertEquals(m.getVMLocation(vs.get(i)), nodes.get(i + 1));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.*;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link PlanAnalysis}.
+ *
+ * @author Fabien Hermenier
+ */
+public class PlanAnalysisTest {
+
+    static List<VM> vms = Util.newVMs(3);
+    static List<Node> ns = Util.newNodes(3);
+
+    static BootNode bN3 = new BootNode(ns.get(2), 0, 4);
+    static MigrateVM mVM1 = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 3);
+    static BootVM bVM3 = new BootVM(vms.get(2), ns.get(2), 4, 6);
+    static ShutdownVM sVM2 = new ShutdownVM(vms.get(1), ns.get(0), 1, 2);
+    static Allocate aVM1 = new Allocate(vms.get(0), ns.get(1), "cpu", 6, 3, 5);
+
+    private static ReconfigurationPlan makePlan() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addOfflineNode(ns.get(2));
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addRunningVM(vms.get(1), ns.get(0));
+        map.addReadyVM(vms.get(2));
+        ShareableResource rc = new ShareableResource("cpu", 10, 0);
+        rc.setConsumption(vms.get(0), 4);
+        rc.setConsumption(vms.get(1), 2);
+        rc.setConsumption(vms.get(2), 3);
+        mo.attach(rc);
+
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        plan.add(bN3);
+        plan.add(mVM1);
+        plan.add(bVM3);
+        plan.add(sVM2);
+        plan.add(aVM1);
+        return plan;
+    }
+
+    @Test
+    public void testSlacksAndCriticalPath() {
+        ReconfigurationPlan plan = makePlan();
+        PlanAnalysis pa = new PlanAnalysis(plan);
+        Assert.assertSame(pa.getPlan(), plan);
+        Assert.assertEquals(pa.getSlack(bN3), 0);
+        Assert.assertEquals(pa.getSlack(bVM3), 0);
+        Assert.assertEquals(pa.getSlack(mVM1), 3);
+        Assert.assertEquals(pa.getSlack(sVM2), 4);
+        Assert.assertEquals(pa.getSlack(aVM1), 1);
+        Assert.assertEquals(pa.getCriticalPath(), Arrays.<Action>asList(bN3, bVM3));
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testSlackOfUnknownAction() {
+        PlanAnalysis pa = new PlanAnalysis(makePlan());
+        pa.getSlack(new BootNode(ns.get(0), 0, 1));
+    }
+
+    @Test
+    public void testEmptyPlan() {
+        PlanAnalysis pa = new PlanAnalysis(new DefaultReconfigurationPlan(new DefaultModel()));
+        Assert.assertTrue(pa.getCriticalPath().isEmpty());
+        Assert.assertEquals(pa.getConcurrencyProfile(ns.get(0)).getMax(), 0);
+    }
+
+    @Test
+    public void testConcurrencyProfile() {
+        PlanAnalysis pa = new PlanAnalysis(makePlan());
+        PlanAnalysis.Profile p = pa.getConcurrencyProfile(ns.get(0));
+        Assert.assertEquals(p.toString(), "0:1, 1:2, 2:1, 3:0");
+        Assert.assertEquals(p.getMax(), 2);
+        Assert.assertEquals(p.getValueAt(1), 2);
+        Assert.assertEquals(p.getValueAt(2), 1);
+        Assert.assertEquals(p.getValueAt(10), 0);
+
+        //The allocation starts right when the migration ends
+        p = pa.getConcurrencyProfile(ns.get(1));
+        Assert.assertEquals(p.toString(), "0:1, 5:0");
+        Assert.assertEquals(p.getNbSteps(), 2);
+        Assert.assertEquals(p.getMoment(1), 5);
+        Assert.assertEquals(p.getValue(0), 1);
+    }
+
+    @Test
+    public void testUsageProfile() {
+        PlanAnalysis pa = new PlanAnalysis(makePlan());
+        PlanAnalysis.Profile p = pa.getUsageProfile("cpu", ns.get(0));
+        Assert.assertEquals(p.toString(), "0:6, 2:4, 3:0");
+        Assert.assertEquals(pa.getPeakUsage("cpu", ns.get(0)), 6);
+
+        //The migrated VM, then its extra allocation
+        p = pa.getUsageProfile("cpu", ns.get(1));
+        Assert.assertEquals(p.toString(), "0:4, 3:6");
+        Assert.assertEquals(pa.getPeakUsage("cpu", ns.get(1)), 6);
+
+        //The booted VM once the node is online
+        p = pa.getUsageProfile("cpu", ns.get(2));
+        Assert.assertEquals(p.toString(), "0:0, 4:3");
+        Assert.assertEquals(p.getValueAt(3), 0);
+
+        Assert.assertNull(pa.getUsageProfile("mem", ns.get(0)));
+        Assert.assertEquals(pa.getPeakUsage("mem", ns.get(0)), -1);
+    }
+}
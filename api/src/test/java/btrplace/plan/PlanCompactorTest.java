@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.*;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link PlanCompactor}.
+ *
+ * @author Fabien Hermenier
+ */
+public class PlanCompactorTest {
+
+    private static Model makeModel(List<Node> ns, List<VM> vms) {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addOnlineNode(ns.get(2));
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addRunningVM(vms.get(1), ns.get(0));
+        map.addRunningVM(vms.get(2), ns.get(0));
+        map.addRunningVM(vms.get(3), ns.get(1));
+        ShareableResource rc = new ShareableResource("cpu", 10, 2);
+        mo.attach(rc);
+        return mo;
+    }
+
+    @Test
+    public void testCompact() {
+        List<Node> ns = Util.newNodes(3);
+        List<VM> vms = Util.newVMs(4);
+        Model mo = makeModel(ns, vms);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        //Useless as the VM already has 2 units
+        Allocate a1 = new Allocate(vms.get(0), ns.get(0), "cpu", 2, 0, 1);
+        //Useful
+        Allocate a2 = new Allocate(vms.get(1), ns.get(0), "cpu", 4, 0, 1);
+        //Useless as the previous allocation already set 4 units
+        Allocate a3 = new Allocate(vms.get(1), ns.get(0), "cpu", 4, 2, 3);
+        //The first event is superseded, the second is useful
+        MigrateVM m1 = new MigrateVM(vms.get(2), ns.get(0), ns.get(1), 1, 3);
+        AllocateEvent e1 = new AllocateEvent(vms.get(2), "cpu", 5);
+        AllocateEvent e2 = new AllocateEvent(vms.get(2), "cpu", 6);
+        m1.addEvent(Action.Hook.post, e1);
+        m1.addEvent(Action.Hook.post, e2);
+        //Useless event on an otherwise unchanged action
+        MigrateVM m2 = new MigrateVM(vms.get(3), ns.get(1), ns.get(2), 1, 3);
+        m2.addEvent(Action.Hook.pre, new AllocateEvent(vms.get(3), "cpu", 2));
+        p.add(a1);
+        p.add(a2);
+        p.add(a3);
+        p.add(m1);
+        p.add(m2);
+
+        ReconfigurationPlan c = new PlanCompactor().compact(p);
+        Assert.assertEquals(p.getSize(), 5);
+        Assert.assertSame(c.getOrigin(), mo);
+        Assert.assertEquals(c.getSize(), 3);
+        Assert.assertTrue(c.getActions().contains(a2));
+        Assert.assertFalse(c.getActions().contains(a1));
+        Assert.assertFalse(c.getActions().contains(a3));
+        for (Action a : c) {
+            if (a instanceof MigrateVM && ((MigrateVM) a).getVM().equals(vms.get(2))) {
+                Assert.assertEquals(a.getEvents(Action.Hook.post), Arrays.<Event>asList(e2));
+            } else if (a instanceof MigrateVM) {
+                Assert.assertTrue(a.getEvents(Action.Hook.pre).isEmpty());
+            }
+        }
+        //Same outcome
+        Model r1 = p.getResult();
+        Model r2 = c.getResult();
+        Assert.assertEquals(r2.getMapping(), r1.getMapping());
+        ShareableResource rc1 = (ShareableResource) r1.getView(ShareableResource.VIEW_ID_BASE + "cpu");
+        ShareableResource rc2 = (ShareableResource) r2.getView(ShareableResource.VIEW_ID_BASE + "cpu");
+        Assert.assertEquals(rc2.getConsumptions(vms), rc1.getConsumptions(vms));
+        //The original events are untouched
+        Assert.assertEquals(m1.getEvents(Action.Hook.post).size(), 2);
+    }
+
+    @Test
+    public void testCompactKeepsFailures() {
+        List<Node> ns = Util.newNodes(3);
+        List<VM> vms = Util.newVMs(4);
+        Model mo = makeModel(ns, vms);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new Allocate(vms.get(0), ns.get(0), "mem", 2, 0, 1));
+        ReconfigurationPlan c = new PlanCompactor().compact(p);
+        Assert.assertEquals(c.getSize(), 1);
+        Assert.assertFalse(c.isApplyable());
+    }
+
+    @Test
+    public void testConsecutiveAllocatesKept() {
+        List<Node> ns = Util.newNodes(3);
+        List<VM> vms = Util.newVMs(4);
+        Model mo = makeModel(ns, vms);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        //Both allocations are effective, they are not merged
+        Allocate a1 = new Allocate(vms.get(0), ns.get(0), "cpu", 5, 0, 1);
+        Allocate a2 = new Allocate(vms.get(0), ns.get(0), "cpu", 3, 1, 2);
+        p.add(a1);
+        p.add(a2);
+        ReconfigurationPlan c = new PlanCompactor().compact(p);
+        Assert.assertEquals(c.getActions(), p.getActions());
+    }
+
+    @Test
+    public void testBatch() {
+        List<Node> ns = Util.newNodes(3);
+        List<VM> vms = Util.newVMs(4);
+        Model mo = makeModel(ns, vms);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        MigrateVM m1 = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 3);
+        MigrateVM m2 = new MigrateVM(vms.get(1), ns.get(0), ns.get(1), 0, 4);
+        MigrateVM m3 = new MigrateVM(vms.get(2), ns.get(0), ns.get(2), 0, 3);
+        Allocate a1 = new Allocate(vms.get(3), ns.get(1), "cpu", 5, 0, 1);
+        ShutdownVM s1 = new ShutdownVM(vms.get(3), ns.get(1), 1, 2);
+        p.add(m1);
+        p.add(m2);
+        p.add(m3);
+        p.add(a1);
+        p.add(s1);
+
+        PlanCompactor pc = new PlanCompactor();
+        List<ActionBatch> bs = pc.batch(p);
+        Assert.assertEquals(bs.size(), 4);
+        int nb = 0;
+        for (ActionBatch b : bs) {
+            nb += b.getSize();
+            if (b.getActions().contains(m1)) {
+                Assert.assertEquals(b.getActionType(), MigrateVM.class);
+                Assert.assertEquals(b.getActions(), Arrays.<Action>asList(m1, m2));
+                Assert.assertEquals(b.getStart(), 0);
+                Assert.assertEquals(b.getEnd(), 4);
+                Assert.assertEquals(b.getNodes(), Arrays.asList(ns.get(0), ns.get(1)));
+            } else {
+                Assert.assertEquals(b.getSize(), 1);
+            }
+        }
+        Assert.assertEquals(nb, 5);
+        Assert.assertEquals(bs.get(bs.size() - 1).getActions().get(0), s1);
+
+        pc.setMaxBatchSize(1);
+        Assert.assertEquals(pc.getMaxBatchSize(), 1);
+        Assert.assertEquals(pc.batch(p).size(), 5);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadBatchSize() {
+        new PlanCompactor().setMaxBatchSize(0);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.plan;
+
+import btrplace.model.*;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link PlanSimulator}.
+ *
+ * @author Fabien Hermenier
+ */
+public class PlanSimulatorTest {
+
+    @Test
+    public void testApplyablePlan() {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 3);
+        List<VM> vms = Util.newVMs(mo, 3);
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addOfflineNode(ns.get(2));
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addReadyVM(vms.get(1));
+        map.addSleepingVM(vms.get(2), ns.get(1));
+
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new BootNode(ns.get(2), 0, 2));
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(2), 2, 4));
+        p.add(new BootVM(vms.get(1), ns.get(1), 0, 1));
+        p.add(new ResumeVM(vms.get(2), ns.get(1), ns.get(1), 0, 3));
+        p.add(new ShutdownNode(ns.get(0), 4, 5));
+
+        PlanSimulator sim = new PlanSimulator(p);
+        Assert.assertTrue(sim.isApplyable());
+        Mapping res = sim.getResultingMapping();
+        Assert.assertEquals(res, p.getResult().getMapping());
+        Assert.assertEquals(p.getResultingMapping(), res);
+        //The origin is untouched
+        Assert.assertEquals(map.getVMLocation(vms.get(0)), ns.get(0));
+    }
+
+    @Test
+    public void testNonApplyablePlan() {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 2);
+        List<VM> vms = Util.newVMs(mo, 1);
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addRunningVM(vms.get(0), ns.get(0));
+
+        //The node still hosts the VM
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new ShutdownNode(ns.get(0), 0, 2));
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 2, 4));
+        PlanSimulator sim = new PlanSimulator(p);
+        Assert.assertFalse(sim.isApplyable());
+        Assert.assertNull(sim.getResultingMapping());
+        Assert.assertFalse(p.isApplyable());
+        Assert.assertNull(p.getResultingMapping());
+
+        //Unknown resource
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new Allocate(vms.get(0), ns.get(0), "cpu", 5, 0, 1));
+        Assert.assertFalse(p.isApplyable());
+        mo.attach(new ShareableResource("cpu"));
+        Assert.assertTrue(p.isApplyable());
+    }
+
+    /**
+     * Compare the simulation with the application of random plans.
+     */
+    @Test
+    public void testSameAsTimeBasedApplier() {
+        Random rnd = new Random(1);
+        int nbApplyables = 0;
+        for (int x = 0; x < 500; x++) {
+            Model mo = new DefaultModel();
+            List<Node> ns = Util.newNodes(mo, 3);
+            List<VM> vms = Util.newVMs(mo, 4);
+            Mapping map = mo.getMapping();
+            for (Node n : ns) {
+                if (rnd.nextBoolean()) {
+                    map.addOnlineNode(n);
+                } else {
+                    map.addOfflineNode(n);
+                }
+            }
+            for (VM vm : vms) {
+                Node n = ns.get(rnd.nextInt(ns.size()));
+                int st = rnd.nextInt(3);
+                if (st == 0 || !map.getOnlineNodes().contains(n)) {
+                    map.addReadyVM(vm);
+                } else if (st == 1) {
+                    map.addRunningVM(vm, n);
+                } else {
+                    map.addSleepingVM(vm, n);
+                }
+            }
+            //Mostly valid actions, executed in sequence
+            ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+            Model scratch = mo.clone();
+            int t = 0;
+            for (int i = 0; i < 20 && p.getSize() < 6; i++) {
+                Action a = randomAction(rnd, ns, vms, t);
+                if (a.apply(scratch) || rnd.nextInt(20) == 0) {
+                    p.add(a);
+                    t++;
+                }
+            }
+            Model res = new TimeBasedPlanApplier().apply(p);
+            PlanSimulator sim = new PlanSimulator(p);
+            Assert.assertEquals(sim.isApplyable(), res != null, p.toString());
+            if (res != null) {
+                nbApplyables++;
+                Assert.assertEquals(sim.getResultingMapping(), res.getMapping(), p.toString());
+            }
+        }
+        Assert.assertTrue(nbApplyables > 0 && nbApplyables < 500, "" + nbApplyables);
+    }
+
+    private static Action randomAction(Random rnd, List<Node> ns, List<VM> vms, int st) {
+        VM vm = vms.get(rnd.nextInt(vms.size()));
+        Node n1 = ns.get(rnd.nextInt(ns.size()));
+        Node n2 = ns.get(rnd.nextInt(ns.size()));
+        int ed = st + 1;
+        switch (rnd.nextInt(9)) {
+            case 0:
+                return new BootNode(n1, st, ed);
+            case 1:
+                return new ShutdownNode(n1, st, ed);
+            case 2:
+                return new BootVM(vm, n1, st, ed);
+            case 3:
+                return new ShutdownVM(vm, n1, st, ed);
+            case 4:
+                return new MigrateVM(vm, n1, n2, st, ed);
+            case 5:
+                return new SuspendVM(vm, n1, n2, st, ed);
+            case 6:
+                return new ResumeVM(vm, n1, n2, st, ed);
+            case 7:
+                return new KillVM(vm, n1, st, ed);
+            default:
+                return new ForgeVM(vm, st, ed);
+        }
+    }
+}
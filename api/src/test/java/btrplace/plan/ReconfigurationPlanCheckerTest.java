@@ -18,7 +18,9 @@
 package btrplace.plan;
 
 import btrplace.model.*;
+import btrplace.model.constraint.*;
 import btrplace.model.constraint.checker.SatConstraintChecker;
+import btrplace.model.constraint.checker.ScopedChecker;
 import btrplace.plan.event.BootNode;
 import btrplace.plan.event.BootVM;
 import btrplace.plan.event.MigrateVM;
@@ -26,10 +28,15 @@ import org.mockito.InOrder;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
-import static org.mockito.Mockito.inOrder;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for {@link ReconfigurationPlanChecker}.
@@ -107,4 +114,203 @@ public class ReconfigurationPlanCheckerTest {
         order.verify(chk).endsWith(mo);
 
     }
+
+    /**
+     * A plan that violates a Ban on m1, then a Fence on b1.
+     */
+    private static ReconfigurationPlan makeViolatingPlan(List<Node> ns, List<VM> vms) {
+        Model mo = new DefaultModel();
+        Mapping m = mo.getMapping();
+        m.addOnlineNode(ns.get(0));
+        m.addOnlineNode(ns.get(1));
+        m.addRunningVM(vms.get(0), ns.get(0));
+        m.addReadyVM(vms.get(1));
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 3));
+        p.add(new BootVM(vms.get(1), ns.get(0), 1, 5));
+        return p;
+    }
+
+    private static ReconfigurationPlanChecker makeChecker(List<SatConstraint> cstrs) {
+        ReconfigurationPlanChecker rc = new ReconfigurationPlanChecker();
+        for (SatConstraint c : cstrs) {
+            rc.addChecker(c.getChecker());
+        }
+        return rc;
+    }
+
+    @Test
+    public void testParallelCheck() {
+        List<Node> ns = Util.newNodes(2);
+        List<VM> vms = Util.newVMs(2);
+        ReconfigurationPlan p = makeViolatingPlan(ns, vms);
+        for (int nb = 1; nb <= 5; nb++) {
+            List<SatConstraint> cstrs = new ArrayList<>();
+            cstrs.add(new Running(Collections.singleton(vms.get(0))));
+            cstrs.add(new Fence(Collections.singleton(vms.get(1)), Collections.singleton(ns.get(1))));
+            cstrs.add(new Online(Collections.singleton(ns.get(0))));
+            cstrs.add(new Ban(Collections.singleton(vms.get(0)), Collections.singleton(ns.get(1))));
+            ReconfigurationPlanChecker rc = makeChecker(cstrs);
+            rc.setParallelism(nb);
+            Assert.assertEquals(rc.getParallelism(), nb);
+            try {
+                rc.check(p);
+                Assert.fail("The Ban constraint should be violated");
+            } catch (ReconfigurationPlanCheckerException ex) {
+                //The earliest violation
+                Assert.assertEquals(ex.getConstraint(), cstrs.get(3));
+                Assert.assertTrue(ex.getAction() instanceof MigrateVM);
+            }
+        }
+    }
+
+    @Test
+    public void testGivenExecutor() throws InterruptedException {
+        List<Node> ns = Util.newNodes(2);
+        List<VM> vms = Util.newVMs(2);
+        ReconfigurationPlan p = makeViolatingPlan(ns, vms);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Running(Collections.singleton(vms.get(0))));
+        cstrs.add(new Ban(Collections.singleton(vms.get(0)), Collections.singleton(ns.get(1))));
+        ReconfigurationPlanChecker rc = makeChecker(cstrs);
+        rc.setParallelism(2);
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        rc.setExecutorService(exec);
+        Assert.assertEquals(rc.getExecutorService(), exec);
+        //The executor is reused and left running
+        for (int i = 0; i < 3; i++) {
+            try {
+                rc.check(p);
+                Assert.fail("The Ban constraint should be violated");
+            } catch (ReconfigurationPlanCheckerException ex) {
+                Assert.assertEquals(ex.getConstraint(), cstrs.get(1));
+            }
+            Assert.assertFalse(exec.isShutdown());
+        }
+        exec.shutdown();
+        Assert.assertTrue(exec.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testVisit() {
+        List<Node> ns = Util.newNodes(2);
+        List<VM> vms = Util.newVMs(1);
+        MigrateVM m = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 3);
+        SatConstraintChecker ok = mock(SatConstraintChecker.class);
+        when(ok.start(m)).thenReturn(true);
+        SatConstraintChecker ko = mock(SatConstraintChecker.class);
+        SatConstraint cstr = mock(SatConstraint.class);
+        when(ko.getConstraint()).thenReturn(cstr);
+        ReconfigurationPlanChecker rc = new ReconfigurationPlanChecker();
+        rc.addChecker(ok);
+        Assert.assertNull(m.visit(rc));
+        rc.addChecker(ko);
+        Assert.assertEquals(m.visit(rc), cstr);
+        verify(ok, times(2)).start(m);
+        verify(ko).start(m);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadParallelism() {
+        new ReconfigurationPlanChecker().setParallelism(0);
+    }
+
+    @Test
+    public void testSampling() throws ReconfigurationPlanCheckerException {
+        List<Node> ns = Util.newNodes(2);
+        List<VM> vms = Util.newVMs(2);
+        ReconfigurationPlan p = makeViolatingPlan(ns, vms);
+        SatConstraint ban = new Ban(Collections.singleton(vms.get(0)), Collections.singleton(ns.get(1)));
+        SatConstraint fence = new Fence(Collections.singleton(vms.get(1)), Collections.singleton(ns.get(1)));
+        ReconfigurationPlanChecker rc = makeChecker(Arrays.asList(ban, fence));
+        Assert.assertEquals(rc.getSamplingRate(Ban.class), 1d);
+        rc.setSamplingRate(Ban.class, 0);
+        Assert.assertEquals(rc.getSamplingRate(Ban.class), 0d);
+        try {
+            rc.check(p);
+            Assert.fail("The Fence constraint should be violated");
+        } catch (ReconfigurationPlanCheckerException ex) {
+            Assert.assertEquals(ex.getConstraint(), fence);
+            Assert.assertTrue(ex.getAction() instanceof BootVM);
+        }
+        rc.setSamplingRate(Fence.class, 0);
+        rc.check(p);
+
+        //Seeded sampling
+        rc.setSamplingRate(Fence.class, 0.5);
+        rc.setSeed(12);
+        int nbViolations = 0;
+        for (int i = 0; i < 100; i++) {
+            try {
+                rc.check(p);
+            } catch (ReconfigurationPlanCheckerException ex) {
+                nbViolations++;
+            }
+        }
+        Assert.assertTrue(nbViolations > 0 && nbViolations < 100, "" + nbViolations);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadSamplingRate() {
+        new ReconfigurationPlanChecker().setSamplingRate(Ban.class, 1.5);
+    }
+
+    @Test
+    public void testScopedDispatch() throws ReconfigurationPlanCheckerException {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 4);
+        List<VM> vms = Util.newVMs(mo, 2);
+        Mapping m = mo.getMapping();
+        m.addOnlineNode(ns.get(0));
+        m.addOnlineNode(ns.get(1));
+        m.addOfflineNode(ns.get(3));
+        m.addReadyVM(vms.get(1));
+        m.addRunningVM(vms.get(0), ns.get(0));
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        MigrateVM m1 = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 3);
+        BootVM b1 = new BootVM(vms.get(1), ns.get(0), 1, 5);
+        BootNode bn = new BootNode(ns.get(3), 3, 6);
+        p.add(m1);
+        p.add(b1);
+        p.add(bn);
+
+        //Only interested in the first VM
+        SatConstraintChecker byVM = mock(SatConstraintChecker.class, withSettings().extraInterfaces(ScopedChecker.class));
+        when(((ScopedChecker) byVM).isScoped()).thenReturn(true);
+        when(((ScopedChecker) byVM).getScopeVMs()).thenReturn(Collections.singleton(vms.get(0)));
+        when(((ScopedChecker) byVM).getScopeNodes()).thenReturn(Collections.<Node>emptySet());
+
+        //Only interested in the booting node
+        SatConstraintChecker byNode = mock(SatConstraintChecker.class, withSettings().extraInterfaces(ScopedChecker.class));
+        when(((ScopedChecker) byNode).isScoped()).thenReturn(true);
+        when(((ScopedChecker) byNode).getScopeVMs()).thenReturn(Collections.<VM>emptySet());
+        when(((ScopedChecker) byNode).getScopeNodes()).thenReturn(Collections.singleton(ns.get(3)));
+
+        //Interested in everything
+        SatConstraintChecker all = mock(SatConstraintChecker.class);
+
+        ReconfigurationPlanChecker rc = new ReconfigurationPlanChecker();
+        rc.addChecker(byVM);
+        rc.addChecker(byNode);
+        rc.addChecker(all);
+        rc.check(p);
+
+        verify(byVM).start(m1);
+        verify(byVM).end(m1);
+        verify(byVM, never()).start(b1);
+        verify(byVM, never()).start(bn);
+
+        verify(byNode).start(bn);
+        verify(byNode).end(bn);
+        verify(byNode, never()).start(m1);
+        verify(byNode, never()).start(b1);
+
+        verify(all).start(m1);
+        verify(all).start(b1);
+        verify(all).start(bn);
+
+        //The models are always notified
+        verify(byNode).startsWith(mo);
+        verify(byVM).endsWith(any(Model.class));
+    }
 }
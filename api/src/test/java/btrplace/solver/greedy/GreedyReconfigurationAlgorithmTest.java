@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.greedy;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.model.generator.WorkloadGenerator;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.*;
+import btrplace.solver.SolverException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link GreedyReconfigurationAlgorithm}.
+ *
+ * @author Fabien Hermenier
+ */
+public class GreedyReconfigurationAlgorithmTest {
+
+    private static void assertViable(ReconfigurationPlan p, Collection<SatConstraint> cstrs) {
+        Assert.assertNotNull(p);
+        Assert.assertNotNull(p.getResult());
+        for (SatConstraint c : cstrs) {
+            Assert.assertTrue(c.isSatisfied(p), c.toString());
+        }
+    }
+
+    private static <T extends Action> List<T> actions(ReconfigurationPlan p, Class<T> c) {
+        List<T> l = new ArrayList<>();
+        for (Action a : p) {
+            if (c.isInstance(a)) {
+                l.add(c.cast(a));
+            }
+        }
+        return l;
+    }
+
+    @Test
+    public void testNothingToDo() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        VM vm1 = mo.newVM();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addRunningVM(vm1, n1);
+        List<SatConstraint> cstrs = Arrays.<SatConstraint>asList(new Running(Collections.singleton(vm1)));
+        ReconfigurationPlan p = new GreedyReconfigurationAlgorithm().solve(mo, cstrs);
+        assertViable(p, cstrs);
+        Assert.assertEquals(p.getSize(), 0);
+    }
+
+    @Test
+    public void testStateChanges() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        VM vm4 = mo.newVM();
+        VM vm5 = mo.newVM();
+        map.addOnlineNode(n1);
+        map.addOfflineNode(n2);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n1);
+        map.addRunningVM(vm3, n1);
+        map.addReadyVM(vm4);
+        mo.getAttributes().put(n2, "boot", 5);
+        List<SatConstraint> cstrs = Arrays.asList(new Online(Collections.singleton(n2)),
+                new Ready(Collections.singleton(vm1)),
+                new Sleeping(Collections.singleton(vm2)),
+                new Killed(Collections.singleton(vm3)),
+                new Running(Collections.singleton(vm4)),
+                new Ready(Collections.singleton(vm5)),
+                new Fence(Collections.singleton(vm4), Collections.singleton(n2)));
+        ReconfigurationPlan p = new GreedyReconfigurationAlgorithm().solve(mo, cstrs);
+        assertViable(p, cstrs);
+        Assert.assertEquals(actions(p, ShutdownVM.class).size(), 1);
+        Assert.assertEquals(actions(p, SuspendVM.class).size(), 1);
+        Assert.assertEquals(actions(p, KillVM.class).size(), 1);
+        Assert.assertEquals(actions(p, ForgeVM.class).size(), 1);
+        BootNode bn = actions(p, BootNode.class).get(0);
+        BootVM bv = actions(p, BootVM.class).get(0);
+        Assert.assertEquals(bn.getEnd(), 5);
+        //The VM waits for its host
+        Assert.assertEquals(bv.getStart(), bn.getEnd());
+    }
+
+    @Test
+    public void testEvacuation() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addOnlineNode(n3);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n2);
+        ShareableResource rc = new ShareableResource("cpu", 5, 0);
+        rc.setCapacity(n3, 4);
+        rc.setConsumption(vm1, 4);
+        rc.setConsumption(vm2, 2);
+        mo.attach(rc);
+        //vm1 must go on n3 so vm2 can only go to n1 once vm1 has left
+        List<SatConstraint> cstrs = Arrays.asList(new Offline(Collections.singleton(n2)),
+                new Ban(Collections.singleton(vm1), Collections.singleton(n1)));
+        ReconfigurationPlan p = new GreedyReconfigurationAlgorithm().solve(mo, cstrs);
+        assertViable(p, cstrs);
+        Model res = p.getResult();
+        Assert.assertEquals(res.getMapping().getVMLocation(vm1), n3);
+        Assert.assertEquals(res.getMapping().getVMLocation(vm2), n1);
+        MigrateVM m1 = null;
+        MigrateVM m2 = null;
+        for (MigrateVM m : actions(p, MigrateVM.class)) {
+            if (m.getVM().equals(vm1)) {
+                m1 = m;
+            } else {
+                m2 = m;
+            }
+        }
+        Assert.assertNotNull(m1);
+        Assert.assertNotNull(m2);
+        Assert.assertTrue(m2.getStart() >= m1.getEnd());
+        ShutdownNode s = actions(p, ShutdownNode.class).get(0);
+        Assert.assertTrue(s.getStart() >= m2.getEnd());
+    }
+
+    @Test
+    public void testRepair() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addOnlineNode(n3);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n1);
+        map.addRunningVM(vm3, n2);
+        List<SatConstraint> cstrs = Arrays.asList(new Spread(new HashSet<>(Arrays.asList(vm1, vm2))),
+                new Root(Collections.singleton(vm1)),
+                new Ban(Collections.singleton(vm2), Collections.singleton(n2)),
+                new SingleRunningCapacity(Collections.singleton(n3), 1));
+        ReconfigurationPlan p = new GreedyReconfigurationAlgorithm().solve(mo, cstrs);
+        assertViable(p, cstrs);
+        Assert.assertEquals(p.getSize(), 1);
+        Assert.assertEquals(p.getResult().getMapping().getVMLocation(vm2), n3);
+    }
+
+    @Test
+    public void testPreserve() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n1);
+        ShareableResource rc = new ShareableResource("cpu", 6, 3);
+        mo.attach(rc);
+        List<SatConstraint> cstrs = Arrays.<SatConstraint>asList(new Preserve(Collections.singleton(vm1), "cpu", 4),
+                new Preserve(Collections.singleton(vm2), "cpu", 2));
+        ReconfigurationPlan p = new GreedyReconfigurationAlgorithm().solve(mo, cstrs);
+        assertViable(p, cstrs);
+        ShareableResource res = (ShareableResource) p.getResult().getView(rc.getIdentifier());
+        Assert.assertEquals(res.getConsumption(vm1), 4);
+        //vm1 has to be moved to get its resources
+        Assert.assertEquals(p.getResult().getMapping().getVMLocation(vm1), n2);
+    }
+
+    @Test
+    public void testOverbook() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(n1);
+        map.addRunningVM(vm1, n1);
+        map.addReadyVM(vm2);
+        ShareableResource rc = new ShareableResource("cpu", 4, 3);
+        mo.attach(rc);
+        List<SatConstraint> cstrs = Arrays.<SatConstraint>asList(new Running(Collections.singleton(vm2)));
+        Assert.assertNull(new GreedyReconfigurationAlgorithm().solve(mo, cstrs));
+
+        cstrs = Arrays.asList(new Running(Collections.singleton(vm2)),
+                new Overbook(Collections.singleton(n1), "cpu", 1.5));
+        assertViable(new GreedyReconfigurationAlgorithm().solve(mo, cstrs), cstrs);
+    }
+
+    @Test
+    public void testUnsupported() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n2);
+        ShareableResource rc = new ShareableResource("cpu", 4, 3);
+        mo.attach(rc);
+        GreedyReconfigurationAlgorithm a = new GreedyReconfigurationAlgorithm();
+        //Conflicting states
+        Assert.assertNull(a.solve(mo, Arrays.<SatConstraint>asList(new Running(Collections.singleton(vm1)),
+                new Ready(Collections.singleton(vm1)))));
+        //A swap requires to break a cycle
+        Assert.assertNull(a.solve(mo, Arrays.<SatConstraint>asList(new Fence(Collections.singleton(vm1), Collections.singleton(n2)),
+                new Fence(Collections.singleton(vm2), Collections.singleton(n1)))));
+    }
+
+    @Test(expectedExceptions = {SolverException.class})
+    public void testUnknownNode() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        new GreedyReconfigurationAlgorithm().solve(mo, Collections.<SatConstraint>singleton(new Online(Collections.singleton(n1))));
+    }
+
+    @Test(expectedExceptions = {SolverException.class})
+    public void testUnknownVM() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        new GreedyReconfigurationAlgorithm().solve(mo, Collections.<SatConstraint>singleton(new Running(Collections.singleton(vm1))));
+    }
+
+    @Test
+    public void testGeneratedWorkload() throws SolverException {
+        WorkloadGenerator g = new WorkloadGenerator(3);
+        g.setNbVMs(500);
+        g.setFailureRatio(0.05);
+        g.setMaintenanceRatio(0.05);
+        Instance i = g.generate();
+        ReconfigurationPlan p = new GreedyReconfigurationAlgorithm().solve(i.getModel(), i.getConstraints());
+        assertViable(p, i.getConstraints());
+        Assert.assertTrue(p.getSize() > 0);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.greedy;
+
+import btrplace.model.DefaultModel;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.plan.event.BootNode;
+import btrplace.plan.event.MigrateVM;
+import btrplace.plan.event.ShutdownNode;
+import btrplace.plan.event.ShutdownVM;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link ListScheduler}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ListSchedulerTest {
+
+    @Test
+    public void testSchedule() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        ListScheduler s = new ListScheduler(1);
+        s.addNode(n1, new int[]{5}, new int[]{4});
+        s.addNode(n2, new int[]{5}, new int[]{0});
+        s.addNode(n3, new int[]{5}, new int[]{3});
+        ListScheduler.Task boot = new ListScheduler.Task(BootNode.class, n2, 3);
+        //vm2 waits for vm1 to leave n1, that waits for n2 to be online
+        ListScheduler.Task m2 = new ListScheduler.Task(MigrateVM.class, vm2, n3, new int[]{3}, n1, new int[]{3}, 2);
+        ListScheduler.Task m1 = new ListScheduler.Task(MigrateVM.class, vm1, n1, new int[]{4}, n2, new int[]{4}, 2);
+        ListScheduler.Task stop = new ListScheduler.Task(ShutdownVM.class, vm3, n3, new int[]{0}, null, null, 4);
+        ListScheduler.Task off = new ListScheduler.Task(ShutdownNode.class, n3, 1);
+        s.add(boot);
+        s.add(m2);
+        s.add(m1);
+        s.add(stop);
+        s.add(off);
+        Assert.assertTrue(s.schedule());
+        Assert.assertEquals(boot.getStart(), 0);
+        Assert.assertEquals(stop.getStart(), 0);
+        Assert.assertEquals(m1.getStart(), 3);
+        Assert.assertEquals(m2.getStart(), 5);
+        Assert.assertEquals(off.getStart(), 7);
+    }
+
+    @Test
+    public void testCycle() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        ListScheduler s = new ListScheduler(1);
+        s.addNode(n1, new int[]{5}, new int[]{4});
+        s.addNode(n2, new int[]{5}, new int[]{4});
+        s.add(new ListScheduler.Task(MigrateVM.class, vm1, n1, new int[]{4}, n2, new int[]{4}, 1));
+        s.add(new ListScheduler.Task(MigrateVM.class, vm2, n2, new int[]{4}, n1, new int[]{4}, 1));
+        Assert.assertFalse(s.schedule());
+    }
+}
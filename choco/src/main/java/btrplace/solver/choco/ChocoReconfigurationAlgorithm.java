@@ -18,12 +18,20 @@
 
 package btrplace.solver.choco;
 
+import btrplace.model.Model;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.plan.ReconfigurationPlan;
 import btrplace.solver.ReconfigurationAlgorithm;
+import btrplace.solver.SolverException;
 import btrplace.solver.choco.constraint.SatConstraintMapper;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
 import btrplace.solver.choco.objective.ReconfigurationObjective;
 import btrplace.solver.choco.view.ModelViewMapper;
 
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * A reconfiguration algorithm based on the Choco constraint solver.
  *
@@ -46,6 +54,43 @@ public interface ChocoReconfigurationAlgorithm extends ReconfigurationAlgorithm
      */
     boolean doRepair();
 
+    /**
+     * State if the algorithm must solve the problem in two phases.
+     * A placement is computed first, without considering the resource usage over the time.
+     * The actions are then scheduled with regards to this placement.
+     * When no schedule exists, another placement is computed. This reduces the
+     * time to compute a first solution on large problems, but the optimization
+     * is then restricted to the scheduling of the retained placement.
+     *
+     * @param b {@code true} to solve the problem in two phases
+     */
+    void doDecompose(boolean b);
+
+    /**
+     * Indicate if the algorithm solves the problem in two phases.
+     *
+     * @return {@code true} iff the problem is decomposed
+     */
+    boolean doDecompose();
+
+    /**
+     * Set the algorithm to use when the solver reaches the time limit before
+     * computing any solution. The fallback is not used when the process is cancelled
+     * or when the solver states the problem has no solution. As it starts once the time limit
+     * is reached, the fallback algorithm must be fast.
+     *
+     * @param a the algorithm to use. {@code null} to disable the fallback
+     */
+    void setFallback(ReconfigurationAlgorithm a);
+
+    /**
+     * Get the algorithm to use when the solver reaches the time limit before
+     * computing any solution.
+     *
+     * @return the algorithm if set, {@code null} otherwise
+     */
+    ReconfigurationAlgorithm getFallback();
+
     /**
      * State if the algorithm must try to improve the first computed solution.
      *
@@ -60,6 +105,24 @@ public interface ChocoReconfigurationAlgorithm extends ReconfigurationAlgorithm
      */
     boolean doOptimize();
 
+    /**
+     * State if the algorithm must limit its memory usage.
+     * In that mode, the solver only keeps the best solution it computed
+     * and the variables are never labelled. This is convenient to solve very
+     * large problems or to run several solving processes side by side.
+     * The statistics then only report the best solution.
+     *
+     * @param b {@code true} to limit the memory usage
+     */
+    void doBoundMemory(boolean b);
+
+    /**
+     * Tell if the algorithm limits its memory usage.
+     *
+     * @return {@code true} iff the memory usage is limited
+     */
+    boolean doBoundMemory();
+
     /**
      * Get the mapper that is used to associate the {@link btrplace.model.view.ModelView}
      * to the {@link btrplace.solver.choco.view.ChocoModelView}.
@@ -84,6 +147,26 @@ public interface ChocoReconfigurationAlgorithm extends ReconfigurationAlgorithm
      */
     void setTimeLimit(int t);
 
+    /**
+     * Set the timeout value for the solving process.
+     * The timeout covers the building of the problem, the search and
+     * the conversion of the solution. The checking of the resulting plan is not bounded.
+     * Use a negative number to remove any timeout.
+     *
+     * @param t    the timeout value
+     * @param unit the unit of the timeout. The precision is limited to the millisecond
+     */
+    void setTimeLimit(long t, TimeUnit unit);
+
+    /**
+     * Get the timeout value.
+     *
+     * @param unit the unit to express the timeout
+     * @return a positive integer to indicate the timeout value or a negative value to
+     *         indicate no timeout has been set
+     */
+    long getTimeLimit(TimeUnit unit);
+
     /**
      * Get the timeout value.
      *
@@ -156,6 +239,41 @@ public interface ChocoReconfigurationAlgorithm extends ReconfigurationAlgorithm
      */
     int getMaxEnd();
 
+    /**
+     * Set the maximum number of threads used to check the computed plans
+     * against the constraints.
+     *
+     * @param n a strictly positive number
+     * @see btrplace.plan.ReconfigurationPlanChecker#setParallelism(int)
+     */
+    void setCheckerParallelism(int n);
+
+    /**
+     * Get the maximum number of threads used to check the computed plans.
+     *
+     * @return a positive number. {@code 1} by default
+     */
+    int getCheckerParallelism();
+
+    /**
+     * Set the probability for the constraints of a given type to be checked
+     * once a plan is computed.
+     *
+     * @param c    the constraint class
+     * @param rate the probability. {@code 0} to never check these constraints
+     * @see btrplace.plan.ReconfigurationPlanChecker#setSamplingRate(Class, double)
+     */
+    void setCheckerSamplingRate(Class<? extends SatConstraint> c, double rate);
+
+    /**
+     * Get the probability for the constraints of a given type to be checked
+     * once a plan is computed.
+     *
+     * @param c the constraint class
+     * @return a probability. {@code 1} by default
+     */
+    double getCheckerSamplingRate(Class<? extends SatConstraint> c);
+
     /**
      * Set the verbosity level of the solver.
      * At level 0, their is no information about the solving process.
@@ -165,4 +283,56 @@ public interface ChocoReconfigurationAlgorithm extends ReconfigurationAlgorithm
      * @param lvl the level of verbosity
      */
     void setVerbosity(int lvl);
+
+    /**
+     * Add a listener to notify each time a solution is computed.
+     *
+     * @param l the listener to add
+     */
+    void addSolutionListener(SolutionListener l);
+
+    /**
+     * Remove a listener.
+     *
+     * @param l the listener to remove
+     * @return {@code true} iff the listener was registered
+     */
+    boolean removeSolutionListener(SolutionListener l);
+
+    /**
+     * Cancel the running solving process.
+     * The method can be called from any thread. The building of the
+     * problem or the search stops as soon as possible and the best plan
+     * computed so far, if any, is returned. If no solving process is running,
+     * the next one stops immediately.
+     * <p/>
+     * When no solution was computed, {@code null} is returned. Use
+     * {@link btrplace.solver.choco.SolvingStatistics#isCancelled()} to tell it from a problem without solution.
+     */
+    void cancel();
+
+    /**
+     * Solve a problem with a dedicated cancellation flag.
+     * The solving process stops as soon as possible once the flag is raised. The flag
+     * is not reset at the end of the process so raising it later has no effect
+     * on the other solving processes.
+     *
+     * @param i     the model to solve
+     * @param cstrs the constraints to satisfy
+     * @param flag  the flag to raise to cancel the process
+     * @return the resulting plan, {@code null} if there is no solution or if the process has been cancelled
+     * @throws SolverException if an error occurred
+     */
+    ReconfigurationPlan solve(Model i, Collection<SatConstraint> cstrs, AtomicBoolean flag) throws SolverException;
+
+    /**
+     * Solve a problem in background.
+     * The plans are made available through the returned task as soon
+     * as they are computed.
+     *
+     * @param i     the model to solve
+     * @param cstrs the constraints to satisfy
+     * @return the running task
+     */
+    SolvingTask solveAsync(Model i, Collection<SatConstraint> cstrs);
 }
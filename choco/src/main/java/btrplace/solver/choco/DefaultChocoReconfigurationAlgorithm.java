@@ -24,21 +24,34 @@ import btrplace.model.constraint.*;
 import btrplace.plan.ReconfigurationPlan;
 import btrplace.plan.ReconfigurationPlanChecker;
 import btrplace.plan.ReconfigurationPlanCheckerException;
+import btrplace.solver.ReconfigurationAlgorithm;
 import btrplace.solver.SolverException;
+import btrplace.solver.choco.actionModel.VMActionModel;
 import btrplace.solver.choco.constraint.ChocoSatConstraint;
 import btrplace.solver.choco.constraint.ChocoSatConstraintBuilder;
 import btrplace.solver.choco.constraint.SatConstraintMapper;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
 import btrplace.solver.choco.objective.ReconfigurationObjective;
 import btrplace.solver.choco.objective.minMTTR.MinMTTR;
+import btrplace.solver.choco.objective.minMTTR.RandomVMPlacement;
+import btrplace.solver.choco.objective.minMTTR.StartingNodes;
+import btrplace.solver.choco.objective.minMTTR.VMPlacementUtils;
 import btrplace.solver.choco.view.ModelViewMapper;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.integer.branching.AssignVar;
+import choco.cp.solver.search.integer.valselector.MinVal;
+import choco.cp.solver.search.integer.varselector.StaticVarOrder;
 import choco.kernel.common.logging.ChocoLogging;
 import choco.kernel.common.logging.Verbosity;
 import choco.kernel.solver.ContradictionException;
 import choco.kernel.solver.Solution;
 import choco.kernel.solver.search.measure.IMeasures;
+import choco.kernel.solver.variables.integer.IntDomainVar;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Default implementation of {@link ChocoReconfigurationAlgorithm}.
@@ -54,15 +67,41 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
     private boolean optimize = false;
 
     /**
-     * No time limit by default.
+     * No time limit by default. In milliseconds.
      */
-    private int timeLimit = 0;
+    private long timeLimit = 0;
+
+    /**
+     * The moment the running solving process must stop.
+     */
+    private long deadline;
+
+    private boolean deadlineReached;
 
     private boolean repair = false;
 
     private boolean useLabels = false;
 
-    private ReconfigurationProblem rp;
+    private boolean boundMemory = false;
+
+    /**
+     * The peak heap usage of the last solving process. In bytes.
+     */
+    private long peakMemory;
+
+    private final MemorySampler memory = new MemorySampler();
+
+    private volatile ReconfigurationProblem rp;
+
+    /**
+     * The cancellation flag of the running solving process, or of the next one
+     * if no process is running.
+     */
+    private volatile AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    private boolean wasCancelled;
+
+    private List<SolutionListener> listeners;
 
     private Collection<SatConstraint> cstrs;
 
@@ -76,6 +115,26 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
 
     private long speRPDuration;
 
+    private long checkDuration;
+
+    private Model model;
+
+    private int checkerParallelism = 1;
+
+    private boolean decompose = false;
+
+    private ReconfigurationAlgorithm fallback;
+
+    private boolean fallbackUsed;
+
+    /**
+     * The number of placements that are tried in the decomposed mode
+     * before solving the whole problem at once.
+     */
+    public static final int MAX_PLACEMENT_ATTEMPTS = 5;
+
+    private Map<Class<? extends SatConstraint>, Double> samplingRates;
+
     /**
      * Make a new algorithm.
      */
@@ -84,6 +143,8 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
         cstrMapper = new SatConstraintMapper();
         durationEvaluators = new DurationEvaluators();
         viewMapper = new ModelViewMapper();
+        listeners = new CopyOnWriteArrayList<>();
+        samplingRates = new HashMap<>();
 
         //Default objective
         obj = new MinMTTR();
@@ -101,12 +162,59 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
 
     @Override
     public void setTimeLimit(int t) {
-        timeLimit = t;
+        timeLimit = t > 0 ? t * 1000L : t;
     }
 
     @Override
     public int getTimeLimit() {
-        return timeLimit;
+        if (timeLimit <= 0) {
+            return (int) timeLimit;
+        }
+        //Rounded up to not state there is no timeout
+        return (int) ((timeLimit + 999) / 1000);
+    }
+
+    @Override
+    public void setTimeLimit(long t, TimeUnit unit) {
+        timeLimit = t > 0 ? unit.toMillis(t) : t;
+    }
+
+    @Override
+    public long getTimeLimit(TimeUnit unit) {
+        if (timeLimit <= 0) {
+            return timeLimit;
+        }
+        return unit.convert(timeLimit, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void doBoundMemory(boolean b) {
+        boundMemory = b;
+    }
+
+    @Override
+    public boolean doBoundMemory() {
+        return boundMemory;
+    }
+
+    @Override
+    public void doDecompose(boolean b) {
+        decompose = b;
+    }
+
+    @Override
+    public boolean doDecompose() {
+        return decompose;
+    }
+
+    @Override
+    public void setFallback(ReconfigurationAlgorithm a) {
+        fallback = a;
+    }
+
+    @Override
+    public ReconfigurationAlgorithm getFallback() {
+        return fallback;
     }
 
     @Override
@@ -152,9 +260,89 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The time limit covers the building of the problem, the search and the conversion of
+     * the solution. If the time limit is reached or the process is cancelled before
+     * any solution is computed, {@code null} is returned. Otherwise, the best plan computed
+     * so far is returned. When the time limit is reached without any solution, the plan
+     * is computed by the fallback algorithm if one is set.
+     * Use {@link SolvingStatistics#isCancelled()} to tell a cancelled process from
+     * a problem without solution.
+     */
     @Override
     public ReconfigurationPlan solve(Model i, Collection<SatConstraint> cstrs) throws SolverException {
+        return solve(i, cstrs, cancelled);
+    }
+
+    @Override
+    public ReconfigurationPlan solve(Model i, Collection<SatConstraint> cstrs, AtomicBoolean flag) throws SolverException {
+        //A cancellation requested while no process was running applies to this one
+        if (cancelled.get()) {
+            flag.set(true);
+        }
+        cancelled = flag;
+        deadline = timeLimit > 0 ? System.currentTimeMillis() + timeLimit : Long.MAX_VALUE;
+        deadlineReached = false;
+        wasCancelled = false;
+        speRPDuration = 0;
+        checkDuration = 0;
+        fallbackUsed = false;
+        memory.start();
+        try {
+            ReconfigurationPlan p = doSolve(i, cstrs);
+            if (p == null && fallback != null && !flag.get() && isTimeout()) {
+                fallbackUsed = true;
+                p = fallback.solve(i, cstrs);
+                if (p != null) {
+                    checkSatisfaction2(p, cstrs);
+                }
+            }
+            return p;
+        } finally {
+            //Close the phases that were interrupted
+            long now = System.currentTimeMillis();
+            if (coreRPDuration < 0) {
+                coreRPDuration += now;
+            }
+            if (speRPDuration < 0) {
+                speRPDuration += now;
+            }
+            if (checkDuration < 0) {
+                checkDuration += now;
+            }
+            peakMemory = memory.stop();
+            wasCancelled = flag.get();
+            //The next solving process gets its own flag
+            cancelled = new AtomicBoolean(false);
+        }
+    }
+
+    /**
+     * Check if the solving process must stop.
+     *
+     * @return {@code true} iff the process has been cancelled or the deadline is reached
+     */
+    private boolean mustStop() {
+        if (!deadlineReached && System.currentTimeMillis() >= deadline) {
+            deadlineReached = true;
+        }
+        return cancelled.get() || deadlineReached;
+    }
+
+    /**
+     * Check if the last solving process reached a time limit.
+     *
+     * @return {@code true} iff the deadline or the solver time limit was reached
+     */
+    private boolean isTimeout() {
+        return deadlineReached || (rp != null && rp.getSolver().isEncounteredLimit());
+    }
+
+    private ReconfigurationPlan doSolve(Model i, Collection<SatConstraint> cstrs) throws SolverException {
         rp = null;
+        model = i;
         this.cstrs = cstrs;
         coreRPDuration = -System.currentTimeMillis();
         //Build the RP. As VM state management is not possible
@@ -167,6 +355,9 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
 
         List<ChocoSatConstraint> cConstraints = new ArrayList<>();
         for (SatConstraint cstr : cstrs) {
+            if (mustStop()) {
+                return null;
+            }
             checkNodesExistence(i, cstr.getInvolvedNodes());
 
             //We cannot check for VMs that are going to the ready state
@@ -188,18 +379,86 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
                 toKill.addAll(cstr.getInvolvedVMs());
             }
 
-            ChocoSatConstraintBuilder ccstrb = cstrMapper.getBuilder(cstr.getClass());
-            if (ccstrb == null) {
-                throw new SolverException(i, "Unable to map constraint '" + cstr.getClass().getSimpleName() + "'");
-            }
-            ChocoSatConstraint ccstr = ccstrb.build(cstr);
-            if (ccstr == null) {
-                throw new SolverException(i, "Error while mapping the constraint '"
-                        + cstr.getClass().getSimpleName() + "'");
+            cConstraints.add(mapConstraint(i, cstr));
+        }
+
+        coreRPDuration += System.currentTimeMillis();
+        ReconfigurationPlan p;
+        if (decompose) {
+            p = solveDecomposed(i, cConstraints, toForge, toRun, toSleep, toKill);
+        } else {
+            rp = buildProblem(i, cConstraints, toForge, toRun, toSleep, toKill, false);
+            if (rp == null) {
+                return null;
             }
-            cConstraints.add(ccstr);
+            p = rp.solve(getRemainingTime(), TimeUnit.MILLISECONDS, optimize);
+        }
+        if (p == null) {
+            return null;
         }
+        checkDuration = -System.currentTimeMillis();
+        checkSatisfaction2(p, cstrs);
+        checkDuration += System.currentTimeMillis();
+        return p;
+    }
 
+    /**
+     * Make the Choco implementation of a constraint.
+     *
+     * @param i    the model
+     * @param cstr the constraint to map
+     * @return the resulting constraint
+     * @throws SolverException if the constraint cannot be mapped
+     */
+    private ChocoSatConstraint mapConstraint(Model i, SatConstraint cstr) throws SolverException {
+        ChocoSatConstraintBuilder ccstrb = cstrMapper.getBuilder(cstr.getClass());
+        if (ccstrb == null) {
+            throw new SolverException(i, "Unable to map constraint '" + cstr.getClass().getSimpleName() + "'");
+        }
+        ChocoSatConstraint ccstr = ccstrb.build(cstr);
+        if (ccstr == null) {
+            throw new SolverException(i, "Error while mapping the constraint '"
+                    + cstr.getClass().getSimpleName() + "'");
+        }
+        return ccstr;
+    }
+
+    /**
+     * Make fresh Choco implementations of the constraints, to customize another problem.
+     *
+     * @param i the model
+     * @return the resulting constraints
+     * @throws SolverException if a constraint cannot be mapped
+     */
+    private List<ChocoSatConstraint> mapConstraints(Model i) throws SolverException {
+        List<ChocoSatConstraint> l = new ArrayList<>(cstrs.size());
+        for (SatConstraint cstr : cstrs) {
+            l.add(mapConstraint(i, cstr));
+        }
+        return l;
+    }
+
+    /**
+     * Get the time remaining before the deadline.
+     *
+     * @return a duration in milliseconds. {@code 0} if there is no time limit
+     */
+    private long getRemainingTime() {
+        return deadline == Long.MAX_VALUE ? 0 : Math.max(1, deadline - System.currentTimeMillis());
+    }
+
+    /**
+     * Build a problem, customized with the constraints and the objective.
+     *
+     * @param placement {@code true} to only compute a placement. The plan duration is not restricted and
+     *                  the objective is replaced by a placement heuristic that keeps the VMs on their node when possible
+     * @return the problem, {@code null} if the process must stop or if a constraint cannot be injected
+     * @throws SolverException if an error occurred
+     */
+    private ReconfigurationProblem buildProblem(Model i, List<ChocoSatConstraint> cConstraints,
+                                                Set<VM> toForge, Set<VM> toRun, Set<VM> toSleep, Set<VM> toKill,
+                                                boolean placement) throws SolverException {
+        coreRPDuration -= System.currentTimeMillis();
         //Make the core-RP
         DefaultReconfigurationProblemBuilder rpb = new DefaultReconfigurationProblemBuilder(i)
                 .setNextVMsStates(toForge, toRun, toSleep, toKill)
@@ -216,43 +475,156 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
         if (useLabels) {
             rpb.labelVariables();
         }
-        rp = rpb.build();
+        if (boundMemory) {
+            rpb.boundMemory();
+        }
+        rpb.setCancellationFlag(cancelled);
+        ReconfigurationProblem p = rpb.build();
+        rp = p;
+        for (SolutionListener l : listeners) {
+            p.addSolutionListener(l);
+        }
+        if (mustStop()) {
+            return null;
+        }
 
         //Set the maximum duration
-        try {
-            rp.getEnd().setSup(maxEnd);
-        } catch (ContradictionException e) {
-            rp.getLogger().error("Unable to restrict the maximum plan duration to {}", maxEnd);
-            return null;
+        if (!placement) {
+            try {
+                p.getEnd().setSup(maxEnd);
+            } catch (ContradictionException e) {
+                p.getLogger().error("Unable to restrict the maximum plan duration to {}", maxEnd);
+                return null;
+            }
         }
         coreRPDuration += System.currentTimeMillis();
 
         //Customize with the constraints
-        speRPDuration = -System.currentTimeMillis();
+        speRPDuration -= System.currentTimeMillis();
         for (ChocoSatConstraint ccstr : cConstraints) {
-            if (!ccstr.inject(rp)) {
+            if (mustStop() || !ccstr.inject(p)) {
                 return null;
             }
         }
 
         //The objective
-        obj.inject(rp);
+        if (mustStop()) {
+            return null;
+        }
+        if (placement) {
+            injectPlacementHeuristic(p);
+        } else {
+            obj.inject(p);
+        }
         speRPDuration += System.currentTimeMillis();
-        rp.getLogger().debug("{} ms to build the core-RP + {} ms to tune it", coreRPDuration, speRPDuration);
+        p.getLogger().debug("{} ms to build the core-RP + {} ms to tune it", coreRPDuration, speRPDuration);
 
-        rp.getLogger().debug("{} nodes; {} VMs; {} constraints", rp.getNodes().length, rp.getVMs().length, cstrs.size());
-        rp.getLogger().debug("optimize: {}; timeLimit: {}; manageableVMs: {}", optimize, getTimeLimit(), rp.getManageableVMs().size());
+        p.getLogger().debug("{} nodes; {} VMs; {} constraints", p.getNodes().length, p.getVMs().length, cstrs.size());
+        p.getLogger().debug("optimize: {}; timeLimit: {}; manageableVMs: {}", optimize, getTimeLimit(), p.getManageableVMs().size());
 
-        ReconfigurationPlan p = rp.solve(timeLimit, optimize);
-        if (p == null) {
+        if (mustStop()) {
             return null;
         }
-        checkSatisfaction2(p, cstrs);
         return p;
     }
 
+    /**
+     * Branch on the placement variables only: the VMs stay on their node when possible,
+     * then the node states are decided.
+     *
+     * @param p the problem to customize
+     */
+    private static void injectPlacementHeuristic(ReconfigurationProblem p) {
+        CPSolver s = p.getSolver();
+        Map<IntDomainVar, VM> pla = VMPlacementUtils.makePlacementMap(p);
+        List<IntDomainVar> hosters = new ArrayList<>();
+        for (VMActionModel a : p.getVMActions()) {
+            Slice d = a.getDSlice();
+            if (d != null && pla.containsKey(d.getHoster())) {
+                hosters.add(d.getHoster());
+            }
+        }
+        IntDomainVar[] vs = hosters.toArray(new IntDomainVar[hosters.size()]);
+        s.addGoal(new AssignVar(new StaticVarOrder(s, vs), new RandomVMPlacement("placement", p, pla, true)));
+        s.addGoal(new AssignVar(new StartingNodes("startingNodes", p, p.getNodeActions()), new MinVal()));
+    }
+
+    /**
+     * Solve the problem in two phases.
+     * A placement is computed first, without considering the resource usage over the time.
+     * Then the actions are scheduled with regards to this placement.
+     * If no schedule exists, the placement of the VMs involved in the failure is forbidden
+     * and a new placement is computed. As this cut may also discard placements that can be scheduled,
+     * the whole problem is solved at once when no placement remains, or after {@link #MAX_PLACEMENT_ATTEMPTS} attempts.
+     *
+     * @return the plan, {@code null} if there is no solution or if the process must stop
+     * @throws SolverException if an error occurred
+     */
+    private ReconfigurationPlan solveDecomposed(Model i, List<ChocoSatConstraint> cConstraints,
+                                                Set<VM> toForge, Set<VM> toRun, Set<VM> toSleep, Set<VM> toKill) throws SolverException {
+        List<Placement> cuts = new ArrayList<>();
+        for (int attempt = 0; attempt < MAX_PLACEMENT_ATTEMPTS; attempt++) {
+            //The placement
+            ReconfigurationProblem placement = buildProblem(i, attempt == 0 ? cConstraints : mapConstraints(i), toForge, toRun, toSleep, toKill, true);
+            if (placement == null) {
+                return null;
+            }
+            boolean feasible = true;
+            for (Placement cut : cuts) {
+                if (!cut.forbid(placement)) {
+                    feasible = false;
+                    break;
+                }
+            }
+            if (!feasible) {
+                //A cut left no placement
+                break;
+            }
+            if (!placement.solvePlacement(getRemainingTime(), TimeUnit.MILLISECONDS)) {
+                if (cuts.isEmpty() || mustStop() || placement.getSolver().isEncounteredLimit()) {
+                    //Even without the scheduling, there is no solution, or no time left
+                    return null;
+                }
+                //The cuts left no placement
+                break;
+            }
+            Placement pl = new Placement(placement);
+            if (mustStop()) {
+                return null;
+            }
+
+            //The scheduling of this placement
+            ReconfigurationProblem sched = buildProblem(i, mapConstraints(i), toForge, toRun, toSleep, toKill, false);
+            if (sched == null) {
+                return null;
+            }
+            if (pl.fix(sched)) {
+                ReconfigurationPlan p = sched.solve(getRemainingTime(), TimeUnit.MILLISECONDS, optimize);
+                if (p != null) {
+                    return p;
+                }
+            }
+            if (mustStop() || sched.getSolver().isEncounteredLimit()) {
+                return null;
+            }
+            sched.getLogger().debug("Unable to schedule the placement #{}. Trying another one", attempt);
+            cuts.add(pl);
+        }
+
+        //Fallback to the whole problem
+        ReconfigurationProblem whole = buildProblem(i, mapConstraints(i), toForge, toRun, toSleep, toKill, false);
+        if (whole == null) {
+            return null;
+        }
+        return whole.solve(getRemainingTime(), TimeUnit.MILLISECONDS, optimize);
+    }
+
     private void checkSatisfaction2(ReconfigurationPlan p, Collection<SatConstraint> cstrs) throws SolverException {
         ReconfigurationPlanChecker chk = new ReconfigurationPlanChecker();
+        chk.setParallelism(checkerParallelism);
+        for (Map.Entry<Class<? extends SatConstraint>, Double> e : samplingRates.entrySet()) {
+            chk.setSamplingRate(e.getKey(), e.getValue());
+        }
         for (SatConstraint c : cstrs) {
             chk.addChecker(c.getChecker());
         }
@@ -285,10 +657,27 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
 
     @Override
     public SolvingStatistics getSolvingStatistics() {
+        SolvingStatistics st;
         if (rp == null) {
-            return new SolvingStatistics(0, 0, 0, optimize, getTimeLimit(), 0, 0, 0, 0, false, 0, 0);
+            if (model == null) {
+                return new SolvingStatistics(0, 0, 0, optimize, getTimeLimit(), 0, 0, 0, 0, false, 0, 0);
+            }
+            //Stopped while building the core-RP
+            st = new SolvingStatistics(model.getMapping().getAllNodes().size(),
+                    model.getMapping().getAllVMs().size(),
+                    cstrs.size(),
+                    optimize,
+                    getTimeLimit(),
+                    0, 0, 0, 0,
+                    deadlineReached,
+                    coreRPDuration,
+                    speRPDuration);
+            st.setCancelled(wasCancelled);
+            st.setFallback(fallbackUsed);
+            st.setPeakMemory(peakMemory);
+            return st;
         }
-        SolvingStatistics st = new SolvingStatistics(
+        st = new SolvingStatistics(
                 rp.getNodes().length,
                 rp.getVMs().length,
                 cstrs.size(),
@@ -298,10 +687,18 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
                 rp.getSolver().getTimeCount(),
                 rp.getSolver().getNodeCount(),
                 rp.getSolver().getBackTrackCount(),
-                rp.getSolver().isEncounteredLimit(),
+                deadlineReached || rp.getSolver().isEncounteredLimit(),
                 coreRPDuration,
                 speRPDuration);
-
+        st.setCancelled(wasCancelled);
+        st.setFallback(fallbackUsed);
+        st.setCheckDuration(checkDuration);
+        st.setPeakMemory(peakMemory);
+
+        if (rp.getSolver().getSearchStrategy() == null) {
+            //Stopped before the search
+            return st;
+        }
         for (Solution s : rp.getSolver().getSearchStrategy().getStoredSolutions()) {
             IMeasures m = s.getMeasures();
             SolutionStatistics sol;
@@ -331,6 +728,33 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
         return this.maxEnd;
     }
 
+    @Override
+    public void setCheckerParallelism(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("The parallelism must be strictly positive");
+        }
+        checkerParallelism = n;
+    }
+
+    @Override
+    public int getCheckerParallelism() {
+        return checkerParallelism;
+    }
+
+    @Override
+    public void setCheckerSamplingRate(Class<? extends SatConstraint> c, double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("The sampling rate must be between 0 and 1");
+        }
+        samplingRates.put(c, rate);
+    }
+
+    @Override
+    public double getCheckerSamplingRate(Class<? extends SatConstraint> c) {
+        Double r = samplingRates.get(c);
+        return r == null ? 1 : r;
+    }
+
     @Override
     public ModelViewMapper getViewMapper() {
         return viewMapper;
@@ -341,6 +765,32 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
         viewMapper = m;
     }
 
+    @Override
+    public void addSolutionListener(SolutionListener l) {
+        listeners.add(l);
+    }
+
+    @Override
+    public boolean removeSolutionListener(SolutionListener l) {
+        return listeners.remove(l);
+    }
+
+    @Override
+    public void cancel() {
+        cancelled.set(true);
+        ReconfigurationProblem p = rp;
+        if (p != null) {
+            p.cancel();
+        }
+    }
+
+    @Override
+    public SolvingTask solveAsync(Model i, Collection<SatConstraint> cstrs) {
+        SolvingTask t = new SolvingTask(this, i, cstrs);
+        t.start();
+        return t;
+    }
+
     @Override
     public void setVerbosity(int lvl) {
         if (lvl <= 0) {
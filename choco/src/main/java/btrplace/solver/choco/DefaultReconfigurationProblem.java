@@ -17,6 +17,7 @@
 
 package btrplace.solver.choco;
 
+import btrplace.model.Element;
 import btrplace.model.Mapping;
 import btrplace.model.Model;
 import btrplace.model.Node;
@@ -24,13 +25,16 @@ import btrplace.model.VM;
 import btrplace.model.view.ModelView;
 import btrplace.plan.DefaultReconfigurationPlan;
 import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.Action;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.actionModel.*;
 import btrplace.solver.choco.chocoUtil.AliasedCumulatives;
+import btrplace.solver.choco.chocoUtil.Cancellation;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
 import btrplace.solver.choco.objective.ObjectiveAlterer;
 import btrplace.solver.choco.view.ChocoModelView;
 import btrplace.solver.choco.view.ModelViewMapper;
+import btrplace.solver.choco.view.SchedulingModelView;
 import choco.cp.solver.CPSolver;
 import choco.cp.solver.search.BranchAndBound;
 import choco.cp.solver.search.integer.branching.AssignVar;
@@ -51,6 +55,9 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -64,6 +71,8 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
     private boolean useLabels = false;
 
+    private boolean boundMemory = false;
+
     /**
      * The maximum duration of a plan in seconds: One hour.
      */
@@ -96,6 +105,14 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
     private DurationEvaluators durEval;
 
+    /**
+     * The durations of the actions on the VMs that have already been evaluated,
+     * indexed like the VMs. {@code 0} if not evaluated yet.
+     */
+    private Map<Class<? extends Action>, int[]> vmDurations;
+
+    private Map<Class<? extends Action>, int[]> nodeDurations;
+
     private Map<String, ChocoModelView> views;
 
     private IntDomainVar[] vmsCountOnNodes;
@@ -110,6 +127,10 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
     private ModelViewMapper viewMapper;
 
+    private List<SolutionListener> listeners = new CopyOnWriteArrayList<>();
+
+    private AtomicBoolean cancelled = new AtomicBoolean(false);
+
     /**
      * Make a new RP where the next state for every VM is indicated.
      * If the state for a VM is omitted, it is considered as unchanged
@@ -135,12 +156,44 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
                                          Set<VM> runningsToConsider,
                                          boolean label
     ) throws SolverException {
+        this(m, dEval, vMapper, ready, running, sleeping, killed, runningsToConsider, label, false);
+    }
+
+    /**
+     * Make a new RP where the next state for every VM is indicated.
+     * If the state for a VM is omitted, it is considered as unchanged
+     *
+     * @param m                  the initial model
+     * @param dEval              to evaluate the duration of every action
+     * @param ready              the VMs that must be in the ready state
+     * @param running            the VMs that must be in the running state
+     * @param sleeping           the VMs that must be in the sleeping state
+     * @param label              {@code true} to label the variables (for debugging purpose)
+     * @param killed             the VMs that must be killed
+     * @param runningsToConsider the VMs that can be managed by the solver when they are already running and they must keep running
+     * @param boundMemory        {@code true} to limit the memory usage. Only the best solution is stored and
+     *                           the variables are not labelled
+     * @throws SolverException if an error occurred
+     * @see DefaultReconfigurationProblemBuilder to ease the instantiation process
+     */
+    public DefaultReconfigurationProblem(Model m,
+                                         DurationEvaluators dEval,
+                                         ModelViewMapper vMapper,
+                                         Set<VM> ready,
+                                         Set<VM> running,
+                                         Set<VM> sleeping,
+                                         Set<VM> killed,
+                                         Set<VM> runningsToConsider,
+                                         boolean label,
+                                         boolean boundMemory
+    ) throws SolverException {
+        this.boundMemory = boundMemory;
         this.ready = new HashSet<>(ready);
         this.runnings = new HashSet<>(running);
         this.sleepings = new HashSet<>(sleeping);
         this.killed = new HashSet<>(killed);
         this.manageable = new HashSet<>(runningsToConsider);
-        this.useLabels = label;
+        this.useLabels = label && !boundMemory;
         model = m;
         durEval = dEval;
         this.viewMapper = vMapper;
@@ -157,6 +210,9 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
         makeCardinalyVariables();
 
+        vmDurations = new HashMap<>();
+        nodeDurations = new HashMap<>();
+
         makeNodeActionModels();
         makeVMActionModels();
 
@@ -172,10 +228,64 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
     @Override
     public ReconfigurationPlan solve(int timeLimit, boolean optimize) throws SolverException {
+        return solve(timeLimit, TimeUnit.SECONDS, optimize);
+    }
+
+    @Override
+    public ReconfigurationPlan solve(long timeLimit, TimeUnit unit, boolean optimize) throws SolverException {
+        //With listeners, the solutions are computed one by one to notify them as soon as possible
+        boolean stepwise = objAlterer != null || !listeners.isEmpty();
+        if (!prepare(timeLimit, unit, true, stepwise || !optimize)) {
+            return null;
+        }
+        ReconfigurationPlan last = null;
+        if (stepwise) {
+            last = launchStepwise(optimize);
+        } else {
+            solver.launch();
+        }
+
+        ChocoLogging.flushLogs();
+        if (last != null) {
+            //The best solution was already converted
+            return last;
+        }
+        return makeResultingPlan();
+    }
 
+    @Override
+    public boolean solvePlacement(long timeLimit, TimeUnit unit) throws SolverException {
+        if (!prepare(timeLimit, unit, false, true)) {
+            return false;
+        }
+        solver.launch();
+        ChocoLogging.flushLogs();
+        if (Boolean.FALSE == solver.isFeasible() || isInterrupted()) {
+            return false;
+        } else if (solver.isFeasible() == null) {
+            throw new SolverException(model, "Unable to state about the problem feasibility.");
+        }
+        return true;
+    }
+
+    /**
+     * Finalize the problem before launching the search.
+     *
+     * @param timeLimit   the timeout. Must be superior to 0 to be considered
+     * @param unit        the unit of the timeout
+     * @param schedule    {@code false} to ignore the constraints and the views that restrict the resource usage over the time
+     * @param stopAtFirst {@code true} to stop the search at the first solution
+     * @return {@code false} if the problem has no solution
+     * @throws SolverException if an error occurred
+     */
+    private boolean prepare(long timeLimit, TimeUnit unit, boolean schedule, boolean stopAtFirst) throws SolverException {
+        long st = System.currentTimeMillis();
         for (Map.Entry<String, ChocoModelView> cv : views.entrySet()) {
+            if (!schedule && cv.getValue() instanceof SchedulingModelView) {
+                continue;
+            }
             if (!cv.getValue().beforeSolve(this)) {
-                return null;
+                return false;
             }
         }
 
@@ -185,25 +295,28 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
             throw new SolverException(model, ex.getMessage(), ex);
         }
 
-        addContinuousResourceCapacities();
+        if (schedule) {
+            addContinuousResourceCapacities();
 
-        solver.post(taskSchedBuilder.build());
+            solver.post(taskSchedBuilder.build());
 
-        for (AliasedCumulatives cstr : cumulativesBuilder.getConstraints()) {
-            solver.post(cstr);
+            for (AliasedCumulatives cstr : cumulativesBuilder.getConstraints()) {
+                solver.post(cstr);
+            }
         }
 
-        //Set the timeout
+        //Set the timeout, minus the time spent to finalize the problem
         if (timeLimit > 0) {
-            solver.setTimeLimit(timeLimit * 1000);
+            long remaining = unit.toMillis(timeLimit) - (System.currentTimeMillis() - st);
+            solver.setTimeLimit((int) Math.min(Integer.MAX_VALUE, Math.max(1, remaining)));
         }
 
-        if (objAlterer == null) {
-            solver.getConfiguration().putBoolean(choco.kernel.solver.Configuration.STOP_AT_FIRST_SOLUTION, !optimize);
-        } else if (optimize) {
-            solver.getConfiguration().putBoolean(choco.kernel.solver.Configuration.STOP_AT_FIRST_SOLUTION, true);
-        }
-        solver.getConfiguration().putInt(Configuration.SOLUTION_POOL_CAPACITY, Integer.MAX_VALUE);
+        //The search is always watched so cancel() stops it from any thread
+        solver.post(new Cancellation(getSearchVariables(), cancelled));
+
+        solver.getConfiguration().putBoolean(choco.kernel.solver.Configuration.STOP_AT_FIRST_SOLUTION, stopAtFirst);
+        //In the memory-bounded mode, only the best solution is kept
+        solver.getConfiguration().putInt(Configuration.SOLUTION_POOL_CAPACITY, boundMemory ? 1 : Integer.MAX_VALUE);
         solver.generateSearchStrategy();
 
         appendNaiveBranchHeuristic();
@@ -214,14 +327,7 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         int nbCstes = solver.getNbConstants();
         int nbCstrs = solver.getNbConstraints();
         getLogger().debug("{} constraints; Variables: {} int(s), {} bool(s), {} constant(s).", nbCstrs, nbIntVars, nbBoolVars, nbCstes);
-        if (objAlterer == null) {
-            solver.launch();
-        } else if (optimize) {
-            launchWithAlterer();
-        }
-
-        ChocoLogging.flushLogs();
-        return makeResultingPlan();
+        return true;
     }
 
     private ReconfigurationPlan makeResultingPlan() throws SolverException {
@@ -231,10 +337,33 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
             //It is certain the CSP has no solution
             return null;
         } else if (solver.isFeasible() == null) {
+            if (isInterrupted()) {
+                //The search stopped before computing any solution
+                return null;
+            }
             //We don't know if the CSP has a solution
             throw new SolverException(model, "Unable to state about the problem feasibility.");
         }
+        return buildPlan();
+    }
 
+    /**
+     * Check if the search stopped before computing any solution
+     * because of the time limit or a cancellation.
+     *
+     * @return {@code true} iff the search was interrupted without solution
+     */
+    private boolean isInterrupted() {
+        return solver.isFeasible() == null && (solver.isEncounteredLimit() || cancelled.get());
+    }
+
+    /**
+     * Convert the current solution into a plan.
+     *
+     * @return the resulting plan
+     * @throws SolverException if an error occurred
+     */
+    private ReconfigurationPlan buildPlan() throws SolverException {
         DefaultReconfigurationPlan plan = new DefaultReconfigurationPlan(model);
         for (ActionModel action : nodeActions) {
             action.insertActions(plan);
@@ -274,34 +403,72 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
     }
 
     /**
-     * Launch the solver with a known ObjectiveAlterer.
-     * Each time a solution has been computed, the alterer is called to set a new bound for the objective
+     * Get the variables that are instantiated by the search heuristics.
+     * They are watched to stop the search on cancellation.
+     *
+     * @return an array of variables
+     */
+    private IntDomainVar[] getSearchVariables() {
+        Set<IntDomainVar> vs = new LinkedHashSet<>();
+        vs.add(end);
+        for (VMActionModel a : vmActions) {
+            if (a.getDSlice() != null) {
+                vs.add(a.getDSlice().getHoster());
+            }
+            vs.add(a.getStart());
+        }
+        for (NodeActionModel a : nodeActions) {
+            vs.add(a.getState());
+        }
+        return vs.toArray(new IntDomainVar[vs.size()]);
+    }
+
+    /**
+     * Launch the solver and compute the solutions one by one.
+     * Each time a solution has been computed, it is converted into a plan that is
+     * notified to the listeners. If an ObjectiveAlterer is known, it is called to set
+     * a new bound for the objective.
      *
+     * @param optimize {@code true} to try to improve the first solution
+     * @return the plan associated to the last computed solution if it has been built, {@code null} otherwise
      * @throws SolverException if an error occurred while trying to use the alterer
      */
-    private void launchWithAlterer() throws SolverException {
-        BranchAndBound bb = (BranchAndBound) solver.getSearchStrategy();
-        IObjectiveManager obj = bb.getObjectiveManager();
-        Field f;
-        try {
-            f = IntObjectiveManager.class.getDeclaredField("targetBound");
-            f.setAccessible(true);
-        } catch (Exception e) {
-            throw new SolverException(model, "Unable to inject the alterer: " + e.getMessage(), e);
+    private ReconfigurationPlan launchStepwise(boolean optimize) throws SolverException {
+        IObjectiveManager obj = null;
+        Field f = null;
+        if (objAlterer != null && optimize) {
+            BranchAndBound bb = (BranchAndBound) solver.getSearchStrategy();
+            obj = bb.getObjectiveManager();
+            try {
+                f = IntObjectiveManager.class.getDeclaredField("targetBound");
+                f.setAccessible(true);
+            } catch (Exception e) {
+                throw new SolverException(model, "Unable to inject the alterer: " + e.getMessage(), e);
+            }
         }
 
+        ReconfigurationPlan last = null;
         solver.launch();
         if (solver.isFeasible() == Boolean.TRUE) {
             do {
-                int objVal = solver.getObjectiveValue().intValue();
-                int newBound = objAlterer.tryNewValue(objVal);
-                try {
-                    f.set(obj, newBound);
-                } catch (Exception e) {
-                    throw new SolverException(model, "Unable to set the new target bound " + newBound + " for the objective " + solver.getObjective().getName() + ": " + e.getMessage(), e);
+                if (!listeners.isEmpty()) {
+                    last = buildPlan();
+                    for (SolutionListener l : listeners) {
+                        l.solutionFound(this, last);
+                    }
                 }
-            } while (solver.nextSolution() == Boolean.TRUE);
+                if (f != null) {
+                    int objVal = solver.getObjectiveValue().intValue();
+                    int newBound = objAlterer.tryNewValue(objVal);
+                    try {
+                        f.set(obj, newBound);
+                    } catch (Exception e) {
+                        throw new SolverException(model, "Unable to set the new target bound " + newBound + " for the objective " + solver.getObjective().getName() + ": " + e.getMessage(), e);
+                    }
+                }
+            } while (optimize && !cancelled.get() && solver.nextSolution() == Boolean.TRUE);
         }
+        return last;
     }
 
     private void addContinuousResourceCapacities() {
@@ -640,6 +807,38 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         return objAlterer;
     }
 
+    @Override
+    public void addSolutionListener(SolutionListener l) {
+        listeners.add(l);
+    }
+
+    @Override
+    public boolean removeSolutionListener(SolutionListener l) {
+        return listeners.remove(l);
+    }
+
+    @Override
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Attach a cancellation flag to the problem, instead of its own one.
+     * The problem is then cancelled once the flag is raised, and
+     * {@link #cancel()} raises the flag. Must be called before solving.
+     *
+     * @param f the flag to watch
+     */
+    public void setCancellationFlag(AtomicBoolean f) {
+        cancelled = f;
+        cancellable = true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
     @Override
     public void setObjectiveAlterer(ObjectiveAlterer a) {
         objAlterer = a;
@@ -655,6 +854,36 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         return durEval;
     }
 
+    @Override
+    public int getActionDuration(Class<? extends Action> a, Element e) throws SolverException {
+        Map<Class<? extends Action>, int[]> durations = null;
+        int idx = -1;
+        int nb = 0;
+        if (e instanceof VM) {
+            durations = vmDurations;
+            idx = getVM((VM) e);
+            nb = vms.length;
+        } else if (e instanceof Node) {
+            durations = nodeDurations;
+            idx = getNode((Node) e);
+            nb = nodes.length;
+        }
+        if (idx < 0) {
+            //Not managed by the problem, a cloned VM for example
+            return durEval.evaluate(model, a, e);
+        }
+        //The durations are evaluated on demand, once per action and element
+        int[] ds = durations.get(a);
+        if (ds == null) {
+            ds = new int[nb];
+            durations.put(a, ds);
+        }
+        if (ds[idx] == 0) {
+            ds[idx] = durEval.evaluate(model, a, e);
+        }
+        return ds[idx];
+    }
+
     @Override
     public Node[] getNodes() {
         return nodes;
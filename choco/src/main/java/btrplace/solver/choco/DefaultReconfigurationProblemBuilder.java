@@ -27,6 +27,7 @@ import btrplace.solver.choco.view.ModelViewMapper;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -48,6 +49,10 @@ public class DefaultReconfigurationProblemBuilder {
 
     private boolean labelVars = false;
 
+    private boolean boundMemory = false;
+
+    private AtomicBoolean cancelFlag;
+
     private DurationEvaluators dEval;
 
     private ModelViewMapper viewMapper;
@@ -75,6 +80,29 @@ public class DefaultReconfigurationProblemBuilder {
         return this;
     }
 
+    /**
+     * Limit the memory usage of the problem.
+     * Only the best solution is stored and the variables are not labelled.
+     *
+     * @return the current builder
+     */
+    public DefaultReconfigurationProblemBuilder boundMemory() {
+        boundMemory = true;
+        return this;
+    }
+
+    /**
+     * Attach a cancellation flag to the problem.
+     * The search stops as soon as possible once the flag is raised.
+     *
+     * @param f the flag to watch
+     * @return the current builder
+     */
+    public DefaultReconfigurationProblemBuilder setCancellationFlag(AtomicBoolean f) {
+        cancelFlag = f;
+        return this;
+    }
+
     /**
      * Provide a dedicated {@link DurationEvaluators}.
      *
@@ -155,7 +183,11 @@ public class DefaultReconfigurationProblemBuilder {
             manageable = new HashSet<>();
             manageable.addAll(model.getMapping().getAllVMs());
         }
-        return new DefaultReconfigurationProblem(model, dEval, viewMapper, waits, runs, sleep, over, manageable, labelVars);
+        DefaultReconfigurationProblem rp = new DefaultReconfigurationProblem(model, dEval, viewMapper, waits, runs, sleep, over, manageable, labelVars, boundMemory);
+        if (cancelFlag != null) {
+            rp.setCancellationFlag(cancelFlag);
+        }
+        return rp;
     }
 
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estimate the peak heap usage of a solving process by sampling the used heap.
+ * <p/>
+ * The used heap is sampled when the sampler starts and stops, on explicit calls to
+ * {@link #sample()}, and periodically by a daemon thread shared by all the samplers.
+ * Each sampler only tracks its own maximum and nothing is reset in the JVM, so several
+ * solving processes can be measured side by side. The heap is however shared by the whole
+ * JVM, so a measure also includes the memory used by the other threads. Short peaks
+ * between two samples are missed.
+ *
+ * @author Fabien Hermenier
+ */
+class MemorySampler {
+
+    /**
+     * The default delay between two samples, in milliseconds.
+     */
+    public static final int DEFAULT_PERIOD = 10;
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "memory-sampler");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final AtomicLong peak = new AtomicLong();
+
+    private int period;
+
+    private ScheduledFuture<?> task;
+
+    /**
+     * Make a new sampler using {@link #DEFAULT_PERIOD}.
+     */
+    MemorySampler() {
+        this(DEFAULT_PERIOD);
+    }
+
+    /**
+     * Make a new sampler.
+     *
+     * @param p the delay between two samples, in milliseconds
+     */
+    MemorySampler(int p) {
+        if (p <= 0) {
+            throw new IllegalArgumentException("The sampling period must be strictly positive");
+        }
+        period = p;
+    }
+
+    /**
+     * Start a new measure.
+     * The previous maximum is forgotten.
+     */
+    synchronized void start() {
+        stopSampling();
+        peak.set(0);
+        sample();
+        task = TIMER.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                sample();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sample the used heap.
+     */
+    void sample() {
+        long used = getUsedHeap();
+        long cur = peak.get();
+        while (used > cur && !peak.compareAndSet(cur, used)) {
+            cur = peak.get();
+        }
+    }
+
+    /**
+     * Stop the measure.
+     *
+     * @return the peak heap usage in bytes
+     */
+    synchronized long stop() {
+        stopSampling();
+        sample();
+        return peak.get();
+    }
+
+    /**
+     * Get the peak heap usage measured so far.
+     *
+     * @return an amount of memory in bytes. {@code 0} if the sampler was never started
+     */
+    long getPeak() {
+        return peak.get();
+    }
+
+    private void stopSampling() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * Get the amount of heap currently used by the JVM.
+     *
+     * @return an amount of memory in bytes
+     */
+    static long getUsedHeap() {
+        Runtime r = Runtime.getRuntime();
+        return r.totalMemory() - r.freeMemory();
+    }
+}
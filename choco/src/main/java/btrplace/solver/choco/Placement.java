@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco;
+
+import btrplace.model.Mapping;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.solver.choco.actionModel.NodeActionModel;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.constraints.reified.ReifiedFactory;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The placement computed by a {@link ReconfigurationProblem}:
+ * the host of each VM that will be running and the next state of each node.
+ * <p/>
+ * A placement can be fixed inside another problem over the same model, or
+ * partially forbidden to make the problem look for another placement.
+ *
+ * @author Fabien Hermenier
+ */
+class Placement {
+
+    private Map<VM, Node> hosts;
+
+    private Map<Node, Integer> states;
+
+    /**
+     * Extract the placement from a solved problem.
+     *
+     * @param rp the problem. Its hosting and state variables must be instantiated
+     */
+    public Placement(ReconfigurationProblem rp) {
+        hosts = new HashMap<>();
+        states = new HashMap<>();
+        for (VMActionModel a : rp.getVMActions()) {
+            Slice d = a.getDSlice();
+            if (d != null) {
+                hosts.put(a.getVM(), rp.getNode(d.getHoster().getVal()));
+            }
+        }
+        for (NodeActionModel a : rp.getNodeActions()) {
+            states.put(a.getNode(), a.getState().getVal());
+        }
+    }
+
+    /**
+     * Get the host of a VM.
+     *
+     * @param vm the VM
+     * @return the node. {@code null} if the VM will not be running
+     */
+    public Node getHost(VM vm) {
+        return hosts.get(vm);
+    }
+
+    /**
+     * Fix the placement inside a problem.
+     *
+     * @param rp the problem to restrict
+     * @return {@code false} if the placement is not possible in the problem
+     */
+    public boolean fix(ReconfigurationProblem rp) {
+        try {
+            for (VMActionModel a : rp.getVMActions()) {
+                Slice d = a.getDSlice();
+                Node n = hosts.get(a.getVM());
+                if (d != null && n != null) {
+                    d.getHoster().setVal(rp.getNode(n));
+                }
+            }
+            for (NodeActionModel a : rp.getNodeActions()) {
+                Integer st = states.get(a.getNode());
+                if (st != null) {
+                    a.getState().setVal(st);
+                }
+            }
+        } catch (ContradictionException ex) {
+            rp.getLogger().debug("Unable to fix the placement: {}", ex.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Forbid the placement of the elements involved in the scheduling failure inside a problem:
+     * the VMs that will be running on another node and the nodes that change of state
+     * with regards to the source model.
+     * The problem then has to place at least one of these VMs on another node
+     * or to keep the current state of at least one of these nodes.
+     * <p/>
+     * This cut is stronger than forbidding the whole placement as it also discards every placement
+     * that performs the same moves. It may then discard a placement that can be scheduled.
+     *
+     * @param rp the problem to restrict
+     * @return {@code false} if there is no other possibility in the problem
+     */
+    public boolean forbid(ReconfigurationProblem rp) {
+        CPSolver s = rp.getSolver();
+        Mapping map = rp.getSourceModel().getMapping();
+        List<IntDomainVar> diffs = new ArrayList<>();
+        for (VMActionModel a : rp.getVMActions()) {
+            Slice d = a.getDSlice();
+            Node n = hosts.get(a.getVM());
+            if (d == null || n == null || n.equals(map.getVMLocation(a.getVM()))) {
+                continue;
+            }
+            if (!d.getHoster().canBeInstantiatedTo(rp.getNode(n))) {
+                //The VM cannot go there anymore, the placement is already forbidden
+                return true;
+            }
+            if (!d.getHoster().isInstantiated()) {
+                IntDomainVar moved = s.createBooleanVar(rp.makeVarLabel("cut(", a.getVM(), ")"));
+                s.post(ReifiedFactory.builder(moved, s.neq(d.getHoster(), rp.getNode(n)), s));
+                diffs.add(moved);
+            }
+        }
+        for (NodeActionModel a : rp.getNodeActions()) {
+            Integer st = states.get(a.getNode());
+            int cur = map.getOnlineNodes().contains(a.getNode()) ? 1 : 0;
+            if (st == null || st == cur) {
+                continue;
+            }
+            if (!a.getState().canBeInstantiatedTo(st)) {
+                return true;
+            }
+            if (!a.getState().isInstantiated()) {
+                IntDomainVar switched = s.createBooleanVar(rp.makeVarLabel("cut(", a.getNode(), ")"));
+                s.post(ReifiedFactory.builder(switched, s.neq(a.getState(), st), s));
+                diffs.add(switched);
+            }
+        }
+        if (diffs.isEmpty()) {
+            return false;
+        }
+        s.post(s.geq(CPSolver.sum(diffs.toArray(new IntDomainVar[diffs.size()])), 1));
+        return true;
+    }
+}
@@ -17,10 +17,12 @@
 
 package btrplace.solver.choco;
 
+import btrplace.model.Element;
 import btrplace.model.Model;
 import btrplace.model.Node;
 import btrplace.model.VM;
 import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.Action;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.actionModel.NodeActionModel;
 import btrplace.solver.choco.actionModel.VMActionModel;
@@ -34,6 +36,7 @@ import org.slf4j.Logger;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -196,17 +199,58 @@ public interface ReconfigurationProblem {
      */
     DurationEvaluators getDurationEvaluators();
 
+    /**
+     * Get the duration of an action on a given element.
+     * The durations related to the VMs and the nodes of the problem are evaluated
+     * once for all, when the problem is created. The evaluators
+     * are called directly for the other elements.
+     *
+     * @param a the action' class
+     * @param e the element manipulated by the action
+     * @return a positive duration
+     * @throws SolverException if the duration cannot be evaluated
+     */
+    int getActionDuration(Class<? extends Action> a, Element e) throws SolverException;
+
     /**
      * Solve the RP and return a solution if exists.
      *
      * @param timelimit the timeout in second. Must be superior to 0 to be considered
      * @param optimize  {@code true} to make the solver try to improve the first computed solution.
      * @return a plan if the solving process succeeded, {@code null} if the solver was not able to compute
-     *         a solution.
+     *         a solution, including when the time limit was reached or the problem was cancelled before the first one.
      * @throws SolverException if an error occurs
      */
     ReconfigurationPlan solve(int timelimit, boolean optimize) throws SolverException;
 
+    /**
+     * Solve the RP and return a solution if exists.
+     *
+     * @param timelimit the timeout. Must be superior to 0 to be considered
+     * @param unit      the unit of the timeout. The precision is limited to the millisecond
+     * @param optimize  {@code true} to make the solver try to improve the first computed solution.
+     * @return a plan if the solving process succeeded, {@code null} if the solver was not able to compute
+     *         a solution, including when the time limit was reached or the problem was cancelled before the first one.
+     * @throws SolverException if an error occurs
+     */
+    ReconfigurationPlan solve(long timelimit, TimeUnit unit, boolean optimize) throws SolverException;
+
+    /**
+     * Solve the placement part of the RP only.
+     * The constraints that restrict the resource usage of the nodes over the time
+     * and the {@link btrplace.solver.choco.view.SchedulingModelView}s are not posted,
+     * so the search only has to find a valid final placement and the next state of the nodes.
+     * When a solution is found, the hosting variables of the VMs and the state of the nodes
+     * are instantiated. The RP cannot be solved again.
+     *
+     * @param timelimit the timeout. Must be superior to 0 to be considered
+     * @param unit      the unit of the timeout. The precision is limited to the millisecond
+     * @return {@code true} if a placement has been computed, {@code false} if there is no solution or if the
+     *         time limit was reached or the problem was cancelled before computing one
+     * @throws SolverException if an error occurred or if the solver cannot state about the feasibility
+     */
+    boolean solvePlacement(long timelimit, TimeUnit unit) throws SolverException;
+
     /**
      * Get the CPSolver used to model this problem.
      *
@@ -371,6 +415,36 @@ public interface ReconfigurationProblem {
      */
     void setObjectiveAlterer(ObjectiveAlterer a);
 
+    /**
+     * Add a listener to notify each time a solution is computed.
+     *
+     * @param l the listener to add
+     */
+    void addSolutionListener(SolutionListener l);
+
+    /**
+     * Remove a listener.
+     *
+     * @param l the listener to remove
+     * @return {@code true} iff the listener was registered
+     */
+    boolean removeSolutionListener(SolutionListener l);
+
+    /**
+     * Cancel the solving process.
+     * The method can be called from any thread. The solver
+     * then stops as soon as possible and the best solution computed
+     * so far, if any, is returned by {@link #solve(int, boolean)}.
+     */
+    void cancel();
+
+    /**
+     * Indicate if the solving process has been cancelled.
+     *
+     * @return {@code true} iff {@link #cancel()} has been called
+     */
+    boolean isCancelled();
+
     /**
      * Create a clone of a given VM.
      * The clone will take the place of the VM by the end of the reconfiguration process.
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco;
+
+import btrplace.plan.ReconfigurationPlan;
+
+/**
+ * Interface to signal the computation of a new solution
+ * while solving a {@link ReconfigurationProblem}.
+ * <p/>
+ * When the solver tries to improve its solution, each solution is notified
+ * as soon as it is computed. Solutions are then notified from the worst one
+ * to the best one. The notification is made by the solving thread so
+ * a listener should return quickly.
+ *
+ * @author Fabien Hermenier
+ */
+public interface SolutionListener {
+
+    /**
+     * Notifies the computation of a new solution.
+     *
+     * @param rp   the problem that is solved
+     * @param plan the plan associated to the solution
+     */
+    void solutionFound(ReconfigurationProblem rp, ReconfigurationPlan plan);
+}
@@ -70,6 +70,23 @@ public class SolvingStatistics {
 
     private long speRPDuration;
 
+    private long checkDuration;
+
+    /**
+     * Indicates whether or not the solving process was cancelled.
+     */
+    private boolean cancelled;
+
+    /**
+     * Indicates whether or not the plan was computed by the fallback algorithm.
+     */
+    private boolean fallback;
+
+    /**
+     * The peak heap usage during the solving process. In bytes.
+     */
+    private long peakMemory;
+
     /**
      * Compare the solution by their moment. If equal, the number of nodes then the number of backtracks.
      */
@@ -156,6 +173,84 @@ public class SolvingStatistics {
         return speRPDuration;
     }
 
+    /**
+     * Get the time that was necessary to check the computed plan.
+     *
+     * @return a duration in milliseconds
+     */
+    public long getCheckDuration() {
+        return checkDuration;
+    }
+
+    /**
+     * Set the time that was necessary to check the computed plan.
+     *
+     * @param d a duration in milliseconds
+     */
+    public void setCheckDuration(long d) {
+        checkDuration = d;
+    }
+
+    /**
+     * Indicates if the solving process was cancelled.
+     * In that case, the statistics only cover the phases that were
+     * performed before the cancellation.
+     *
+     * @return {@code true} iff the process was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * State if the solving process was cancelled.
+     *
+     * @param b {@code true} to indicate the process was cancelled
+     */
+    public void setCancelled(boolean b) {
+        cancelled = b;
+    }
+
+    /**
+     * Indicates if the plan was computed by the fallback algorithm
+     * once the solver reached its time limit.
+     *
+     * @return {@code true} iff the fallback algorithm was used
+     */
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    /**
+     * State if the plan was computed by the fallback algorithm.
+     *
+     * @param b {@code true} to indicate the fallback algorithm was used
+     */
+    public void setFallback(boolean b) {
+        fallback = b;
+    }
+
+    /**
+     * Get the peak heap usage during the solving process.
+     * It is the maximum of the used heap sampled while the process runs.
+     * The heap is shared by the whole JVM so the measure also includes
+     * the memory used by the other threads, and a short peak between two samples is missed.
+     *
+     * @return an amount of memory in bytes. {@code 0} if unknown
+     */
+    public long getPeakMemory() {
+        return peakMemory;
+    }
+
+    /**
+     * Set the peak heap usage during the solving process.
+     *
+     * @param m an amount of memory in bytes
+     */
+    public void setPeakMemory(long m) {
+        peakMemory = m;
+    }
+
     /**
      * Get the number of opened nodes.
      *
@@ -183,6 +278,19 @@ public class SolvingStatistics {
         return timeout;
     }
 
+    /**
+     * Indicates if the last computed solution is proven to be optimal, i.e.
+     * the solver tried to optimize and explored the whole search space.
+     * A process that hit the timeout or that was cancelled is never reported as optimal,
+     * even if the solver terminated its search while draining the search tree after the
+     * cancellation.
+     *
+     * @return {@code true} iff the last solution is optimal
+     */
+    public boolean isOptimal() {
+        return doOptimize && !solutions.isEmpty() && !timeout && !cancelled && !fallback;
+    }
+
     /**
      * Add a solution to the statistics.
      *
@@ -194,6 +302,8 @@ public class SolvingStatistics {
 
     /**
      * Get all the computed solutions ordered by time.
+     * When the memory usage is bounded (see {@link ChocoReconfigurationAlgorithm#doBoundMemory(boolean)}),
+     * the solver only keeps the best solution so only its statistics are available.
      *
      * @return a list of solutions that may be empty
      */
@@ -264,7 +374,9 @@ public class SolvingStatistics {
         }
         b.append("\nBuilding duration: ").append(coreRPBuildDuration).append("ms (core-RP) + ").append(speRPDuration).append("ms (specialization)");
         b.append("\nAfter ").append(time).append("ms of search");
-        if (timeout) {
+        if (cancelled) {
+            b.append(" (cancelled)");
+        } else if (timeout) {
             b.append(" (timeout)");
         } else {
             b.append(" (terminated)");
@@ -273,6 +385,15 @@ public class SolvingStatistics {
                 .append(nbSearchNodes).append(" opened search node(s), ")
                 .append(nbBacktracks).append(" backtrack(s), ")
                 .append(solutions.size()).append(" solution(s)");
+        if (checkDuration > 0) {
+            b.append("; ").append(checkDuration).append("ms to check the plan");
+        }
+        if (fallback) {
+            b.append("; plan computed by the fallback algorithm");
+        }
+        if (peakMemory > 0) {
+            b.append("; peak memory: ").append(peakMemory / (1024 * 1024)).append("MB");
+        }
         if (!solutions.isEmpty()) {
             b.append(":\n");
         } else {
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco;
+
+import btrplace.model.Model;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A solving process that runs in background.
+ * <p/>
+ * The plans are made available as soon as they are computed
+ * using {@link #poll(long, java.util.concurrent.TimeUnit)}. When the algorithm
+ * tries to improve its solution, each plan is then better than the previous one.
+ * The solving process can be stopped at any moment using {@link #cancel()}. The result
+ * is then the best plan computed so far.
+ * <p/>
+ * The intermediary plans are not checked against the constraints. Only
+ * the final plan is checked.
+ * While the task is running, the underlying algorithm must not be used to
+ * solve another problem.
+ *
+ * @author Fabien Hermenier
+ * @see ChocoReconfigurationAlgorithm#solveAsync(btrplace.model.Model, java.util.Collection)
+ */
+public class SolvingTask {
+
+    private ChocoReconfigurationAlgorithm cra;
+
+    private Model model;
+
+    private Collection<SatConstraint> cstrs;
+
+    private BlockingQueue<ReconfigurationPlan> plans;
+
+    private volatile ReconfigurationPlan last;
+
+    private volatile boolean cancelled;
+
+    /**
+     * The cancellation flag dedicated to this task.
+     */
+    private final AtomicBoolean flag = new AtomicBoolean(false);
+
+    private ReconfigurationPlan result;
+
+    private SolverException error;
+
+    private CountDownLatch done;
+
+    private Thread worker;
+
+    /**
+     * Make a new task.
+     * The task must be started using {@link #start()}.
+     *
+     * @param cra    the algorithm to use
+     * @param mo     the model to solve
+     * @param cstrs  the constraints to satisfy
+     */
+    public SolvingTask(ChocoReconfigurationAlgorithm cra, Model mo, Collection<SatConstraint> cstrs) {
+        this.cra = cra;
+        this.model = mo;
+        this.cstrs = cstrs;
+        plans = new LinkedBlockingQueue<>();
+        done = new CountDownLatch(1);
+    }
+
+    /**
+     * Start the solving process in a new thread.
+     *
+     * @throws IllegalStateException if the task has already been started
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            throw new IllegalStateException("The task has already been started");
+        }
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                solve();
+            }
+        }, "SolvingTask");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void solve() {
+        SolutionListener l = new SolutionListener() {
+            @Override
+            public void solutionFound(ReconfigurationProblem rp, ReconfigurationPlan p) {
+                last = p;
+                plans.add(p);
+            }
+        };
+        cra.addSolutionListener(l);
+        try {
+            //The flag is only watched by this solving process
+            result = cra.solve(model, cstrs, flag);
+        } catch (SolverException ex) {
+            error = ex;
+        } finally {
+            cra.removeSolutionListener(l);
+            done.countDown();
+        }
+    }
+
+    /**
+     * Retrieve and remove the next computed plan, waiting if necessary.
+     *
+     * @param timeout the maximum duration to wait
+     * @param unit    the unit of the timeout
+     * @return the next plan, or {@code null} if no plan has been computed in time or if the task is terminated
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public ReconfigurationPlan poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            ReconfigurationPlan p = plans.poll();
+            if (p != null) {
+                return p;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            //Wake up periodically to notice the termination
+            p = plans.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)), TimeUnit.NANOSECONDS);
+            if (p != null) {
+                return p;
+            }
+            if (isDone()) {
+                return plans.poll();
+            }
+        }
+    }
+
+    /**
+     * Get the last computed plan.
+     *
+     * @return the best plan computed so far. {@code null} if no plan has been computed yet
+     */
+    public ReconfigurationPlan getLastPlan() {
+        return last;
+    }
+
+    /**
+     * Cancel the solving process.
+     * The solver stops as soon as possible, in the same way as with
+     * {@link ChocoReconfigurationAlgorithm#cancel()}. A cancellation that occurs
+     * before the start of the task or after its termination does not impact
+     * the other solving processes of the algorithm.
+     */
+    public void cancel() {
+        cancelled = true;
+        flag.set(true);
+    }
+
+    /**
+     * Indicate if the task has been cancelled.
+     *
+     * @return {@code true} iff {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Indicate if the solving process is terminated.
+     *
+     * @return {@code true} iff the process is terminated
+     */
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Wait for the termination of the solving process.
+     *
+     * @return the final plan, {@code null} if there is no solution or if the task was cancelled
+     * before computing any plan. Use {@link #isCancelled()} to distinguish these cases
+     * @throws SolverException      if an error occurred while solving
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public ReconfigurationPlan get() throws SolverException, InterruptedException {
+        done.await();
+        if (error != null) {
+            throw error;
+        }
+        return result;
+    }
+
+    /**
+     * Wait for the termination of the solving process for a bounded amount of time.
+     *
+     * @param timeout the maximum duration to wait
+     * @param unit    the unit of the timeout
+     * @return the final plan, {@code null} if there is no solution, if the task was cancelled before computing
+     *         any plan or if the process is not terminated in time
+     * @throws SolverException      if an error occurred while solving
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public ReconfigurationPlan get(long timeout, TimeUnit unit) throws SolverException, InterruptedException {
+        if (!done.await(timeout, unit)) {
+            return null;
+        }
+        if (error != null) {
+            throw error;
+        }
+        return result;
+    }
+}
@@ -18,10 +18,14 @@
 
 package btrplace.solver.choco.actionModel;
 
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.solver.choco.ReconfigurationProblem;
 import btrplace.solver.choco.Slice;
 import choco.kernel.solver.variables.integer.IntDomainVar;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -155,4 +159,30 @@ public final class ActionModelUtils {
         }
         return starts;
     }
+
+    /**
+     * Get the models of the actions that may be executed on given VMs and nodes.
+     * A model having a duration that is necessarily equals to {@code 0} is ignored.
+     *
+     * @param rp    the problem
+     * @param vms   the VMs
+     * @param nodes the nodes
+     * @return a list of models that may be empty
+     */
+    public static List<ActionModel> getPossibleActions(ReconfigurationProblem rp, Collection<VM> vms, Collection<Node> nodes) {
+        List<ActionModel> l = new ArrayList<>();
+        for (VM vm : vms) {
+            ActionModel a = rp.getVMAction(vm);
+            if (a != null && a.getDuration().getSup() > 0) {
+                l.add(a);
+            }
+        }
+        for (Node n : nodes) {
+            ActionModel a = rp.getNodeAction(n);
+            if (a != null && a.getDuration().getSup() > 0) {
+                l.add(a);
+            }
+        }
+        return l;
+    }
 }
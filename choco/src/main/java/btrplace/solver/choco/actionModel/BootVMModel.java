@@ -67,7 +67,7 @@ public class BootVMModel implements VMActionModel {
     public BootVMModel(ReconfigurationProblem rp, VM e) throws SolverException {
         vm = e;
 
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), BootVM.class, e);
+        int d = rp.getActionDuration(BootVM.class, e);
         this.rp = rp;
         start = rp.makeDuration(rp.getEnd().getSup() - d, 0, "bootVM(", e, ").start");
         end = new IntDomainVarAddCste(rp.getSolver(), rp.makeVarLabel("bootVM(", e, ").end"), start, d);
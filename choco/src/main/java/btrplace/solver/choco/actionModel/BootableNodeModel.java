@@ -99,7 +99,7 @@ public class BootableNodeModel implements NodeActionModel {
     public BootableNodeModel(ReconfigurationProblem rp, Node nId) throws SolverException {
         node = nId;
 
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), BootNode.class, nId);
+        int d = rp.getActionDuration(BootNode.class, nId);
         CPSolver s = rp.getSolver();
 
         /*
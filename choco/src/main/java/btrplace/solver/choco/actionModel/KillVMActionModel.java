@@ -70,7 +70,7 @@ public class KillVMActionModel implements VMActionModel {
         node = map.getVMLocation(vm);
         state = rp.getSolver().makeConstantIntVar(0);
 
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), KillVM.class, e);
+        int d = rp.getActionDuration(KillVM.class, e);
 
         if (map.getRunningVMs().contains(vm)) {
             cSlice = new SliceBuilder(rp, e, "killVM('" + e + "').cSlice")
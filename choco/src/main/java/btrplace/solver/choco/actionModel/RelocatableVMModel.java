@@ -27,7 +27,6 @@ import btrplace.solver.choco.ReconfigurationProblem;
 import btrplace.solver.choco.Slice;
 import btrplace.solver.choco.SliceBuilder;
 import btrplace.solver.choco.chocoUtil.ChocoUtils;
-import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
 import choco.cp.solver.CPSolver;
 import choco.cp.solver.constraints.integer.channeling.BooleanChanneling;
 import choco.cp.solver.constraints.reified.ReifiedFactory;
@@ -124,7 +123,7 @@ public class RelocatableVMModel implements KeepRunningVMModel {
 
         if (!getRelocationMethod().isInstantiated()) {
             //TODO: not very compliant with the ForgeActionModel but forge is useless for the moment
-            int forgeD = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), ForgeVM.class, vm);
+            int forgeD = rp.getActionDuration(ForgeVM.class, vm);
             s.post(s.geq(this.dSlice.getStart(), ChocoUtils.mult(s, method, forgeD)));
 
             s.post(new BooleanChanneling(method, duration, reInstantiateDuration));
@@ -135,13 +134,12 @@ public class RelocatableVMModel implements KeepRunningVMModel {
     private void prepareRelocationMethod() throws SolverException {
         Model mo = rp.getSourceModel();
         Boolean cloneable = mo.getAttributes().getBoolean(vm, "clone");
-        DurationEvaluators dev = rp.getDurationEvaluators();
         CPSolver s = rp.getSolver();
-        int migrateDuration = dev.evaluate(rp.getSourceModel(), MigrateVM.class, vm);
+        int migrateDuration = rp.getActionDuration(MigrateVM.class, vm);
         if (Boolean.TRUE.equals(cloneable) && mo.getAttributes().isSet(vm, "template")) {
             method = rp.getSolver().createBooleanVar(rp.makeVarLabel("relocation_method(", vm, ")"));
-            int bootDuration = dev.evaluate(rp.getSourceModel(), BootVM.class, vm);
-            int shutdownDuration = dev.evaluate(rp.getSourceModel(), ShutdownVM.class, vm);
+            int bootDuration = rp.getActionDuration(BootVM.class, vm);
+            int shutdownDuration = rp.getActionDuration(ShutdownVM.class, vm);
             reInstantiateDuration = bootDuration + shutdownDuration;
             duration = s.createEnumIntVar(rp.makeVarLabel("relocatable(", vm, ").duration"),
                     new int[]{0, Math.min(migrateDuration, reInstantiateDuration),
@@ -154,7 +152,6 @@ public class RelocatableVMModel implements KeepRunningVMModel {
 
     @Override
     public boolean insertActions(ReconfigurationPlan plan) {
-        DurationEvaluators dev = rp.getDurationEvaluators();
         if (cSlice.getHoster().getVal() != dSlice.getHoster().getVal()) {
             Action a;
             Node dst = rp.getNode(dSlice.getHoster().getVal());
@@ -170,12 +167,12 @@ public class RelocatableVMModel implements KeepRunningVMModel {
                         rp.getLogger().error("Unable to get a new int to plan the re-instantiate of VM {}", vm);
                         return false;
                     }
-                    ForgeVM fvm = new ForgeVM(newVM, dSlice.getStart().getVal() - dev.evaluate(rp.getSourceModel(), ForgeVM.class, vm), dSlice.getStart().getVal());
+                    ForgeVM fvm = new ForgeVM(newVM, dSlice.getStart().getVal() - rp.getActionDuration(ForgeVM.class, vm), dSlice.getStart().getVal());
                     //forge the new VM from a template
                     plan.add(fvm);
                     //Boot the new VM
                     int endForging = fvm.getEnd();
-                    BootVM boot = new BootVM(newVM, dst, endForging, endForging + dev.evaluate(rp.getSourceModel(), BootVM.class, newVM));
+                    BootVM boot = new BootVM(newVM, dst, endForging, endForging + rp.getActionDuration(BootVM.class, newVM));
                     boot.addEvent(Action.Hook.pre, new SubstitutedVMEvent(vm, newVM));
                     return plan.add(boot) && plan.add(new ShutdownVM(vm, src, boot.getEnd(), cSlice.getEnd().getVal()));
                 } catch (SolverException ex) {
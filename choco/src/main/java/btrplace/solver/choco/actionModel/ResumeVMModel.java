@@ -68,7 +68,7 @@ public class ResumeVMModel implements VMActionModel {
         this.rp = rp;
         this.vm = e;
 
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), ResumeVM.class, e);
+        int d = rp.getActionDuration(ResumeVM.class, e);
 
         start = rp.makeDuration(rp.getEnd().getSup() - d, 0, "resumeVM(", e, ").start");
         end = new IntDomainVarAddCste(rp.getSolver(), rp.makeVarLabel("resumeVM(", e, ").end"), start, d);
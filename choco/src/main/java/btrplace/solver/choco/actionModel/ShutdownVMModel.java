@@ -64,7 +64,7 @@ public class ShutdownVMModel implements VMActionModel {
         this.rp = rp;
         this.vm = e;
 
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), ShutdownVM.class, e);
+        int d = rp.getActionDuration(ShutdownVM.class, e);
         assert d > 0;
         duration = rp.makeDuration(d, d, "shutdownVM(", e, ").duration");
         this.cSlice = new SliceBuilder(rp, e, "shutdownVM(" + e + ").cSlice").setHoster(rp.getCurrentVMLocation(rp.getVM(e)))
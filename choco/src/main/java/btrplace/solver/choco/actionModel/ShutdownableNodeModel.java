@@ -116,7 +116,7 @@ public class ShutdownableNodeModel implements NodeActionModel {
         * D = {0, d}
         * D = St * d;
         */
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), ShutdownNode.class, e);
+        int d = rp.getActionDuration(ShutdownNode.class, e);
         duration = s.createEnumIntVar(rp.makeVarLabel("shutdownableNode(", e, ").duration"), new int[]{0, d});
         s.post(new BooleanChanneling(isOnline, duration, 0));
 
@@ -65,7 +65,7 @@ public class SuspendVMModel implements VMActionModel {
         this.rp = rp;
         this.vm = e;
 
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), SuspendVM.class, e);
+        int d = rp.getActionDuration(SuspendVM.class, e);
 
         duration = rp.makeDuration(d, d, "suspendVM(", e, ").duration");
         this.cSlice = new SliceBuilder(rp, e, "suspendVM(" + e + ").cSlice").setHoster(rp.getCurrentVMLocation(rp.getVM(e)))
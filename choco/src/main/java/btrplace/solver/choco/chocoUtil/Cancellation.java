@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco.chocoUtil;
+
+import choco.cp.solver.variables.integer.IntVarEvent;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.constraints.integer.AbstractLargeIntSConstraint;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A constraint to interrupt a running search from another thread.
+ * <p/>
+ * The constraint is satisfied as long as the shared flag is not raised.
+ * Once raised, the next instantiation of one of the watched variables leads
+ * to a failure so the solver exhausts the remaining search space quickly while
+ * keeping the solutions already computed.
+ * <p/>
+ * The search is not interrupted but drained: every remaining alternative of the
+ * decisions taken so far is still tried and immediately rejected. The solver then
+ * terminates as if the search space was fully explored, so the cancellation must be
+ * checked using the flag to tell a drained search from a completed one.
+ *
+ * @author Fabien Hermenier
+ */
+public class Cancellation extends AbstractLargeIntSConstraint {
+
+    private AtomicBoolean cancelled;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param vs   the variables that are instantiated during the search
+     * @param flag the flag to raise to cancel the search
+     */
+    public Cancellation(IntDomainVar[] vs, AtomicBoolean flag) {
+        super(vs);
+        this.cancelled = flag;
+    }
+
+    @Override
+    public int getFilteredEventMask(int idx) {
+        return IntVarEvent.INSTINT_MASK;
+    }
+
+    @Override
+    public void awake() throws ContradictionException {
+        propagate();
+    }
+
+    @Override
+    public void awakeOnInst(int idx) throws ContradictionException {
+        propagate();
+    }
+
+    @Override
+    public void propagate() throws ContradictionException {
+        if (cancelled.get()) {
+            fail();
+        }
+    }
+
+    @Override
+    public boolean isSatisfied(int[] tuple) {
+        return true;
+    }
+}
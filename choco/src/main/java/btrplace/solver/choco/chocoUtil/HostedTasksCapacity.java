@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.chocoUtil;
+
+import choco.cp.solver.variables.integer.IntVarEvent;
+import choco.kernel.common.util.tools.ArrayUtils;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.constraints.integer.AbstractLargeIntSConstraint;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.Arrays;
+
+/**
+ * A constraint to restrict the number of tasks that are executed simultaneously on each host.
+ * <p/>
+ * Each task is denoted by a host variable, a start variable and a duration variable.
+ * A task with a duration equals to {@code 0} is not executed.
+ * The number of tasks executed at a same moment on a host cannot exceed the capacity of the host.
+ * <p/>
+ * The filtering is a time-table restricted to the tasks having an instantiated host.
+ * A host is only inspected when the number of tasks it executes is greater than its capacity,
+ * so the constraint can be posted over a large number of hosts. The host variables are not
+ * filtered as it is always possible to delay a task.
+ *
+ * @author Fabien Hermenier
+ */
+public class HostedTasksCapacity extends AbstractLargeIntSConstraint {
+
+    /**
+     * The capacity of a host that is not restricted.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private int nbTasks;
+
+    private int[] capacities;
+
+    /**
+     * First task executed on each host. {@code -1} if none.
+     */
+    private int[] heads;
+
+    /**
+     * Next task executed on the same host. {@code -1} if none.
+     */
+    private int[] nexts;
+
+    private int[] counts;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param hosts      the host of each task
+     * @param starts     the start moment of each task
+     * @param durations  the duration of each task
+     * @param capacities the maximum number of tasks executed simultaneously on each host.
+     *                   {@link #UNBOUNDED} for no restriction
+     */
+    public HostedTasksCapacity(IntDomainVar[] hosts, IntDomainVar[] starts, IntDomainVar[] durations, int[] capacities) {
+        super(ArrayUtils.append(hosts, starts, durations));
+        this.nbTasks = hosts.length;
+        this.capacities = capacities;
+        this.heads = new int[capacities.length];
+        this.counts = new int[capacities.length];
+        this.nexts = new int[nbTasks];
+    }
+
+    @Override
+    public int getFilteredEventMask(int idx) {
+        if (idx < nbTasks) {
+            return IntVarEvent.INSTINT_MASK;
+        } else if (idx < 2 * nbTasks) {
+            return IntVarEvent.INSTINT_MASK + IntVarEvent.INCINF_MASK + IntVarEvent.DECSUP_MASK;
+        }
+        return IntVarEvent.INSTINT_MASK + IntVarEvent.INCINF_MASK;
+    }
+
+    private IntDomainVar host(int i) {
+        return vars[i];
+    }
+
+    private IntDomainVar start(int i) {
+        return vars[nbTasks + i];
+    }
+
+    private IntDomainVar duration(int i) {
+        return vars[2 * nbTasks + i];
+    }
+
+    @Override
+    public void awake() throws ContradictionException {
+        propagate();
+    }
+
+    @Override
+    public void propagate() throws ContradictionException {
+        Arrays.fill(heads, -1);
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < nbTasks; i++) {
+            if (host(i).isInstantiated() && duration(i).getInf() > 0) {
+                int h = host(i).getVal();
+                if (capacities[h] != UNBOUNDED) {
+                    nexts[i] = heads[h];
+                    heads[h] = i;
+                    counts[h]++;
+                }
+            }
+        }
+        for (int h = 0; h < capacities.length; h++) {
+            if (counts[h] > capacities[h]) {
+                filter(h);
+            }
+        }
+    }
+
+    /**
+     * Filter the start of the tasks executed on a given host.
+     *
+     * @param h the host index
+     * @throws ContradictionException if the host is overloaded
+     */
+    private void filter(int h) throws ContradictionException {
+        int[] tasks = new int[counts[h]];
+        int nb = 0;
+        for (int i = heads[h]; i >= 0; i = nexts[i]) {
+            tasks[nb++] = i;
+        }
+
+        //The compulsory parts
+        int[] cStarts = new int[nb];
+        int[] cEnds = new int[nb];
+        int[] bounds = new int[2 * nb];
+        int nbBounds = 0;
+        for (int x = 0; x < nb; x++) {
+            int i = tasks[x];
+            cStarts[x] = start(i).getSup();
+            cEnds[x] = start(i).getInf() + duration(i).getInf();
+            if (cStarts[x] < cEnds[x]) {
+                bounds[nbBounds++] = cStarts[x];
+                bounds[nbBounds++] = cEnds[x];
+            }
+        }
+
+        //The saturated segments of the profile
+        Arrays.sort(bounds, 0, nbBounds);
+        int capa = capacities[h];
+        int[] segStarts = new int[nbBounds];
+        int[] segEnds = new int[nbBounds];
+        int nbSegments = 0;
+        for (int b = 0; b + 1 < nbBounds; b++) {
+            if (bounds[b] == bounds[b + 1]) {
+                continue;
+            }
+            int l = 0;
+            for (int x = 0; x < nb; x++) {
+                if (cStarts[x] <= bounds[b] && bounds[b + 1] <= cEnds[x]) {
+                    l++;
+                }
+            }
+            if (l > capa) {
+                fail();
+            }
+            if (l == capa) {
+                segStarts[nbSegments] = bounds[b];
+                segEnds[nbSegments] = bounds[b + 1];
+                nbSegments++;
+            }
+        }
+
+        //A task cannot overlap a saturated segment, unless the task contributes to it
+        for (int x = 0; x < nb; x++) {
+            int i = tasks[x];
+            int d = duration(i).getInf();
+            int est = start(i).getInf();
+            int lst = start(i).getSup();
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                for (int s = 0; s < nbSegments; s++) {
+                    if (segStarts[s] < est + d && est < segEnds[s] && !(cStarts[x] <= segStarts[s] && segEnds[s] <= cEnds[x])) {
+                        est = segEnds[s];
+                        moved = true;
+                    }
+                }
+            }
+            moved = true;
+            while (moved) {
+                moved = false;
+                for (int s = nbSegments - 1; s >= 0; s--) {
+                    if (segStarts[s] < lst + d && lst < segEnds[s] && !(cStarts[x] <= segStarts[s] && segEnds[s] <= cEnds[x])) {
+                        lst = segStarts[s] - d;
+                        moved = true;
+                    }
+                }
+            }
+            start(i).setInf(est);
+            start(i).setSup(lst);
+        }
+    }
+
+    @Override
+    public void awakeOnInf(int idx) throws ContradictionException {
+        constAwake(false);
+    }
+
+    @Override
+    public void awakeOnSup(int idx) throws ContradictionException {
+        constAwake(false);
+    }
+
+    @Override
+    public void awakeOnInst(int idx) throws ContradictionException {
+        constAwake(false);
+    }
+
+    @Override
+    public boolean isSatisfied(int[] tuple) {
+        for (int i = 0; i < nbTasks; i++) {
+            int h = tuple[i];
+            if (tuple[2 * nbTasks + i] == 0 || capacities[h] == UNBOUNDED) {
+                continue;
+            }
+            int t = tuple[nbTasks + i];
+            int l = 0;
+            for (int j = 0; j < nbTasks; j++) {
+                int st = tuple[nbTasks + j];
+                if (tuple[j] == h && st <= t && t < st + tuple[2 * nbTasks + j]) {
+                    l++;
+                }
+            }
+            if (l > capacities[h]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String pretty() {
+        StringBuilder b = new StringBuilder("hostedTasksCapacity(").append(Arrays.toString(capacities)).append(", [");
+        for (int i = 0; i < nbTasks; i++) {
+            if (i > 0) {
+                b.append(", ");
+            }
+            b.append('<').append(host(i).pretty()).append(", ").append(start(i).pretty())
+                    .append(", ").append(duration(i).pretty()).append('>');
+        }
+        return b.append("])").toString();
+    }
+}
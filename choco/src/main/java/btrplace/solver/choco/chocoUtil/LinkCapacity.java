@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.chocoUtil;
+
+import choco.cp.solver.variables.integer.IntVarEvent;
+import choco.kernel.common.util.tools.ArrayUtils;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.constraints.integer.AbstractLargeIntSConstraint;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.Arrays;
+
+/**
+ * A cumulative constraint to restrict the bandwidth consumed over the time on the links of a network.
+ * <p/>
+ * Each task is a transfer from a fixed source host to a destination host denoted by a variable.
+ * The task has a fixed duration, a start variable and a rate. A task whose destination is its
+ * source does not transfer anything. Otherwise, it consumes its rate, bounded by the link capacity,
+ * on every link it crosses: the outgoing link of its source, the incoming link of its destination,
+ * and when the two hosts are not connected to the same switch, the uplink of the switch of the
+ * source and the downlink of the switch of the destination. A host connected to no switch is
+ * directly connected to the core. The sum of the rates of the tasks that cross a link at a same
+ * moment cannot exceed its capacity.
+ * <p/>
+ * The filtering is a time-table restricted to the tasks that necessarily cross a link:
+ * the tasks having an instantiated destination, and the tasks that cannot stay on their source
+ * for its outgoing link. The tasks are indexed by link and a link is only inspected when the
+ * rates of its tasks exceed its capacity, so a single constraint handles the whole network.
+ * The destinations are not filtered as it is always possible to delay a task.
+ *
+ * @author Fabien Hermenier
+ */
+public class LinkCapacity extends AbstractLargeIntSConstraint {
+
+    private int nbTasks;
+
+    private int nbHosts;
+
+    private int[] durations;
+
+    private int[] sources;
+
+    private int[] rates;
+
+    private int[] switchOf;
+
+    /**
+     * The capacity of each link. For a host {@code h}, the outgoing link is {@code 2h} and
+     * the incoming link is {@code 2h + 1}. For a switch {@code s}, the uplink is
+     * {@code 2 * nbHosts + 2s} and the downlink is {@code 2 * nbHosts + 2s + 1}.
+     */
+    private int[] capacities;
+
+    /**
+     * First entry of each link. {@code -1} if none.
+     */
+    private int[] heads;
+
+    /**
+     * The sum of the rates of the tasks of each link.
+     */
+    private int[] loads;
+
+    /**
+     * The task associated to each entry.
+     */
+    private int[] entries;
+
+    /**
+     * Next entry of the same link. {@code -1} if none.
+     */
+    private int[] nexts;
+
+    private int nbEntries;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param hosts        the destination host of each task
+     * @param starts       the start moment of each task
+     * @param durations    the duration of each task
+     * @param sources      the source host of each task
+     * @param rates        the bandwidth consumed by each task on each link it crosses
+     * @param hostCapas    the capacity of the network interface of each host, in each direction
+     * @param switchOf     the switch each host is connected to. {@code -1} for the core
+     * @param switchCapas  the capacity of the uplink of each switch, in each direction
+     */
+    public LinkCapacity(IntDomainVar[] hosts, IntDomainVar[] starts, int[] durations,
+                        int[] sources, int[] rates,
+                        int[] hostCapas, int[] switchOf, int[] switchCapas) {
+        super(ArrayUtils.append(hosts, starts));
+        this.nbTasks = hosts.length;
+        this.nbHosts = hostCapas.length;
+        this.durations = durations;
+        this.sources = sources;
+        this.rates = rates;
+        this.switchOf = switchOf;
+        capacities = new int[2 * nbHosts + 2 * switchCapas.length];
+        for (int h = 0; h < nbHosts; h++) {
+            capacities[2 * h] = hostCapas[h];
+            capacities[2 * h + 1] = hostCapas[h];
+        }
+        for (int s = 0; s < switchCapas.length; s++) {
+            capacities[2 * nbHosts + 2 * s] = switchCapas[s];
+            capacities[2 * nbHosts + 2 * s + 1] = switchCapas[s];
+        }
+        heads = new int[capacities.length];
+        loads = new int[capacities.length];
+        entries = new int[4 * nbTasks];
+        nexts = new int[4 * nbTasks];
+    }
+
+    @Override
+    public int getFilteredEventMask(int idx) {
+        if (idx < nbTasks) {
+            return IntVarEvent.INSTINT_MASK;
+        }
+        return IntVarEvent.INSTINT_MASK + IntVarEvent.INCINF_MASK + IntVarEvent.DECSUP_MASK;
+    }
+
+    private IntDomainVar host(int i) {
+        return vars[i];
+    }
+
+    private IntDomainVar start(int i) {
+        return vars[nbTasks + i];
+    }
+
+    /**
+     * Get the links crossed by a transfer.
+     *
+     * @param src   the source host
+     * @param dst   the destination host, different from the source
+     * @param links the array to fill, with at least 4 cells
+     * @return the number of links
+     */
+    private int getLinks(int src, int dst, int[] links) {
+        int nb = 0;
+        links[nb++] = 2 * src;
+        links[nb++] = 2 * dst + 1;
+        int from = switchOf[src];
+        int to = switchOf[dst];
+        if (from != to) {
+            if (from >= 0) {
+                links[nb++] = 2 * nbHosts + 2 * from;
+            }
+            if (to >= 0) {
+                links[nb++] = 2 * nbHosts + 2 * to + 1;
+            }
+        }
+        return nb;
+    }
+
+    private int height(int i, int l) {
+        return Math.min(rates[i], capacities[l]);
+    }
+
+    private void index(int i, int l) {
+        entries[nbEntries] = i;
+        nexts[nbEntries] = heads[l];
+        heads[l] = nbEntries++;
+        loads[l] += height(i, l);
+    }
+
+    @Override
+    public void awake() throws ContradictionException {
+        propagate();
+    }
+
+    @Override
+    public void propagate() throws ContradictionException {
+        Arrays.fill(heads, -1);
+        Arrays.fill(loads, 0);
+        nbEntries = 0;
+        int[] links = new int[4];
+        for (int i = 0; i < nbTasks; i++) {
+            if (durations[i] == 0 || rates[i] == 0) {
+                continue;
+            }
+            IntDomainVar h = host(i);
+            if (h.isInstantiated()) {
+                if (h.getVal() != sources[i]) {
+                    int nb = getLinks(sources[i], h.getVal(), links);
+                    for (int x = 0; x < nb; x++) {
+                        index(i, links[x]);
+                    }
+                }
+            } else if (!h.canBeInstantiatedTo(sources[i])) {
+                //The task necessarily leaves its source
+                index(i, 2 * sources[i]);
+            }
+        }
+        for (int l = 0; l < capacities.length; l++) {
+            if (loads[l] > capacities[l]) {
+                filter(l);
+            }
+        }
+    }
+
+    /**
+     * Filter the start of the tasks that cross a given link.
+     *
+     * @param l the link index
+     * @throws ContradictionException if the link is overloaded
+     */
+    private void filter(int l) throws ContradictionException {
+        int nb = 0;
+        for (int e = heads[l]; e >= 0; e = nexts[e]) {
+            nb++;
+        }
+        int[] tasks = new int[nb];
+        nb = 0;
+        for (int e = heads[l]; e >= 0; e = nexts[e]) {
+            tasks[nb++] = entries[e];
+        }
+
+        //The compulsory parts
+        int[] cStarts = new int[nb];
+        int[] cEnds = new int[nb];
+        int[] bounds = new int[2 * nb];
+        int nbBounds = 0;
+        for (int x = 0; x < nb; x++) {
+            int i = tasks[x];
+            cStarts[x] = start(i).getSup();
+            cEnds[x] = start(i).getInf() + durations[i];
+            if (cStarts[x] < cEnds[x]) {
+                bounds[nbBounds++] = cStarts[x];
+                bounds[nbBounds++] = cEnds[x];
+            }
+        }
+
+        //The profile, as a list of consecutive segments
+        Arrays.sort(bounds, 0, nbBounds);
+        int capa = capacities[l];
+        int[] segStarts = new int[nbBounds];
+        int[] segEnds = new int[nbBounds];
+        int[] segLoads = new int[nbBounds];
+        int nbSegments = 0;
+        for (int b = 0; b + 1 < nbBounds; b++) {
+            if (bounds[b] == bounds[b + 1]) {
+                continue;
+            }
+            int load = 0;
+            for (int x = 0; x < nb; x++) {
+                if (cStarts[x] <= bounds[b] && bounds[b + 1] <= cEnds[x]) {
+                    load += height(tasks[x], l);
+                }
+            }
+            if (load > capa) {
+                fail();
+            }
+            if (load > 0) {
+                segStarts[nbSegments] = bounds[b];
+                segEnds[nbSegments] = bounds[b + 1];
+                segLoads[nbSegments] = load;
+                nbSegments++;
+            }
+        }
+
+        //A task cannot overlap a segment where it does not fit
+        for (int x = 0; x < nb; x++) {
+            int i = tasks[x];
+            int d = durations[i];
+            int ht = height(i, l);
+            int est = start(i).getInf();
+            int lst = start(i).getSup();
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                for (int s = 0; s < nbSegments; s++) {
+                    if (segStarts[s] < est + d && est < segEnds[s]
+                            && loadWithout(x, ht, s, cStarts, cEnds, segStarts, segEnds, segLoads) + ht > capa) {
+                        est = segEnds[s];
+                        moved = true;
+                    }
+                }
+            }
+            moved = true;
+            while (moved) {
+                moved = false;
+                for (int s = nbSegments - 1; s >= 0; s--) {
+                    if (segStarts[s] < lst + d && lst < segEnds[s]
+                            && loadWithout(x, ht, s, cStarts, cEnds, segStarts, segEnds, segLoads) + ht > capa) {
+                        lst = segStarts[s] - d;
+                        moved = true;
+                    }
+                }
+            }
+            start(i).setInf(est);
+            start(i).setSup(lst);
+        }
+    }
+
+    /**
+     * Get the load of a segment, without the contribution of a given task.
+     */
+    private static int loadWithout(int x, int ht, int s, int[] cStarts, int[] cEnds, int[] segStarts, int[] segEnds, int[] segLoads) {
+        if (cStarts[x] <= segStarts[s] && segEnds[s] <= cEnds[x]) {
+            return segLoads[s] - ht;
+        }
+        return segLoads[s];
+    }
+
+    @Override
+    public void awakeOnInf(int idx) throws ContradictionException {
+        constAwake(false);
+    }
+
+    @Override
+    public void awakeOnSup(int idx) throws ContradictionException {
+        constAwake(false);
+    }
+
+    @Override
+    public void awakeOnInst(int idx) throws ContradictionException {
+        constAwake(false);
+    }
+
+    @Override
+    public boolean isSatisfied(int[] tuple) {
+        int[] links = new int[4];
+        int[] others = new int[4];
+        for (int i = 0; i < nbTasks; i++) {
+            if (durations[i] == 0 || tuple[i] == sources[i]) {
+                continue;
+            }
+            int t = tuple[nbTasks + i];
+            int nb = getLinks(sources[i], tuple[i], links);
+            for (int x = 0; x < nb; x++) {
+                int load = 0;
+                for (int j = 0; j < nbTasks; j++) {
+                    int st = tuple[nbTasks + j];
+                    if (tuple[j] == sources[j] || st > t || t >= st + durations[j]) {
+                        continue;
+                    }
+                    int nbOthers = getLinks(sources[j], tuple[j], others);
+                    for (int y = 0; y < nbOthers; y++) {
+                        if (others[y] == links[x]) {
+                            load += height(j, links[x]);
+                        }
+                    }
+                }
+                if (load > capacities[links[x]]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String pretty() {
+        StringBuilder b = new StringBuilder("linkCapacity([");
+        for (int i = 0; i < nbTasks; i++) {
+            if (i > 0) {
+                b.append(", ");
+            }
+            b.append('<').append(sources[i]).append("->").append(host(i).pretty()).append(", ").append(start(i).pretty())
+                    .append(", d=").append(durations[i]).append(", r=").append(rates[i]).append('>');
+        }
+        return b.append("])").toString();
+    }
+}
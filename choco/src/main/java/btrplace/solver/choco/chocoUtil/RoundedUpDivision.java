@@ -6,43 +6,57 @@ import choco.kernel.solver.constraints.integer.AbstractBinIntSConstraint;
 import choco.kernel.solver.variables.integer.IntDomainVar;
 
 /**
- * A constraint to enforce {@code a == b / q} where {@code q} is a real and {@code a} and {@code b} are
- * both integers.
+ * A constraint to enforce {@code a == b / q} where {@code q} is a ratio expressed in fixed-point
+ * and {@code a} and {@code b} are both integers. The ratio is {@code q = num / den}
+ * so the propagation only relies on integer arithmetic.
  * The division is rounded up to the smallest integer.
  * <p/>
  * In practice, the constraint maintains:
  * <ul>
- * <li>{@code a = Math.ceil(b / q)}</li>
- * <li>{@code b = ((a - 1 )* q) % 1 == 0 ? [(a - 1)*q + 1; Math.floor(a * q)] : [Math.ceil((a -1)*q); Math.floor(a * q)]}</li>
+ * <li>{@code a = ceil(b * den / num)}</li>
+ * <li>{@code b = [floor((a - 1) * num / den) + 1; floor(a * num / den)]}</li>
  * </ul>
  *
  * @author Fabien Hermenier
  */
 public class RoundedUpDivision extends AbstractBinIntSConstraint {
 
-    private double q;
+    private int num;
+
+    private int den;
 
     private IntDomainVar a, b;
 
     /**
      * Make a new constraint.
+     *
+     * @param a   the result of the division
+     * @param b   the dividend
+     * @param num the numerator of the divisor. Strictly positive
+     * @param den the denominator of the divisor. Strictly positive
      */
-    public RoundedUpDivision(IntDomainVar a, IntDomainVar b, double q) {
+    public RoundedUpDivision(IntDomainVar a, IntDomainVar b, int num, int den) {
         super(a, b);
         this.a = a;
         this.b = b;
-        this.q = q;
+        this.num = num;
+        this.den = den;
+    }
+
+    private static int floorDiv(long x, long y) {
+        return (int) (x >= 0 ? x / y : -((-x + y - 1) / y));
     }
 
     private int div(int b) {
-        return (int) Math.ceil((double) b / q);
+        return -floorDiv(-(long) b * den, num);
     }
 
     private int multLB(int a) {
-        if ((a - 1 * q) % 1 == 0) {
-            return (int) ((a - 1) * q + 1);
-        }
-        return (int) Math.ceil(q * (a - 1));
+        return floorDiv((long) (a - 1) * num, den) + 1;
+    }
+
+    private int multUB(int a) {
+        return floorDiv((long) a * num, den);
     }
 
     @Override
@@ -76,7 +90,7 @@ public class RoundedUpDivision extends AbstractBinIntSConstraint {
         if (i == 1) {
             a.setSup(div(b.getSup()));
         } else {
-            b.setSup((int) Math.floor(q * a.getSup()));
+            b.setSup(multUB(a.getSup()));
         }
         constAwake(false);
     }
@@ -87,19 +101,19 @@ public class RoundedUpDivision extends AbstractBinIntSConstraint {
             a.setVal(div(b.getVal()));
         } else {
             b.setInf(multLB(a.getInf()));
-            b.setSup((int) Math.floor(q * a.getSup()));
+            b.setSup(multUB(a.getSup()));
         }
         constAwake(false);
     }
 
     @Override
     public boolean isSatisfied(int[] vals) {
-        return vals[0] == (int) Math.ceil((double) vals[1] / q);
+        return vals[0] == div(vals[1]);
     }
 
     @Override
     public String pretty() {
-        return new StringBuilder(a.pretty()).append(" = ").append(b.pretty()).append('/').append(q).toString();
+        return new StringBuilder(a.pretty()).append(" = ").append(b.pretty()).append(" * ").append(den).append(" / ").append(num).toString();
     }
 
     @Override
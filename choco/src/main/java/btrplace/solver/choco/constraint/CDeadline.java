@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.Model;
+import btrplace.model.VM;
+import btrplace.model.constraint.Deadline;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.ActionModel;
+import btrplace.solver.choco.actionModel.ActionModelUtils;
+import choco.cp.solver.CPSolver;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Choco implementation of {@link btrplace.model.constraint.Deadline}.
+ * <p/>
+ * The end of every action model of the involved VMs and nodes is bounded by the deadline.
+ * When an action model does not lead to an action, its end is free so the restriction
+ * is harmless.
+ *
+ * @author Fabien Hermenier
+ */
+public class CDeadline implements ChocoSatConstraint {
+
+    private Deadline cstr;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param c the constraint to rely on
+     */
+    public CDeadline(Deadline c) {
+        cstr = c;
+    }
+
+    @Override
+    public boolean inject(ReconfigurationProblem rp) throws SolverException {
+        CPSolver s = rp.getSolver();
+        for (ActionModel a : ActionModelUtils.getPossibleActions(rp, cstr.getInvolvedVMs(), cstr.getInvolvedNodes())) {
+            s.post(s.leq(a.getEnd(), cstr.getDeadline()));
+        }
+        return true;
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public String toString() {
+        return cstr.toString();
+    }
+
+    /**
+     * Builder associated to the constraint.
+     */
+    public static class Builder implements ChocoSatConstraintBuilder {
+        @Override
+        public Class<? extends SatConstraint> getKey() {
+            return Deadline.class;
+        }
+
+        @Override
+        public CDeadline build(SatConstraint cstr) {
+            return new CDeadline((Deadline) cstr);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.Model;
+import btrplace.model.VM;
+import btrplace.model.constraint.ForbiddenInterval;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.ActionModel;
+import btrplace.solver.choco.actionModel.ActionModelUtils;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.constraints.integer.bool.BooleanFactory;
+import choco.cp.solver.constraints.reified.ReifiedFactory;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Choco implementation of {@link btrplace.model.constraint.ForbiddenInterval}.
+ * <p/>
+ * Every action model of the involved VMs and nodes that leads to an action, i.e. having a non-null
+ * duration, must end before the interval or start after it.
+ *
+ * @author Fabien Hermenier
+ */
+public class CForbiddenInterval implements ChocoSatConstraint {
+
+    private ForbiddenInterval cstr;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param c the constraint to rely on
+     */
+    public CForbiddenInterval(ForbiddenInterval c) {
+        cstr = c;
+    }
+
+    @Override
+    public boolean inject(ReconfigurationProblem rp) throws SolverException {
+        CPSolver s = rp.getSolver();
+        for (ActionModel a : ActionModelUtils.getPossibleActions(rp, cstr.getInvolvedVMs(), cstr.getInvolvedNodes())) {
+            IntDomainVar before = s.createBooleanVar(rp.makeVarLabel("before(", a, ")"));
+            s.post(ReifiedFactory.builder(before, s.leq(a.getEnd(), cstr.getFrom()), s));
+            IntDomainVar after = s.createBooleanVar(rp.makeVarLabel("after(", a, ")"));
+            s.post(ReifiedFactory.builder(after, s.geq(a.getStart(), cstr.getTo()), s));
+            if (a.getDuration().getInf() > 0) {
+                s.post(BooleanFactory.or(s.getEnvironment(), before, after));
+            } else {
+                IntDomainVar idle = s.createBooleanVar(rp.makeVarLabel("idle(", a, ")"));
+                s.post(ReifiedFactory.builder(idle, s.eq(a.getDuration(), 0), s));
+                s.post(BooleanFactory.or(s.getEnvironment(), idle, before, after));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public String toString() {
+        return cstr.toString();
+    }
+
+    /**
+     * Builder associated to the constraint.
+     */
+    public static class Builder implements ChocoSatConstraintBuilder {
+        @Override
+        public Class<? extends SatConstraint> getKey() {
+            return ForbiddenInterval.class;
+        }
+
+        @Override
+        public CForbiddenInterval build(SatConstraint cstr) {
+            return new CForbiddenInterval((ForbiddenInterval) cstr);
+        }
+    }
+}
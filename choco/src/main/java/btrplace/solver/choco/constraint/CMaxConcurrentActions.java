@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.MaxConcurrentActions;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.Slice;
+import btrplace.solver.choco.actionModel.*;
+import btrplace.solver.choco.chocoUtil.HostedTasksCapacity;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Choco implementation of {@link btrplace.model.constraint.MaxConcurrentActions}.
+ * <p/>
+ * The incoming and the outgoing actions are restricted using one {@link HostedTasksCapacity}
+ * constraint each, that covers all the involved nodes at once.
+ * An action is hosted by the node hosting the d-slice (incoming action) or the
+ * c-slice (outgoing action) of its VM. A VM that stays on its node has a relocation
+ * duration equals to {@code 0} so it is not considered.
+ *
+ * @author Fabien Hermenier
+ */
+public class CMaxConcurrentActions implements ChocoSatConstraint {
+
+    private MaxConcurrentActions cstr;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param c the constraint to rely on
+     */
+    public CMaxConcurrentActions(MaxConcurrentActions c) {
+        cstr = c;
+    }
+
+    @Override
+    public boolean inject(ReconfigurationProblem rp) throws SolverException {
+        int[] in = new int[rp.getNodes().length];
+        int[] out = new int[rp.getNodes().length];
+        Arrays.fill(in, HostedTasksCapacity.UNBOUNDED);
+        Arrays.fill(out, HostedTasksCapacity.UNBOUNDED);
+        for (Node n : cstr.getInvolvedNodes()) {
+            int idx = rp.getNode(n);
+            if (idx >= 0) {
+                in[idx] = cstr.getMaxIncoming();
+                out[idx] = cstr.getMaxOutgoing();
+            }
+        }
+
+        List<VMActionModel> incoming = new ArrayList<>();
+        List<VMActionModel> outgoing = new ArrayList<>();
+        for (VMActionModel a : rp.getVMActions()) {
+            if (a.getDuration().getSup() == 0) {
+                continue;
+            }
+            if (a instanceof KeepRunningVMModel) {
+                if (mayBeHostedOn(a.getDSlice(), in)) {
+                    incoming.add(a);
+                }
+                if (mayBeHostedOn(a.getCSlice(), out)) {
+                    outgoing.add(a);
+                }
+            } else if ((a instanceof BootVMModel || a instanceof ResumeVMModel) && mayBeHostedOn(a.getDSlice(), in)) {
+                incoming.add(a);
+            } else if ((a instanceof ShutdownVMModel || a instanceof SuspendVMModel) && mayBeHostedOn(a.getCSlice(), out)) {
+                outgoing.add(a);
+            }
+        }
+        post(rp, incoming, true, in);
+        post(rp, outgoing, false, out);
+        return true;
+    }
+
+    /**
+     * Check if a slice may be hosted on a restricted node.
+     */
+    private static boolean mayBeHostedOn(Slice s, int[] capacities) {
+        IntDomainVar h = s.getHoster();
+        for (int v = h.getInf(); v <= h.getSup(); v = h.getNextDomainValue(v)) {
+            if (capacities[v] != HostedTasksCapacity.UNBOUNDED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void post(ReconfigurationProblem rp, List<VMActionModel> actions, boolean incoming, int[] capacities) {
+        if (actions.isEmpty()) {
+            return;
+        }
+        IntDomainVar[] hosts = new IntDomainVar[actions.size()];
+        IntDomainVar[] starts = new IntDomainVar[actions.size()];
+        IntDomainVar[] durations = new IntDomainVar[actions.size()];
+        for (int i = 0; i < hosts.length; i++) {
+            VMActionModel a = actions.get(i);
+            hosts[i] = incoming ? a.getDSlice().getHoster() : a.getCSlice().getHoster();
+            starts[i] = a.getStart();
+            durations[i] = a.getDuration();
+        }
+        rp.getSolver().post(new HostedTasksCapacity(hosts, starts, durations, capacities));
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public String toString() {
+        return cstr.toString();
+    }
+
+    /**
+     * Builder associated to the constraint.
+     */
+    public static class Builder implements ChocoSatConstraintBuilder {
+        @Override
+        public Class<? extends SatConstraint> getKey() {
+            return MaxConcurrentActions.class;
+        }
+
+        @Override
+        public CMaxConcurrentActions build(SatConstraint cstr) {
+            return new CMaxConcurrentActions((MaxConcurrentActions) cstr);
+        }
+    }
+}
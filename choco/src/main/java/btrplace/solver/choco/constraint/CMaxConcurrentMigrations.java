@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.Model;
+import btrplace.model.VM;
+import btrplace.model.constraint.MaxConcurrentMigrations;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.RelocatableVMModel;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import btrplace.solver.choco.chocoUtil.HostedTasksCapacity;
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Choco implementation of {@link btrplace.model.constraint.MaxConcurrentMigrations}.
+ * <p/>
+ * The migrations of all the {@link RelocatableVMModel} are restricted using a single
+ * {@link HostedTasksCapacity} constraint where every migration is hosted by a same resource.
+ * A VM that stays on its node has a relocation duration equals to {@code 0} so it is not considered.
+ *
+ * @author Fabien Hermenier
+ */
+public class CMaxConcurrentMigrations implements ChocoSatConstraint {
+
+    private MaxConcurrentMigrations cstr;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param c the constraint to rely on
+     */
+    public CMaxConcurrentMigrations(MaxConcurrentMigrations c) {
+        cstr = c;
+    }
+
+    @Override
+    public boolean inject(ReconfigurationProblem rp) throws SolverException {
+        List<VMActionModel> migrations = new ArrayList<>();
+        for (VMActionModel a : rp.getVMActions()) {
+            if (a instanceof RelocatableVMModel && a.getDuration().getSup() > 0) {
+                migrations.add(a);
+            }
+        }
+        if (migrations.size() <= cstr.getMax()) {
+            return true;
+        }
+        CPSolver s = rp.getSolver();
+        IntDomainVar[] hosts = new IntDomainVar[migrations.size()];
+        IntDomainVar[] starts = new IntDomainVar[migrations.size()];
+        IntDomainVar[] durations = new IntDomainVar[migrations.size()];
+        Arrays.fill(hosts, s.makeConstantIntVar(0));
+        for (int i = 0; i < hosts.length; i++) {
+            VMActionModel a = migrations.get(i);
+            starts[i] = a.getStart();
+            durations[i] = a.getDuration();
+        }
+        s.post(new HostedTasksCapacity(hosts, starts, durations, new int[]{cstr.getMax()}));
+        return true;
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public String toString() {
+        return cstr.toString();
+    }
+
+    /**
+     * Builder associated to the constraint.
+     */
+    public static class Builder implements ChocoSatConstraintBuilder {
+        @Override
+        public Class<? extends SatConstraint> getKey() {
+            return MaxConcurrentMigrations.class;
+        }
+
+        @Override
+        public CMaxConcurrentMigrations build(SatConstraint cstr) {
+            return new CMaxConcurrentMigrations((MaxConcurrentMigrations) cstr);
+        }
+    }
+}
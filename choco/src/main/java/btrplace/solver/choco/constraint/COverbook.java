@@ -27,10 +27,6 @@ import btrplace.model.view.ShareableResource;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.ReconfigurationProblem;
 import btrplace.solver.choco.view.CShareableResource;
-import choco.kernel.solver.ContradictionException;
-import choco.kernel.solver.variables.real.RealInterval;
-import choco.kernel.solver.variables.real.RealIntervalConstant;
-import choco.kernel.solver.variables.real.RealVar;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -64,12 +60,8 @@ public class COverbook implements ChocoSatConstraint {
         }
 
         for (Node u : cstr.getInvolvedNodes()) {
-            RealVar v = rcm.getOverbookRatio(rp.getNode(u));
-            RealInterval ric = new RealIntervalConstant(v.getInf(), cstr.getRatio());
-            try {
-                v.intersect(ric);
-            } catch (ContradictionException ex) {
-                rp.getLogger().error("Unable to restrict {} to up to {}", v.getName(), cstr.getRatio());
+            if (!rcm.capOverbookRatio(rp.getNode(u), cstr.getRatio())) {
+                rp.getLogger().error("Unable to restrict the '{}' overbooking ratio of {} to up to {}", cstr.getResource(), u, cstr.getRatio());
                 return false;
             }
         }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.Model;
+import btrplace.model.VM;
+import btrplace.model.constraint.ReleaseTime;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.ActionModel;
+import btrplace.solver.choco.actionModel.ActionModelUtils;
+import btrplace.solver.choco.chocoUtil.ChocoUtils;
+import choco.cp.solver.CPSolver;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Choco implementation of {@link btrplace.model.constraint.ReleaseTime}.
+ * <p/>
+ * The start of every action model of the involved VMs and nodes that leads to an action,
+ * i.e. having a non-null duration, is bounded by the release time.
+ *
+ * @author Fabien Hermenier
+ */
+public class CReleaseTime implements ChocoSatConstraint {
+
+    private ReleaseTime cstr;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param c the constraint to rely on
+     */
+    public CReleaseTime(ReleaseTime c) {
+        cstr = c;
+    }
+
+    @Override
+    public boolean inject(ReconfigurationProblem rp) throws SolverException {
+        CPSolver s = rp.getSolver();
+        for (ActionModel a : ActionModelUtils.getPossibleActions(rp, cstr.getInvolvedVMs(), cstr.getInvolvedNodes())) {
+            if (a.getDuration().getInf() > 0) {
+                s.post(s.geq(a.getStart(), cstr.getReleaseTime()));
+            } else {
+                ChocoUtils.postImplies(s, s.geq(a.getDuration(), 1), s.geq(a.getStart(), cstr.getReleaseTime()));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public String toString() {
+        return cstr.toString();
+    }
+
+    /**
+     * Builder associated to the constraint.
+     */
+    public static class Builder implements ChocoSatConstraintBuilder {
+        @Override
+        public Class<? extends SatConstraint> getKey() {
+            return ReleaseTime.class;
+        }
+
+        @Override
+        public CReleaseTime build(SatConstraint cstr) {
+            return new CReleaseTime((ReleaseTime) cstr);
+        }
+    }
+}
@@ -60,7 +60,12 @@ public class SatConstraintMapper {
         builders.put(Killed.class, new CKilled.Builder());
         builders.put(Gather.class, new CGather.Builder());
         builders.put(Lonely.class, new CLonely.Builder());
+        builders.put(MaxConcurrentActions.class, new CMaxConcurrentActions.Builder());
+        builders.put(MaxConcurrentMigrations.class, new CMaxConcurrentMigrations.Builder());
         builders.put(SequentialVMTransitions.class, new CSequentialVMTransitions.Builder());
+        builders.put(Deadline.class, new CDeadline.Builder());
+        builders.put(ReleaseTime.class, new CReleaseTime.Builder());
+        builders.put(ForbiddenInterval.class, new CForbiddenInterval.Builder());
     }
 
     /**
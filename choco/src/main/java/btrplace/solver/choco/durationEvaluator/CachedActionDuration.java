@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.Element;
+import btrplace.model.Model;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+/**
+ * A decorator that caches the durations computed by an evaluator.
+ * It is worth using with evaluators that are expensive to compute.
+ * <p/>
+ * The cache is only valid for one model. It is reset each time
+ * a duration is evaluated for another model, or using {@link #clear()}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CachedActionDuration<E extends Element> implements ActionDurationEvaluator<E> {
+
+    private ActionDurationEvaluator<E> parent;
+
+    private Model cachedModel;
+
+    private TObjectIntHashMap<E> cache;
+
+    /**
+     * Make a new evaluator.
+     *
+     * @param dev the evaluator to decorate
+     */
+    public CachedActionDuration(ActionDurationEvaluator<E> dev) {
+        parent = dev;
+        //0.5f is a default load factor in trove.
+        cache = new TObjectIntHashMap<>(10, 0.5f, Integer.MIN_VALUE);
+    }
+
+    @Override
+    public int evaluate(Model mo, E e) {
+        if (mo != cachedModel) {
+            clear();
+            cachedModel = mo;
+        }
+        int d = cache.get(e);
+        if (d == Integer.MIN_VALUE) {
+            d = parent.evaluate(mo, e);
+            cache.put(e, d);
+        }
+        return d;
+    }
+
+    /**
+     * Get the decorated evaluator.
+     *
+     * @return an evaluator
+     */
+    public ActionDurationEvaluator<E> getParent() {
+        return parent;
+    }
+
+    /**
+     * Remove all the cached durations.
+     */
+    public void clear() {
+        cache.clear();
+        cachedModel = null;
+    }
+
+    @Override
+    public String toString() {
+        return "cached(" + parent + ")";
+    }
+}
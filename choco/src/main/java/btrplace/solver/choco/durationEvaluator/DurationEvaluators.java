@@ -22,6 +22,7 @@ import btrplace.model.Model;
 import btrplace.plan.event.*;
 import btrplace.solver.SolverException;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -119,4 +120,27 @@ public class DurationEvaluators {
         }
         return d;
     }
+
+    /**
+     * Evaluate the duration of given action on several elements.
+     * The evaluator is retrieved once for the whole batch.
+     *
+     * @param mo the model to consider
+     * @param a  the action' class
+     * @param es the element identifiers
+     * @return an array indexed like {@code es}. A value is positive if the evaluation succeeded,
+     *         negative otherwise. All the values are negative if no evaluator is registered for the action
+     */
+    public int[] evaluate(Model mo, Class<? extends Action> a, Element[] es) {
+        int[] ds = new int[es.length];
+        ActionDurationEvaluator ev = durations.get(a);
+        if (ev == null) {
+            Arrays.fill(ds, -1);
+            return ds;
+        }
+        for (int i = 0; i < es.length; i++) {
+            ds[i] = ev.evaluate(mo, es[i]);
+        }
+        return ds;
+    }
 }
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.Element;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.ShareableResource;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluate the duration of an action on an element from a table
+ * of durations calibrated with regards to a given resource, for example
+ * using measurements of past actions.
+ * <p/>
+ * The table associates amounts of resource to durations. The duration for an element
+ * is interpolated linearly between the two closest amounts in the table. For an amount lower
+ * than the smallest one in the table, the duration associated to the smallest amount is used.
+ * For an amount greater than the biggest one, the duration is extrapolated from the last two
+ * entries. The duration is rounded up to get an integer value, and is at least {@code 1}.
+ * <p/>
+ * For a VM, the amount is its consumption. For a node, it is its capacity.
+ * <p/>
+ * The table can be written as a list of {@code amount=duration} entries separated by commas,
+ * for example {@code "1024=10, 2048=16"}. See {@link #parse(String, String)}.
+ * An element can have its own table, stored as a string in an attribute
+ * whose identifier is given at instantiation. Each distinct table is only parsed once.
+ *
+ * @author Fabien Hermenier
+ */
+public class LookupTableActionDuration<E extends Element> implements ActionDurationEvaluator<E> {
+
+    private String rc;
+
+    private String key;
+
+    private TreeMap<Integer, Integer> table;
+
+    /**
+     * The tables of the elements, indexed by their textual representation.
+     * An invalid table is associated to an empty table.
+     */
+    private Map<String, TreeMap<Integer, Integer>> parsed;
+
+    /**
+     * Make a new evaluator with an empty table.
+     * The elements cannot have their own table.
+     *
+     * @param rcId the resource identifier
+     */
+    public LookupTableActionDuration(String rcId) {
+        this(rcId, null);
+    }
+
+    /**
+     * Make a new evaluator with an empty table.
+     *
+     * @param rcId   the resource identifier
+     * @param attrId the identifier of the attribute that stores the table of an element.
+     *               The value must follow the format of {@link #parse(String, String)}.
+     *               {@code null} to only rely on the table of the evaluator
+     */
+    public LookupTableActionDuration(String rcId, String attrId) {
+        this.rc = rcId;
+        this.key = attrId;
+        table = new TreeMap<>();
+        parsed = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Make a new evaluator from the textual representation of a table.
+     *
+     * @param rcId the resource identifier
+     * @param str  the entries, formatted as {@code amount=duration} and separated by commas
+     * @param <E>  the type of the elements
+     * @return the resulting evaluator
+     * @throws IllegalArgumentException if the table is not valid
+     */
+    public static <E extends Element> LookupTableActionDuration<E> parse(String rcId, String str) {
+        LookupTableActionDuration<E> d = new LookupTableActionDuration<>(rcId);
+        parseTable(str, d.table);
+        return d;
+    }
+
+    private static void parseTable(String str, TreeMap<Integer, Integer> t) {
+        for (String entry : str.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            String[] kv = entry.split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Invalid entry '" + entry.trim() + "'. Expected 'amount=duration'");
+            }
+            try {
+                putEntry(t, Integer.parseInt(kv[0].trim()), Integer.parseInt(kv[1].trim()));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid entry '" + entry.trim() + "'. Expected 'amount=duration'", ex);
+            }
+        }
+    }
+
+    private static void putEntry(TreeMap<Integer, Integer> t, int amount, int d) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("The amount of resource must be positive");
+        }
+        if (d <= 0) {
+            throw new IllegalArgumentException("The duration must be strictly positive");
+        }
+        t.put(amount, d);
+    }
+
+    /**
+     * Add an entry to the table.
+     *
+     * @param amount the amount of resource, {@code >= 0}
+     * @param d      the associated duration, {@code > 0}
+     * @return the current evaluator
+     * @throws IllegalArgumentException if the amount or the duration is not valid
+     */
+    public LookupTableActionDuration<E> put(int amount, int d) {
+        putEntry(table, amount, d);
+        return this;
+    }
+
+    /**
+     * Get the table.
+     *
+     * @return an unmodifiable view of the durations indexed by amount of resource, sorted in ascending order
+     */
+    public SortedMap<Integer, Integer> getTable() {
+        return Collections.unmodifiableSortedMap(table);
+    }
+
+    @Override
+    public int evaluate(Model mo, E e) {
+        ShareableResource r = (ShareableResource) mo.getView(ShareableResource.VIEW_ID_BASE + rc);
+        if (r == null) {
+            return -1;
+        }
+        int x;
+        if (e instanceof VM) {
+            x = r.getConsumption((VM) e);
+        } else if (e instanceof Node) {
+            x = r.getCapacity((Node) e);
+        } else {
+            return -1;
+        }
+        TreeMap<Integer, Integer> t = table;
+        Object o = key == null ? null : mo.getAttributes().get(e, key);
+        if (o != null) {
+            //The element has its own table
+            t = getTable(o.toString());
+        }
+        if (t.isEmpty()) {
+            return -1;
+        }
+        return Math.max(1, interpolate(t, x));
+    }
+
+    private TreeMap<Integer, Integer> getTable(String str) {
+        TreeMap<Integer, Integer> t = parsed.get(str);
+        if (t == null) {
+            t = new TreeMap<>();
+            try {
+                parseTable(str, t);
+            } catch (IllegalArgumentException ex) {
+                t.clear();
+            }
+            parsed.put(str, t);
+        }
+        return t;
+    }
+
+    /**
+     * Get the duration associated to an amount of resource.
+     *
+     * @param table the table to use, not empty
+     * @param x     the amount of resource
+     * @return the duration, that may be negative when extrapolated
+     */
+    private static int interpolate(TreeMap<Integer, Integer> table, int x) {
+        Map.Entry<Integer, Integer> lo = table.floorEntry(x);
+        if (lo == null) {
+            return table.firstEntry().getValue();
+        }
+        if (lo.getKey() == x) {
+            return lo.getValue();
+        }
+        Map.Entry<Integer, Integer> hi = table.higherEntry(x);
+        if (hi == null) {
+            //Extrapolation from the last two entries
+            hi = lo;
+            lo = table.lowerEntry(hi.getKey());
+            if (lo == null) {
+                return hi.getValue();
+            }
+        }
+        double slope = (double) (hi.getValue() - lo.getValue()) / (hi.getKey() - lo.getKey());
+        return (int) Math.ceil(lo.getValue() + slope * (x - lo.getKey()));
+    }
+
+    /**
+     * Get the associated resource identifier.
+     *
+     * @return a resource identifier
+     */
+    public String getResourceId() {
+        return rc;
+    }
+
+    /**
+     * Get the identifier of the attribute that stores the table of an element.
+     *
+     * @return an attribute identifier. {@code null} if the elements cannot have their own table
+     */
+    public String getAttributeKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "d= table(" + rc + ")" + table;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.Network;
+import btrplace.model.view.ShareableResource;
+
+/**
+ * Evaluate the duration of a VM migration from the amount of memory
+ * to transfer and the bandwidth allotted to the migration.
+ * <p/>
+ * The duration {@code d} is expressed as {@code d = ceil(mem / bw)}, where {@code mem}
+ * is the consumption of the VM for the memory resource and {@code bw} the bandwidth
+ * the {@link Network} view allots to a migration leaving the current node of the VM.
+ *
+ * @author Fabien Hermenier
+ */
+public class NetworkBasedMigrationDuration implements ActionDurationEvaluator<VM> {
+
+    private String memId;
+
+    /**
+     * Make a new evaluator.
+     *
+     * @param memRcId the identifier of the resource denoting the memory
+     */
+    public NetworkBasedMigrationDuration(String memRcId) {
+        this.memId = memRcId;
+    }
+
+    @Override
+    public int evaluate(Model mo, VM e) {
+        Network net = Network.get(mo);
+        ShareableResource mem = (ShareableResource) mo.getView(ShareableResource.VIEW_ID_BASE + memId);
+        Mapping map = mo.getMapping();
+        if (net == null || mem == null || !map.getRunningVMs().contains(e)) {
+            return -1;
+        }
+        Node src = map.getVMLocation(e);
+        int bw = net.getMigrationBandwidth(src);
+        if (bw <= 0) {
+            return -1;
+        }
+        int m = mem.getConsumption(e);
+        return m / bw + (m % bw == 0 ? 0 : 1);
+    }
+
+    /**
+     * Get the identifier of the resource denoting the memory.
+     *
+     * @return a resource identifier
+     */
+    public String getResourceId() {
+        return memId;
+    }
+
+    /**
+     * Set the identifier of the resource denoting the memory.
+     *
+     * @param rcId a resource identifier
+     */
+    public void setResourceId(String rcId) {
+        this.memId = rcId;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.Network;
+import btrplace.model.view.ShareableResource;
+
+/**
+ * Evaluate the duration of a live-migration using the pre-copy model.
+ * <p/>
+ * The memory of the VM is first copied entirely while the VM keeps running.
+ * Each following round copies the memory pages that were dirtied during the
+ * previous round. When the amount of memory to copy falls under a threshold, or
+ * when the maximum number of rounds is reached, the VM is paused and the remaining
+ * pages are copied during a last round.
+ * <p/>
+ * The amount of memory is the consumption of the VM for a given resource, the bandwidth
+ * is the one the {@link Network} view allots to a migration leaving the current
+ * node of the VM. The dirty page rate, expressed with the memory unit per second,
+ * is read from the VM attribute {@link #DIRTY_RATE_ATTRIBUTE}. If the attribute is not set,
+ * the VM is considered as idle and the migration reduces to a single copy.
+ * The maximum number of rounds and the stop-and-copy threshold given to the evaluator can be
+ * overridden for a VM using the attributes {@link #MAX_ROUNDS_ATTRIBUTE} and {@link #STOP_COPY_ATTRIBUTE}.
+ * The duration is rounded up to get an integer value, and is at least {@code 1}.
+ *
+ * @author Fabien Hermenier
+ */
+public class PreCopyMigrationDuration implements ActionDurationEvaluator<VM> {
+
+    /**
+     * The identifier of the attribute that indicates the dirty page rate of a VM.
+     */
+    public static final String DIRTY_RATE_ATTRIBUTE = "dirtyRate";
+
+    /**
+     * The identifier of the attribute that indicates the maximum number of pre-copy rounds for a VM.
+     */
+    public static final String MAX_ROUNDS_ATTRIBUTE = "maxRounds";
+
+    /**
+     * The identifier of the attribute that indicates the amount of memory under which
+     * the stop-and-copy phase of a VM starts.
+     */
+    public static final String STOP_COPY_ATTRIBUTE = "stopCopy";
+
+    /**
+     * The default maximum number of pre-copy rounds.
+     */
+    public static final int DEFAULT_MAX_ROUNDS = 30;
+
+    private String memId;
+
+    private int maxRounds;
+
+    private int stopCopy;
+
+    /**
+     * Make a new evaluator.
+     * The maximum number of rounds is set to {@link #DEFAULT_MAX_ROUNDS}
+     * and the stop-and-copy phase starts once there is no more memory to copy.
+     *
+     * @param memRcId the identifier of the resource denoting the memory
+     */
+    public PreCopyMigrationDuration(String memRcId) {
+        this(memRcId, DEFAULT_MAX_ROUNDS, 0);
+    }
+
+    /**
+     * Make a new evaluator.
+     *
+     * @param memRcId  the identifier of the resource denoting the memory
+     * @param rounds   the maximum number of pre-copy rounds. Must be positive
+     * @param stopCopy the amount of memory under which the stop-and-copy phase starts, {@code >= 0}
+     */
+    public PreCopyMigrationDuration(String memRcId, int rounds, int stopCopy) {
+        if (rounds <= 0) {
+            throw new IllegalArgumentException("The maximum number of rounds must be positive");
+        }
+        if (stopCopy < 0) {
+            throw new IllegalArgumentException("The stop-and-copy threshold must be positive");
+        }
+        this.memId = memRcId;
+        this.maxRounds = rounds;
+        this.stopCopy = stopCopy;
+    }
+
+    @Override
+    public int evaluate(Model mo, VM e) {
+        Network net = Network.get(mo);
+        ShareableResource mem = (ShareableResource) mo.getView(ShareableResource.VIEW_ID_BASE + memId);
+        Mapping map = mo.getMapping();
+        if (net == null || mem == null || !map.getRunningVMs().contains(e)) {
+            return -1;
+        }
+        Node src = map.getVMLocation(e);
+        double bw = net.getMigrationBandwidth(src);
+        if (bw <= 0) {
+            return -1;
+        }
+        double rate = getDirtyRate(mo, e);
+        int rounds = getInteger(mo, e, MAX_ROUNDS_ATTRIBUTE, maxRounds);
+        int stop = getInteger(mo, e, STOP_COPY_ATTRIBUTE, stopCopy);
+        if (rate < 0 || rounds <= 0 || stop < 0) {
+            return -1;
+        }
+
+        //The first round copies the whole memory
+        int m = mem.getConsumption(e);
+        double toCopy = m;
+        double d = toCopy / bw;
+        int round = 1;
+        while (toCopy > stop && round < rounds) {
+            //The pages dirtied during the previous round
+            double next = rate * (toCopy / bw);
+            if (next >= toCopy) {
+                //The pages are dirtied faster than copied. Stop-and-copy right now
+                d += Math.min(next, m) / bw;
+                break;
+            }
+            toCopy = next;
+            d += toCopy / bw;
+            round++;
+        }
+        return Math.max(1, (int) Math.ceil(d));
+    }
+
+    /**
+     * Get the integer value of an optional attribute.
+     *
+     * @return the value, the default one if the attribute is not set, {@code -1} if the value is not an integer
+     */
+    private static int getInteger(Model mo, VM e, String k, int def) {
+        Object o = mo.getAttributes().get(e, k);
+        if (o == null) {
+            return def;
+        }
+        if (o instanceof Integer) {
+            return (Integer) o;
+        }
+        return -1;
+    }
+
+    private static double getDirtyRate(Model mo, VM e) {
+        Object o = mo.getAttributes().get(e, DIRTY_RATE_ATTRIBUTE);
+        if (o == null) {
+            return 0;
+        }
+        if (o instanceof Number) {
+            return ((Number) o).doubleValue();
+        }
+        return -1;
+    }
+
+    /**
+     * Get the identifier of the resource denoting the memory.
+     *
+     * @return a resource identifier
+     */
+    public String getResourceId() {
+        return memId;
+    }
+
+    /**
+     * Get the maximum number of pre-copy rounds.
+     *
+     * @return a positive number
+     */
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    /**
+     * Get the amount of memory under which the stop-and-copy phase starts.
+     *
+     * @return an amount of memory
+     */
+    public int getStopCopyThreshold() {
+        return stopCopy;
+    }
+
+    @Override
+    public String toString() {
+        return "d= preCopy(" + memId + ", rounds=" + maxRounds + ", stop=" + stopCopy + ")";
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective;
+
+import btrplace.model.VM;
+import btrplace.model.view.ShareableResource;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.NodeActionModel;
+import btrplace.solver.choco.view.CShareableResource;
+import btrplace.solver.choco.view.ChocoModelView;
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.Arrays;
+
+/**
+ * An objective to consolidate the running VMs on a minimal number of online nodes.
+ * <p/>
+ * The cost is a trade-off between the number of nodes that stay online and the
+ * number of migrations that are required to free the others:
+ * {@code nodeCost * nbOnlineNodes + migrationCost * nbMigrations}.
+ * With a migration cost of {@code 0}, the most aggressive consolidation is computed.
+ * <p/>
+ * To prune the search, the cost is bounded by {@code nodeCost} times a lower bound of
+ * the number of online nodes. That lower bound is computed for every {@link ShareableResource}:
+ * the minimal number of nodes, taken from the biggest to the smallest, required to provide
+ * the resource demand of the future running VMs. The nodes that are already forced to be
+ * offline are ignored.
+ *
+ * @author Fabien Hermenier
+ */
+public class Consolidation extends WeightedSumObjective {
+
+    private int nodeCost;
+
+    private int migrationCost;
+
+    private int lb;
+
+    /**
+     * Make a new objective that focuses on the number of online nodes only.
+     */
+    public Consolidation() {
+        this(1, 0);
+    }
+
+    /**
+     * Make a new objective.
+     *
+     * @param nodeCost      the cost of keeping a node online. Strictly positive
+     * @param migrationCost the cost of one migration. Positive
+     */
+    public Consolidation(int nodeCost, int migrationCost) {
+        if (nodeCost <= 0) {
+            throw new IllegalArgumentException("The node cost must be strictly positive");
+        }
+        if (migrationCost < 0) {
+            throw new IllegalArgumentException("The migration cost must be positive");
+        }
+        this.nodeCost = nodeCost;
+        this.migrationCost = migrationCost;
+        add(new MinOnlineNodes(), nodeCost);
+        if (migrationCost > 0) {
+            add(new MinMigrations(), migrationCost);
+        }
+    }
+
+    /**
+     * Get the cost of keeping a node online.
+     *
+     * @return a strictly positive integer
+     */
+    public int getNodeCost() {
+        return nodeCost;
+    }
+
+    /**
+     * Get the cost of a migration.
+     *
+     * @return a positive integer
+     */
+    public int getMigrationCost() {
+        return migrationCost;
+    }
+
+    /**
+     * Get the lower bound for the number of online nodes that was computed
+     * during the last injection.
+     *
+     * @return a positive integer
+     */
+    public int getOnlineNodesLowerBound() {
+        return lb;
+    }
+
+    @Override
+    public IntDomainVar makeCost(ReconfigurationProblem rp) throws SolverException {
+        IntDomainVar cost = super.makeCost(rp);
+        CPSolver s = rp.getSolver();
+        lb = 0;
+        for (ChocoModelView v : rp.getViews()) {
+            if (v instanceof CShareableResource) {
+                lb = Math.max(lb, lowerBound(rp, (CShareableResource) v));
+            }
+        }
+        if (lb > 0) {
+            rp.getLogger().debug("At least {} node(s) must stay online", lb);
+            //The migrations have a positive cost, so the online nodes are enough to bound the cost
+            s.post(s.geq(cost, nodeCost * lb));
+        }
+        return cost;
+    }
+
+    private static int lowerBound(ReconfigurationProblem rp, CShareableResource rcm) {
+        ShareableResource rc = rcm.getSourceResource();
+        int demand = 0;
+        for (VM vm : rp.getFutureRunningVMs()) {
+            demand += Math.max(rc.getConsumption(vm), rcm.getVMsAllocation(rp.getVM(vm)).getInf());
+        }
+        NodeActionModel[] actions = rp.getNodeActions();
+        int[] capas = new int[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            if (!actions[i].getState().isInstantiatedTo(0)) {
+                capas[i] = rcm.getVirtualCapacity(i);
+            }
+        }
+        return lowerBound(demand, capas);
+    }
+
+    /**
+     * Compute the minimal number of bins required to provide a given amount of resources.
+     *
+     * @param demand the amount of resources to provide
+     * @param capas  the capacity of each bin. The array is sorted in place
+     * @return the number of bins. {@code capas.length + 1} if the demand cannot be satisfied
+     */
+    static int lowerBound(int demand, int[] capas) {
+        Arrays.sort(capas);
+        int nb = 0;
+        long sum = 0;
+        for (int i = capas.length - 1; i >= 0 && sum < demand; i--) {
+            sum += capas[i];
+            nb++;
+        }
+        return sum < demand ? capas.length + 1 : nb;
+    }
+}
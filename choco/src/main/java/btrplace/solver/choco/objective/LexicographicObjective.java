@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective;
+
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import choco.Choco;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+/**
+ * An objective that minimizes several costs in a lexicographic order.
+ * The first cost added is the most important one.
+ * <p/>
+ * The objective is translated into a weighted sum where the weight
+ * of a cost is greater than the maximum value of all the less important costs.
+ * It is then necessary for the costs to have small upper bounds.
+ *
+ * @author Fabien Hermenier
+ */
+public class LexicographicObjective extends WeightedSumObjective {
+
+    /**
+     * Add a cost to the objective.
+     * It will be less important than the previously added costs.
+     *
+     * @param o the objective providing the cost
+     * @return the current objective
+     */
+    public LexicographicObjective add(MinCostObjective o) {
+        super.add(o, 1);
+        return this;
+    }
+
+    @Override
+    protected int[] makeWeights(ReconfigurationProblem rp, IntDomainVar[] costs) throws SolverException {
+        int[] ws = new int[costs.length];
+        long w = 1;
+        for (int i = costs.length - 1; i >= 0; i--) {
+            if (w > Choco.MAX_UPPER_BOUND) {
+                throw new SolverException(rp.getSourceModel(), "The costs upper bounds are too high for a lexicographic ordering");
+            }
+            ws[i] = (int) w;
+            w *= (long) costs[i].getSup() + 1;
+        }
+        return ws;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective;
+
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.VM;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.ActionModelUtils;
+import btrplace.solver.choco.actionModel.NodeActionModel;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import btrplace.solver.choco.objective.minMTTR.HostingVariableSelector;
+import btrplace.solver.choco.objective.minMTTR.RandomVMPlacement;
+import btrplace.solver.choco.objective.minMTTR.StartingNodes;
+import btrplace.solver.choco.objective.minMTTR.VMPlacementUtils;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.integer.branching.AssignVar;
+import choco.cp.solver.search.integer.valselector.MaxVal;
+import choco.cp.solver.search.integer.valselector.MinVal;
+import choco.cp.solver.search.integer.varselector.StaticVarOrder;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.ResolutionPolicy;
+import choco.kernel.solver.search.ValSelector;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.*;
+
+/**
+ * An objective that minimizes a single integer cost.
+ * <p/>
+ * Implementations only have to state how the cost variable is computed
+ * using {@link #makeCost(btrplace.solver.choco.ReconfigurationProblem)}. The objective
+ * then declares the cost to the solver and appends default search heuristics
+ * that can be customized by overriding {@link #injectHeuristics(btrplace.solver.choco.ReconfigurationProblem, choco.kernel.solver.variables.integer.IntDomainVar)}.
+ * <p/>
+ * The cost can also be reused by objectives that combine several costs such
+ * as {@link WeightedSumObjective} or {@link LexicographicObjective}.
+ *
+ * @author Fabien Hermenier
+ */
+public abstract class MinCostObjective implements ReconfigurationObjective {
+
+    /**
+     * Make the variable denoting the cost to minimize and post
+     * the associated constraints.
+     *
+     * @param rp the problem to customize
+     * @return a variable with a finite upper bound
+     * @throws SolverException if an error occurred
+     */
+    public abstract IntDomainVar makeCost(ReconfigurationProblem rp) throws SolverException;
+
+    @Override
+    public void inject(ReconfigurationProblem rp) throws SolverException {
+        IntDomainVar cost = makeCost(rp);
+        CPSolver s = rp.getSolver();
+        s.getConfiguration().putEnum(Configuration.RESOLUTION_POLICY, ResolutionPolicy.MINIMIZE);
+        s.setObjective(cost);
+        injectHeuristics(rp, cost);
+    }
+
+    /**
+     * Append the search heuristics related to the objective.
+     * By default, the VMs are placed first, preferably on their current node. Then the next
+     * state of the nodes is decided and the actions are scheduled as soon as possible.
+     * The cost is instantiated last.
+     *
+     * @param rp   the problem to customize
+     * @param cost the cost variable
+     */
+    public void injectHeuristics(ReconfigurationProblem rp, IntDomainVar cost) {
+        CPSolver s = rp.getSolver();
+        Map<IntDomainVar, VM> pla = VMPlacementUtils.makePlacementMap(rp);
+
+        //The VMs that must move first, then the others
+        List<VMActionModel> first = new ArrayList<>();
+        List<VMActionModel> next = new ArrayList<>();
+        for (VM vm : rp.getFutureRunningVMs()) {
+            VMActionModel a = rp.getVMAction(vm);
+            if (VMPlacementUtils.canStay(rp, vm)) {
+                next.add(a);
+            } else {
+                first.add(a);
+            }
+        }
+        s.addGoal(new AssignVar(new HostingVariableSelector("mustMove", rp, ActionModelUtils.getDSlices(first), null), makePlacementHeuristic(rp, pla)));
+        s.addGoal(new AssignVar(new HostingVariableSelector("canStay", rp, ActionModelUtils.getDSlices(next), null), makePlacementHeuristic(rp, pla)));
+
+        injectNodeStateHeuristics(rp);
+
+        //Scheduling, as early as possible
+        s.addGoal(new AssignVar(new StartingNodes("startingNodes", rp, rp.getNodeActions()), new MinVal()));
+        s.addGoal(new AssignVar(new StaticVarOrder(s, ActionModelUtils.getStarts(rp.getVMActions())), new MinVal()));
+        s.addGoal(new AssignVar(new StaticVarOrder(s, new IntDomainVar[]{rp.getEnd(), cost}), new MinVal()));
+    }
+
+    /**
+     * Append the heuristics to decide the next state of the nodes.
+     * By default, the nodes stay in their current state when possible.
+     *
+     * @param rp the problem to customize
+     */
+    protected void injectNodeStateHeuristics(ReconfigurationProblem rp) {
+        CPSolver s = rp.getSolver();
+        Mapping map = rp.getSourceModel().getMapping();
+        List<IntDomainVar> online = new ArrayList<>();
+        List<IntDomainVar> offline = new ArrayList<>();
+        for (NodeActionModel a : rp.getNodeActions()) {
+            if (map.getOnlineNodes().contains(a.getNode())) {
+                online.add(a.getState());
+            } else {
+                offline.add(a.getState());
+            }
+        }
+        s.addGoal(new AssignVar(new StaticVarOrder(s, online.toArray(new IntDomainVar[online.size()])), new MaxVal()));
+        s.addGoal(new AssignVar(new StaticVarOrder(s, offline.toArray(new IntDomainVar[offline.size()])), new MinVal()));
+    }
+
+    /**
+     * Make the value selector that is used to place the VMs.
+     * By default, a VM stay on its current node if possible, or is placed randomly.
+     *
+     * @param rp  the problem
+     * @param pla the VM associated to each placement variable
+     * @return the value selector
+     */
+    protected ValSelector<IntDomainVar> makePlacementHeuristic(ReconfigurationProblem rp, Map<IntDomainVar, VM> pla) {
+        return new RandomVMPlacement("placement", rp, pla, true);
+    }
+
+    /**
+     * By default, an objective does not require to manage additional VMs.
+     *
+     * @param m the model to inspect
+     * @return an empty set
+     */
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        return Collections.emptySet();
+    }
+}
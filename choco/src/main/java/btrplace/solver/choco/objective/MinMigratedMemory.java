@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective;
+
+import btrplace.model.VM;
+import btrplace.model.view.ShareableResource;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.KeepRunningVMModel;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import btrplace.solver.choco.chocoUtil.ChocoUtils;
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An objective that minimizes the amount of memory to migrate.
+ * <p/>
+ * The cost is the sum of the consumption of the VMs that are relocated
+ * while staying running. The consumption is retrieved from a
+ * {@link ShareableResource} that must be attached to the model.
+ *
+ * @author Fabien Hermenier
+ */
+public class MinMigratedMemory extends MinCostObjective {
+
+    /**
+     * The default resource identifier to consider.
+     */
+    public static final String DEFAULT_RC_ID = "mem";
+
+    private String rcId;
+
+    /**
+     * Make a new objective that considers the resource {@link #DEFAULT_RC_ID}.
+     */
+    public MinMigratedMemory() {
+        this(DEFAULT_RC_ID);
+    }
+
+    /**
+     * Make a new objective.
+     *
+     * @param rcId the identifier of the resource that denotes the memory
+     */
+    public MinMigratedMemory(String rcId) {
+        this.rcId = rcId;
+    }
+
+    /**
+     * Get the identifier of the resource that denotes the memory.
+     *
+     * @return the resource identifier
+     */
+    public String getResourceIdentifier() {
+        return rcId;
+    }
+
+    @Override
+    public IntDomainVar makeCost(ReconfigurationProblem rp) throws SolverException {
+        ShareableResource rc = (ShareableResource) rp.getSourceModel().getView(ShareableResource.VIEW_ID_BASE + rcId);
+        if (rc == null) {
+            throw new SolverException(rp.getSourceModel(), "Unable to get the resource '" + rcId + "'");
+        }
+        CPSolver s = rp.getSolver();
+        List<IntDomainVar> stays = new ArrayList<>();
+        int total = 0;
+        for (VMActionModel a : rp.getVMActions()) {
+            if (a instanceof KeepRunningVMModel) {
+                VM vm = a.getVM();
+                int mem = rc.getConsumption(vm);
+                if (mem > 0) {
+                    total += mem;
+                    stays.add(ChocoUtils.mult(s, ((KeepRunningVMModel) a).isStaying(), mem));
+                }
+            }
+        }
+        IntDomainVar cost = s.createBoundIntVar(rp.makeVarLabel("migratedMemory"), 0, total);
+        //migratedMemory + sum(stays * mem) = sum(mem)
+        stays.add(cost);
+        s.post(s.eq(CPSolver.sum(stays.toArray(new IntDomainVar[stays.size()])), total));
+        return cost;
+    }
+}
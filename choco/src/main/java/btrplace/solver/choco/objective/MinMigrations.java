@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective;
+
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.KeepRunningVMModel;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An objective that minimizes the number of VMs that are relocated
+ * while staying running.
+ * <p/>
+ * The cost is the number of {@link KeepRunningVMModel} where the VM
+ * does not stay on its current node.
+ *
+ * @author Fabien Hermenier
+ */
+public class MinMigrations extends MinCostObjective {
+
+    @Override
+    public IntDomainVar makeCost(ReconfigurationProblem rp) throws SolverException {
+        CPSolver s = rp.getSolver();
+        List<IntDomainVar> stays = new ArrayList<>();
+        for (VMActionModel a : rp.getVMActions()) {
+            if (a instanceof KeepRunningVMModel) {
+                stays.add(((KeepRunningVMModel) a).isStaying());
+            }
+        }
+        IntDomainVar cost = s.createBoundIntVar(rp.makeVarLabel("nbMigrations"), 0, stays.size());
+        //nbMigrations + sum(stays) = nbRelocatables
+        stays.add(cost);
+        s.post(s.eq(CPSolver.sum(stays.toArray(new IntDomainVar[stays.size()])), stays.size() - 1));
+        return cost;
+    }
+}
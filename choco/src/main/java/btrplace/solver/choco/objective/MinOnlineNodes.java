@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective;
+
+import btrplace.model.Model;
+import btrplace.model.VM;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.NodeActionModel;
+import btrplace.solver.choco.objective.minMTTR.ResourceFitVMPlacement;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.integer.branching.AssignVar;
+import choco.cp.solver.search.integer.valselector.MinVal;
+import choco.cp.solver.search.integer.varselector.StaticVarOrder;
+import choco.kernel.solver.search.ValSelector;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An objective that minimizes the number of nodes that are online
+ * at the end of the reconfiguration.
+ * <p/>
+ * The VMs are placed using a best-fit heuristic to pack them on
+ * a few nodes and the nodes are preferably turned offline.
+ * In repair mode, all the running VMs are considered as misplaced
+ * as any of them may have to move to free a node.
+ *
+ * @author Fabien Hermenier
+ */
+public class MinOnlineNodes extends MinCostObjective {
+
+    @Override
+    public IntDomainVar makeCost(ReconfigurationProblem rp) throws SolverException {
+        CPSolver s = rp.getSolver();
+        IntDomainVar[] states = getStates(rp);
+        IntDomainVar cost = s.createBoundIntVar(rp.makeVarLabel("nbOnlineNodes"), 0, states.length);
+        s.post(s.eq(cost, CPSolver.sum(states)));
+        return cost;
+    }
+
+    /**
+     * The nodes are preferably turned offline.
+     *
+     * @param rp the problem to customize
+     */
+    @Override
+    protected void injectNodeStateHeuristics(ReconfigurationProblem rp) {
+        CPSolver s = rp.getSolver();
+        s.addGoal(new AssignVar(new StaticVarOrder(s, getStates(rp)), new MinVal()));
+    }
+
+    private static IntDomainVar[] getStates(ReconfigurationProblem rp) {
+        NodeActionModel[] actions = rp.getNodeActions();
+        IntDomainVar[] states = new IntDomainVar[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            states[i] = actions[i].getState();
+        }
+        return states;
+    }
+
+    @Override
+    protected ValSelector<IntDomainVar> makePlacementHeuristic(ReconfigurationProblem rp, Map<IntDomainVar, VM> pla) {
+        return new ResourceFitVMPlacement(rp, pla, ResourceFitVMPlacement.Policy.BEST_FIT, false);
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        return new HashSet<>(m.getMapping().getRunningVMs());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective;
+
+import btrplace.model.Model;
+import btrplace.model.VM;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.chocoUtil.ChocoUtils;
+import choco.Choco;
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.*;
+
+/**
+ * An objective that minimizes a weighted sum of costs.
+ * <p/>
+ * Each cost is provided by a {@link MinCostObjective}. The search heuristics
+ * of the first objective are used while the misplaced VMs are the union
+ * of the misplaced VMs of every objective.
+ *
+ * @author Fabien Hermenier
+ */
+public class WeightedSumObjective extends MinCostObjective {
+
+    private List<MinCostObjective> objs;
+
+    private List<Integer> weights;
+
+    /**
+     * Make a new objective with no costs.
+     */
+    public WeightedSumObjective() {
+        objs = new ArrayList<>();
+        weights = new ArrayList<>();
+    }
+
+    /**
+     * Add a cost to the objective.
+     *
+     * @param o the objective providing the cost
+     * @param w the cost weight, must be strictly positive
+     * @return the current objective
+     */
+    public WeightedSumObjective add(MinCostObjective o, int w) {
+        if (w <= 0) {
+            throw new IllegalArgumentException("The weight of '" + o + "' must be strictly positive");
+        }
+        objs.add(o);
+        weights.add(w);
+        return this;
+    }
+
+    /**
+     * Get the objectives providing the costs.
+     *
+     * @return a list of objectives, in their insertion order
+     */
+    public List<MinCostObjective> getObjectives() {
+        return objs;
+    }
+
+    /**
+     * Get the weight associated to each cost.
+     *
+     * @return a list of weights, in the objectives insertion order
+     */
+    public List<Integer> getWeights() {
+        return weights;
+    }
+
+    /**
+     * Compute the weights to use given the cost variables.
+     *
+     * @param rp    the problem
+     * @param costs the cost variables
+     * @return the weights of each cost
+     * @throws SolverException if the weights cannot be computed
+     */
+    protected int[] makeWeights(ReconfigurationProblem rp, IntDomainVar[] costs) throws SolverException {
+        int[] ws = new int[weights.size()];
+        for (int i = 0; i < ws.length; i++) {
+            ws[i] = weights.get(i);
+        }
+        return ws;
+    }
+
+    @Override
+    public IntDomainVar makeCost(ReconfigurationProblem rp) throws SolverException {
+        if (objs.isEmpty()) {
+            throw new SolverException(rp.getSourceModel(), "No costs to aggregate");
+        }
+        IntDomainVar[] costs = new IntDomainVar[objs.size()];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = objs.get(i).makeCost(rp);
+        }
+        int[] ws = makeWeights(rp, costs);
+        CPSolver s = rp.getSolver();
+        long ub = 0;
+        IntDomainVar[] weighted = new IntDomainVar[costs.length];
+        for (int i = 0; i < costs.length; i++) {
+            ub += (long) ws[i] * costs[i].getSup();
+            weighted[i] = ws[i] == 1 ? costs[i] : ChocoUtils.mult(s, costs[i], ws[i]);
+        }
+        if (ub > Choco.MAX_UPPER_BOUND) {
+            throw new SolverException(rp.getSourceModel(), "The aggregated cost may exceed " + Choco.MAX_UPPER_BOUND);
+        }
+        IntDomainVar cost = s.createBoundIntVar(rp.makeVarLabel("aggregatedCost"), 0, (int) ub);
+        s.post(s.eq(cost, CPSolver.sum(weighted)));
+        return cost;
+    }
+
+    @Override
+    public void injectHeuristics(ReconfigurationProblem rp, IntDomainVar cost) {
+        if (!objs.isEmpty()) {
+            objs.get(0).injectHeuristics(rp, cost);
+        }
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        Set<VM> vms = new HashSet<>();
+        for (MinCostObjective o : objs) {
+            vms.addAll(o.getMisPlacedVMs(m));
+        }
+        return vms;
+    }
+}
@@ -37,6 +37,7 @@ import choco.kernel.solver.Configuration;
 import choco.kernel.solver.ContradictionException;
 import choco.kernel.solver.ResolutionPolicy;
 import choco.kernel.solver.constraints.SConstraint;
+import choco.kernel.solver.search.ValSelector;
 import choco.kernel.solver.variables.integer.IntDomainVar;
 
 import java.util.*;
@@ -54,6 +55,8 @@ public class MinMTTR implements ReconfigurationObjective {
 
     private ReconfigurationProblem rp;
 
+    private ResourceFitVMPlacement.Policy placementPolicy = null;
+
     /**
      * Make a new objective.
      */
@@ -61,6 +64,32 @@ public class MinMTTR implements ReconfigurationObjective {
         costConstraints = new ArrayList<>();
     }
 
+    /**
+     * Set the policy to use to select the host of the VMs to place.
+     * By default, the hosts are picked randomly.
+     *
+     * @param p the policy to use. {@code null} to pick the hosts randomly
+     */
+    public void setPlacementPolicy(ResourceFitVMPlacement.Policy p) {
+        placementPolicy = p;
+    }
+
+    /**
+     * Get the policy used to select the host of the VMs to place.
+     *
+     * @return the policy. {@code null} if the hosts are picked randomly
+     */
+    public ResourceFitVMPlacement.Policy getPlacementPolicy() {
+        return placementPolicy;
+    }
+
+    private ValSelector<IntDomainVar> makePlacementHeuristic(String lbl, ReconfigurationProblem rp, Map<IntDomainVar, VM> pla) {
+        if (placementPolicy == null) {
+            return new RandomVMPlacement(lbl, rp, pla, true);
+        }
+        return new ResourceFitVMPlacement(rp, pla, placementPolicy, true);
+    }
+
     @Override
     public void inject(ReconfigurationProblem rp) throws SolverException {
         this.rp = rp;
@@ -135,13 +164,13 @@ public class MinMTTR implements ReconfigurationObjective {
         }
         Map<IntDomainVar, VM> pla = VMPlacementUtils.makePlacementMap(rp);
 
-        s.addGoal(new AssignVar(new MovingVMs("movingVMs", rp, map, vmsToExclude), new RandomVMPlacement("movingVMs", rp, pla, true)));
+        s.addGoal(new AssignVar(new MovingVMs("movingVMs", rp, map, vmsToExclude), makePlacementHeuristic("movingVMs", rp, pla)));
         HostingVariableSelector selectForBads = new HostingVariableSelector("selectForBads", rp, ActionModelUtils.getDSlices(badActions), schedHeuristic);
-        s.addGoal(new AssignVar(selectForBads, new RandomVMPlacement("selectForBads", rp, pla, true)));
+        s.addGoal(new AssignVar(selectForBads, makePlacementHeuristic("selectForBads", rp, pla)));
 
 
         HostingVariableSelector selectForGoods = new HostingVariableSelector("selectForGoods", rp, ActionModelUtils.getDSlices(goodActions), schedHeuristic);
-        s.addGoal(new AssignVar(selectForGoods, new RandomVMPlacement("selectForGoods", rp, pla, true)));
+        s.addGoal(new AssignVar(selectForGoods, makePlacementHeuristic("selectForGoods", rp, pla)));
 
         //VMs to run
         Set<VM> vmsToRun = new HashSet<>(map.getReadyVMs());
@@ -153,7 +182,7 @@ public class MinMTTR implements ReconfigurationObjective {
             runActions[i++] = rp.getVMAction(vm);
         }
         HostingVariableSelector selectForRuns = new HostingVariableSelector("selectForRuns", rp, ActionModelUtils.getDSlices(runActions), schedHeuristic);
-        s.addGoal(new AssignVar(selectForRuns, new RandomVMPlacement("selectForRuns", rp, pla, true)));
+        s.addGoal(new AssignVar(selectForRuns, makePlacementHeuristic("selectForRuns", rp, pla)));
 
         s.addGoal(new AssignVar(new StartingNodes("startingNodes", rp, rp.getNodeActions()), new MinVal()));
         ///SCHEDULING PROBLEM
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective.minMTTR;
+
+import btrplace.model.VM;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.view.CShareableResource;
+import btrplace.solver.choco.view.ChocoModelView;
+import choco.kernel.solver.search.ValSelector;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A heuristic to place a VM on the server that fits the best its
+ * resource demand with regards to a given policy.
+ * <p/>
+ * The candidate servers are scored using the remaining capacity of every
+ * {@link CShareableResource} declared in the problem. The remaining capacity
+ * of a server is read from the bounds of its virtual resource usage variable
+ * that are maintained by the bin-packing constraints. The scoring is then
+ * updated incrementally while the VMs are assigned and restored on backtrack
+ * at no cost.
+ * <p/>
+ * Servers that cannot accept the VM demand anymore are ignored. If no
+ * server can fit the demand, the lower bound of the domain is returned
+ * to let the solver fail quickly.
+ * It is possible to force the VMs to stay on its current node
+ * if it is possible.
+ *
+ * @author Fabien Hermenier
+ */
+public class ResourceFitVMPlacement implements ValSelector<IntDomainVar> {
+
+    /**
+     * The possible policies to score the servers.
+     */
+    public static enum Policy {
+        /**
+         * Favor the servers that will have the smallest amount of free resources once the VM placed.
+         */
+        BEST_FIT,
+        /**
+         * Favor the servers that will have the biggest amount of free resources once the VM placed.
+         */
+        WORST_FIT,
+        /**
+         * Favor the servers where the free resources are the most aligned with the VM demand.
+         */
+        DOT_PRODUCT
+    }
+
+    private boolean stay;
+
+    private ReconfigurationProblem rp;
+
+    private Map<IntDomainVar, VM> vmPlacement;
+
+    private Policy policy;
+
+    private CShareableResource[] rcs;
+
+    /**
+     * Make a new heuristic.
+     *
+     * @param rp          the problem to rely on
+     * @param pVarMapping a map to indicate the VM associated to each of the placement variable
+     * @param p           the policy to use to score the servers
+     * @param stayFirst   {@code true} to force an already VM to stay on its current node if possible
+     */
+    public ResourceFitVMPlacement(ReconfigurationProblem rp, Map<IntDomainVar, VM> pVarMapping, Policy p, boolean stayFirst) {
+        this.rp = rp;
+        this.vmPlacement = pVarMapping;
+        this.policy = p;
+        this.stay = stayFirst;
+        List<CShareableResource> l = new ArrayList<>();
+        for (ChocoModelView v : rp.getViews()) {
+            if (v instanceof CShareableResource) {
+                l.add((CShareableResource) v);
+            }
+        }
+        rcs = l.toArray(new CShareableResource[l.size()]);
+    }
+
+    /**
+     * Get the policy used to score the servers.
+     *
+     * @return the policy
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public int getBestVal(IntDomainVar x) {
+        VM vm = vmPlacement.get(x);
+        if (stay && VMPlacementUtils.canStay(rp, vm)) {
+            return rp.getNode(rp.getSourceModel().getMapping().getVMLocation(vm));
+        }
+
+        if (x.isInstantiated()) {
+            return x.getVal();
+        }
+
+        int[] demand = new int[rcs.length];
+        if (vm != null) {
+            int vmIdx = rp.getVM(vm);
+            for (int i = 0; i < rcs.length; i++) {
+                demand[i] = Math.max(0, rcs[i].getVMsAllocation(vmIdx).getInf());
+            }
+        }
+
+        int best = x.getInf();
+        double bestScore = Double.NaN;
+        for (int n = x.getInf(); n <= x.getSup(); n = x.getNextDomainValue(n)) {
+            double score = score(n, demand);
+            if (!Double.isNaN(score) && (Double.isNaN(bestScore) || score > bestScore)) {
+                bestScore = score;
+                best = n;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Score a server wrt. the current policy.
+     * The higher the better.
+     *
+     * @param nIdx   the server index
+     * @param demand the VM demand for each resource
+     * @return the score, {@code Double.NaN} if the server cannot fit the demand
+     */
+    private double score(int nIdx, int[] demand) {
+        double s = 0;
+        for (int i = 0; i < rcs.length; i++) {
+            IntDomainVar load = rcs[i].getVirtualUsage(nIdx);
+            int capa = load.getSup();
+            int free = capa - load.getInf();
+            if (free < demand[i]) {
+                return Double.NaN;
+            }
+            if (capa == 0) {
+                continue;
+            }
+            switch (policy) {
+                case BEST_FIT:
+                    s -= (double) (free - demand[i]) / capa;
+                    break;
+                case WORST_FIT:
+                    s += (double) (free - demand[i]) / capa;
+                    break;
+                default:
+                    s += ((double) demand[i] / capa) * ((double) free / capa);
+            }
+        }
+        return s;
+    }
+}
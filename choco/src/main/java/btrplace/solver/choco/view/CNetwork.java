@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.view;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.ModelView;
+import btrplace.model.view.Network;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.KeepRunningVMModel;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import btrplace.solver.choco.chocoUtil.LinkCapacity;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Restrict the bandwidth consumed by the migrations over the time
+ * with regards to a {@link Network} view.
+ * <p/>
+ * Each migration consumes, during its whole duration, the bandwidth
+ * allotted by the view with regards to its source node.
+ * The links are full-duplex so the outgoing and the incoming traffic of a NIC
+ * or of a switch uplink are restricted separately. The traffic between two nodes
+ * connected to a same switch does not go through its uplink. All the links are
+ * restricted by a single {@link LinkCapacity} constraint.
+ * As it only restricts the scheduling, the view is ignored when only the placement is computed.
+ *
+ * @author Fabien Hermenier
+ */
+public class CNetwork implements SchedulingModelView {
+
+    private Network net;
+
+    private LinkCapacity linkCapacity;
+
+    /**
+     * Make a new view.
+     *
+     * @param rp  the problem to rely on
+     * @param net the network to consider
+     */
+    public CNetwork(ReconfigurationProblem rp, Network net) {
+        this.net = net;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return net.getIdentifier();
+    }
+
+    /**
+     * Get the source network view.
+     *
+     * @return the view
+     */
+    public Network getSourceView() {
+        return net;
+    }
+
+    /**
+     * Get the constraint that restricts the capacity of the links.
+     *
+     * @return the constraint. {@code null} if no migration is possible
+     */
+    public LinkCapacity getLinkConstraint() {
+        return linkCapacity;
+    }
+
+    /**
+     * Post a single {@link LinkCapacity} constraint over all the possible migrations.
+     */
+    @Override
+    public boolean beforeSolve(ReconfigurationProblem rp) {
+        List<KeepRunningVMModel> migrations = new ArrayList<>();
+        for (VMActionModel a : rp.getVMActions()) {
+            if (a instanceof KeepRunningVMModel) {
+                KeepRunningVMModel m = (KeepRunningVMModel) a;
+                IntDomainVar dst = m.getDSlice().getHoster();
+                int src = m.getCSlice().getHoster().getVal();
+                if (!dst.isInstantiatedTo(src) && m.getDuration().getSup() > 0) {
+                    migrations.add(m);
+                }
+            }
+        }
+        if (migrations.isEmpty()) {
+            return true;
+        }
+
+        Node[] nodes = rp.getNodes();
+        List<String> switches = new ArrayList<>(net.getSwitches());
+        int[] switchCapas = new int[switches.size()];
+        for (int s = 0; s < switchCapas.length; s++) {
+            switchCapas[s] = net.getSwitchBandwidth(switches.get(s));
+        }
+        int[] hostCapas = new int[nodes.length];
+        int[] switchOf = new int[nodes.length];
+        for (int n = 0; n < nodes.length; n++) {
+            hostCapas[n] = net.getBandwidth(nodes[n]);
+            String sw = net.getSwitch(nodes[n]);
+            switchOf[n] = sw == null ? -1 : switches.indexOf(sw);
+        }
+
+        int nb = migrations.size();
+        IntDomainVar[] hosts = new IntDomainVar[nb];
+        IntDomainVar[] starts = new IntDomainVar[nb];
+        int[] durations = new int[nb];
+        int[] sources = new int[nb];
+        int[] rates = new int[nb];
+        for (int i = 0; i < nb; i++) {
+            KeepRunningVMModel m = migrations.get(i);
+            hosts[i] = m.getDSlice().getHoster();
+            starts[i] = m.getStart();
+            durations[i] = m.getDuration().getSup();
+            sources[i] = m.getCSlice().getHoster().getVal();
+            rates[i] = net.getMigrationBandwidth(nodes[sources[i]]);
+        }
+        linkCapacity = new LinkCapacity(hosts, starts, durations, sources, rates, hostCapas, switchOf, switchCapas);
+        rp.getSolver().post(linkCapacity);
+        return true;
+    }
+
+    @Override
+    public boolean insertActions(ReconfigurationProblem rp, ReconfigurationPlan p) {
+        return true;
+    }
+
+    @Override
+    public boolean cloneVM(VM vm, VM clone) {
+        return true;
+    }
+
+    /**
+     * The builder associated to this view.
+     */
+    public static class Builder implements ChocoModelViewBuilder {
+        @Override
+        public Class<? extends ModelView> getKey() {
+            return Network.class;
+        }
+
+        @Override
+        public ChocoModelView build(ReconfigurationProblem rp, ModelView v) throws SolverException {
+            return new CNetwork(rp, (Network) v);
+        }
+    }
+}
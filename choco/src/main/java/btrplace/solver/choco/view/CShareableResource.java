@@ -34,8 +34,6 @@ import choco.Choco;
 import choco.cp.solver.CPSolver;
 import choco.kernel.solver.ContradictionException;
 import choco.kernel.solver.variables.integer.IntDomainVar;
-import choco.kernel.solver.variables.real.RealIntervalConstant;
-import choco.kernel.solver.variables.real.RealVar;
 import gnu.trove.TIntArrayList;
 
 import java.util.ArrayList;
@@ -46,6 +44,11 @@ import java.util.Map;
 /**
  * Specify, for a given resource, the physical resource usage associated to each server,
  * and the virtual resource usage consumed by each of the VMs they host.
+ * <p/>
+ * The overbooking ratio of each node is a fixed-point integer with a precision of
+ * {@link #RATIO_PRECISION}. It is folded into the virtual capacity of the node
+ * when the problem is about to be solved, so no variable is used to model the ratios.
+ * For a node without overbooking, the physical and the virtual usage are the same.
  *
  * @author Fabien Hermenier
  */
@@ -59,7 +62,7 @@ public class CShareableResource implements ChocoModelView {
 
     private IntDomainVar[] vmAllocation;
 
-    private RealVar[] ratios;
+    private int[] ratios;
 
     private ReconfigurationProblem rp;
 
@@ -73,9 +76,11 @@ public class CShareableResource implements ChocoModelView {
     private Map<VM, VM> clones;
 
     /**
-     * The default value of ratio is not logical to detect an unchanged value
+     * The precision of the overbooking ratios. A ratio {@code r} is stored as
+     * {@code floor(r * RATIO_PRECISION)}, with a tolerance for the floating-point errors.
+     * A ratio of {@code 2.01} is then stored as {@code 2010}.
      */
-    public static final double UNCHECKED_RATIO = Double.MAX_VALUE / 100;
+    public static final int RATIO_PRECISION = 1000;
 
     /**
      * Make a new mapping.
@@ -93,13 +98,12 @@ public class CShareableResource implements ChocoModelView {
         Node[] nodes = rp.getNodes();
         phyRcUsage = new IntDomainVar[nodes.length];
         virtRcUsage = new IntDomainVar[nodes.length];
-        this.ratios = new RealVar[nodes.length];
+        this.ratios = new int[nodes.length];
         id = ShareableResource.VIEW_ID_BASE + rc.getResourceIdentifier();
         for (int i = 0; i < nodes.length; i++) {
             Node nId = rp.getNode(i);
             phyRcUsage[i] = rp.getSolver().createBoundIntVar(rp.makeVarLabel("phyRcUsage('", rc.getResourceIdentifier(), "', '", nId, "')"), 0, rc.getCapacity(nodes[i]));
             virtRcUsage[i] = rp.getSolver().createBoundIntVar(rp.makeVarLabel("virtRcUsage('", rc.getResourceIdentifier(), "', '", nId, "')"), 0, Choco.MAX_UPPER_BOUND);
-            ratios[i] = rp.getSolver().createRealVal(rp.makeVarLabel("overbook('", rc.getResourceIdentifier(), "', '", nId, "')"), 1, UNCHECKED_RATIO);
         }
 
 
@@ -226,24 +230,46 @@ public class CShareableResource implements ChocoModelView {
     }
 
     /**
-     * Get the overbooking ratio for a node.
-     * <b>WARNING: it is only allowed to reduce the upper-bound of the ratio using {@code #setSup(x)} methods</b>
+     * Get the overbooking ratio of a node.
      *
-     * @param nId the node identifier
-     * @return an array of ratios.
+     * @param nIdx the node index
+     * @return the ratio in fixed-point with a precision of {@link #RATIO_PRECISION}.
+     *         {@link #RATIO_PRECISION} if the node is not overbooked
      */
-    public RealVar getOverbookRatio(int nId) {
-        return ratios[nId];
+    public int getOverbookRatio(int nIdx) {
+        //0 means no overbooking was declared
+        return ratios[nIdx] == 0 ? RATIO_PRECISION : ratios[nIdx];
     }
 
     /**
-     * Get the overbooking ratios for every nodes.
-     * <b>WARNING: it is only allowed to reduce the upper-bound of the ratio using {@code #setSup(x)} methods</b>
+     * Restrict the overbooking ratio of a node.
+     * The ratio of the node becomes the smallest between its current ratio and the given one.
+     * Ratios declared by several constraints are then combined.
      *
-     * @return an array of ratios.
+     * @param nIdx the node index
+     * @param r    the maximum ratio, {@code >= 1}
+     * @return {@code false} if the ratio is not valid
      */
-    public RealVar[] getOverbookRatios() {
-        return ratios;
+    public boolean capOverbookRatio(int nIdx, double r) {
+        if (r < 1) {
+            return false;
+        }
+        //Truncated so the virtual capacity never exceeds the expected one.
+        //The epsilon absorbs the representation error (2.01 * 1000 = 2009.9999999999998)
+        int fixed = (int) Math.floor(r * RATIO_PRECISION + 1e-9);
+        ratios[nIdx] = ratios[nIdx] == 0 ? fixed : Math.min(ratios[nIdx], fixed);
+        return true;
+    }
+
+    /**
+     * Get the virtual capacity of a node.
+     * This is its physical capacity multiplied by its current overbooking ratio, truncated.
+     *
+     * @param nIdx the node index
+     * @return the virtual capacity
+     */
+    public int getVirtualCapacity(int nIdx) {
+        return (int) ((long) rc.getCapacity(rp.getNode(nIdx)) * getOverbookRatio(nIdx) / RATIO_PRECISION);
     }
 
     /**
@@ -422,21 +448,8 @@ public class CShareableResource implements ChocoModelView {
     }
 
     private boolean linkVirtualToPhysicalUsage(int nIdx) {
-        double r = ratios[nIdx].getSup();
-        if (r == UNCHECKED_RATIO) {
-            //Default overbooking ratio is 1.
-            r = 1;
-        }
-
-        try {
-            ratios[nIdx].intersect(new RealIntervalConstant(r, r));
-        } catch (ContradictionException ex) {
-            rp.getLogger().error("Unable to set '{}' to {}", ratios[nIdx], r);
-            return false;
-        }
-
-
-        if (r == 1) {
+        int r = getOverbookRatio(nIdx);
+        if (r == RATIO_PRECISION) {
             solver.post(solver.eq(phyRcUsage[nIdx], virtRcUsage[nIdx]));
             try {
                 virtRcUsage[nIdx].setSup(phyRcUsage[nIdx].getSup());
@@ -445,17 +458,17 @@ public class CShareableResource implements ChocoModelView {
                 return false;
             }
         } else {
-            int maxPhy = getSourceResource().getCapacity(rp.getNode(nIdx));
-            int maxVirt = (int) (maxPhy * r);
-            if (maxVirt != 0) {
-                solver.post(new RoundedUpDivision(phyRcUsage[nIdx], virtRcUsage[nIdx], r));
-            } else {
-                try {
+            int maxVirt = getVirtualCapacity(nIdx);
+            try {
+                virtRcUsage[nIdx].setSup(maxVirt);
+                if (maxVirt != 0) {
+                    solver.post(new RoundedUpDivision(phyRcUsage[nIdx], virtRcUsage[nIdx], r, RATIO_PRECISION));
+                } else {
                     phyRcUsage[nIdx].setVal(0);
-                } catch (ContradictionException ex) {
-                    rp.getLogger().error("Unable to restrict the physical '{}' capacity of {} to {}: {}", getResourceIdentifier(), rp.getNode(nIdx), maxPhy, ex.getMessage());
-                    return false;
                 }
+            } catch (ContradictionException ex) {
+                rp.getLogger().error("Unable to restrict the virtual '{}' capacity of {} to {}: {}", getResourceIdentifier(), rp.getNode(nIdx), maxVirt, ex.getMessage());
+                return false;
             }
         }
         return true;
@@ -19,6 +19,7 @@
 package btrplace.solver.choco.view;
 
 import btrplace.model.view.ModelView;
+import btrplace.model.view.Network;
 import btrplace.model.view.ShareableResource;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.ReconfigurationProblem;
@@ -41,6 +42,7 @@ public class ModelViewMapper {
     public ModelViewMapper() {
         builders = new HashMap<>();
         builders.put(ShareableResource.class, new CShareableResource.Builder());
+        builders.put(Network.class, new CNetwork.Builder());
     }
 
     /**
@@ -22,18 +22,23 @@ import btrplace.model.constraint.*;
 import btrplace.model.view.ShareableResource;
 import btrplace.plan.ReconfigurationPlan;
 import btrplace.solver.SolverException;
+import btrplace.solver.greedy.GreedyReconfigurationAlgorithm;
 import btrplace.solver.choco.actionModel.ActionModelUtils;
 import btrplace.solver.choco.objective.ReconfigurationObjective;
+import btrplace.solver.choco.objective.minMTTR.MinMTTR;
 import btrplace.solver.choco.view.ModelViewMapper;
 import choco.cp.solver.CPSolver;
 import choco.cp.solver.constraints.global.AtMostNValue;
 import choco.kernel.solver.Configuration;
+import choco.kernel.solver.ContradictionException;
 import choco.kernel.solver.ResolutionPolicy;
+import choco.kernel.solver.constraints.integer.AbstractLargeIntSConstraint;
 import choco.kernel.solver.variables.integer.IntDomainVar;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -51,6 +56,15 @@ public class DefaultChocoReconfigurationAlgorithmTest {
 
         cra.setTimeLimit(10);
         Assert.assertEquals(cra.getTimeLimit(), 10);
+        Assert.assertEquals(cra.getTimeLimit(TimeUnit.MILLISECONDS), 10000);
+
+        cra.setTimeLimit(1500, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(cra.getTimeLimit(TimeUnit.MILLISECONDS), 1500);
+        //Rounded up
+        Assert.assertEquals(cra.getTimeLimit(), 2);
+
+        cra.setTimeLimit(-1, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(cra.getTimeLimit(), -1);
 
         cra.setMaxEnd(-5);
         Assert.assertEquals(cra.getMaxEnd(), -5);
@@ -61,6 +75,19 @@ public class DefaultChocoReconfigurationAlgorithmTest {
         cra.doRepair(true);
         Assert.assertEquals(cra.doRepair(), true);
 
+        Assert.assertFalse(cra.doDecompose());
+        cra.doDecompose(true);
+        Assert.assertTrue(cra.doDecompose());
+
+        Assert.assertFalse(cra.doBoundMemory());
+        cra.doBoundMemory(true);
+        Assert.assertTrue(cra.doBoundMemory());
+
+        Assert.assertNull(cra.getFallback());
+        GreedyReconfigurationAlgorithm greedy = new GreedyReconfigurationAlgorithm();
+        cra.setFallback(greedy);
+        Assert.assertEquals(cra.getFallback(), greedy);
+
         cra.labelVariables(true);
         Assert.assertEquals(cra.areVariablesLabelled(), true);
 
@@ -82,6 +109,118 @@ public class DefaultChocoReconfigurationAlgorithmTest {
         };
         cra.setObjective(obj);
         Assert.assertEquals(cra.getObjective(), obj);
+
+        Assert.assertEquals(cra.getCheckerParallelism(), 1);
+        cra.setCheckerParallelism(4);
+        Assert.assertEquals(cra.getCheckerParallelism(), 4);
+        Assert.assertEquals(cra.getCheckerSamplingRate(Spread.class), 1d);
+        cra.setCheckerSamplingRate(Spread.class, 0.2);
+        Assert.assertEquals(cra.getCheckerSamplingRate(Spread.class), 0.2);
+    }
+
+    @Test
+    public void testWithoutChecking() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addRunningVM(vm1, n1);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.setCheckerParallelism(2);
+        cra.setCheckerSamplingRate(Fence.class, 0);
+        ReconfigurationPlan p = cra.solve(mo, Arrays.<SatConstraint>asList(new Running(Collections.singleton(vm1)),
+                new Fence(Collections.singleton(vm1), Collections.singleton(n2))));
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getResult().getMapping().getVMLocation(vm1), n2);
+    }
+
+    @Test
+    public void testDecomposed() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        new MappingFiller(mo.getMapping()).on(n1, n2, n3)
+                .run(n1, vm1, vm2)
+                .run(n2, vm3);
+        ShareableResource rc = new ShareableResource("cpu", 4, 1);
+        rc.setConsumption(vm3, 3);
+        mo.attach(rc);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doDecompose(true);
+        cra.doOptimize(true);
+        List<SatConstraint> cstrs = Arrays.<SatConstraint>asList(new Offline(Collections.singleton(n1)),
+                new Spread(new HashSet<>(Arrays.asList(vm1, vm2))));
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Mapping res = p.getResult().getMapping();
+        Assert.assertTrue(res.getOfflineNodes().contains(n1));
+        Assert.assertNotEquals(res.getVMLocation(vm1), res.getVMLocation(vm2));
+        for (SatConstraint c : cstrs) {
+            Assert.assertTrue(c.isSatisfied(p));
+        }
+    }
+
+    /**
+     * Every VM must leave its node but the nodes are full.
+     * Any placement is a permutation of the VMs that cannot be scheduled, as no node
+     * can host two VMs during their migration.
+     */
+    private static List<SatConstraint> makeSwaps(Model mo, List<Node> ns, int nbNodes) {
+        ShareableResource rc = new ShareableResource("cpu", 4, 3);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        for (int i = 0; i < nbNodes; i++) {
+            Node n = mo.newNode();
+            VM vm = mo.newVM();
+            mo.getMapping().addOnlineNode(n);
+            mo.getMapping().addRunningVM(vm, n);
+            ns.add(n);
+            cstrs.add(new Ban(Collections.singleton(vm), Collections.singleton(n)));
+        }
+        mo.attach(rc);
+        return cstrs;
+    }
+
+    @Test
+    public void testDecomposedWithoutSchedule() throws SolverException {
+        //9 placements, none can be scheduled. The placements are forbidden
+        //one by one, then the whole problem is solved
+        Model mo = new DefaultModel();
+        List<SatConstraint> cstrs = makeSwaps(mo, new ArrayList<Node>(), 4);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doDecompose(true);
+        Assert.assertNull(cra.solve(mo, cstrs));
+        Assert.assertFalse(cra.getSolvingStatistics().isTimeout());
+
+        //A single placement, that cannot be scheduled. Once forbidden, there is no placement left
+        mo = new DefaultModel();
+        cstrs = makeSwaps(mo, new ArrayList<Node>(), 2);
+        Assert.assertNull(cra.solve(mo, cstrs));
+    }
+
+    @Test
+    public void testDecomposedRetry() throws SolverException {
+        //With a spare node, the VMs can be moved one after the other
+        //while the placements that only swap the VMs cannot be scheduled
+        Model mo = new DefaultModel();
+        List<Node> ns = new ArrayList<>();
+        List<SatConstraint> cstrs = makeSwaps(mo, ns, 4);
+        Node spare = mo.newNode();
+        mo.getMapping().addOnlineNode(spare);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doDecompose(true);
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getResult().getMapping().getRunningVMs(spare).size(), 1);
+        for (SatConstraint c : cstrs) {
+            Assert.assertTrue(c.isSatisfied(p));
+        }
     }
 
     @Test
@@ -128,6 +267,241 @@ public class DefaultChocoReconfigurationAlgorithmTest {
         Assert.assertEquals(MappingUtils.usedNodes(res, EnumSet.of(MappingUtils.State.Runnings)).size(), 1);
         st = cra.getSolvingStatistics();
         Assert.assertEquals(st.getSolutions().size(), 10);
+        Assert.assertTrue(st.getPeakMemory() > 0);
+    }
+
+    /**
+     * Same problem than {@link #testGetStatistics()}, but only the best solution is kept.
+     */
+    @Test
+    public void testBoundMemory() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        map.addOnlineNode(n1);
+        for (int i = 0; i < 10; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            map.addRunningVM(mo.newVM(), n);
+        }
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doOptimize(true);
+        cra.doBoundMemory(true);
+        cra.labelVariables(true);
+        cra.setObjective(new ReconfigurationObjective() {
+            @Override
+            public void inject(ReconfigurationProblem rp) throws SolverException {
+                //The variables are never labelled in that mode
+                Assert.assertFalse(rp.isVarLabelling());
+                Mapping map = rp.getSourceModel().getMapping();
+                CPSolver s = rp.getSolver();
+                IntDomainVar nbNodes = s.createBoundIntVar("nbNodes", 1, map.getOnlineNodes().size());
+                IntDomainVar[] hosters = SliceUtils.extractHosters(ActionModelUtils.getDSlices(rp.getVMActions()));
+                s.post(new AtMostNValue(hosters, nbNodes));
+                s.setObjective(nbNodes);
+                s.getConfiguration().putEnum(Configuration.RESOLUTION_POLICY, ResolutionPolicy.MINIMIZE);
+            }
+
+            @Override
+            public Set<VM> getMisPlacedVMs(Model m) {
+                return Collections.emptySet();
+            }
+        });
+        ReconfigurationPlan p = cra.solve(mo, Collections.<SatConstraint>emptyList());
+        Mapping res = p.getResult().getMapping();
+        Assert.assertEquals(MappingUtils.usedNodes(res, EnumSet.of(MappingUtils.State.Runnings)).size(), 1);
+        SolvingStatistics st = cra.getSolvingStatistics();
+        Assert.assertEquals(st.getSolutions().size(), 1);
+        Assert.assertEquals(st.getSolutions().iterator().next().getOptValue(), 1);
+        Assert.assertTrue(st.getPeakMemory() > 0);
+    }
+
+    @Test
+    public void testCancelWhileBuilding() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        for (int i = 0; i < 5; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            map.addRunningVM(mo.newVM(), n);
+        }
+        final ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.setObjective(new ReconfigurationObjective() {
+            @Override
+            public void inject(ReconfigurationProblem rp) throws SolverException {
+                cra.cancel();
+            }
+
+            @Override
+            public Set<VM> getMisPlacedVMs(Model m) {
+                return Collections.emptySet();
+            }
+        });
+        Assert.assertNull(cra.solve(mo, Collections.<SatConstraint>emptyList()));
+        SolvingStatistics st = cra.getSolvingStatistics();
+        Assert.assertTrue(st.isCancelled());
+        Assert.assertFalse(st.isTimeout());
+        Assert.assertEquals(st.getNbNodes(), 5);
+        Assert.assertTrue(st.getSolutions().isEmpty());
+
+        //The cancellation does not impact the next solving process
+        cra.setObjective(new MinMTTR());
+        Assert.assertNotNull(cra.solve(mo, Collections.<SatConstraint>emptyList()));
+        Assert.assertFalse(cra.getSolvingStatistics().isCancelled());
+    }
+
+    @Test
+    public void testFallbackOnTimeout() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        new MappingFiller(mo.getMapping()).on(n1, n2).run(n1, vm1);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.setTimeLimit(1);
+        //The time limit is reached while building the problem
+        cra.setObjective(new ReconfigurationObjective() {
+            @Override
+            public void inject(ReconfigurationProblem rp) throws SolverException {
+                try {
+                    Thread.sleep(1500);
+                } catch (InterruptedException ex) {
+                    throw new SolverException(rp.getSourceModel(), ex.getMessage(), ex);
+                }
+            }
+
+            @Override
+            public Set<VM> getMisPlacedVMs(Model m) {
+                return Collections.emptySet();
+            }
+        });
+        List<SatConstraint> cstrs = Arrays.<SatConstraint>asList(new Offline(Collections.singleton(n1)));
+        Assert.assertNull(cra.solve(mo, cstrs));
+        Assert.assertFalse(cra.getSolvingStatistics().isFallback());
+
+        cra.setFallback(new GreedyReconfigurationAlgorithm());
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getResult().getMapping().getVMLocation(vm1), n2);
+        SolvingStatistics st = cra.getSolvingStatistics();
+        Assert.assertTrue(st.isTimeout());
+        Assert.assertTrue(st.isFallback());
+    }
+
+    /**
+     * A constraint that slows down the propagation.
+     */
+    private static class SlowPropagation extends AbstractLargeIntSConstraint {
+
+        SlowPropagation(IntDomainVar[] vs) {
+            super(vs);
+        }
+
+        @Override
+        public void propagate() throws ContradictionException {
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean isSatisfied(int[] tuple) {
+            return true;
+        }
+    }
+
+    @Test
+    public void testFallbackOnSearchTimeout() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        new MappingFiller(mo.getMapping()).on(n1, n2).run(n1, vm1);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.setTimeLimit(1);
+        //The time limit is reached during the search
+        cra.setObjective(new ReconfigurationObjective() {
+            @Override
+            public void inject(ReconfigurationProblem rp) throws SolverException {
+                rp.getSolver().post(new SlowPropagation(rp.getNbRunningVMs()));
+            }
+
+            @Override
+            public Set<VM> getMisPlacedVMs(Model m) {
+                return Collections.emptySet();
+            }
+        });
+        List<SatConstraint> cstrs = Arrays.<SatConstraint>asList(new Offline(Collections.singleton(n1)));
+        Assert.assertNull(cra.solve(mo, cstrs));
+        Assert.assertTrue(cra.getSolvingStatistics().isTimeout());
+        Assert.assertFalse(cra.getSolvingStatistics().isFallback());
+
+        cra.setFallback(new GreedyReconfigurationAlgorithm());
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getResult().getMapping().getVMLocation(vm1), n2);
+        Assert.assertTrue(cra.getSolvingStatistics().isFallback());
+
+        //Same when the placement times out in the decomposed mode
+        cra.doDecompose(true);
+        p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertTrue(cra.getSolvingStatistics().isTimeout());
+        Assert.assertTrue(cra.getSolvingStatistics().isFallback());
+    }
+
+    @Test
+    public void testCancelBeforeSolving() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n = mo.newNode();
+        mo.getMapping().addOnlineNode(n);
+        mo.getMapping().addRunningVM(mo.newVM(), n);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.cancel();
+        Assert.assertNull(cra.solve(mo, Collections.<SatConstraint>emptyList()));
+        Assert.assertTrue(cra.getSolvingStatistics().isCancelled());
+    }
+
+    /**
+     * A cancellation from another thread stops a plain solving process
+     * during a search that would not terminate before the time limit.
+     */
+    @Test
+    public void testCancelDuringSearch() throws SolverException {
+        Model mo = new DefaultModel();
+        MappingFiller mf = new MappingFiller(mo.getMapping());
+        Node[] ns = new Node[4];
+        for (int i = 0; i < ns.length; i++) {
+            ns[i] = mo.newNode();
+            mf.on(ns[i]);
+        }
+        for (int i = 0; i < 12; i++) {
+            mf.run(ns[i % ns.length], mo.newVM());
+        }
+        final ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.setTimeLimit(60);
+        cra.setObjective(new LongSearchObjective());
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                cra.cancel();
+            }
+        });
+        t.start();
+        long st = System.currentTimeMillis();
+        Assert.assertNull(cra.solve(mo, Collections.<SatConstraint>emptyList()));
+        Assert.assertTrue(System.currentTimeMillis() - st < 10000);
+        SolvingStatistics stats = cra.getSolvingStatistics();
+        Assert.assertTrue(stats.isCancelled());
+        Assert.assertFalse(stats.isTimeout());
+        Assert.assertTrue(stats.getSolutions().isEmpty());
     }
 
     @Test
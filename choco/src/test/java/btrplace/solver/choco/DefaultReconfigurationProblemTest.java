@@ -23,6 +23,7 @@ import btrplace.model.view.ShareableResource;
 import btrplace.plan.ReconfigurationPlan;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.actionModel.*;
+import btrplace.solver.choco.durationEvaluator.ConstantActionDuration;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
 import btrplace.solver.choco.objective.ObjectiveAlterer;
 import btrplace.solver.choco.view.CShareableResource;
@@ -40,6 +41,7 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Unit tests for {@link DefaultReconfigurationProblem}.
@@ -183,6 +185,75 @@ public class DefaultReconfigurationProblemTest {
         Assert.assertEquals(rp.getNode(mo.newNode()), -1);
     }
 
+    /**
+     * The search watches the attached cancellation flag.
+     */
+    @Test
+    public void testCancellationFlag() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addRunningVM(mo.newVM(), n1);
+
+        AtomicBoolean flag = new AtomicBoolean(false);
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).setCancellationFlag(flag).build();
+        Assert.assertFalse(rp.isCancelled());
+        flag.set(true);
+        Assert.assertTrue(rp.isCancelled());
+        Assert.assertNull(rp.solve(0, false));
+
+        //Without a flag, the problem is still solvable
+        rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        Assert.assertNotNull(rp.solve(0, false));
+    }
+
+    /**
+     * Check the durations are evaluated beforehand for the elements of the problem
+     * and on demand for the others.
+     */
+    @Test
+    public void testActionDurations() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Node n1 = mo.newNode();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(n1);
+        map.addRunningVM(vm1, n1);
+        map.addReadyVM(vm2);
+        mo.getAttributes().put(vm1, "migrate", 7);
+        mo.getAttributes().put(n1, "shutdown", 4);
+
+        DurationEvaluators dEval = new DurationEvaluators();
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).setDurationEvaluatators(dEval).build();
+        Assert.assertEquals(rp.getActionDuration(btrplace.plan.event.MigrateVM.class, vm1), 7);
+        Assert.assertEquals(rp.getActionDuration(btrplace.plan.event.BootVM.class, vm2), 1);
+        Assert.assertEquals(rp.getActionDuration(btrplace.plan.event.ShutdownNode.class, n1), 4);
+
+        //Modifying the model after the creation of the problem has no effect
+        mo.getAttributes().put(vm1, "migrate", 9);
+        Assert.assertEquals(rp.getActionDuration(btrplace.plan.event.MigrateVM.class, vm1), 7);
+
+        //A VM that is not in the problem
+        VM vm3 = mo.newVM();
+        mo.getAttributes().put(vm3, "boot", 3);
+        Assert.assertEquals(rp.getActionDuration(btrplace.plan.event.BootVM.class, vm3), 3);
+    }
+
+    @Test(expectedExceptions = {SolverException.class})
+    public void testBadActionDuration() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        Node n1 = mo.newNode();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addRunningVM(vm1, n1);
+
+        DurationEvaluators dEval = new DurationEvaluators();
+        dEval.register(btrplace.plan.event.SuspendVM.class, new ConstantActionDuration(-3));
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).setDurationEvaluatators(dEval).build();
+        rp.getActionDuration(btrplace.plan.event.SuspendVM.class, vm1);
+    }
+
     @Test
     public void testManageableVMs() throws SolverException {
         Model mo = new DefaultModel();
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco;
+
+import btrplace.model.Model;
+import btrplace.model.VM;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import btrplace.solver.choco.objective.ReconfigurationObjective;
+import choco.cp.solver.variables.integer.IntVarEvent;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.constraints.integer.AbstractLargeIntSConstraint;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * An objective that leads to a long search without any solution.
+ * Every placement of the VMs is rejected once all the VMs are placed,
+ * so the solver has to explore all of them.
+ * Use a problem with a few nodes and a dozen of running VMs.
+ *
+ * @author Fabien Hermenier
+ */
+public class LongSearchObjective implements ReconfigurationObjective {
+
+    @Override
+    public void inject(ReconfigurationProblem rp) throws SolverException {
+        VMActionModel[] actions = rp.getVMActions();
+        IntDomainVar[] hosts = new IntDomainVar[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            hosts[i] = actions[i].getDSlice().getHoster();
+        }
+        rp.getSolver().post(new RejectAll(hosts));
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        return Collections.emptySet();
+    }
+
+    /**
+     * A constraint that fails once all its variables are instantiated.
+     */
+    private static class RejectAll extends AbstractLargeIntSConstraint {
+
+        RejectAll(IntDomainVar[] vs) {
+            super(vs);
+        }
+
+        @Override
+        public int getFilteredEventMask(int idx) {
+            return IntVarEvent.INSTINT_MASK;
+        }
+
+        @Override
+        public void awakeOnInst(int idx) throws ContradictionException {
+            propagate();
+        }
+
+        @Override
+        public void propagate() throws ContradictionException {
+            for (IntDomainVar v : vars) {
+                if (!v.isInstantiated()) {
+                    return;
+                }
+            }
+            fail();
+        }
+
+        @Override
+        public boolean isSatisfied(int[] tuple) {
+            return false;
+        }
+    }
+}
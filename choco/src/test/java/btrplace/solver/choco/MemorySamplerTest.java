@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link MemorySampler}.
+ *
+ * @author Fabien Hermenier
+ */
+public class MemorySamplerTest {
+
+    private static final int SIZE = 64 * 1024 * 1024;
+
+    @Test
+    public void testPeakOfAnAllocation() {
+        MemorySampler s = new MemorySampler();
+        Assert.assertEquals(s.getPeak(), 0);
+        long before = MemorySampler.getUsedHeap();
+        s.start();
+        byte[] buf = new byte[SIZE];
+        s.sample();
+        long peak = s.stop();
+        Assert.assertEquals(buf.length, SIZE);
+        Assert.assertEquals(s.getPeak(), peak);
+        //The buffer may have been allocated once the previous garbage was collected
+        Assert.assertTrue(peak >= SIZE, "peak: " + peak);
+        Assert.assertTrue(peak >= Math.min(before, MemorySampler.getUsedHeap()));
+    }
+
+    /**
+     * The peak of a sampler is not reset by another one.
+     */
+    @Test
+    public void testSideBySide() {
+        MemorySampler s1 = new MemorySampler();
+        MemorySampler s2 = new MemorySampler();
+        s1.start();
+        byte[] buf = new byte[SIZE];
+        s1.sample();
+        long peak = s1.getPeak();
+        Assert.assertEquals(buf.length, SIZE);
+        buf = null;
+        s2.start();
+        s2.stop();
+        Assert.assertTrue(s1.stop() >= peak);
+        Assert.assertTrue(peak >= SIZE);
+    }
+
+    /**
+     * The periodic sampling notices an allocation without explicit sample.
+     */
+    @Test
+    public void testPeriodicSampling() throws InterruptedException {
+        MemorySampler s = new MemorySampler(1);
+        //Limit the garbage that may be collected during the measure
+        System.gc();
+        s.start();
+        long start = s.getPeak();
+        byte[] buf = new byte[SIZE];
+        long deadline = System.currentTimeMillis() + 5000;
+        while (s.getPeak() < start + SIZE / 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(buf.length, SIZE);
+        Assert.assertTrue(s.getPeak() >= start + SIZE / 2, "start: " + start + ", peak: " + s.getPeak());
+        s.stop();
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadPeriod() {
+        new MemorySampler(0);
+    }
+}
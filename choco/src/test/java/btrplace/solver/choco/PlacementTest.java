@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco;
+
+import btrplace.model.DefaultModel;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.actionModel.NodeActionModel;
+import choco.kernel.solver.ContradictionException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link Placement}.
+ *
+ * @author Fabien Hermenier
+ */
+public class PlacementTest {
+
+    private Model mo;
+
+    private Node n1, n2, n3;
+
+    private VM vm1, vm2;
+
+    private void makeModel() {
+        mo = new DefaultModel();
+        n1 = mo.newNode();
+        n2 = mo.newNode();
+        n3 = mo.newNode();
+        vm1 = mo.newVM();
+        vm2 = mo.newVM();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addOnlineNode(n2);
+        mo.getMapping().addOnlineNode(n3);
+        mo.getMapping().addRunningVM(vm1, n1);
+        mo.getMapping().addRunningVM(vm2, n2);
+    }
+
+    /**
+     * Extract a placement where the nodes stay online.
+     */
+    private Placement makePlacement(Node h1, Node h2) throws SolverException, ContradictionException {
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        rp.getVMAction(vm1).getDSlice().getHoster().setVal(rp.getNode(h1));
+        rp.getVMAction(vm2).getDSlice().getHoster().setVal(rp.getNode(h2));
+        for (NodeActionModel a : rp.getNodeActions()) {
+            a.getState().setVal(1);
+        }
+        return new Placement(rp);
+    }
+
+    @Test
+    public void testFix() throws SolverException, ContradictionException {
+        makeModel();
+        Placement pl = makePlacement(n3, n2);
+        Assert.assertEquals(pl.getHost(vm1), n3);
+        Assert.assertEquals(pl.getHost(vm2), n2);
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        Assert.assertTrue(pl.fix(rp));
+        Assert.assertEquals(rp.getVMAction(vm1).getDSlice().getHoster().getVal(), rp.getNode(n3));
+        Assert.assertEquals(rp.getVMAction(vm2).getDSlice().getHoster().getVal(), rp.getNode(n2));
+    }
+
+    @Test(expectedExceptions = {ContradictionException.class})
+    public void testForbidTheMoves() throws SolverException, ContradictionException {
+        makeModel();
+        Placement pl = makePlacement(n3, n2);
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        Assert.assertTrue(pl.forbid(rp));
+        //Only the move of vm1 is forbidden, whatever the host of vm2
+        rp.getVMAction(vm2).getDSlice().getHoster().setVal(rp.getNode(n1));
+        rp.getVMAction(vm1).getDSlice().getHoster().setVal(rp.getNode(n3));
+        rp.getSolver().propagate();
+    }
+
+    @Test
+    public void testForbidAllowsOtherMoves() throws SolverException, ContradictionException {
+        makeModel();
+        Placement pl = makePlacement(n3, n2);
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        Assert.assertTrue(pl.forbid(rp));
+        rp.getVMAction(vm1).getDSlice().getHoster().setVal(rp.getNode(n2));
+        rp.getVMAction(vm2).getDSlice().getHoster().setVal(rp.getNode(n3));
+        rp.getSolver().propagate();
+    }
+
+    @Test
+    public void testForbidWithoutMoves() throws SolverException, ContradictionException {
+        makeModel();
+        //Nothing is involved, the placement cannot be forbidden
+        Placement pl = makePlacement(n1, n2);
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        Assert.assertFalse(pl.forbid(rp));
+
+        //The move is already impossible
+        pl = makePlacement(n3, n2);
+        rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        rp.getVMAction(vm1).getDSlice().getHoster().setVal(rp.getNode(n1));
+        Assert.assertTrue(pl.forbid(rp));
+    }
+}
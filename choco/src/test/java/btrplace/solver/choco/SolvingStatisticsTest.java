@@ -48,6 +48,56 @@ public class SolvingStatisticsTest {
         System.out.println(st);
     }
 
+    @Test(dependsOnMethods = {"testInstantiate"})
+    public void testCancelledAndCheckDuration() {
+        SolvingStatistics st = new SolvingStatistics(10, 20, 44, true, 40, 100, 1, 2, 3, false, 7, 34);
+        Assert.assertFalse(st.isCancelled());
+        Assert.assertEquals(st.getCheckDuration(), 0);
+        st.setCancelled(true);
+        st.setCheckDuration(12);
+        Assert.assertTrue(st.isCancelled());
+        Assert.assertEquals(st.getCheckDuration(), 12);
+        Assert.assertTrue(st.toString().contains("(cancelled)"));
+    }
+
+    @Test(dependsOnMethods = {"testInstantiate"})
+    public void testOptimal() {
+        SolvingStatistics st = new SolvingStatistics(10, 20, 44, true, 40, 100, 1, 2, 3, false, 7, 34);
+        //No solution
+        Assert.assertFalse(st.isOptimal());
+        st.addSolution(new SolutionStatistics(1, 2, 3, 4));
+        Assert.assertTrue(st.isOptimal());
+        st.setCancelled(true);
+        Assert.assertFalse(st.isOptimal());
+
+        st = new SolvingStatistics(10, 20, 44, true, 40, 100, 1, 2, 3, true, 7, 34);
+        st.addSolution(new SolutionStatistics(1, 2, 3, 4));
+        Assert.assertFalse(st.isOptimal());
+
+        st = new SolvingStatistics(10, 20, 44, false, 40, 100, 1, 2, 3, false, 7, 34);
+        st.addSolution(new SolutionStatistics(1, 2, 3, 4));
+        Assert.assertFalse(st.isOptimal());
+    }
+
+    @Test(dependsOnMethods = {"testInstantiate"})
+    public void testFallback() {
+        SolvingStatistics st = new SolvingStatistics(10, 20, 44, true, 40, 100, 1, 2, 3, true, 7, 34);
+        Assert.assertFalse(st.isFallback());
+        st.setFallback(true);
+        Assert.assertTrue(st.isFallback());
+        Assert.assertTrue(st.toString().contains("fallback"));
+    }
+
+    @Test(dependsOnMethods = {"testInstantiate"})
+    public void testPeakMemory() {
+        SolvingStatistics st = new SolvingStatistics(10, 20, 44, true, 40, 100, 1, 2, 3, true, 7, 34);
+        Assert.assertEquals(st.getPeakMemory(), 0);
+        Assert.assertFalse(st.toString().contains("peak memory"));
+        st.setPeakMemory(3 * 1024 * 1024);
+        Assert.assertEquals(st.getPeakMemory(), 3 * 1024 * 1024);
+        Assert.assertTrue(st.toString().contains("peak memory: 3MB"));
+    }
+
     @Test(dependsOnMethods = {"testInstantiate"})
     public void testAddSolution() {
         SolvingStatistics st = new SolvingStatistics(10, 20, 44, true, 40, 100, 1, 2, 3, false, 7, 34);
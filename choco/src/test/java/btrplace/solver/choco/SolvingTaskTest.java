@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco;
+
+import btrplace.model.*;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.actionModel.ActionModelUtils;
+import btrplace.solver.choco.objective.ReconfigurationObjective;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.constraints.global.AtMostNValue;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.ResolutionPolicy;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for {@link SolvingTask}.
+ *
+ * @author Fabien Hermenier
+ */
+public class SolvingTaskTest {
+
+    /**
+     * Make a model where each VM is running on a distinct node.
+     */
+    private static Model makeModel() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        map.addOnlineNode(n1);
+        for (int i = 0; i < 10; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            map.addRunningVM(mo.newVM(), n);
+        }
+        return mo;
+    }
+
+    /**
+     * Make an algorithm that minimizes the number of nodes hosting VMs.
+     */
+    private static ChocoReconfigurationAlgorithm makeAlgorithm() {
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doOptimize(true);
+        cra.setObjective(new ReconfigurationObjective() {
+            @Override
+            public void inject(ReconfigurationProblem rp) throws SolverException {
+                Mapping map = rp.getSourceModel().getMapping();
+                CPSolver s = rp.getSolver();
+                IntDomainVar nbNodes = s.createBoundIntVar("nbNodes", 1, map.getOnlineNodes().size());
+                IntDomainVar[] hosters = SliceUtils.extractHosters(ActionModelUtils.getDSlices(rp.getVMActions()));
+                s.post(new AtMostNValue(hosters, nbNodes));
+                s.setObjective(nbNodes);
+                s.getConfiguration().putEnum(Configuration.RESOLUTION_POLICY, ResolutionPolicy.MINIMIZE);
+            }
+
+            @Override
+            public Set<VM> getMisPlacedVMs(Model m) {
+                return Collections.emptySet();
+            }
+        });
+        return cra;
+    }
+
+    private static int nbUsedNodes(ReconfigurationPlan p) {
+        return MappingUtils.usedNodes(p.getResult().getMapping(), EnumSet.of(MappingUtils.State.Runnings)).size();
+    }
+
+    @Test
+    public void testStreaming() throws SolverException, InterruptedException {
+        ChocoReconfigurationAlgorithm cra = makeAlgorithm();
+        SolvingTask t = cra.solveAsync(makeModel(), Collections.<SatConstraint>emptyList());
+        List<ReconfigurationPlan> plans = new ArrayList<>();
+        ReconfigurationPlan p;
+        while ((p = t.poll(10, TimeUnit.SECONDS)) != null) {
+            plans.add(p);
+        }
+        ReconfigurationPlan res = t.get();
+        Assert.assertTrue(t.isDone());
+        Assert.assertFalse(t.isCancelled());
+        Assert.assertNotNull(res);
+        Assert.assertEquals(cra.getSolvingStatistics().getSolutions().size(), plans.size());
+        Assert.assertEquals(plans.get(plans.size() - 1), res);
+        Assert.assertEquals(t.getLastPlan(), res);
+        Assert.assertEquals(nbUsedNodes(res), 1);
+    }
+
+    @Test
+    public void testListener() throws SolverException {
+        ChocoReconfigurationAlgorithm cra = makeAlgorithm();
+        final List<ReconfigurationPlan> plans = new ArrayList<>();
+        SolutionListener l = new SolutionListener() {
+            @Override
+            public void solutionFound(ReconfigurationProblem rp, ReconfigurationPlan plan) {
+                plans.add(plan);
+            }
+        };
+        cra.addSolutionListener(l);
+        ReconfigurationPlan res = cra.solve(makeModel(), Collections.<SatConstraint>emptyList());
+        Assert.assertEquals(plans.size(), cra.getSolvingStatistics().getSolutions().size());
+        Assert.assertEquals(plans.get(plans.size() - 1), res);
+        Assert.assertTrue(cra.removeSolutionListener(l));
+        Assert.assertFalse(cra.removeSolutionListener(l));
+    }
+
+    @Test
+    public void testCancelAtFirstSolution() throws SolverException, InterruptedException {
+        final ChocoReconfigurationAlgorithm cra = makeAlgorithm();
+        cra.addSolutionListener(new SolutionListener() {
+            @Override
+            public void solutionFound(ReconfigurationProblem rp, ReconfigurationPlan plan) {
+                cra.cancel();
+            }
+        });
+        SolvingTask t = cra.solveAsync(makeModel(), Collections.<SatConstraint>emptyList());
+        ReconfigurationPlan res = t.get();
+        //Only the first solution was computed
+        Assert.assertNotNull(res);
+        Assert.assertEquals(t.getLastPlan(), res);
+        Assert.assertEquals(cra.getSolvingStatistics().getSolutions().size(), 1);
+        //The solver terminated its search but the solution is not proven optimal
+        Assert.assertFalse(cra.getSolvingStatistics().isOptimal());
+    }
+
+    /**
+     * The task is cancelled during a search that has no solution.
+     */
+    @Test
+    public void testCancelDuringSearch() throws SolverException, InterruptedException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node[] ns = new Node[4];
+        for (int i = 0; i < ns.length; i++) {
+            ns[i] = mo.newNode();
+            map.addOnlineNode(ns[i]);
+        }
+        for (int i = 0; i < 12; i++) {
+            map.addRunningVM(mo.newVM(), ns[i % ns.length]);
+        }
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doOptimize(true);
+        cra.setTimeLimit(60);
+        cra.setObjective(new LongSearchObjective());
+        SolvingTask t = cra.solveAsync(mo, Collections.<SatConstraint>emptyList());
+        Assert.assertNull(t.poll(1, TimeUnit.SECONDS));
+        t.cancel();
+        Assert.assertNull(t.get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(t.isDone());
+        SolvingStatistics st = cra.getSolvingStatistics();
+        Assert.assertTrue(st.isCancelled());
+        Assert.assertFalse(st.isTimeout());
+        Assert.assertFalse(st.isOptimal());
+    }
+
+    @Test
+    public void testCancelAtFirstSolution() throws SolverException, InterruptedException {
+        ChocoReconfigurationAlgorithm cra = makeAlgorithm();
+        SolvingTask t = new SolvingTask(cra, makeModel(), Collections.<SatConstraint>emptyList());
+        t.cancel();
+        t.start();
+        Assert.assertNull(t.get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(t.isDone());
+        Assert.assertTrue(t.isCancelled());
+        Assert.assertNull(t.getLastPlan());
+        Assert.assertNull(t.poll(1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expectedExceptions = {IllegalStateException.class})
+    public void testDoubleStart() {
+        SolvingTask t = new SolvingTask(makeAlgorithm(), makeModel(), Collections.<SatConstraint>emptyList());
+        t.start();
+        t.start();
+    }
+
+    /**
+     * A task cancelled once terminated must not impact the next
+     * solving process of the algorithm.
+     */
+    @Test
+    public void testCancelAfterTermination() throws SolverException, InterruptedException {
+        ChocoReconfigurationAlgorithm cra = makeAlgorithm();
+        SolvingTask t = cra.solveAsync(makeModel(), Collections.<SatConstraint>emptyList());
+        Assert.assertNotNull(t.get());
+        t.cancel();
+        Assert.assertTrue(t.isCancelled());
+        Assert.assertNotNull(cra.solve(makeModel(), Collections.<SatConstraint>emptyList()));
+        Assert.assertFalse(cra.getSolvingStatistics().isCancelled());
+    }
+
+    /**
+     * The flag of a solving process is not shared with the next one.
+     */
+    @Test
+    public void testDedicatedFlag() throws SolverException {
+        ChocoReconfigurationAlgorithm cra = makeAlgorithm();
+        AtomicBoolean flag = new AtomicBoolean(true);
+        Assert.assertNull(cra.solve(makeModel(), Collections.<SatConstraint>emptyList(), flag));
+        Assert.assertTrue(cra.getSolvingStatistics().isCancelled());
+        //Raised again once terminated
+        flag.set(true);
+        Assert.assertNotNull(cra.solve(makeModel(), Collections.<SatConstraint>emptyList()));
+    }
+}
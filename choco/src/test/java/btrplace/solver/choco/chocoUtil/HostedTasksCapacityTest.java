@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.chocoUtil;
+
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link HostedTasksCapacity}.
+ *
+ * @author Fabien Hermenier
+ */
+public class HostedTasksCapacityTest {
+
+    /**
+     * Two tasks on a same host with a capacity of 1, and a task on
+     * an unbounded host.
+     */
+    @Test
+    public void testSimple() {
+        CPSolver s = new CPSolver();
+        IntDomainVar[] hosts = new IntDomainVar[]{
+                s.makeConstantIntVar(0),
+                s.makeConstantIntVar(0),
+                s.makeConstantIntVar(1)};
+        IntDomainVar[] starts = new IntDomainVar[]{
+                s.createBoundIntVar("s0", 0, 3),
+                s.createBoundIntVar("s1", 0, 3),
+                s.createBoundIntVar("s2", 0, 0)};
+        IntDomainVar[] durations = new IntDomainVar[]{
+                s.makeConstantIntVar(2),
+                s.makeConstantIntVar(2),
+                s.makeConstantIntVar(2)};
+        s.post(new HostedTasksCapacity(hosts, starts, durations, new int[]{1, HostedTasksCapacity.UNBOUNDED}));
+        Assert.assertEquals(s.solveAll(), Boolean.TRUE);
+        //(0,2), (0,3), (1,3) and symmetrically
+        Assert.assertEquals(s.getNbSolutions(), 6);
+    }
+
+    /**
+     * Tasks with a null duration are not executed.
+     */
+    @Test
+    public void testNullDurations() {
+        CPSolver s = new CPSolver();
+        IntDomainVar[] hosts = new IntDomainVar[]{
+                s.createEnumIntVar("h0", 0, 1),
+                s.makeConstantIntVar(0)};
+        IntDomainVar[] starts = new IntDomainVar[]{
+                s.makeConstantIntVar(0),
+                s.makeConstantIntVar(0)};
+        IntDomainVar[] durations = new IntDomainVar[]{
+                s.createEnumIntVar("d0", new int[]{0, 3}),
+                s.makeConstantIntVar(3)};
+        s.post(new HostedTasksCapacity(hosts, starts, durations, new int[]{1, 1}));
+        Assert.assertEquals(s.solveAll(), Boolean.TRUE);
+        //The first task is on host 1, or does not execute
+        Assert.assertEquals(s.getNbSolutions(), 3);
+    }
+
+    /**
+     * The host is overloaded.
+     */
+    @Test
+    public void testOverload() {
+        CPSolver s = new CPSolver();
+        IntDomainVar[] hosts = new IntDomainVar[]{s.makeConstantIntVar(0), s.makeConstantIntVar(0), s.makeConstantIntVar(0)};
+        IntDomainVar[] starts = new IntDomainVar[]{s.makeConstantIntVar(0), s.makeConstantIntVar(1), s.makeConstantIntVar(1)};
+        IntDomainVar[] durations = new IntDomainVar[]{s.makeConstantIntVar(2), s.makeConstantIntVar(2), s.makeConstantIntVar(2)};
+        s.post(new HostedTasksCapacity(hosts, starts, durations, new int[]{2}));
+        Assert.assertEquals(s.solve(), Boolean.FALSE);
+    }
+}
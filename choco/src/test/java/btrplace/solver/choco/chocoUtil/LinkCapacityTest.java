@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.chocoUtil;
+
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link LinkCapacity}.
+ *
+ * @author Fabien Hermenier
+ */
+public class LinkCapacityTest {
+
+    /**
+     * Two transfers from host 0 to host 1 that cannot overlap.
+     */
+    @Test
+    public void testMandatoryTasks() {
+        CPSolver s = new CPSolver();
+        IntDomainVar[] hosts = new IntDomainVar[]{s.makeConstantIntVar(1), s.makeConstantIntVar(1)};
+        IntDomainVar[] starts = new IntDomainVar[]{
+                s.createBoundIntVar("s0", 0, 5),
+                s.createBoundIntVar("s1", 0, 5)};
+        s.post(new LinkCapacity(hosts, starts, new int[]{3, 3}, new int[]{0, 0}, new int[]{2, 2},
+                new int[]{3, 3}, new int[]{-1, -1}, new int[0]));
+        Assert.assertEquals(s.solveAll(), Boolean.TRUE);
+        //s0 in [0,2] with s1 in [s0 + 3, 5], and symmetrically
+        Assert.assertEquals(s.getNbSolutions(), 12);
+    }
+
+    /**
+     * Two transfers that fit on the links together.
+     */
+    @Test
+    public void testNoContention() {
+        CPSolver s = new CPSolver();
+        IntDomainVar[] hosts = new IntDomainVar[]{s.makeConstantIntVar(1), s.makeConstantIntVar(1)};
+        IntDomainVar[] starts = new IntDomainVar[]{
+                s.createBoundIntVar("s0", 0, 2),
+                s.createBoundIntVar("s1", 0, 2)};
+        s.post(new LinkCapacity(hosts, starts, new int[]{3, 3}, new int[]{0, 0}, new int[]{1, 2},
+                new int[]{3, 3}, new int[]{-1, -1}, new int[0]));
+        Assert.assertEquals(s.solveAll(), Boolean.TRUE);
+        Assert.assertEquals(s.getNbSolutions(), 9);
+    }
+
+    /**
+     * A task that cannot fit on the links must stay on its source.
+     */
+    @Test
+    public void testStayingTask() {
+        CPSolver s = new CPSolver();
+        IntDomainVar h0 = s.makeConstantIntVar(1);
+        IntDomainVar h1 = s.createEnumIntVar("h1", 0, 1);
+        IntDomainVar[] starts = new IntDomainVar[]{s.makeConstantIntVar(0), s.makeConstantIntVar(1)};
+        s.post(new LinkCapacity(new IntDomainVar[]{h0, h1}, starts, new int[]{3, 3}, new int[]{0, 0}, new int[]{2, 2},
+                new int[]{3, 3}, new int[]{-1, -1}, new int[0]));
+        Assert.assertEquals(s.solveAll(), Boolean.TRUE);
+        Assert.assertEquals(s.getNbSolutions(), 1);
+        Assert.assertEquals(h1.getVal(), 0);
+    }
+
+    /**
+     * The outgoing link is overloaded by the compulsory parts.
+     */
+    @Test
+    public void testOverload() {
+        CPSolver s = new CPSolver();
+        IntDomainVar[] hosts = new IntDomainVar[]{s.makeConstantIntVar(1), s.makeConstantIntVar(2)};
+        IntDomainVar[] starts = new IntDomainVar[]{s.makeConstantIntVar(0), s.createBoundIntVar("s1", 0, 1)};
+        s.post(new LinkCapacity(hosts, starts, new int[]{3, 3}, new int[]{0, 0}, new int[]{2, 2},
+                new int[]{3, 10, 10}, new int[]{-1, -1, -1}, new int[0]));
+        Assert.assertEquals(s.solve(), Boolean.FALSE);
+    }
+
+    /**
+     * The incoming link of the destination delays a transfer coming from another host.
+     */
+    @Test
+    public void testPropagateIncoming() throws ContradictionException {
+        CPSolver s = new CPSolver();
+        IntDomainVar[] hosts = new IntDomainVar[]{s.makeConstantIntVar(2), s.makeConstantIntVar(2)};
+        IntDomainVar[] starts = new IntDomainVar[]{s.makeConstantIntVar(0), s.createBoundIntVar("s1", 0, 10)};
+        s.post(new LinkCapacity(hosts, starts, new int[]{3, 4}, new int[]{0, 1}, new int[]{2, 2},
+                new int[]{10, 10, 3}, new int[]{-1, -1, -1}, new int[0]));
+        s.propagate();
+        Assert.assertEquals(starts[1].getInf(), 3);
+        Assert.assertEquals(starts[1].getSup(), 10);
+    }
+
+    /**
+     * A task that cannot stay on its source necessarily uses its outgoing link,
+     * even if its destination is not known.
+     */
+    @Test
+    public void testPropagateOutgoing() throws ContradictionException {
+        CPSolver s = new CPSolver();
+        IntDomainVar[] hosts = new IntDomainVar[]{s.makeConstantIntVar(1), s.createEnumIntVar("h1", 1, 2)};
+        IntDomainVar[] starts = new IntDomainVar[]{s.createBoundIntVar("s0", 5, 10), s.createBoundIntVar("s1", 0, 10)};
+        s.post(new LinkCapacity(hosts, starts, new int[]{3, 4}, new int[]{0, 0}, new int[]{2, 2},
+                new int[]{3, 10, 10}, new int[]{-1, -1, -1}, new int[0]));
+        s.propagate();
+        Assert.assertEquals(starts[0].getInf(), 5);
+        //No compulsory part for the first task, nothing to filter
+        Assert.assertEquals(starts[1].getInf(), 0);
+        starts[0].setSup(5);
+        s.propagate();
+        //[5, 8[ is used by the first task, the second one must end before or start after
+        Assert.assertEquals(starts[1].getInf(), 0);
+        Assert.assertEquals(starts[1].getSup(), 10);
+        starts[1].setInf(3);
+        s.propagate();
+        Assert.assertEquals(starts[1].getInf(), 8);
+    }
+
+    /**
+     * The uplink of a switch is only used by the transfers that leave the switch.
+     */
+    @Test
+    public void testPropagateUplink() throws ContradictionException {
+        CPSolver s = new CPSolver();
+        //Hosts 0 and 1 are connected to the switch, host 2 to the core
+        IntDomainVar[] hosts = new IntDomainVar[]{
+                s.makeConstantIntVar(2),
+                s.makeConstantIntVar(2),
+                s.makeConstantIntVar(0)};
+        IntDomainVar[] starts = new IntDomainVar[]{
+                s.makeConstantIntVar(0),
+                s.createBoundIntVar("s1", 0, 10),
+                s.createBoundIntVar("s2", 0, 10)};
+        s.post(new LinkCapacity(hosts, starts, new int[]{3, 3, 3}, new int[]{0, 1, 1}, new int[]{2, 2, 2},
+                new int[]{10, 10, 10}, new int[]{0, 0, -1}, new int[]{3}));
+        s.propagate();
+        //Leaves the switch through its uplink
+        Assert.assertEquals(starts[1].getInf(), 3);
+        //Stays inside the switch
+        Assert.assertEquals(starts[2].getInf(), 0);
+    }
+
+    /**
+     * Tasks with a null duration or staying on their source do not transfer anything.
+     */
+    @Test
+    public void testNoTransfer() throws ContradictionException {
+        CPSolver s = new CPSolver();
+        IntDomainVar[] hosts = new IntDomainVar[]{s.makeConstantIntVar(1), s.makeConstantIntVar(0), s.makeConstantIntVar(1)};
+        IntDomainVar[] starts = new IntDomainVar[]{
+                s.makeConstantIntVar(0),
+                s.createBoundIntVar("s1", 0, 10),
+                s.createBoundIntVar("s2", 0, 10)};
+        s.post(new LinkCapacity(hosts, starts, new int[]{3, 3, 0}, new int[]{0, 0, 0}, new int[]{2, 2, 2},
+                new int[]{3, 3}, new int[]{-1, -1}, new int[0]));
+        s.propagate();
+        Assert.assertEquals(starts[1].getInf(), 0);
+        Assert.assertEquals(starts[2].getInf(), 0);
+    }
+}
@@ -15,8 +15,7 @@ public class RoundedUpDivisionTest {
         CPSolver s = new CPSolver();
         IntDomainVar a = s.createBoundIntVar("a", 0, 5);
         IntDomainVar b = s.createBoundIntVar("b", 0, 5);
-        double q = 1;
-        s.post(new RoundedUpDivision(a, b, q));
+        s.post(new RoundedUpDivision(a, b, 1, 1));
         Assert.assertEquals(Boolean.TRUE, s.solveAll());
         Assert.assertEquals(s.getNbSolutions(), 6);
     }
@@ -26,8 +25,8 @@ public class RoundedUpDivisionTest {
         CPSolver s = new CPSolver();
         IntDomainVar a = s.createBoundIntVar("a", 0, 32);
         IntDomainVar b = s.createBoundIntVar("b", 0, 48);
-        double q = 1.5;
-        s.post(new RoundedUpDivision(a, b, q));
+        //q = 1.5
+        s.post(new RoundedUpDivision(a, b, 3, 2));
         Assert.assertEquals(Boolean.TRUE, s.solveAll());
         Assert.assertEquals(s.getNbSolutions(), 33);
     }
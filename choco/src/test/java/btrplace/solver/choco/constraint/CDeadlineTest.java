@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.MappingFiller;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link CDeadline}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CDeadlineTest {
+
+    /**
+     * n1 is evacuated then turned off before the deadline.
+     */
+    @Test
+    public void testSimple() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2).run(n1, vm1, vm2);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Offline(Collections.singleton(n1)));
+        Deadline c = new Deadline(Collections.singleton(vm1), Collections.singleton(n1), 2);
+        cstrs.add(c);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 3);
+        Assert.assertTrue(c.isSatisfied(p));
+        Assert.assertEquals(p.getDuration(), 2);
+    }
+
+    /**
+     * The deadline is too short to evacuate the node.
+     */
+    @Test
+    public void testTooShort() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2).run(n1, vm1);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Offline(Collections.singleton(n1)));
+        cstrs.add(new Deadline(Collections.<VM>emptySet(), Collections.singleton(n1), 1));
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        Assert.assertNull(cra.solve(mo, cstrs));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.Action;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.MappingFiller;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link CForbiddenInterval}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CForbiddenIntervalTest {
+
+    /**
+     * n1 is evacuated, nothing can happen on the VMs and n1 during [0, 3[.
+     */
+    @Test
+    public void testSimple() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2).run(n1, vm1, vm2);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Offline(Collections.singleton(n1)));
+        ForbiddenInterval c = new ForbiddenInterval(new HashSet<>(Arrays.asList(vm1, vm2)), Collections.singleton(n1), 0, 3);
+        cstrs.add(c);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 3);
+        Assert.assertTrue(c.isSatisfied(p));
+        for (Action a : p) {
+            Assert.assertTrue(a.getStart() >= 3, a.toString());
+        }
+    }
+}
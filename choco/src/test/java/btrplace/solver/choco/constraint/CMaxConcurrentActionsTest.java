@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.MappingFiller;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link CMaxConcurrentActions}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CMaxConcurrentActionsTest {
+
+    /**
+     * 3 VMs leave n1 one by one.
+     */
+    @Test
+    public void testOutgoing() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2, n3).run(n1, vm1, vm2, vm3);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Ban(new HashSet<>(Arrays.asList(vm1, vm2, vm3)), Collections.singleton(n1)));
+        MaxConcurrentActions c = new MaxConcurrentActions(Collections.singleton(n1), 3, 1);
+        cstrs.add(c);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 3);
+        Assert.assertEquals(p.getDuration(), 3);
+        Assert.assertTrue(c.isSatisfied(p));
+    }
+
+    /**
+     * 2 VMs are booted on n1 and another one migrates to n1.
+     */
+    @Test
+    public void testIncoming() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2).ready(vm1, vm2).run(n2, vm3);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Running(new HashSet<>(Arrays.asList(vm1, vm2))));
+        cstrs.add(new Fence(new HashSet<>(Arrays.asList(vm1, vm2, vm3)), Collections.singleton(n1)));
+        MaxConcurrentActions c = new MaxConcurrentActions(Collections.singleton(n1), 2, 2);
+        cstrs.add(c);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 3);
+        Assert.assertEquals(p.getDuration(), 2);
+        Assert.assertTrue(c.isSatisfied(p));
+    }
+
+    /**
+     * No action can reach n1.
+     */
+    @Test
+    public void testNoIncomingActions() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2).ready(vm1);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Running(Collections.singleton(vm1)));
+        cstrs.add(new Fence(Collections.singleton(vm1), Collections.singleton(n1)));
+        cstrs.add(new MaxConcurrentActions(Collections.singleton(n1), 0, 1));
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        Assert.assertNull(cra.solve(mo, cstrs));
+    }
+}
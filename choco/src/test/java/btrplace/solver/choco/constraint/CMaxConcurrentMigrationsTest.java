@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.MappingFiller;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link CMaxConcurrentMigrations}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CMaxConcurrentMigrationsTest {
+
+    /**
+     * 4 VMs on 4 different nodes must leave, 2 by 2.
+     */
+    @Test
+    public void testSimple() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        VM vm4 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        Node n4 = mo.newNode();
+        Node n5 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2, n3, n4, n5)
+                .run(n1, vm1).run(n2, vm2).run(n3, vm3).run(n4, vm4);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Fence(new HashSet<>(Arrays.asList(vm1, vm2, vm3, vm4)), Collections.singleton(n5)));
+        MaxConcurrentMigrations c = new MaxConcurrentMigrations(2);
+        cstrs.add(c);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 4);
+        Assert.assertEquals(p.getDuration(), 2);
+        Assert.assertTrue(c.isSatisfied(p));
+    }
+
+    /**
+     * No migration is allowed.
+     */
+    @Test
+    public void testNoMigrations() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2).run(n1, vm1);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Ban(Collections.singleton(vm1), Collections.singleton(n1)));
+        cstrs.add(new MaxConcurrentMigrations(0));
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        Assert.assertNull(cra.solve(mo, cstrs));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.DefaultModel;
+import btrplace.model.Model;
+import btrplace.model.VM;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link CachedActionDuration}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CachedActionDurationTest {
+
+    /**
+     * An evaluator that counts its calls.
+     */
+    private static class CountingDuration implements ActionDurationEvaluator<VM> {
+
+        private int nbCalls = 0;
+
+        @Override
+        public int evaluate(Model mo, VM e) {
+            nbCalls++;
+            return e.id() + 1;
+        }
+    }
+
+    @Test
+    public void testEvaluate() {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        CountingDuration parent = new CountingDuration();
+        CachedActionDuration<VM> ev = new CachedActionDuration<>(parent);
+        Assert.assertEquals(ev.getParent(), parent);
+        Assert.assertNotNull(ev.toString());
+
+        Assert.assertEquals(ev.evaluate(mo, vm1), vm1.id() + 1);
+        Assert.assertEquals(ev.evaluate(mo, vm2), vm2.id() + 1);
+        Assert.assertEquals(ev.evaluate(mo, vm1), vm1.id() + 1);
+        Assert.assertEquals(parent.nbCalls, 2);
+
+        //Another model resets the cache
+        Model mo2 = new DefaultModel();
+        Assert.assertEquals(ev.evaluate(mo2, vm1), vm1.id() + 1);
+        Assert.assertEquals(parent.nbCalls, 3);
+
+        ev.clear();
+        Assert.assertEquals(ev.evaluate(mo2, vm1), vm1.id() + 1);
+        Assert.assertEquals(parent.nbCalls, 4);
+    }
+
+    @Test
+    public void testCacheFailures() {
+        Model mo = new DefaultModel();
+        VM vm = mo.newVM();
+        CachedActionDuration<VM> ev = new CachedActionDuration<>(new ConstantActionDuration<VM>(-1));
+        Assert.assertEquals(ev.evaluate(mo, vm), -1);
+        Assert.assertEquals(ev.evaluate(mo, vm), -1);
+    }
+}
@@ -112,4 +112,21 @@ public class DurationEvaluatorsTest {
         d.register(btrplace.plan.event.MigrateVM.class, new ConstantActionDuration(-5));
         d.evaluate(mo, btrplace.plan.event.MigrateVM.class, vm1);
     }
+
+    @Test(dependsOnMethods = {"testInstantiateAndIsRegistered", "testUnregister", "testRegister"})
+    public void testBatchEvaluate() {
+        DurationEvaluators d = new DurationEvaluators();
+        Model m = new DefaultModel();
+        VM v1 = m.newVM();
+        VM v2 = m.newVM();
+        m.getAttributes().put(v2, "migrate", 5);
+        int[] ds = d.evaluate(m, MigrateVM.class, new VM[]{v1, v2});
+        Assert.assertEquals(ds.length, 2);
+        Assert.assertEquals(ds[0], 1);
+        Assert.assertEquals(ds[1], 5);
+
+        d.unregister(MigrateVM.class);
+        ds = d.evaluate(m, MigrateVM.class, new VM[]{v1, v2});
+        Assert.assertTrue(ds[0] < 0 && ds[1] < 0);
+    }
 }
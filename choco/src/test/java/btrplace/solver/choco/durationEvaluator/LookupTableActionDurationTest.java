@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.DefaultModel;
+import btrplace.model.Element;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.ShareableResource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link LookupTableActionDuration}.
+ *
+ * @author Fabien Hermenier
+ */
+public class LookupTableActionDurationTest {
+
+    @Test
+    public void testEvaluate() {
+        Model mo = new DefaultModel();
+        VM vm = mo.newVM();
+        Node n = mo.newNode();
+        ShareableResource rc = new ShareableResource("mem", 4096, 0);
+        mo.attach(rc);
+
+        LookupTableActionDuration<Element> d = new LookupTableActionDuration<>("mem");
+        Assert.assertEquals(d.getResourceId(), "mem");
+        Assert.assertNotNull(d.toString());
+        //Empty table
+        Assert.assertEquals(d.evaluate(mo, vm), -1);
+
+        d.put(1024, 10).put(2048, 16);
+        Assert.assertEquals(d.getTable().size(), 2);
+        rc.setConsumption(vm, 512);
+        Assert.assertEquals(d.evaluate(mo, vm), 10);
+        rc.setConsumption(vm, 1024);
+        Assert.assertEquals(d.evaluate(mo, vm), 10);
+        //Interpolation
+        rc.setConsumption(vm, 1536);
+        Assert.assertEquals(d.evaluate(mo, vm), 13);
+        rc.setConsumption(vm, 1100);
+        Assert.assertEquals(d.evaluate(mo, vm), 11);
+        //Extrapolation
+        rc.setConsumption(vm, 3072);
+        Assert.assertEquals(d.evaluate(mo, vm), 22);
+        //The capacity for a node
+        Assert.assertEquals(d.evaluate(mo, n), 28);
+
+        Assert.assertEquals(new LookupTableActionDuration<VM>("foo").put(1024, 10).evaluate(mo, vm), -1);
+        //A single entry
+        Assert.assertEquals(new LookupTableActionDuration<VM>("mem").put(1024, 7).evaluate(mo, vm), 7);
+        //The extrapolation gives at least 1
+        LookupTableActionDuration<VM> dec = new LookupTableActionDuration<VM>("mem").put(1024, 10).put(2048, 2);
+        Assert.assertEquals(dec.evaluate(mo, vm), 1);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testNullDuration() {
+        new LookupTableActionDuration<VM>("mem").put(1024, 0);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testNegativeAmount() {
+        new LookupTableActionDuration<VM>("mem").put(-1, 10);
+    }
+
+    @Test(expectedExceptions = {UnsupportedOperationException.class})
+    public void testUnmodifiableTable() {
+        new LookupTableActionDuration<VM>("mem").put(1024, 10).getTable().put(2048, 16);
+    }
+
+    @Test
+    public void testParse() {
+        LookupTableActionDuration<VM> d = LookupTableActionDuration.parse("mem", "2048=16, 1024=10");
+        Assert.assertEquals(d.getResourceId(), "mem");
+        Assert.assertEquals(d.getTable().size(), 2);
+        Assert.assertEquals(d.getTable().firstKey(), Integer.valueOf(1024));
+        Assert.assertEquals(d.getTable().get(2048), Integer.valueOf(16));
+        Assert.assertTrue(LookupTableActionDuration.parse("mem", "").getTable().isEmpty());
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testParseBadEntry() {
+        LookupTableActionDuration.parse("mem", "1024=10, 2048");
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testParseBadDuration() {
+        LookupTableActionDuration.parse("mem", "1024=-3");
+    }
+
+    @Test
+    public void testTableFromAttribute() {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        ShareableResource rc = new ShareableResource("mem", 4096, 1536);
+        mo.attach(rc);
+        LookupTableActionDuration<VM> d = new LookupTableActionDuration<VM>("mem", "migTable").put(1024, 10).put(2048, 16);
+        Assert.assertEquals(d.getAttributeKey(), "migTable");
+        mo.getAttributes().put(vm1, "migTable", "1024=4, 2048=8");
+        mo.getAttributes().put(vm2, "bootTable", "1024=1, 2048=2");
+        Assert.assertEquals(d.evaluate(mo, vm1), 6);
+        //The attribute of another evaluator is ignored
+        Assert.assertEquals(d.evaluate(mo, vm2), 13);
+        Assert.assertEquals(new LookupTableActionDuration<VM>("mem", "bootTable").evaluate(mo, vm2), 2);
+        Assert.assertNull(new LookupTableActionDuration<VM>("mem").getAttributeKey());
+        //An invalid table
+        mo.getAttributes().put(vm1, "migTable", "1024=4, foo");
+        Assert.assertEquals(d.evaluate(mo, vm1), -1);
+        //A table is updated when the attribute changes
+        mo.getAttributes().put(vm1, "migTable", "1024=2, 2048=4");
+        Assert.assertEquals(d.evaluate(mo, vm1), 3);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.DefaultModel;
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.Network;
+import btrplace.model.view.ShareableResource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link NetworkBasedMigrationDuration}.
+ *
+ * @author Fabien Hermenier
+ */
+public class NetworkBasedMigrationDurationTest {
+
+    @Test
+    public void testSimple() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n2);
+        map.addReadyVM(vm3);
+
+        NetworkBasedMigrationDuration d = new NetworkBasedMigrationDuration("mem");
+        Assert.assertEquals(d.getResourceId(), "mem");
+        //No view
+        Assert.assertEquals(d.evaluate(mo, vm1), -1);
+
+        ShareableResource mem = new ShareableResource("mem", 8192, 0);
+        mem.setConsumption(vm1, 2048);
+        mem.setConsumption(vm2, 2048);
+        mo.attach(mem);
+        Network net = new Network(1000);
+        net.setBandwidth(n2, 100);
+        mo.attach(net);
+
+        Assert.assertEquals(d.evaluate(mo, vm1), 3);
+        Assert.assertEquals(d.evaluate(mo, vm2), 21);
+        //Not running
+        Assert.assertEquals(d.evaluate(mo, vm3), -1);
+
+        net.setMaxMigrationBandwidth(512);
+        Assert.assertEquals(d.evaluate(mo, vm1), 4);
+
+        d.setResourceId("foo");
+        Assert.assertEquals(d.getResourceId(), "foo");
+        Assert.assertEquals(d.evaluate(mo, vm1), -1);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.DefaultModel;
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.view.Network;
+import btrplace.model.view.ShareableResource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link PreCopyMigrationDuration}.
+ *
+ * @author Fabien Hermenier
+ */
+public class PreCopyMigrationDurationTest {
+
+    @Test
+    public void testInstantiate() {
+        PreCopyMigrationDuration d = new PreCopyMigrationDuration("mem");
+        Assert.assertEquals(d.getResourceId(), "mem");
+        Assert.assertEquals(d.getMaxRounds(), PreCopyMigrationDuration.DEFAULT_MAX_ROUNDS);
+        Assert.assertEquals(d.getStopCopyThreshold(), 0);
+        Assert.assertNotNull(d.toString());
+
+        d = new PreCopyMigrationDuration("mem", 5, 100);
+        Assert.assertEquals(d.getMaxRounds(), 5);
+        Assert.assertEquals(d.getStopCopyThreshold(), 100);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadRounds() {
+        new PreCopyMigrationDuration("mem", 0, 100);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadStopCopy() {
+        new PreCopyMigrationDuration("mem", 5, -1);
+    }
+
+    @Test
+    public void testEvaluate() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        map.addOnlineNode(n1);
+        map.addRunningVM(vm1, n1);
+        map.addReadyVM(vm2);
+
+        PreCopyMigrationDuration d = new PreCopyMigrationDuration("mem", 30, 100);
+        //No views
+        Assert.assertEquals(d.evaluate(mo, vm1), -1);
+
+        ShareableResource mem = new ShareableResource("mem", 8192, 0);
+        mem.setConsumption(vm1, 1000);
+        mo.attach(mem);
+        mo.attach(new Network(100));
+
+        //Idle VM, a single copy
+        Assert.assertEquals(d.evaluate(mo, vm1), 10);
+        //Not running
+        Assert.assertEquals(d.evaluate(mo, vm2), -1);
+
+        //1000 -> 500 -> 250 -> 125 -> 62.5 (stop-and-copy): 19.375 sec.
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.DIRTY_RATE_ATTRIBUTE, 50.0);
+        Assert.assertEquals(d.evaluate(mo, vm1), 20);
+
+        //Integer rates are accepted
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.DIRTY_RATE_ATTRIBUTE, 50);
+        Assert.assertEquals(d.evaluate(mo, vm1), 20);
+
+        //The rounds are limited: 1000 -> 500 (stop-and-copy)
+        Assert.assertEquals(new PreCopyMigrationDuration("mem", 2, 100).evaluate(mo, vm1), 15);
+
+        //Memory dirtied faster than copied: one copy, then stop-and-copy of the whole memory
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.DIRTY_RATE_ATTRIBUTE, 200);
+        Assert.assertEquals(d.evaluate(mo, vm1), 20);
+
+        //Not a number
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.DIRTY_RATE_ATTRIBUTE, "foo");
+        Assert.assertEquals(d.evaluate(mo, vm1), -1);
+    }
+
+    @Test
+    public void testEvaluateFromAttributes() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addRunningVM(vm1, n1);
+        mo.getMapping().addRunningVM(vm2, n1);
+        ShareableResource mem = new ShareableResource("mem", 8192, 0);
+        mem.setConsumption(vm1, 1000);
+        mo.attach(mem);
+        mo.attach(new Network(100));
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.DIRTY_RATE_ATTRIBUTE, 50);
+
+        PreCopyMigrationDuration d = new PreCopyMigrationDuration("mem", 30, 100);
+        //The rounds are limited for this VM: 1000 -> 500 (stop-and-copy)
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.MAX_ROUNDS_ATTRIBUTE, 2);
+        Assert.assertEquals(d.evaluate(mo, vm1), 15);
+        //A higher threshold for this VM: 1000 -> 500 -> 250 (stop-and-copy)
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.MAX_ROUNDS_ATTRIBUTE, 30);
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.STOP_COPY_ATTRIBUTE, 300);
+        Assert.assertEquals(d.evaluate(mo, vm1), 18);
+        //Invalid values
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.STOP_COPY_ATTRIBUTE, "foo");
+        Assert.assertEquals(d.evaluate(mo, vm1), -1);
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.STOP_COPY_ATTRIBUTE, 300);
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.MAX_ROUNDS_ATTRIBUTE, 0);
+        Assert.assertEquals(d.evaluate(mo, vm1), -1);
+
+        //No memory to copy, still a positive duration
+        Assert.assertEquals(d.evaluate(mo, vm2), 1);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective;
+
+import btrplace.model.*;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.SolutionStatistics;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+/**
+ * Unit tests for {@link Consolidation}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ConsolidationTest {
+
+    @Test
+    public void testLowerBound() {
+        Assert.assertEquals(Consolidation.lowerBound(0, new int[]{5, 5}), 0);
+        Assert.assertEquals(Consolidation.lowerBound(7, new int[]{2, 5, 3}), 2);
+        Assert.assertEquals(Consolidation.lowerBound(10, new int[]{2, 5, 3}), 3);
+        Assert.assertEquals(Consolidation.lowerBound(11, new int[]{2, 5, 3}), 4);
+    }
+
+    @Test
+    public void testGets() {
+        Consolidation c = new Consolidation(3, 1);
+        Assert.assertEquals(c.getNodeCost(), 3);
+        Assert.assertEquals(c.getMigrationCost(), 1);
+        Assert.assertEquals(c.getObjectives().size(), 2);
+        Assert.assertEquals(new Consolidation().getObjectives().size(), 1);
+    }
+
+    @Test
+    public void testBadNodeCost() {
+        try {
+            new Consolidation(0, 1);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertTrue(ex.getMessage().contains("node cost"), ex.getMessage());
+        }
+    }
+
+    /**
+     * 4 nodes with a capacity of 4, 4 VMs consuming 2 units each.
+     * The nodes can be reduced to 2.
+     */
+    @Test
+    public void testConsolidate() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        ShareableResource rc = new ShareableResource("cpu", 4, 2);
+        for (int i = 0; i < 4; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            map.addRunningVM(mo.newVM(), n);
+        }
+        mo.attach(rc);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        Consolidation c = new Consolidation(10, 1);
+        cra.setObjective(c);
+        cra.doOptimize(true);
+        ReconfigurationPlan p = cra.solve(mo, Collections.<SatConstraint>emptyList());
+        Assert.assertNotNull(p);
+        Assert.assertEquals(c.getOnlineNodesLowerBound(), 2);
+        Assert.assertEquals(p.getResult().getMapping().getOnlineNodes().size(), 2);
+        //No solution can go below the bound on the cost
+        for (SolutionStatistics sol : cra.getSolvingStatistics().getSolutions()) {
+            Assert.assertTrue(sol.getOptValue() >= 10 * c.getOnlineNodesLowerBound());
+        }
+        //2 migrations, 2 shutdowns
+        Assert.assertEquals(p.getSize(), 4);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective;
+
+import btrplace.model.*;
+import btrplace.model.constraint.Fence;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultReconfigurationProblemBuilder;
+import btrplace.solver.choco.ReconfigurationProblem;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link MinCostObjective} and its implementations.
+ *
+ * @author Fabien Hermenier
+ */
+public class MinCostObjectiveTest {
+
+    /**
+     * 3 nodes, 1 VM on each. The capacity allows to put every VM on one node.
+     */
+    private Model makeModel() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        ShareableResource mem = new ShareableResource("mem", 6, 2);
+        for (int i = 0; i < 3; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            map.addRunningVM(mo.newVM(), n);
+        }
+        mo.attach(mem);
+        return mo;
+    }
+
+    private ReconfigurationPlan solve(Model mo, MinCostObjective o, Collection<SatConstraint> cstrs) throws SolverException {
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.setObjective(o);
+        cra.doOptimize(true);
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        return p;
+    }
+
+    @Test
+    public void testMinMigrations() throws SolverException {
+        Model mo = makeModel();
+        Node n0 = mo.getMapping().getAllNodes().iterator().next();
+        VM vm = mo.getMapping().getRunningVMs(n0).iterator().next();
+        Set<Node> others = new HashSet<>(mo.getMapping().getOnlineNodes());
+        others.remove(n0);
+        ReconfigurationPlan p = solve(mo, new MinMigrations(),
+                Collections.<SatConstraint>singleton(new Fence(Collections.singleton(vm), others)));
+        Assert.assertEquals(p.getSize(), 1);
+    }
+
+    @Test
+    public void testMinMigratedMemory() throws SolverException {
+        Model mo = makeModel();
+        ReconfigurationPlan p = solve(mo, new MinMigratedMemory(), Collections.<SatConstraint>emptyList());
+        Assert.assertEquals(p.getSize(), 0);
+    }
+
+    @Test(expectedExceptions = {SolverException.class})
+    public void testMinMigratedMemoryWithoutResource() throws SolverException {
+        solve(makeModel(), new MinMigratedMemory("foo"), Collections.<SatConstraint>emptyList());
+    }
+
+    @Test
+    public void testMinOnlineNodes() throws SolverException {
+        Model mo = makeModel();
+        MinOnlineNodes o = new MinOnlineNodes();
+        Assert.assertEquals(o.getMisPlacedVMs(mo), mo.getMapping().getRunningVMs());
+        ReconfigurationPlan p = solve(mo, o, Collections.<SatConstraint>emptyList());
+        Assert.assertEquals(p.getResult().getMapping().getOnlineNodes().size(), 1);
+    }
+
+    @Test
+    public void testLexicographicWeights() throws SolverException {
+        Model mo = new DefaultModel();
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        IntDomainVar c1 = rp.getSolver().createBoundIntVar("c1", 0, 5);
+        IntDomainVar c2 = rp.getSolver().createBoundIntVar("c2", 0, 9);
+        IntDomainVar c3 = rp.getSolver().createBoundIntVar("c3", 0, 3);
+        LexicographicObjective o = new LexicographicObjective();
+        int[] ws = o.makeWeights(rp, new IntDomainVar[]{c1, c2, c3});
+        Assert.assertEquals(ws, new int[]{40, 4, 1});
+    }
+
+    @Test
+    public void testWeightedSum() throws SolverException {
+        WeightedSumObjective o = new WeightedSumObjective();
+        MinMigrations mig = new MinMigrations();
+        MinOnlineNodes nodes = new MinOnlineNodes();
+        o.add(nodes, 10).add(mig, 1);
+        Assert.assertEquals(o.getObjectives(), Arrays.asList(nodes, mig));
+        Assert.assertEquals(o.getWeights(), Arrays.asList(10, 1));
+        Model mo = makeModel();
+        Assert.assertEquals(o.getMisPlacedVMs(mo), mo.getMapping().getRunningVMs());
+        ReconfigurationPlan p = solve(mo, o, Collections.<SatConstraint>emptyList());
+        Assert.assertEquals(p.getResult().getMapping().getOnlineNodes().size(), 1);
+        Assert.assertEquals(p.getSize(), 4);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadWeight() {
+        new WeightedSumObjective().add(new MinMakespan(), 0);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.objective.minMTTR;
+
+import btrplace.model.*;
+import btrplace.model.constraint.Ban;
+import btrplace.model.constraint.Running;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ResourceFitVMPlacement}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ResourceFitVMPlacementTest {
+
+    /**
+     * Boot a VM on a model having a node already half-filled and an empty node.
+     *
+     * @return the node hosting the VM
+     */
+    private Node solve(ResourceFitVMPlacement.Policy p) throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addRunningVM(vm1, n1);
+        map.addReadyVM(vm2);
+        ShareableResource rc = new ShareableResource("cpu", 10, 0);
+        rc.setConsumption(vm1, 7);
+        rc.setConsumption(vm2, 3);
+        mo.attach(rc);
+
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        MinMTTR obj = new MinMTTR();
+        obj.setPlacementPolicy(p);
+        Assert.assertEquals(obj.getPlacementPolicy(), p);
+        cra.setObjective(obj);
+        ReconfigurationPlan plan = cra.solve(mo, Collections.<SatConstraint>singleton(new Running(Collections.singleton(vm2))));
+        Assert.assertNotNull(plan);
+        return plan.getResult().getMapping().getVMLocation(vm2);
+    }
+
+    @Test
+    public void testBestFit() throws SolverException {
+        Node n = solve(ResourceFitVMPlacement.Policy.BEST_FIT);
+        //The node that is already hosting 7 units
+        Assert.assertEquals(n.id(), 0);
+    }
+
+    @Test
+    public void testWorstFit() throws SolverException {
+        Node n = solve(ResourceFitVMPlacement.Policy.WORST_FIT);
+        //The empty node
+        Assert.assertEquals(n.id(), 1);
+    }
+
+    /**
+     * Boot a VM demanding 4 cpu and 1 mem on 3 nodes having a capacity of 10 for both resources.
+     * The free resources are (8, 2) for n1, (5, 10) for n2 and (4, 1) for n3.
+     * The dot-product scores are then 0.34, 0.30 and 0.17 while the best fit and the
+     * worst fit policies select n3 and n2, respectively.
+     *
+     * @param p      the policy to use
+     * @param banned the nodes that cannot host the VM
+     * @return the node hosting the VM
+     */
+    private Node solveMultiResources(ResourceFitVMPlacement.Policy p, int... banned) throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        ShareableResource cpu = new ShareableResource("cpu", 10, 0);
+        ShareableResource mem = new ShareableResource("mem", 10, 0);
+        int[][] used = {{2, 8}, {5, 0}, {6, 9}};
+        Node[] ns = new Node[used.length];
+        for (int i = 0; i < used.length; i++) {
+            ns[i] = mo.newNode();
+            map.addOnlineNode(ns[i]);
+            VM v = mo.newVM();
+            map.addRunningVM(v, ns[i]);
+            cpu.setConsumption(v, used[i][0]);
+            mem.setConsumption(v, used[i][1]);
+        }
+        VM vm = mo.newVM();
+        map.addReadyVM(vm);
+        cpu.setConsumption(vm, 4);
+        mem.setConsumption(vm, 1);
+        mo.attach(cpu);
+        mo.attach(mem);
+
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Running(Collections.singleton(vm)));
+        for (int b : banned) {
+            cstrs.add(new Ban(Collections.singleton(vm), Collections.singleton(ns[b])));
+        }
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        MinMTTR obj = new MinMTTR();
+        obj.setPlacementPolicy(p);
+        cra.setObjective(obj);
+        ReconfigurationPlan plan = cra.solve(mo, cstrs);
+        Assert.assertNotNull(plan);
+        return plan.getResult().getMapping().getVMLocation(vm);
+    }
+
+    @Test
+    public void testDotProduct() throws SolverException {
+        //The candidates are tried in the descending order of their score: n1, n2, n3
+        Assert.assertEquals(solveMultiResources(ResourceFitVMPlacement.Policy.DOT_PRODUCT).id(), 0);
+        Assert.assertEquals(solveMultiResources(ResourceFitVMPlacement.Policy.DOT_PRODUCT, 0).id(), 1);
+        Assert.assertEquals(solveMultiResources(ResourceFitVMPlacement.Policy.DOT_PRODUCT, 0, 1).id(), 2);
+
+        //The other policies disagree
+        Assert.assertEquals(solveMultiResources(ResourceFitVMPlacement.Policy.BEST_FIT).id(), 2);
+        Assert.assertEquals(solveMultiResources(ResourceFitVMPlacement.Policy.WORST_FIT).id(), 1);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.view;
+
+import btrplace.model.*;
+import btrplace.model.constraint.Ban;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.model.view.Network;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.Action;
+import btrplace.plan.event.MigrateVM;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.durationEvaluator.NetworkBasedMigrationDuration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link CNetwork}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CNetworkTest {
+
+    /**
+     * Make a model with 2 VMs on n1 that must leave it.
+     * Each VM has 2000 units of memory.
+     */
+    private Model makeModel(Network net, List<SatConstraint> cstrs) {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addOnlineNode(n3);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n1);
+        ShareableResource mem = new ShareableResource("mem", 8000, 0);
+        mem.setConsumption(vm1, 2000);
+        mem.setConsumption(vm2, 2000);
+        mo.attach(mem);
+        net.addSwitch("rack1", 10000);
+        net.addSwitch("rack2", 1000);
+        net.connect(n1, "rack1");
+        net.connect(n2, "rack1");
+        net.connect(n3, "rack2");
+        mo.attach(net);
+        cstrs.add(new Ban(new HashSet<>(Arrays.asList(vm1, vm2)), Collections.singleton(n1)));
+        return mo;
+    }
+
+    private ReconfigurationPlan solve(Model mo, List<SatConstraint> cstrs) throws SolverException {
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.getDurationEvaluators().register(MigrateVM.class, new NetworkBasedMigrationDuration("mem"));
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 2);
+        return p;
+    }
+
+    /**
+     * The NIC of the source node cannot sustain two migrations at the same time.
+     */
+    @Test
+    public void testNICContention() throws SolverException {
+        List<SatConstraint> cstrs = new ArrayList<>();
+        Model mo = makeModel(new Network(1000), cstrs);
+        ReconfigurationPlan p = solve(mo, cstrs);
+        Iterator<Action> ite = p.iterator();
+        Action a1 = ite.next();
+        Action a2 = ite.next();
+        Assert.assertEquals(a1.getEnd() - a1.getStart(), 2);
+        Assert.assertTrue(a1.getEnd() <= a2.getStart() || a2.getEnd() <= a1.getStart(), p.toString());
+        Assert.assertEquals(p.getDuration(), 4);
+    }
+
+    /**
+     * The migrations are bounded so two migrations can occur at the same time on a NIC.
+     */
+    @Test
+    public void testBoundedMigrations() throws SolverException {
+        List<SatConstraint> cstrs = new ArrayList<>();
+        Network net = new Network(1000);
+        net.setMaxMigrationBandwidth(500);
+        Model mo = makeModel(net, cstrs);
+        ReconfigurationPlan p = solve(mo, cstrs);
+        Assert.assertEquals(p.getDuration(), 4);
+        for (Action a : p) {
+            Assert.assertEquals(a.getEnd() - a.getStart(), 4);
+        }
+    }
+
+    /**
+     * The VMs must go to the other rack, through an uplink that
+     * cannot sustain two migrations at the same time.
+     */
+    @Test
+    public void testUplinkContention() throws SolverException {
+        List<SatConstraint> cstrs = new ArrayList<>();
+        Network net = new Network(10000);
+        net.setMaxMigrationBandwidth(1000);
+        Model mo = makeModel(net, cstrs);
+        for (Node n : mo.getMapping().getAllNodes()) {
+            if (n.id() == 1) {
+                cstrs.add(new Ban(mo.getMapping().getAllVMs(), Collections.singleton(n)));
+            }
+        }
+        ReconfigurationPlan p = solve(mo, cstrs);
+        Iterator<Action> ite = p.iterator();
+        Action a1 = ite.next();
+        Action a2 = ite.next();
+        Assert.assertTrue(a1.getEnd() <= a2.getStart() || a2.getEnd() <= a1.getStart(), p.toString());
+    }
+}
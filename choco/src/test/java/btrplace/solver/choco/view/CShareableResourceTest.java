@@ -90,6 +90,38 @@ public class CShareableResourceTest {
 
     }
 
+    @Test
+    public void testOverbookRatios() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addOnlineNode(n2);
+        ShareableResource rc = new ShareableResource("foo", 10, 0);
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        CShareableResource rcm = new CShareableResource(rp, rc);
+        int i1 = rp.getNode(n1);
+        int i2 = rp.getNode(n2);
+        //No overbooking by default
+        Assert.assertEquals(rcm.getOverbookRatio(i1), CShareableResource.RATIO_PRECISION);
+        Assert.assertEquals(rcm.getVirtualCapacity(i1), 10);
+
+        //The smallest ratio is kept, and truncated
+        Assert.assertTrue(rcm.capOverbookRatio(i1, 2));
+        Assert.assertTrue(rcm.capOverbookRatio(i1, 1.55));
+        Assert.assertTrue(rcm.capOverbookRatio(i1, 3));
+        Assert.assertEquals(rcm.getOverbookRatio(i1), 1550);
+        Assert.assertEquals(rcm.getVirtualCapacity(i1), 15);
+        Assert.assertFalse(rcm.capOverbookRatio(i1, 0.5));
+        Assert.assertEquals(rcm.getOverbookRatio(i2), CShareableResource.RATIO_PRECISION);
+
+        //No per-mille lost to the floating-point representation
+        Assert.assertTrue(rcm.capOverbookRatio(i2, 2.01));
+        Assert.assertEquals(rcm.getOverbookRatio(i2), 2010);
+        Assert.assertTrue(rcm.capOverbookRatio(i2, 1.0005));
+        Assert.assertEquals(rcm.getOverbookRatio(i2), 1000);
+    }
+
     /**
      * Place some VMs and check realNodeUsage is updated accordingly
      */
@@ -19,6 +19,7 @@ package btrplace.solver.choco.view;
 
 import btrplace.model.VM;
 import btrplace.model.view.ModelView;
+import btrplace.model.view.Network;
 import btrplace.model.view.ShareableResource;
 import btrplace.plan.ReconfigurationPlan;
 import btrplace.solver.SolverException;
@@ -39,6 +40,8 @@ public class ModelViewMapperTest {
         ModelViewMapper map = new ModelViewMapper();
         Assert.assertTrue(map.isRegistered(ShareableResource.class));
         Assert.assertTrue(map.getBuilder(ShareableResource.class) instanceof CShareableResource.Builder);
+        Assert.assertTrue(map.isRegistered(Network.class));
+        Assert.assertTrue(map.getBuilder(Network.class) instanceof CNetwork.Builder);
     }
 
     @Test(dependsOnMethods = {"testInstantiate"})
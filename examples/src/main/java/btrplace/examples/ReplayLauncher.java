@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.examples;
+
+import btrplace.json.replay.ReconfigurationAlgorithmFactory;
+import btrplace.json.replay.Replay;
+import btrplace.json.replay.ReplayReport;
+import btrplace.solver.ReconfigurationAlgorithm;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.greedy.GreedyReconfigurationAlgorithm;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A command line tool to replay a directory of serialized instances
+ * using a {@link ChocoReconfigurationAlgorithm} and to print the resulting report.
+ * <p/>
+ * Usage: {@code ReplayLauncher [-w workers] [-t timeout] [-c checkerParallelism] [-o] [-r] [-f] directory}
+ * <ul>
+ * <li>{@code -w}: the number of instances to solve simultaneously. Default is 1</li>
+ * <li>{@code -t}: the solving time limit in seconds. Default is no limit</li>
+ * <li>{@code -c}: the number of threads used by the plan checker of the algorithm. Default is 1</li>
+ * <li>{@code -o}: to ask the algorithm to optimize its solutions</li>
+ * <li>{@code -r}: to ask the algorithm to use the repair mode</li>
+ * <li>{@code -f}: to fall back on a {@link GreedyReconfigurationAlgorithm} when the time limit is reached</li>
+ * </ul>
+ *
+ * @author Fabien Hermenier
+ * @see Replay
+ */
+public class ReplayLauncher {
+
+    private static void usage(String msg) {
+        if (msg != null) {
+            System.err.println(msg);
+        }
+        System.err.println("Usage: ReplayLauncher [-w workers] [-t timeout] [-c checkerParallelism] [-o] [-r] [-f] directory");
+        System.exit(1);
+    }
+
+    /**
+     * Launch the replay.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int nbWorkers = 1;
+        int timeout = -1;
+        int checkers = 1;
+        boolean optimize = false;
+        boolean repair = false;
+        boolean greedy = false;
+        File dir = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-w":
+                        nbWorkers = Integer.parseInt(args[++i]);
+                        break;
+                    case "-t":
+                        timeout = Integer.parseInt(args[++i]);
+                        break;
+                    case "-c":
+                        checkers = Integer.parseInt(args[++i]);
+                        break;
+                    case "-o":
+                        optimize = true;
+                        break;
+                    case "-r":
+                        repair = true;
+                        break;
+                    case "-f":
+                        greedy = true;
+                        break;
+                    default:
+                        if (dir != null) {
+                            usage("Unexpected argument '" + args[i] + "'");
+                        }
+                        dir = new File(args[i]);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+            usage("Invalid option value: " + ex.getMessage());
+        }
+        if (dir == null) {
+            usage("Expecting a directory of instances as a parameter");
+        }
+        if (checkers <= 0) {
+            usage("The checker parallelism must be strictly positive");
+        }
+
+        final int t = timeout;
+        final int c = checkers;
+        final boolean o = optimize;
+        final boolean r = repair;
+        final boolean f = greedy;
+        Replay replay = new Replay(new ReconfigurationAlgorithmFactory() {
+            @Override
+            public ReconfigurationAlgorithm build() {
+                ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+                cra.setTimeLimit(t);
+                cra.setCheckerParallelism(c);
+                cra.doOptimize(o);
+                cra.doRepair(r);
+                if (f) {
+                    cra.setFallback(new GreedyReconfigurationAlgorithm());
+                }
+                return cra;
+            }
+        });
+        try {
+            replay.setNbWorkers(nbWorkers);
+            ReplayReport report = replay.replay(dir);
+            System.out.println(report);
+        } catch (IllegalArgumentException | IOException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -51,16 +51,21 @@ public class SatConstraintsConverter extends AbstractJSONObjectConverter<SatCons
         register(new BanConverter());
         register(new CumulatedResourceCapacityConverter());
         register(new CumulatedRunningCapacityConverter());
+        register(new DeadlineConverter());
         register(new FenceConverter());
+        register(new ForbiddenIntervalConverter());
         register(new GatherConverter());
         register(new KilledConverter());
         register(new LonelyConverter());
+        register(new MaxConcurrentActionsConverter());
+        register(new MaxConcurrentMigrationsConverter());
         register(new OfflineConverter());
         register(new OnlineConverter());
         register(new OverbookConverter());
         register(new PreserveConverter());
         register(new QuarantineConverter());
         register(new ReadyConverter());
+        register(new ReleaseTimeConverter());
         register(new RootConverter());
         register(new RunningConverter());
         register(new SequentialVMTransitionsConverter());
@@ -48,6 +48,7 @@ public class ModelViewsConverter extends AbstractJSONObjectConverter<ModelView>
 
         //The default converters
         register(new ShareableResourceConverter());
+        register(new NetworkConverter());
     }
 
     /**
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.json.model.view;
+
+import btrplace.json.JSONConverterException;
+import btrplace.model.Node;
+import btrplace.model.view.Network;
+import net.minidev.json.JSONObject;
+
+/**
+ * Serialize/Un-serialize a {@link btrplace.model.view.Network}.
+ *
+ * @author Fabien Hermenier
+ */
+public class NetworkConverter extends ModelViewConverter<Network> {
+
+    /**
+     * JSON label for the default NIC bandwidth.
+     */
+    public static final String DEFAULT_BANDWIDTH = "defBandwidth";
+
+    /**
+     * JSON label for the maximum bandwidth allotted to a migration.
+     */
+    public static final String MAX_MIGRATION_BANDWIDTH = "maxMigrationBandwidth";
+
+    @Override
+    public Class<Network> getSupportedConstraint() {
+        return Network.class;
+    }
+
+    @Override
+    public String getJSONId() {
+        return "network";
+    }
+
+    @Override
+    public JSONObject toJSON(Network net) {
+        JSONObject o = new JSONObject();
+        o.put("id", getJSONId());
+        o.put(DEFAULT_BANDWIDTH, net.getDefaultBandwidth());
+        o.put(MAX_MIGRATION_BANDWIDTH, net.getMaxMigrationBandwidth());
+
+        JSONObject nodes = new JSONObject();
+        for (Node n : net.getDefinedNodes()) {
+            nodes.put(Integer.toString(n.id()), net.getBandwidth(n));
+        }
+        o.put("nodes", nodes);
+
+        JSONObject switches = new JSONObject();
+        for (String id : net.getSwitches()) {
+            JSONObject sw = new JSONObject();
+            sw.put("bandwidth", net.getSwitchBandwidth(id));
+            sw.put("nodes", nodesToJSON(net.getConnectedNodes(id)));
+            switches.put(id, sw);
+        }
+        o.put("switches", switches);
+        return o;
+    }
+
+    @Override
+    public Network fromJSON(JSONObject o) throws JSONConverterException {
+        if (!o.containsKey("id") || !getJSONId().equals(o.get("id").toString())) {
+            return null;
+        }
+        Network net = new Network(requiredInt(o, DEFAULT_BANDWIDTH));
+        net.setMaxMigrationBandwidth(requiredInt(o, MAX_MIGRATION_BANDWIDTH));
+        if (!(o.get("nodes") instanceof JSONObject) || !(o.get("switches") instanceof JSONObject)) {
+            throw new JSONConverterException("JSON objects expected for keys 'nodes' and 'switches'");
+        }
+        JSONObject nodes = (JSONObject) o.get("nodes");
+        for (String k : nodes.keySet()) {
+            net.setBandwidth(getOrMakeNode(Integer.parseInt(k)), requiredInt(nodes, k));
+        }
+        JSONObject switches = (JSONObject) o.get("switches");
+        for (String id : switches.keySet()) {
+            if (!(switches.get(id) instanceof JSONObject)) {
+                throw new JSONConverterException("JSON object expected for switch '" + id + "'");
+            }
+            JSONObject sw = (JSONObject) switches.get(id);
+            net.addSwitch(id, requiredInt(sw, "bandwidth"));
+            for (Node n : requiredNodes(sw, "nodes")) {
+                net.connect(n, id);
+            }
+        }
+        return net;
+    }
+}
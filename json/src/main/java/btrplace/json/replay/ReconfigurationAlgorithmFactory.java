@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.json.replay;
+
+import btrplace.solver.ReconfigurationAlgorithm;
+
+/**
+ * A factory to make the algorithms used by a {@link Replay}.
+ * A fresh algorithm is asked for each instance so the algorithms
+ * are never shared between the workers.
+ *
+ * @author Fabien Hermenier
+ */
+public interface ReconfigurationAlgorithmFactory {
+
+    /**
+     * Make a new algorithm.
+     *
+     * @return a configured algorithm
+     */
+    ReconfigurationAlgorithm build();
+}
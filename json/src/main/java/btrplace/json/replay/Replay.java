@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.json.replay;
+
+import btrplace.json.JSONConverterException;
+import btrplace.json.model.InstanceConverter;
+import btrplace.model.Instance;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlanChecker;
+import btrplace.plan.ReconfigurationPlanCheckerException;
+import btrplace.solver.ReconfigurationAlgorithm;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A harness to replay serialized {@link Instance}s against a reconfiguration algorithm.
+ * <p/>
+ * Each instance is read using an {@link InstanceConverter}, then solved
+ * by a fresh algorithm made by a {@link ReconfigurationAlgorithmFactory}.
+ * The computed plans are validated using a {@link ReconfigurationPlanChecker}
+ * with the constraints of the instance. The instances are replayed by a pool of workers
+ * and each worker only reads the instance it is solving, so the whole
+ * workload is never loaded in memory.
+ * <p/>
+ * A failure while replaying an instance, including an unexpected runtime exception,
+ * is reported as an {@link ReplayResult.Status#ERROR} for that instance and does not
+ * stop the replay of the others.
+ *
+ * @author Fabien Hermenier
+ */
+public class Replay {
+
+    /**
+     * The suffixes of the files to replay.
+     * Plain JSON files and gzipped JSON files are supported.
+     */
+    public static final String[] SUFFIXES = {".json", ".json.gz"};
+
+    private ReconfigurationAlgorithmFactory factory;
+
+    private int nbWorkers;
+
+    /**
+     * Make a new harness.
+     * The instances are replayed one at a time.
+     *
+     * @param f the factory to make the algorithms
+     */
+    public Replay(ReconfigurationAlgorithmFactory f) {
+        this.factory = f;
+        this.nbWorkers = 1;
+    }
+
+    /**
+     * Set the number of instances that are replayed simultaneously.
+     *
+     * @param n a number strictly positive
+     */
+    public void setNbWorkers(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("The number of workers must be strictly positive. Got " + n);
+        }
+        nbWorkers = n;
+    }
+
+    /**
+     * Get the number of instances that are replayed simultaneously.
+     *
+     * @return a number strictly positive
+     */
+    public int getNbWorkers() {
+        return nbWorkers;
+    }
+
+    /**
+     * Replay all the instances stored in a directory.
+     * The files are replayed in the lexicographic order of their names.
+     *
+     * @param dir the directory to browse
+     * @return the resulting report
+     * @throws IOException if the directory cannot be read
+     */
+    public ReplayReport replay(File dir) throws IOException {
+        File[] files = dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isFile() && isReplayable(f);
+            }
+        });
+        if (files == null) {
+            throw new IOException("Unable to list the content of '" + dir + "'");
+        }
+        Arrays.sort(files);
+        return replay(Arrays.asList(files));
+    }
+
+    /**
+     * Replay instances stored in files.
+     * The results are reported in the order of the files.
+     * If the calling thread is interrupted, the replay stops, its interrupted status
+     * is restored, and the returned report is marked as partial.
+     *
+     * @param files the files to replay
+     * @return the resulting report
+     * @see ReplayReport#isPartial()
+     */
+    public ReplayReport replay(List<File> files) {
+        List<Callable<ReplayResult>> tasks = new ArrayList<>(files.size());
+        for (final File f : files) {
+            tasks.add(new Callable<ReplayResult>() {
+                @Override
+                public ReplayResult call() {
+                    return replayFile(f);
+                }
+            });
+        }
+
+        ReplayReport report = new ReplayReport();
+        ExecutorService exe = Executors.newFixedThreadPool(nbWorkers);
+        try {
+            List<Future<ReplayResult>> results = exe.invokeAll(tasks);
+            for (int k = 0; k < results.size(); k++) {
+                try {
+                    report.add(results.get(k).get());
+                } catch (ExecutionException ex) {
+                    report.add(new ReplayResult(files.get(k).getName(), ReplayResult.Status.ERROR, 0, -1, -1, String.valueOf(ex.getCause())));
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            report.setPartial(true);
+        } finally {
+            exe.shutdownNow();
+        }
+        return report;
+    }
+
+    /**
+     * Replay an instance stored in a file.
+     *
+     * @param f the file to read
+     * @return the result
+     */
+    public ReplayResult replayFile(File f) {
+        Instance i;
+        try {
+            i = read(f);
+        } catch (IOException | JSONConverterException | RuntimeException ex) {
+            return new ReplayResult(f.getName(), ReplayResult.Status.ERROR, 0, -1, -1, "Unable to read the instance: " + ex.getMessage());
+        }
+        return replay(f.getName(), i);
+    }
+
+    /**
+     * Replay an instance.
+     *
+     * @param name the instance name
+     * @param i    the instance to solve
+     * @return the result
+     */
+    public ReplayResult replay(String name, Instance i) {
+        long st = System.nanoTime();
+        try {
+            return solve(name, i, st);
+        } catch (RuntimeException ex) {
+            return new ReplayResult(name, ReplayResult.Status.ERROR, elapsed(st), -1, -1, ex.toString());
+        }
+    }
+
+    private ReplayResult solve(String name, Instance i, long st) {
+        ReconfigurationAlgorithm algo = factory.build();
+        ReconfigurationPlan p;
+        try {
+            p = algo.solve(i.getModel(), i.getConstraints());
+        } catch (Exception ex) {
+            return new ReplayResult(name, ReplayResult.Status.ERROR, elapsed(st), -1, -1, ex.getMessage());
+        }
+        long latency = elapsed(st);
+        if (p == null) {
+            return new ReplayResult(name, ReplayResult.Status.NO_SOLUTION, latency, -1, -1, null);
+        }
+        ReconfigurationPlanChecker chk = new ReconfigurationPlanChecker();
+        for (SatConstraint c : i.getConstraints()) {
+            chk.addChecker(c.getChecker());
+        }
+        try {
+            chk.check(p);
+        } catch (ReconfigurationPlanCheckerException ex) {
+            return new ReplayResult(name, ReplayResult.Status.INVALID, latency, p.getDuration(), p.getSize(), ex.toString());
+        }
+        return new ReplayResult(name, ReplayResult.Status.SOLVED, latency, p.getDuration(), p.getSize(), null);
+    }
+
+    private static long elapsed(long st) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - st);
+    }
+
+    private static boolean isReplayable(File f) {
+        for (String s : SUFFIXES) {
+            if (f.getName().endsWith(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Instance read(File f) throws IOException, JSONConverterException {
+        try (InputStream in = new FileInputStream(f)) {
+            InputStream s = f.getName().endsWith(".gz") ? new GZIPInputStream(in) : in;
+            return new InstanceConverter().fromJSON(new BufferedReader(new InputStreamReader(s, "UTF-8")));
+        }
+    }
+}
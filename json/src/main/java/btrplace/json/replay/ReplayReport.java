@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.json.replay;
+
+import java.util.*;
+
+/**
+ * Aggregate the results of a replay.
+ * <p/>
+ * The latencies are computed over all the replayed instances while the plan
+ * durations are only computed over the solved ones. The percentiles are computed
+ * using the nearest-rank method.
+ *
+ * @author Fabien Hermenier
+ */
+public class ReplayReport {
+
+    private List<ReplayResult> results;
+
+    private boolean partial;
+
+    /**
+     * Make a new empty report.
+     */
+    public ReplayReport() {
+        results = new ArrayList<>();
+    }
+
+    /**
+     * Add a result.
+     *
+     * @param r the result to add
+     */
+    public void add(ReplayResult r) {
+        results.add(r);
+    }
+
+    /**
+     * Get all the results, in their insertion order.
+     *
+     * @return a list of results, may be empty
+     */
+    public List<ReplayResult> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Indicate whether the replay was stopped before all the instances were replayed.
+     *
+     * @param b {@code true} if the replay is partial
+     */
+    public void setPartial(boolean b) {
+        partial = b;
+    }
+
+    /**
+     * Check whether the replay was stopped before all the instances were replayed.
+     * In that case, the results only cover a part of the instances.
+     *
+     * @return {@code true} if the replay is partial
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Get the number of replayed instances.
+     *
+     * @return a positive number
+     */
+    public int getNbInstances() {
+        return results.size();
+    }
+
+    /**
+     * Get the number of replayed instances having a given outcome.
+     *
+     * @param st the outcome
+     * @return a positive number
+     */
+    public int getNbInstances(ReplayResult.Status st) {
+        int nb = 0;
+        for (ReplayResult r : results) {
+            if (r.getStatus() == st) {
+                nb++;
+            }
+        }
+        return nb;
+    }
+
+    /**
+     * Get the ratio of instances that were not solved.
+     *
+     * @return a ratio between 0 and 1. {@code 0} if there is no result
+     */
+    public double getFailureRate() {
+        if (results.isEmpty()) {
+            return 0;
+        }
+        return 1 - (double) getNbInstances(ReplayResult.Status.SOLVED) / results.size();
+    }
+
+    /**
+     * Get a percentile of the solving latencies.
+     *
+     * @param p the percentile, between 0 and 100
+     * @return a latency in milliseconds. {@code -1} if there is no result
+     */
+    public long getLatencyPercentile(double p) {
+        long[] values = new long[results.size()];
+        int i = 0;
+        for (ReplayResult r : results) {
+            values[i++] = r.getLatency();
+        }
+        return percentile(values, p);
+    }
+
+    /**
+     * Get a percentile of the durations of the computed plans.
+     *
+     * @param p the percentile, between 0 and 100
+     * @return a duration. {@code -1} if no instance was solved
+     */
+    public long getPlanDurationPercentile(double p) {
+        long[] values = new long[getNbInstances(ReplayResult.Status.SOLVED)];
+        int i = 0;
+        for (ReplayResult r : results) {
+            if (r.getStatus() == ReplayResult.Status.SOLVED) {
+                values[i++] = r.getPlanDuration();
+            }
+        }
+        return percentile(values, p);
+    }
+
+    private static long percentile(long[] values, double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100. Got " + p);
+        }
+        if (values.length == 0) {
+            return -1;
+        }
+        Arrays.sort(values);
+        int rank = (int) Math.ceil(p / 100 * values.length);
+        return values[Math.max(0, rank - 1)];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append("instances: ").append(getNbInstances());
+        if (partial) {
+            b.append(" (partial)");
+        }
+        for (ReplayResult.Status st : ReplayResult.Status.values()) {
+            b.append(", ").append(st.name().toLowerCase()).append(": ").append(getNbInstances(st));
+        }
+        b.append(String.format("%nfailure rate: %.2f%%", getFailureRate() * 100));
+        b.append(String.format("%nlatency (ms): p50=%d, p90=%d, p99=%d, max=%d",
+                getLatencyPercentile(50), getLatencyPercentile(90), getLatencyPercentile(99), getLatencyPercentile(100)));
+        b.append(String.format("%nplan duration: p50=%d, p90=%d, p99=%d, max=%d",
+                getPlanDurationPercentile(50), getPlanDurationPercentile(90), getPlanDurationPercentile(99), getPlanDurationPercentile(100)));
+        for (ReplayResult r : results) {
+            if (r.getStatus() != ReplayResult.Status.SOLVED) {
+                b.append(String.format("%n")).append(r);
+            }
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.json.replay;
+
+/**
+ * The outcome of the replay of a single instance.
+ *
+ * @author Fabien Hermenier
+ */
+public class ReplayResult {
+
+    /**
+     * The possible outcomes.
+     */
+    public static enum Status {
+        /**
+         * A valid plan has been computed.
+         */
+        SOLVED,
+        /**
+         * The algorithm stated there is no solution.
+         */
+        NO_SOLUTION,
+        /**
+         * The computed plan does not satisfy the constraints.
+         */
+        INVALID,
+        /**
+         * The instance cannot be read or the algorithm failed.
+         */
+        ERROR
+    }
+
+    private String name;
+
+    private Status status;
+
+    private long latency;
+
+    private int duration;
+
+    private int nbActions;
+
+    private String message;
+
+    /**
+     * Make a new result.
+     *
+     * @param name      the instance name
+     * @param st        the outcome
+     * @param latency   the solving duration in milliseconds
+     * @param duration  the duration of the computed plan. {@code -1} if there is no plan
+     * @param nbActions the number of actions in the computed plan. {@code -1} if there is no plan
+     * @param msg       a message explaining the failure. {@code null} if there is no failure
+     */
+    public ReplayResult(String name, Status st, long latency, int duration, int nbActions, String msg) {
+        this.name = name;
+        this.status = st;
+        this.latency = latency;
+        this.duration = duration;
+        this.nbActions = nbActions;
+        this.message = msg;
+    }
+
+    /**
+     * Get the instance name.
+     *
+     * @return a name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the outcome.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the time spent in solving the instance.
+     *
+     * @return a duration in milliseconds
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * Get the duration of the computed plan.
+     *
+     * @return a positive duration. {@code -1} if there is no plan
+     */
+    public int getPlanDuration() {
+        return duration;
+    }
+
+    /**
+     * Get the number of actions in the computed plan.
+     *
+     * @return a positive number. {@code -1} if there is no plan
+     */
+    public int getNbActions() {
+        return nbActions;
+    }
+
+    /**
+     * Get the message explaining the failure.
+     *
+     * @return a message. {@code null} if there is no failure
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append(name).append(": ").append(status).append(" in ").append(latency).append(" ms");
+        if (duration >= 0) {
+            b.append(", ").append(nbActions).append(" action(s), duration: ").append(duration);
+        }
+        if (message != null) {
+            b.append(" (").append(message).append(')');
+        }
+        return b.toString();
+    }
+}
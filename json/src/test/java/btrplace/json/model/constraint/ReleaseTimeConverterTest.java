@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.json.model.constraint;
+
+import btrplace.json.JSONConverterException;
+import btrplace.model.DefaultModel;
+import btrplace.model.Model;
+import btrplace.model.constraint.ReleaseTime;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Unit tests for {@link btrplace.model.constraint.ReleaseTime}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ReleaseTimeConverterTest {
+
+    @Test
+    public void testViables() throws JSONConverterException, IOException {
+        Model mo = new DefaultModel();
+        ReleaseTimeConverter conv = new ReleaseTimeConverter();
+        conv.setModel(mo);
+        ReleaseTime d = new ReleaseTime(new HashSet<>(Arrays.asList(mo.newVM(), mo.newVM())),
+                new HashSet<>(Arrays.asList(mo.newNode(), mo.newNode(), mo.newNode())), 10);
+        Assert.assertEquals(conv.fromJSON(conv.toJSONString(d)), d);
+    }
+}
@@ -92,6 +92,7 @@ public class ModelViewsConverterTest {
         Assert.assertNull(c.register(new MockModelViewConverter()));
         Assert.assertTrue(c.getSupportedJavaViews().contains(MockModelView.class));
         Assert.assertTrue(c.getSupportedJSONViews().contains("mockView"));
+        Assert.assertTrue(c.getSupportedJSONViews().contains("network"));
     }
 
     @Test(dependsOnMethods = {"testRegister"})
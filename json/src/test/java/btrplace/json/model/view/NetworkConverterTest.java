@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.json.model.view;
+
+import btrplace.json.JSONConverterException;
+import btrplace.model.DefaultModel;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.view.Network;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link NetworkConverter}.
+ *
+ * @author Fabien Hermenier
+ */
+public class NetworkConverterTest {
+
+    @Test
+    public void testSimple() throws JSONConverterException, IOException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        Network net = new Network(1000);
+        net.setBandwidth(n1, 10000);
+        net.setMaxMigrationBandwidth(500);
+        net.addSwitch("rack1", 4000);
+        net.addSwitch("rack2", 2000);
+        net.connect(n1, "rack1");
+        net.connect(n2, "rack1");
+        net.connect(n3, "rack2");
+        NetworkConverter c = new NetworkConverter();
+        c.setModel(mo);
+        Network net2 = c.fromJSON(c.toJSONString(net));
+        Assert.assertEquals(net2, net);
+    }
+
+    @Test(expectedExceptions = {JSONConverterException.class})
+    public void testMissingBandwidth() throws JSONConverterException, IOException {
+        NetworkConverter c = new NetworkConverter();
+        c.setModel(new DefaultModel());
+        c.fromJSON("{\"id\":\"network\",\"maxMigrationBandwidth\":0,\"nodes\":{},\"switches\":{}}");
+    }
+}
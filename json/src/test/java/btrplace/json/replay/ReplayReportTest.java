@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.json.replay;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link ReplayReport}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ReplayReportTest {
+
+    @Test
+    public void testEmpty() {
+        ReplayReport r = new ReplayReport();
+        Assert.assertEquals(r.getNbInstances(), 0);
+        Assert.assertEquals(r.getFailureRate(), 0.0);
+        Assert.assertEquals(r.getLatencyPercentile(50), -1);
+        Assert.assertEquals(r.getPlanDurationPercentile(50), -1);
+        Assert.assertFalse(r.toString().isEmpty());
+        Assert.assertFalse(r.isPartial());
+        r.setPartial(true);
+        Assert.assertTrue(r.isPartial());
+        Assert.assertTrue(r.toString().contains("partial"));
+    }
+
+    @Test
+    public void testAggregation() {
+        ReplayReport r = new ReplayReport();
+        for (int i = 1; i <= 8; i++) {
+            r.add(new ReplayResult("i" + i, ReplayResult.Status.SOLVED, i * 10, i, i, null));
+        }
+        r.add(new ReplayResult("n", ReplayResult.Status.NO_SOLUTION, 100, -1, -1, null));
+        r.add(new ReplayResult("e", ReplayResult.Status.ERROR, 0, -1, -1, "boom"));
+        Assert.assertEquals(r.getNbInstances(), 10);
+        Assert.assertEquals(r.getNbInstances(ReplayResult.Status.SOLVED), 8);
+        Assert.assertEquals(r.getNbInstances(ReplayResult.Status.INVALID), 0);
+        Assert.assertEquals(r.getFailureRate(), 0.2, 0.0001);
+
+        //Latencies: 0, 10, 20, ..., 80, 100
+        Assert.assertEquals(r.getLatencyPercentile(0), 0);
+        Assert.assertEquals(r.getLatencyPercentile(50), 40);
+        Assert.assertEquals(r.getLatencyPercentile(90), 80);
+        Assert.assertEquals(r.getLatencyPercentile(100), 100);
+
+        //Durations of the solved instances only: 1..8
+        Assert.assertEquals(r.getPlanDurationPercentile(50), 4);
+        Assert.assertEquals(r.getPlanDurationPercentile(100), 8);
+        Assert.assertTrue(r.toString().contains("boom"));
+        Assert.assertEquals(r.getResults().size(), 10);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadPercentile() {
+        new ReplayReport().getLatencyPercentile(101);
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.json.replay;
+
+import btrplace.json.JSONConverterException;
+import btrplace.json.model.InstanceConverter;
+import btrplace.model.*;
+import btrplace.model.constraint.Running;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.plan.DefaultReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.ReconfigurationAlgorithm;
+import btrplace.solver.SolverException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Unit tests for {@link Replay}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ReplayTest {
+
+    /**
+     * An algorithm that never moves anything.
+     * It states there is no solution when there is no constraint
+     * and fails when there is no node.
+     */
+    private static ReconfigurationAlgorithmFactory factory = new ReconfigurationAlgorithmFactory() {
+        @Override
+        public ReconfigurationAlgorithm build() {
+            return new ReconfigurationAlgorithm() {
+                @Override
+                public ReconfigurationPlan solve(Model mo, Collection<SatConstraint> cstrs) throws SolverException {
+                    if (mo.getMapping().getAllNodes().isEmpty()) {
+                        throw new SolverException(mo, "No nodes");
+                    }
+                    if (cstrs.isEmpty()) {
+                        return null;
+                    }
+                    return new DefaultReconfigurationPlan(mo);
+                }
+            };
+        }
+    };
+
+    /**
+     * Make an instance with a running VM and a ready VM.
+     *
+     * @param running {@code true} to ask for the running VM to be running, {@code false} for the ready one
+     */
+    private static Instance makeInstance(boolean running) {
+        Model mo = new DefaultModel();
+        Node n = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        mo.getMapping().addOnlineNode(n);
+        mo.getMapping().addRunningVM(vm1, n);
+        mo.getMapping().addReadyVM(vm2);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Running(Collections.singleton(running ? vm1 : vm2)));
+        return new Instance(mo, cstrs);
+    }
+
+    @Test
+    public void testReplayInstance() {
+        Replay r = new Replay(factory);
+        ReplayResult res = r.replay("foo", makeInstance(true));
+        Assert.assertEquals(res.getName(), "foo");
+        Assert.assertEquals(res.getStatus(), ReplayResult.Status.SOLVED);
+        Assert.assertEquals(res.getPlanDuration(), 0);
+        Assert.assertEquals(res.getNbActions(), 0);
+        Assert.assertNull(res.getMessage());
+
+        res = r.replay("bar", makeInstance(false));
+        Assert.assertEquals(res.getStatus(), ReplayResult.Status.INVALID);
+        Assert.assertNotNull(res.getMessage());
+
+        res = r.replay("baz", new Instance(new DefaultModel(), new ArrayList<SatConstraint>()));
+        Assert.assertEquals(res.getStatus(), ReplayResult.Status.ERROR);
+        Assert.assertEquals(res.getMessage(), "No nodes");
+        Assert.assertEquals(res.getPlanDuration(), -1);
+
+        Instance i = makeInstance(true);
+        res = r.replay("bar", new Instance(i.getModel(), new ArrayList<SatConstraint>()));
+        Assert.assertEquals(res.getStatus(), ReplayResult.Status.NO_SOLUTION);
+    }
+
+    @Test
+    public void testReplayDirectory() throws IOException, JSONConverterException {
+        File dir = Files.createTempDirectory("replay").toFile();
+        InstanceConverter conv = new InstanceConverter();
+        conv.toJSON(makeInstance(true), new File(dir, "a.json"));
+        try (Writer w = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(new File(dir, "b.json.gz"))), "UTF-8")) {
+            conv.toJSON(makeInstance(false), w);
+        }
+        try (Writer w = new FileWriter(new File(dir, "c.json"))) {
+            w.write("{ not json");
+        }
+        conv.toJSON(makeInstance(true), new File(dir, "d.txt"));
+        conv.toJSON(makeInstance(true), new File(dir, "e.json"));
+
+        try {
+            Replay r = new Replay(factory);
+            r.setNbWorkers(3);
+            Assert.assertEquals(r.getNbWorkers(), 3);
+            ReplayReport rep = r.replay(dir);
+            Assert.assertEquals(rep.getNbInstances(), 4);
+            List<ReplayResult> res = rep.getResults();
+            Assert.assertEquals(res.get(0).getName(), "a.json");
+            Assert.assertEquals(res.get(0).getStatus(), ReplayResult.Status.SOLVED);
+            Assert.assertEquals(res.get(1).getName(), "b.json.gz");
+            Assert.assertEquals(res.get(1).getStatus(), ReplayResult.Status.INVALID);
+            Assert.assertEquals(res.get(2).getName(), "c.json");
+            Assert.assertEquals(res.get(2).getStatus(), ReplayResult.Status.ERROR);
+            Assert.assertEquals(res.get(3).getName(), "e.json");
+            Assert.assertEquals(res.get(3).getStatus(), ReplayResult.Status.SOLVED);
+            Assert.assertEquals(rep.getFailureRate(), 0.5);
+        } finally {
+            for (File f : dir.listFiles()) {
+                Assert.assertTrue(f.delete());
+            }
+            Assert.assertTrue(dir.delete());
+        }
+    }
+
+    /**
+     * Write instances in a fresh directory.
+     *
+     * @param nb the number of instances to write
+     * @return the written files
+     */
+    private static List<File> writeInstances(int nb) throws IOException, JSONConverterException {
+        File dir = Files.createTempDirectory("replay").toFile();
+        dir.deleteOnExit();
+        InstanceConverter conv = new InstanceConverter();
+        List<File> files = new ArrayList<>();
+        for (int k = 0; k < nb; k++) {
+            File f = new File(dir, k + ".json");
+            f.deleteOnExit();
+            conv.toJSON(makeInstance(true), f);
+            files.add(f);
+        }
+        return files;
+    }
+
+    @Test
+    public void testReplayWithRuntimeException() throws IOException, JSONConverterException {
+        final int[] nbCalls = {0};
+        Replay r = new Replay(new ReconfigurationAlgorithmFactory() {
+            @Override
+            public ReconfigurationAlgorithm build() {
+                return new ReconfigurationAlgorithm() {
+                    @Override
+                    public ReconfigurationPlan solve(Model mo, Collection<SatConstraint> cstrs) {
+                        if (nbCalls[0]++ == 1) {
+                            throw new UnsupportedOperationException("boom");
+                        }
+                        return new DefaultReconfigurationPlan(mo);
+                    }
+                };
+            }
+        });
+        ReplayReport rep = r.replay(writeInstances(3));
+        Assert.assertFalse(rep.isPartial());
+        Assert.assertEquals(rep.getNbInstances(), 3);
+        List<ReplayResult> res = rep.getResults();
+        Assert.assertEquals(res.get(0).getStatus(), ReplayResult.Status.SOLVED);
+        Assert.assertEquals(res.get(1).getStatus(), ReplayResult.Status.ERROR);
+        Assert.assertTrue(res.get(1).getMessage().contains("boom"));
+        Assert.assertEquals(res.get(2).getStatus(), ReplayResult.Status.SOLVED);
+    }
+
+    @Test
+    public void testInterruptedReplay() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final Replay r = new Replay(new ReconfigurationAlgorithmFactory() {
+            @Override
+            public ReconfigurationAlgorithm build() {
+                return new ReconfigurationAlgorithm() {
+                    @Override
+                    public ReconfigurationPlan solve(Model mo, Collection<SatConstraint> cstrs) throws SolverException {
+                        started.countDown();
+                        try {
+                            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                        } catch (InterruptedException ex) {
+                            throw new SolverException(mo, "Interrupted");
+                        }
+                        return new DefaultReconfigurationPlan(mo);
+                    }
+                };
+            }
+        });
+        final List<File> files = writeInstances(2);
+        final ReplayReport[] rep = new ReplayReport[1];
+        final boolean[] interrupted = {false};
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                rep[0] = r.replay(files);
+                interrupted[0] = Thread.currentThread().isInterrupted();
+            }
+        });
+        t.start();
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        t.interrupt();
+        t.join(10000);
+        Assert.assertFalse(t.isAlive());
+        Assert.assertTrue(interrupted[0]);
+        Assert.assertTrue(rep[0].isPartial());
+        Assert.assertTrue(rep[0].getNbInstances() < 2);
+    }
+
+    @Test(expectedExceptions = {IOException.class})
+    public void testReplayMissingDirectory() throws IOException {
+        new Replay(factory).replay(new File("/foo/bar/baz"));
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadNbWorkers() {
+        new Replay(factory).setNbWorkers(0);
+    }
+}